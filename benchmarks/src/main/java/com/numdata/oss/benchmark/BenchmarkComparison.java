@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2003-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.benchmark;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+import org.json.*;
+
+/**
+ * Compares two JMH result files in JSON format (as written using {@code -rf
+ * json}), e.g. the results of two versions of the library. For each benchmark
+ * present in both files, the scores are listed along with the relative
+ * change. A change is reported as a regression or improvement only if it
+ * exceeds both the given threshold and the combined error margins of the two
+ * results.
+ *
+ * <p>Usage: {@code BenchmarkComparison <baseline.json> <current.json>
+ * [<threshold %>]}; the exit status is {@code 1} if any regression was found.
+ *
+ * @author Peter S. Heijnen
+ */
+public class BenchmarkComparison
+{
+	/**
+	 * Default threshold for reporting changes, in percent.
+	 */
+	private static final double DEFAULT_THRESHOLD = 5.0;
+
+	/**
+	 * Result of a single benchmark.
+	 */
+	static class Result
+	{
+		/**
+		 * Benchmark name, including parameters.
+		 */
+		final String _name;
+
+		/**
+		 * Benchmark mode, e.g. 'avgt' or 'thrpt'.
+		 */
+		final String _mode;
+
+		/**
+		 * Score.
+		 */
+		final double _score;
+
+		/**
+		 * Score error (99.9% confidence interval); {@code NaN} if unknown.
+		 */
+		final double _scoreError;
+
+		/**
+		 * Score unit.
+		 */
+		final String _scoreUnit;
+
+		/**
+		 * Constructs result from a JMH result object.
+		 *
+		 * @param object JMH result object.
+		 */
+		Result( @NotNull final JSONObject object )
+		{
+			final StringBuilder name = new StringBuilder( object.getString( "benchmark" ) );
+			final JSONObject params = object.optJSONObject( "params" );
+			if ( params != null )
+			{
+				final List<String> keys = new ArrayList<String>( params.keySet() );
+				Collections.sort( keys );
+
+				String separator = " [";
+				for ( final String key : keys )
+				{
+					name.append( separator ).append( key ).append( '=' ).append( params.get( key ) );
+					separator = ", ";
+				}
+				name.append( ']' );
+			}
+
+			final JSONObject primaryMetric = object.getJSONObject( "primaryMetric" );
+			_name = name.toString();
+			_mode = object.getString( "mode" );
+			_score = primaryMetric.getDouble( "score" );
+			_scoreError = primaryMetric.optDouble( "scoreError", Double.NaN );
+			_scoreUnit = primaryMetric.getString( "scoreUnit" );
+		}
+
+		/**
+		 * Returns whether a higher score is better for this result.
+		 *
+		 * @return {@code true} if a higher score is better.
+		 */
+		boolean isHigherBetter()
+		{
+			return "thrpt".equals( _mode );
+		}
+
+		/**
+		 * Returns the score error, using {@code 0} if the error is unknown.
+		 *
+		 * @return Score error.
+		 */
+		double getError()
+		{
+			return Double.isNaN( _scoreError ) ? 0.0 : _scoreError;
+		}
+	}
+
+	/**
+	 * Run application.
+	 *
+	 * @param args Command-line arguments.
+	 *
+	 * @throws IOException if a result file can't be read.
+	 */
+	public static void main( final String[] args )
+	throws IOException
+	{
+		if ( ( args.length < 2 ) || ( args.length > 3 ) )
+		{
+			System.err.println( "Required arguments: <baseline.json> <current.json> [<threshold %>]" );
+			System.exit( 2 );
+		}
+
+		final Map<String, Result> baseline = readResults( new File( args[ 0 ] ) );
+		final Map<String, Result> current = readResults( new File( args[ 1 ] ) );
+		final double threshold = ( args.length > 2 ) ? Double.parseDouble( args[ 2 ] ) : DEFAULT_THRESHOLD;
+
+		final int regressions = compare( System.out, baseline, current, threshold );
+		if ( regressions > 0 )
+		{
+			System.exit( 1 );
+		}
+	}
+
+	/**
+	 * Reads benchmark results from a JMH result file in JSON format.
+	 *
+	 * @param file File to read.
+	 *
+	 * @return Results mapped by name (including parameters).
+	 *
+	 * @throws IOException if the file can't be read.
+	 */
+	@NotNull
+	static Map<String, Result> readResults( @NotNull final File file )
+	throws IOException
+	{
+		final JSONArray array;
+		try ( final Reader reader = new InputStreamReader( new FileInputStream( file ), StandardCharsets.UTF_8 ) )
+		{
+			array = new JSONArray( new JSONTokener( reader ) );
+		}
+
+		final Map<String, Result> result = new LinkedHashMap<String, Result>();
+		for ( int i = 0; i < array.length(); i++ )
+		{
+			final Result benchmarkResult = new Result( array.getJSONObject( i ) );
+			result.put( benchmarkResult._name, benchmarkResult );
+		}
+		return result;
+	}
+
+	/**
+	 * Compares two sets of benchmark results and prints a report.
+	 *
+	 * @param out       Stream to print report to.
+	 * @param baseline  Baseline results.
+	 * @param current   Current results.
+	 * @param threshold Minimum change to report, in percent.
+	 *
+	 * @return Number of regressions found.
+	 */
+	static int compare( @NotNull final PrintStream out, @NotNull final Map<String, Result> baseline, @NotNull final Map<String, Result> current, final double threshold )
+	{
+		int regressions = 0;
+
+		out.printf( Locale.US, "%-70s %6s %14s %14s %9s  %s%n", "Benchmark", "Mode", "Baseline", "Current", "Change", "Units" );
+		for ( final Result currentResult : current.values() )
+		{
+			final Result baselineResult = baseline.get( currentResult._name );
+			if ( baselineResult == null )
+			{
+				out.printf( Locale.US, "%-70s %6s %14s %14.3f %9s  %s%n", currentResult._name, currentResult._mode, "-", currentResult._score, "new", currentResult._scoreUnit );
+			}
+			else if ( !baselineResult._mode.equals( currentResult._mode ) || !baselineResult._scoreUnit.equals( currentResult._scoreUnit ) )
+			{
+				out.printf( Locale.US, "%-70s %6s %14s %14s %9s  %s%n", currentResult._name, currentResult._mode, "-", "-", "n/a", baselineResult._scoreUnit + " vs " + currentResult._scoreUnit );
+			}
+			else
+			{
+				final double difference = currentResult._score - baselineResult._score;
+				final double change = ( baselineResult._score != 0.0 ) ? 100.0 * difference / baselineResult._score : 0.0;
+
+				String verdict = "";
+				if ( ( Math.abs( change ) >= threshold ) && ( Math.abs( difference ) > baselineResult.getError() + currentResult.getError() ) )
+				{
+					if ( ( difference > 0.0 ) == currentResult.isHigherBetter() )
+					{
+						verdict = "  improvement";
+					}
+					else
+					{
+						verdict = "  REGRESSION";
+						regressions++;
+					}
+				}
+
+				out.printf( Locale.US, "%-70s %6s %14.3f %14.3f %+8.1f%%  %s%s%n", currentResult._name, currentResult._mode, baselineResult._score, currentResult._score, change, currentResult._scoreUnit, verdict );
+			}
+		}
+
+		for ( final Result baselineResult : baseline.values() )
+		{
+			if ( !current.containsKey( baselineResult._name ) )
+			{
+				out.printf( Locale.US, "%-70s %6s %14.3f %14s %9s  %s%n", baselineResult._name, baselineResult._mode, baselineResult._score, "-", "removed", baselineResult._scoreUnit );
+			}
+		}
+
+		out.println();
+		out.println( regressions + " regression(s) found." );
+		return regressions;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2003-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.benchmark;
+
+import java.util.concurrent.*;
+
+import com.numdata.oss.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks {@link BigRational} arithmetic for small operands (that fit in a
+ * {@code long}) and large operands (that require {@code BigInteger}).
+ *
+ * @author Peter S. Heijnen
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class BigRationalBenchmark
+{
+	/**
+	 * Magnitude of the operands.
+	 */
+	@Param( { "small", "large" } )
+	public String operands;
+
+	/**
+	 * Left operand.
+	 */
+	private BigRational _left;
+
+	/**
+	 * Right operand.
+	 */
+	private BigRational _right;
+
+	/**
+	 * Creates the operands.
+	 */
+	@Setup
+	public void setUp()
+	{
+		if ( "small".equals( operands ) )
+		{
+			_left = new BigRational( 355L, 113L );
+			_right = new BigRational( -22L, 7L );
+		}
+		else
+		{
+			_left = new BigRational( "314159265358979323846264338327950288419716939937510/100000000000000000000000000000000000000000000000000" );
+			_right = new BigRational( "-271828182845904523536028747135266249775724709369995/99999999999999999999999999999999999999999999999999" );
+		}
+	}
+
+	/**
+	 * Adds the operands.
+	 *
+	 * @return Sum.
+	 */
+	@Benchmark
+	public BigRational add()
+	{
+		return _left.add( _right );
+	}
+
+	/**
+	 * Multiplies the operands.
+	 *
+	 * @return Product.
+	 */
+	@Benchmark
+	public BigRational multiply()
+	{
+		return _left.multiply( _right );
+	}
+
+	/**
+	 * Divides the operands.
+	 *
+	 * @return Quotient.
+	 */
+	@Benchmark
+	public BigRational divide()
+	{
+		return _left.divide( _right );
+	}
+
+	/**
+	 * Compares the operands.
+	 *
+	 * @return Comparison result.
+	 */
+	@Benchmark
+	public int compareTo()
+	{
+		return _left.compareTo( _right );
+	}
+
+	/**
+	 * Formats the left operand as a decimal number.
+	 *
+	 * @return Formatted number.
+	 */
+	@Benchmark
+	public String toStringDot()
+	{
+		return _left.toStringDot( 10 );
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2003-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.benchmark;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.numdata.oss.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+/**
+ * Benchmarks parsing of CSV data by {@link CSVParser}, both line-based and
+ * streamed through a {@link CSVReader}.
+ *
+ * @author Peter S. Heijnen
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class CSVParserBenchmark
+{
+	/**
+	 * Number of rows of CSV data.
+	 */
+	@Param( { "1000" } )
+	public int rowCount;
+
+	/**
+	 * Parser to benchmark.
+	 */
+	private final CSVParser _parser = new CSVParser();
+
+	/**
+	 * CSV data as separate lines.
+	 */
+	private List<String> _lines;
+
+	/**
+	 * CSV data as a single string.
+	 */
+	private String _text;
+
+	/**
+	 * Generates CSV data with a mix of plain and quoted values.
+	 */
+	@Setup
+	public void setUp()
+	{
+		final List<String> lines = new ArrayList<String>( rowCount );
+		final StringBuilder text = new StringBuilder();
+
+		for ( int i = 0; i < rowCount; i++ )
+		{
+			final String line = i + ",product " + i + ",\"description, with \"\"quotes\"\" " + i + "\"," + ( i * 0.25 ) + ",,2020-01-" + ( 1 + i % 28 );
+			lines.add( line );
+			text.append( line ).append( "\r\n" );
+		}
+
+		_lines = lines;
+		_text = text.toString();
+	}
+
+	/**
+	 * Parses separate lines.
+	 *
+	 * @return Rows of CSV data.
+	 */
+	@Benchmark
+	public List<List<String>> parseLines()
+	{
+		return _parser.parseLines( _lines );
+	}
+
+	/**
+	 * Reads all rows into lists.
+	 *
+	 * @return Rows of CSV data.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Benchmark
+	public List<List<String>> readAll()
+	throws IOException
+	{
+		return _parser.readAll( new StringReader( _text ) );
+	}
+
+	/**
+	 * Streams all rows through a handler without keeping values.
+	 *
+	 * @param blackhole Consumes fields.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Benchmark
+	public void readAllStreaming( final Blackhole blackhole )
+	throws IOException
+	{
+		_parser.readAll( new StringReader( _text ), row ->
+		{
+			final int fieldCount = row.getFieldCount();
+			for ( int i = 0; i < fieldCount; i++ )
+			{
+				blackhole.consume( row.getField( i ).length() );
+			}
+		} );
+	}
+}
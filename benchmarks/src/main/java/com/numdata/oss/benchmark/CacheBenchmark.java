@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2003-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.benchmark;
+
+import java.util.concurrent.*;
+
+import com.numdata.oss.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks lookups and updates of {@link Cache}, both unbounded and with a
+ * maximum weight that forces evictions.
+ *
+ * @author Peter S. Heijnen
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class CacheBenchmark
+{
+	/**
+	 * Number of entries in the cache.
+	 */
+	@Param( { "100", "10000" } )
+	public int size;
+
+	/**
+	 * Keys, boxed in advance, twice as many as there are entries in the cache.
+	 */
+	private Integer[] _keys;
+
+	/**
+	 * Cache without bounds containing the first {@link #size} keys.
+	 */
+	private Cache<Integer, String> _cache;
+
+	/**
+	 * Cache bounded to half of {@link #size} entries.
+	 */
+	private Cache<Integer, String> _boundedCache;
+
+	/**
+	 * Index of next key to use.
+	 */
+	private int _index = 0;
+
+	/**
+	 * Creates and fills the caches.
+	 */
+	@Setup
+	public void setUp()
+	{
+		final Integer[] keys = new Integer[ 2 * size ];
+		for ( int i = 0; i < keys.length; i++ )
+		{
+			keys[ i ] = i;
+		}
+
+		final Cache<Integer, String> cache = new Cache<Integer, String>();
+		for ( int i = 0; i < size; i++ )
+		{
+			cache.put( keys[ i ], String.valueOf( i ) );
+		}
+
+		final Cache<Integer, String> boundedCache = new Cache<Integer, String>();
+		boundedCache.setMaximumWeight( (long)( size / 2 ), ( key, value ) -> 1 );
+
+		_keys = keys;
+		_cache = cache;
+		_boundedCache = boundedCache;
+	}
+
+	/**
+	 * Looks up a key that is in the cache.
+	 *
+	 * @return Cached value.
+	 */
+	@Benchmark
+	public String getHit()
+	{
+		final int index = _index;
+		_index = ( index + 1 ) % size;
+		return _cache.get( _keys[ index ] );
+	}
+
+	/**
+	 * Looks up a key that is not in the cache.
+	 *
+	 * @return Cached value ({@code null}).
+	 */
+	@Benchmark
+	public String getMiss()
+	{
+		final int index = _index;
+		_index = ( index + 1 ) % size;
+		return _cache.get( _keys[ size + index ] );
+	}
+
+	/**
+	 * Looks up a key that is in the cache using a loader.
+	 *
+	 * @return Cached value.
+	 */
+	@Benchmark
+	public String getOrLoadHit()
+	{
+		final int index = _index;
+		_index = ( index + 1 ) % size;
+		return _cache.getOrLoad( _keys[ index ], String::valueOf );
+	}
+
+	/**
+	 * Loads values into a bounded cache, cycling through more keys than fit,
+	 * so that entries are evicted.
+	 *
+	 * @return Cached value.
+	 */
+	@Benchmark
+	public String getOrLoadBounded()
+	{
+		final Integer[] keys = _keys;
+		final int index = _index;
+		_index = ( index + 1 ) % keys.length;
+		return _boundedCache.getOrLoad( keys[ index ], String::valueOf );
+	}
+}
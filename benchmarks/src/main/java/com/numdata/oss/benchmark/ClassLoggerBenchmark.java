@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2003-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.benchmark;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import com.numdata.oss.log.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+/**
+ * Benchmarks {@link ClassLogger} for both disabled log levels (the common case
+ * that must be nearly free) and enabled log levels with a target that discards
+ * the messages.
+ *
+ * @author Peter S. Heijnen
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class ClassLoggerBenchmark
+{
+	/**
+	 * Log target that only counts messages, with {@link ClassLogger#INFO} as
+	 * highest enabled level.
+	 */
+	private static class CountingLogTarget
+	implements LogTarget
+	{
+		/**
+		 * Number of messages logged.
+		 */
+		private final LongAdder _count = new LongAdder();
+
+		@Override
+		public boolean isLevelEnabled( final String name, final int level )
+		{
+			return level <= ClassLogger.INFO;
+		}
+
+		@Override
+		public void log( final String name, final int level, final String message, final Throwable throwable, final String threadName )
+		{
+			_count.increment();
+		}
+	}
+
+	/**
+	 * Logger to benchmark.
+	 */
+	private ClassLogger _log;
+
+	/**
+	 * Log targets that were registered before the benchmark.
+	 */
+	private List<LogTarget> _previousTargets;
+
+	/**
+	 * Value used in log messages.
+	 */
+	private int _value = 42;
+
+	/**
+	 * Throwable used in log messages.
+	 */
+	private final Throwable _throwable = new Exception( "benchmark" );
+
+	/**
+	 * Installs the counting log target.
+	 */
+	@Setup
+	public void setUp()
+	{
+		_previousTargets = new ArrayList<LogTarget>( ClassLogger.getLogTargets() );
+		ClassLogger.removeAllLogTargets();
+		ClassLogger.addTarget( new CountingLogTarget() );
+		_log = ClassLogger.getFor( ClassLoggerBenchmark.class );
+	}
+
+	/**
+	 * Restores the original log targets.
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		ClassLogger.removeAllLogTargets();
+		for ( final LogTarget target : _previousTargets )
+		{
+			ClassLogger.addTarget( target );
+		}
+	}
+
+	/**
+	 * Checks a disabled level before building the message.
+	 *
+	 * @param blackhole Consumes the result.
+	 */
+	@Benchmark
+	public void disabledGuarded( final Blackhole blackhole )
+	{
+		final ClassLogger log = _log;
+		if ( log.isDebugEnabled() )
+		{
+			log.debug( "value = " + _value );
+		}
+		blackhole.consume( log );
+	}
+
+	/**
+	 * Logs at a disabled level using a message supplier.
+	 */
+	@Benchmark
+	public void disabledSupplier()
+	{
+		_log.debug( () -> "value = " + _value );
+	}
+
+	/**
+	 * Logs at a disabled level with an eagerly built message.
+	 */
+	@Benchmark
+	public void disabledString()
+	{
+		_log.debug( "value = " + _value );
+	}
+
+	/**
+	 * Logs at an enabled level.
+	 */
+	@Benchmark
+	public void enabledString()
+	{
+		_log.info( "value = " + _value );
+	}
+
+	/**
+	 * Logs at an enabled level with a throwable.
+	 */
+	@Benchmark
+	public void enabledWithThrowable()
+	{
+		_log.warn( "value = " + _value, _throwable );
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2003-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.benchmark;
+
+import java.sql.*;
+import java.util.Date;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.numdata.oss.db.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks object-relational mapping of {@link DbServices} using an
+ * in-memory HSQLDB database, so the measurements are dominated by the mapping
+ * code rather than by disk or network I/O.
+ *
+ * @author Peter S. Heijnen
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class DbServicesBenchmark
+{
+	/**
+	 * Database record used for benchmarks.
+	 */
+	@SuppressWarnings( { "PublicField", "InstanceVariableNamingConvention" } )
+	public static class BenchmarkRecord
+	{
+		/**
+		 * Database table name.
+		 */
+		public static final String TABLE_NAME = "BenchmarkRecords";
+
+		/**
+		 * SQL create statement (for MySQL).
+		 */
+		public static final String MYSQL_CREATE_STATEMENT = "CREATE TABLE `BenchmarkRecords` (\n" +
+		                                                    "  `ID` int(11) NOT NULL auto_increment,\n" +
+		                                                    "  `intField` int(11) NOT NULL,\n" +
+		                                                    "  `doubleField` double NOT NULL,\n" +
+		                                                    "  `stringField` varchar(64) default NULL,\n" +
+		                                                    "  `dateField` datetime default NULL,\n" +
+		                                                    "  `booleanField` tinyint(1) NOT NULL,\n" +
+		                                                    "  `longField` bigint NOT NULL,\n" +
+		                                                    "  PRIMARY KEY  (`ID`)\n" +
+		                                                    ");";
+
+		/** Unique ID of database record. */
+		public int ID = -1;
+
+		/** Integer field. */
+		public int intField = 0;
+
+		/** Double field. */
+		public double doubleField = 0.0;
+
+		/** String field. */
+		public String stringField = null;
+
+		/** Date field. */
+		public Date dateField = null;
+
+		/** Boolean field. */
+		public boolean booleanField = false;
+
+		/** Long field. */
+		public long longField = 0L;
+	}
+
+	/**
+	 * Number of records in the table.
+	 */
+	@Param( { "10", "1000" } )
+	public int recordCount;
+
+	/**
+	 * Database services.
+	 */
+	private DbServices _db;
+
+	/**
+	 * ID of record that is retrieved or updated.
+	 */
+	private int _recordId;
+
+	/**
+	 * Record that is updated.
+	 */
+	private BenchmarkRecord _record;
+
+	/**
+	 * Creates and fills the database table.
+	 *
+	 * @throws SQLException if a database error occurs.
+	 */
+	@Setup
+	public void setUp()
+	throws SQLException
+	{
+		final DbServices db = new HsqlDbServices();
+		db.createTable( BenchmarkRecord.class );
+
+		final Date now = new Date();
+		BenchmarkRecord record = null;
+		for ( int i = 0; i < recordCount; i++ )
+		{
+			record = new BenchmarkRecord();
+			record.intField = i;
+			record.doubleField = (double)i / 7.0;
+			record.stringField = "record " + i;
+			record.dateField = now;
+			record.booleanField = ( i % 2 == 0 );
+			record.longField = (long)i * 1000000007L;
+			db.storeObject( record );
+		}
+
+		_db = db;
+		_record = record;
+		_recordId = record.ID;
+	}
+
+	/**
+	 * Drops the database table.
+	 *
+	 * @throws SQLException if a database error occurs.
+	 */
+	@TearDown
+	public void tearDown()
+	throws SQLException
+	{
+		_db.dropTable( BenchmarkRecord.class );
+	}
+
+	/**
+	 * Retrieves and maps all records.
+	 *
+	 * @return Retrieved records.
+	 *
+	 * @throws SQLException if a database error occurs.
+	 */
+	@Benchmark
+	public List<BenchmarkRecord> retrieveList()
+	throws SQLException
+	{
+		return _db.retrieveList( new SelectQuery<BenchmarkRecord>( BenchmarkRecord.class ) );
+	}
+
+	/**
+	 * Retrieves and maps a single record by ID.
+	 *
+	 * @return Retrieved record.
+	 *
+	 * @throws SQLException if a database error occurs.
+	 */
+	@Benchmark
+	public BenchmarkRecord retrieveObject()
+	throws SQLException
+	{
+		final SelectQuery<BenchmarkRecord> query = new SelectQuery<BenchmarkRecord>( BenchmarkRecord.class );
+		query.whereEqual( "ID", _recordId );
+		return _db.retrieveObject( query );
+	}
+
+	/**
+	 * Updates a single record.
+	 *
+	 * @throws SQLException if a database error occurs.
+	 */
+	@Benchmark
+	public void updateObject()
+	throws SQLException
+	{
+		final BenchmarkRecord record = _record;
+		record.intField++;
+		_db.storeObject( record );
+	}
+
+	/**
+	 * Inserts a record and deletes it again, so the table size stays constant.
+	 *
+	 * @throws SQLException if a database error occurs.
+	 */
+	@Benchmark
+	public void insertAndDeleteObject()
+	throws SQLException
+	{
+		final BenchmarkRecord record = new BenchmarkRecord();
+		record.stringField = "inserted";
+		_db.storeObject( record );
+		_db.deleteObject( record );
+	}
+}
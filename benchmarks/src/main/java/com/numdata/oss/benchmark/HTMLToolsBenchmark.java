@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2003-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.benchmark;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import com.numdata.oss.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks escaping of text by {@link HTMLTools}, both for text that needs
+ * no escaping and for text with many special characters.
+ *
+ * @author Peter S. Heijnen
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class HTMLToolsBenchmark
+{
+	/**
+	 * Kind of text to escape.
+	 */
+	@Param( { "plain", "markup" } )
+	public String text;
+
+	/**
+	 * Text to escape.
+	 */
+	private String _source;
+
+	/**
+	 * Builder that escaped text is appended to.
+	 */
+	private final StringBuilder _builder = new StringBuilder();
+
+	/**
+	 * Generates the text to escape.
+	 */
+	@Setup
+	public void setUp()
+	{
+		final String fragment = "plain".equals( text ) ? "The quick brown fox jumps over the lazy dog. " : "<a href=\"x?a=1&b='2'\">Tom & Jerry</a> > ";
+
+		final StringBuilder source = new StringBuilder();
+		while ( source.length() < 1000 )
+		{
+			source.append( fragment );
+		}
+		_source = source.toString();
+	}
+
+	/**
+	 * Escapes character data to a new string.
+	 *
+	 * @return Escaped text.
+	 */
+	@Benchmark
+	public String escapeCharacterData()
+	{
+		return HTMLTools.escapeCharacterData( _source );
+	}
+
+	/**
+	 * Escapes character data to an existing builder.
+	 *
+	 * @return Builder with escaped text.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Benchmark
+	public StringBuilder escapeCharacterDataToBuilder()
+	throws IOException
+	{
+		final StringBuilder builder = _builder;
+		builder.setLength( 0 );
+		HTMLTools.escapeCharacterData( builder, _source );
+		return builder;
+	}
+
+	/**
+	 * Escapes an attribute value to a new string.
+	 *
+	 * @return Escaped text.
+	 */
+	@Benchmark
+	public String escapeAttributeValue()
+	{
+		return HTMLTools.escapeAttributeValue( _source );
+	}
+
+	/**
+	 * Escapes an attribute value to an existing builder.
+	 *
+	 * @return Builder with escaped text.
+	 */
+	@Benchmark
+	public StringBuilder escapeAttributeValueToBuilder()
+	{
+		final StringBuilder builder = _builder;
+		builder.setLength( 0 );
+		HTMLTools.escapeAttributeValue( builder, _source );
+		return builder;
+	}
+}
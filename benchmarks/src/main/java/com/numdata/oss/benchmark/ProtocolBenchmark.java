@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2003-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.benchmark;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import com.numdata.oss.net.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks encoding and decoding of {@link Packet}s by {@link Protocol}.
+ *
+ * @author Peter S. Heijnen
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class ProtocolBenchmark
+{
+	/**
+	 * Size of binary attribute in bytes.
+	 */
+	@Param( { "0", "65536" } )
+	public int payloadSize;
+
+	/**
+	 * Packet to send.
+	 */
+	private Packet _packet;
+
+	/**
+	 * Stream that packets are sent to.
+	 */
+	private final ByteArrayOutputStream _out = new ByteArrayOutputStream();
+
+	/**
+	 * Encoded packet.
+	 */
+	private byte[] _encoded;
+
+	/**
+	 * Creates and encodes the packet.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Setup
+	public void setUp()
+	throws IOException
+	{
+		final byte[] payload = new byte[ payloadSize ];
+		for ( int i = 0; i < payload.length; i++ )
+		{
+			payload[ i ] = (byte)( i * 31 / 7 );
+		}
+
+		final Packet packet = new Packet( "benchmark" );
+		packet.setAttribute( "name", "Benchmark packet" );
+		packet.setAttribute( "count", 42 );
+		packet.setAttribute( "payload", payload );
+		_packet = packet;
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Protocol.send( out, packet );
+		_encoded = out.toByteArray();
+	}
+
+	/**
+	 * Encodes the packet.
+	 *
+	 * @return Number of bytes written.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Benchmark
+	public int send()
+	throws IOException
+	{
+		final ByteArrayOutputStream out = _out;
+		out.reset();
+		Protocol.send( out, _packet );
+		return out.size();
+	}
+
+	/**
+	 * Decodes the packet.
+	 *
+	 * @return Received packet.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Benchmark
+	public Packet receive()
+	throws IOException
+	{
+		final byte[] encoded = _encoded;
+		return Protocol.receive( new ByteArrayInputStream( encoded ), encoded.length );
+	}
+}
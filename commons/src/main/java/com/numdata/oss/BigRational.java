@@ -16,6 +16,7 @@
 
 package com.numdata.oss;
 
+import java.io.*;
 import java.math.*;
 
 /**
@@ -140,18 +141,53 @@ Comparable<Object>
 //	implements Comparable<BigRational>
 {
 
+	/**
+	 * Serialized data version. [Pinned to the version of the serialized form
+	 * before the compact representation was introduced, which is unchanged:
+	 * only m_n and m_q are serialized.]
+	 */
+	private static final long serialVersionUID = -1594139644964261679L;
+
 	/**
 	 * Numerator. Numerator may be negative. Numerator may be zero, in which
 	 * case m_q must be one. [Conditions are put in place by normalize().]
+	 *
+	 * May be null for compact numbers (see m_compactQ), in which case it is
+	 * created on demand by bigNumerator().
 	 */
 	private BigInteger m_n;
 
 	/**
 	 * Denominator (quotient). Denominator is never negative and never zero.
 	 * [Conditions are put in place by normalize().]
+	 *
+	 * May be null for compact numbers (see m_compactQ), in which case it is
+	 * created on demand by bigDenominator().
 	 */
 	private BigInteger m_q;
 
+	/**
+	 * Numerator of the compact representation. Only valid if m_compactQ is
+	 * not zero. Never Long.MIN_VALUE, so it can always be negated.
+	 *
+	 * Not serialized; restored from m_n and m_q by readObject().
+	 */
+	private transient long m_compactN;
+
+	/**
+	 * Denominator of the compact representation; zero if the number is not
+	 * compact.
+	 *
+	 * A number is compact iff its normalized numerator and denominator both
+	 * fit in a long (excluding Long.MIN_VALUE). Arithmetic on two compact
+	 * numbers is done with overflow-checked long operations, falling back
+	 * to BigInteger only on overflow. [Conditions are put in place by
+	 * normalizeFrom().]
+	 *
+	 * Not serialized; restored from m_n and m_q by readObject().
+	 */
+	private transient long m_compactQ;
+
 	/**
 	 * Default radix, used in string printing and scanning, 10.
 	 *
@@ -244,7 +280,12 @@ Comparable<Object>
 	 */
 	public BigRational( final long n, final long q )
 	{
-		this( bigIntegerValueOf( n ), bigIntegerValueOf( q ) );
+		if ( q == 0 )
+		{
+			throw new NumberFormatException( "quotient zero" );
+		}
+
+		normalizeFrom( n, q );
 	}
 
 	/**
@@ -252,7 +293,15 @@ Comparable<Object>
 	 */
 	public BigRational( final long n )
 	{
-		this( bigIntegerValueOf( n ), BIG_INTEGER_ONE );
+		normalizeFrom( n, 1 );
+	}
+
+	/**
+	 * Construct an uninitialized BigRational. Internally used by
+	 * valueOfCompact().
+	 */
+	private BigRational()
+	{
 	}
 
 	// note: byte/short/int implicitly upgraded to long,
@@ -721,6 +770,64 @@ Comparable<Object>
 		m_q = q;
 
 		normalize();
+
+		// use the compact representation if the normalized values allow it
+		// note: bitLength() excludes the sign bit; -2^63 (bit length 63)
+		// is excluded, so the compact numerator can always be negated.
+		m_compactQ = 0;
+		if ( m_n.bitLength() < 64 && m_q.bitLength() < 64 && m_q.signum() > 0 )
+		{
+			final long compactN = m_n.longValue();
+			if ( compactN != Long.MIN_VALUE )
+			{
+				m_compactN = compactN;
+				m_compactQ = m_q.longValue();
+			}
+		}
+	}
+
+	/**
+	 * Normalize BigRational from long numerator and denominator. The
+	 * BigIntegers are not created; see bigNumerator() and bigDenominator().
+	 *
+	 * Both n and q may be negative. n/q may be denormalized. q must not be
+	 * zero.
+	 */
+	private void normalizeFrom( final long n, final long q )
+	{
+		// note: Long.MIN_VALUE can't be negated, so take the big route.
+		if ( n == Long.MIN_VALUE || q == Long.MIN_VALUE )
+		{
+			normalizeFrom( BigInteger.valueOf( n ), BigInteger.valueOf( q ) );
+			return;
+		}
+
+		long compactN = n;
+		long compactQ = q;
+
+		// optimization
+		// check the frequent case of q==1, for speed.
+		if ( compactQ != 1 )
+		{
+			// note: for n==0, g==|q|, so the result is 0/1.
+			final long g = longGcd( Math.abs( compactN ), Math.abs( compactQ ) );
+			if ( g != 1 )
+			{
+				compactN /= g;
+				compactQ /= g;
+			}
+
+			if ( compactQ < 0 )
+			{
+				compactN = -compactN;
+				compactQ = -compactQ;
+			}
+		}
+
+		m_n = null;
+		m_q = null;
+		m_compactN = compactN;
+		m_compactQ = compactQ;
 	}
 
 	/**
@@ -733,9 +840,186 @@ Comparable<Object>
 			throw new NumberFormatException( "null" );
 		}
 
+		// optimization: that is already normalized, just copy it.
+		if ( that.m_compactQ != 0 )
+		{
+			m_n = that.m_n;
+			m_q = that.m_q;
+			m_compactN = that.m_compactN;
+			m_compactQ = that.m_compactQ;
+			return;
+		}
+
 		normalizeFrom( that.m_n, that.m_q );
 	}
 
+	/**
+	 * Returns the numerator as BigInteger, creating it from the compact
+	 * representation if needed.
+	 *
+	 * [Racing threads may create the BigInteger more than once, which is
+	 * harmless, since BigIntegers are immutable.]
+	 */
+	private BigInteger bigNumerator()
+	{
+		BigInteger result = m_n;
+		if ( result == null )
+		{
+			result = bigIntegerValueOf( m_compactN );
+			m_n = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the denominator as BigInteger, creating it from the compact
+	 * representation if needed.
+	 */
+	private BigInteger bigDenominator()
+	{
+		BigInteger result = m_q;
+		if ( result == null )
+		{
+			result = bigIntegerValueOf( m_compactQ );
+			m_q = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Serialize BigRational. The BigIntegers are created first if needed, so
+	 * the serialized form is the same as for non-compact numbers.
+	 */
+	private void writeObject( final ObjectOutputStream out )
+	throws IOException
+	{
+		bigNumerator();
+		bigDenominator();
+		out.defaultWriteObject();
+	}
+
+	/**
+	 * Deserialize BigRational. The compact representation is restored by
+	 * normalizing the deserialized BigIntegers.
+	 */
+	private void readObject( final ObjectInputStream in )
+	throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+
+		if ( m_n == null || m_q == null )
+		{
+			throw new InvalidObjectException( "numerator and denominator must not be null" );
+		}
+
+		normalizeFrom( m_n, m_q );
+	}
+
+	/**
+	 * Build a normalized compact BigRational from long numerator and
+	 * denominator, as produced by the compact arithmetic. Integers are
+	 * returned as [possibly shared] constants.
+	 *
+	 * Returns null if the result can't be represented compactly (i.e.
+	 * Long.MIN_VALUE is involved); the caller then falls back to BigInteger
+	 * arithmetic.
+	 */
+	private static BigRational valueOfCompact( final long n, final long q )
+	{
+		if ( n == Long.MIN_VALUE || q == Long.MIN_VALUE )
+		{
+			return null;
+		}
+
+		// optimization: integers.
+		if ( q == 1 )
+		{
+			return valueOf( n );
+		}
+
+		final BigRational result = new BigRational();
+		result.normalizeFrom( n, q );
+
+		// optimization: integers after normalization [e.g. 1/3 + 2/3].
+		if ( result.m_compactQ == 1 )
+		{
+			return valueOf( result.m_compactN );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Greatest common divisor of two non-negative longs (Euclid). Returns
+	 * the other operand if one of them is zero.
+	 */
+	private static long longGcd( long a, long b )
+	{
+		while ( b != 0 )
+		{
+			final long r = a % b;
+			a = b;
+			b = r;
+		}
+		return a;
+	}
+
+	/**
+	 * Add two compact rationals n1/q1 and n2/q2 using long arithmetic.
+	 * Returns null on overflow.
+	 */
+	private static BigRational addCompact( final long n1, final long q1, final long n2, final long q2 )
+	{
+		try
+		{
+			// optimization: same denominator.
+			if ( q1 == q2 )
+			{
+				return valueOfCompact( Math.addExact( n1, n2 ), q1 );
+			}
+
+			// dividing by the gcd of the denominators keeps intermediates small
+			final long g = longGcd( q1, q2 );
+			final long f1 = q2 / g;
+			final long f2 = q1 / g;
+
+			return valueOfCompact(
+			Math.addExact( Math.multiplyExact( n1, f1 ), Math.multiplyExact( n2, f2 ) ),
+			Math.multiplyExact( q1, f1 ) );
+		}
+		catch ( final ArithmeticException ignored )
+		{
+			// overflow
+			return null;
+		}
+	}
+
+	/**
+	 * Multiply two compact rationals n1/q1 and n2/q2 using long arithmetic.
+	 * Returns null on overflow.
+	 *
+	 * For division, pass the inverse of the second operand; q2 may be
+	 * negative.
+	 */
+	private static BigRational multiplyCompact( final long n1, final long q1, final long n2, final long q2 )
+	{
+		// cross-cancel first, to keep the intermediates small.
+		final long g1 = longGcd( Math.abs( n1 ), Math.abs( q2 ) );
+		final long g2 = longGcd( Math.abs( n2 ), q1 );
+
+		try
+		{
+			return valueOfCompact(
+			Math.multiplyExact( n1 / g1, n2 / g2 ),
+			Math.multiplyExact( q1 / g2, q2 / g1 ) );
+		}
+		catch ( final ArithmeticException ignored )
+		{
+			// overflow
+			return null;
+		}
+	}
+
 	/**
 	 * Check constraints on radixes. Radix may not be negative or less than
 	 * two.
@@ -1607,6 +1891,45 @@ Comparable<Object>
 	 */
 	private static final BigRational TWO_POWER_64 = new BigRational( BIG_INTEGER_TWO_POWER_64 );
 
+	/**
+	 * Lowest integer in the small integer cache.
+	 */
+	private static final int SMALL_INTEGER_LOW = -128;
+
+	/**
+	 * Highest integer in the small integer cache.
+	 */
+	private static final int SMALL_INTEGER_HIGH = 1024;
+
+	/**
+	 * Small integer cache, used by valueOf(long) to intern commonly used
+	 * integers [including the results of compact arithmetic]. Contains the
+	 * constants above where applicable.
+	 */
+	private static final BigRational[] SMALL_INTEGERS = createSmallIntegers();
+
+	/**
+	 * Create the small integer cache.
+	 */
+	private static BigRational[] createSmallIntegers()
+	{
+		final BigRational[] result = new BigRational[ SMALL_INTEGER_HIGH - SMALL_INTEGER_LOW + 1 ];
+		for ( int i = 0; i < result.length; i++ )
+		{
+			result[ i ] = new BigRational( SMALL_INTEGER_LOW + i );
+		}
+
+		// use the constants, for [identity] comparison speed
+		result[ -1 - SMALL_INTEGER_LOW ] = MINUS_ONE;
+		result[ -SMALL_INTEGER_LOW ] = ZERO;
+		result[ 1 - SMALL_INTEGER_LOW ] = ONE;
+		result[ 2 - SMALL_INTEGER_LOW ] = TWO;
+		result[ 10 - SMALL_INTEGER_LOW ] = TEN;
+		result[ 16 - SMALL_INTEGER_LOW ] = SIXTEEN;
+
+		return result;
+	}
+
 	/**
 	 * Positive predicate.
 	 *
@@ -1699,6 +2022,12 @@ Comparable<Object>
 	 */
 	public boolean isInteger()
 	{
+		// optimization: compact representation.
+		if ( m_compactQ != 0 )
+		{
+			return ( m_compactQ == 1 );
+		}
+
 		return bigIntegerIsOne( m_q );
 	}
 
@@ -1710,6 +2039,14 @@ Comparable<Object>
 	public String toString( final int radix )
 	{
 		checkRadixArgument( radix );
+
+		// optimization: compact representation.
+		if ( m_compactQ != 0 )
+		{
+			final String s = Long.toString( m_compactN, radix );
+			return ( m_compactQ == 1 ) ? s : s + "/" + Long.toString( m_compactQ, radix );
+		}
+
 		final String s = stringValueOf( m_n, radix );
 
 		if ( isInteger() )
@@ -2285,46 +2622,65 @@ Comparable<Object>
 		// note: not checking for that.equals(negate()),
 		// since that would involve creation of a temporary object
 
+		// optimization: both operands are compact.
+		if ( m_compactQ != 0 && that.m_compactQ != 0 )
+		{
+			final BigRational result = addCompact( m_compactN, m_compactQ, that.m_compactN, that.m_compactQ );
+			if ( result != null )
+			{
+				return result;
+			}
+		}
+
+		return addBig( bigNumerator(), bigDenominator(), that.bigNumerator(), that.bigDenominator() );
+	}
+
+	/**
+	 * Add a long fix number integer to this BigRational and return a new
+	 * BigRational.
+	 */
+	public BigRational add( final long that )
+	{
+		return add( valueOf( that ) );
+	}
+
+	/**
+	 * Add two rationals n1/q1 and n2/q2 using BigInteger arithmetic. Helper
+	 * function to add() and subtract().
+	 */
+	private static BigRational addBig( final BigInteger n1, final BigInteger q1, final BigInteger n2, final BigInteger q2 )
+	{
 		// note: the calculated n/q may be denormalized,
 		// implicit normalize() is needed.
 
 		// optimization: same denominator.
-		if ( bigIntegerEquals( m_q, that.m_q ) )
+		if ( bigIntegerEquals( q1, q2 ) )
 		{
 			return new BigRational(
-			m_n.add( that.m_n ),
-			m_q );
+			n1.add( n2 ),
+			q1 );
 		}
 
 		// optimization: second operand is an integer.
-		if ( that.isInteger() )
+		if ( bigIntegerIsOne( q2 ) )
 		{
 			return new BigRational(
-			m_n.add( that.m_n.multiply( m_q ) ),
-			m_q );
+			n1.add( n2.multiply( q1 ) ),
+			q1 );
 		}
 
 		// optimization: first operand is an integer.
-		if ( isInteger() )
+		if ( bigIntegerIsOne( q1 ) )
 		{
 			return new BigRational(
-			m_n.multiply( that.m_q ).add( that.m_n ),
-			that.m_q );
+			n1.multiply( q2 ).add( n2 ),
+			q2 );
 		}
 
 		// default case.  [this would handle all cases.]
 		return new BigRational(
-		m_n.multiply( that.m_q ).add( that.m_n.multiply( m_q ) ),
-		m_q.multiply( that.m_q ) );
-	}
-
-	/**
-	 * Add a long fix number integer to this BigRational and return a new
-	 * BigRational.
-	 */
-	public BigRational add( final long that )
-	{
-		return add( valueOf( that ) );
+		n1.multiply( q2 ).add( n2.multiply( q1 ) ),
+		q1.multiply( q2 ) );
 	}
 
 	/**
@@ -2355,37 +2711,18 @@ Comparable<Object>
 			return ZERO;
 		}
 
-		// note: the calculated n/q may be denormalized,
-		// implicit normalize() is needed.
-
-		// optimization: same denominator.
-		if ( bigIntegerEquals( m_q, that.m_q ) )
-		{
-			return new BigRational(
-			m_n.subtract( that.m_n ),
-			m_q );
-		}
-
-		// optimization: second operand is an integer.
-		if ( that.isInteger() )
+		// optimization: both operands are compact.
+		// note: compact numerators are never Long.MIN_VALUE, so negation is safe.
+		if ( m_compactQ != 0 && that.m_compactQ != 0 )
 		{
-			return new BigRational(
-			m_n.subtract( that.m_n.multiply( m_q ) ),
-			m_q );
-		}
-
-		// optimization: first operand is an integer.
-		if ( isInteger() )
-		{
-			return new BigRational(
-			m_n.multiply( that.m_q ).subtract( that.m_n ),
-			that.m_q );
+			final BigRational result = addCompact( m_compactN, m_compactQ, -that.m_compactN, that.m_compactQ );
+			if ( result != null )
+			{
+				return result;
+			}
 		}
 
-		// default case.  [this would handle all cases.]
-		return new BigRational(
-		m_n.multiply( that.m_q ).subtract( that.m_n.multiply( m_q ) ),
-		m_q.multiply( that.m_q ) );
+		return addBig( bigNumerator(), bigDenominator(), that.bigNumerator().negate(), that.bigDenominator() );
 	}
 
 	/**
@@ -2452,12 +2789,22 @@ Comparable<Object>
 			return that.negate();
 		}
 
+		// optimization: both operands are compact.
+		if ( m_compactQ != 0 && that.m_compactQ != 0 )
+		{
+			final BigRational result = multiplyCompact( m_compactN, m_compactQ, that.m_compactN, that.m_compactQ );
+			if ( result != null )
+			{
+				return result;
+			}
+		}
+
 		// note: the calculated n/q may be denormalized,
 		// implicit normalize() is needed.
 
 		return new BigRational(
-		bigIntegerMultiply( m_n, that.m_n ),
-		bigIntegerMultiply( m_q, that.m_q ) );
+		bigIntegerMultiply( bigNumerator(), that.bigNumerator() ),
+		bigIntegerMultiply( bigDenominator(), that.bigDenominator() ) );
 	}
 
 	/**
@@ -2529,12 +2876,22 @@ Comparable<Object>
 			return that.invert().negate();
 		}
 
+		// optimization: both operands are compact.
+		if ( m_compactQ != 0 && that.m_compactQ != 0 )
+		{
+			final BigRational result = multiplyCompact( m_compactN, m_compactQ, that.m_compactQ, that.m_compactN );
+			if ( result != null )
+			{
+				return result;
+			}
+		}
+
 		// note: the calculated n/q may be denormalized,
 		// implicit normalize() is needed.
 
 		return new BigRational(
-		bigIntegerMultiply( m_n, that.m_q ),
-		bigIntegerMultiply( m_q, that.m_n ) );
+		bigIntegerMultiply( bigNumerator(), that.bigDenominator() ),
+		bigIntegerMultiply( bigDenominator(), that.bigNumerator() ) );
 	}
 
 	/**
@@ -2618,8 +2975,8 @@ Comparable<Object>
 			exponent = -exponent;
 		}
 
-		final BigInteger n = bigIntegerPower( m_n, exponent );
-		final BigInteger q = bigIntegerPower( m_q, exponent );
+		final BigInteger n = bigIntegerPower( bigNumerator(), exponent );
+		final BigInteger q = bigIntegerPower( bigDenominator(), exponent );
 
 		// note: the calculated n/q are not denormalized in the sense
 		// of having common factors, but n might be negative (and become q below)
@@ -2811,9 +3168,9 @@ Comparable<Object>
 		}
 
 		return new BigRational(
-		bigIntegerMultiply( m_n, that.m_q ).remainder(
-		bigIntegerMultiply( m_q, that.m_n ) ),
-		bigIntegerMultiply( m_q, that.m_q ) );
+		bigIntegerMultiply( bigNumerator(), that.bigDenominator() ).remainder(
+		bigIntegerMultiply( bigDenominator(), that.bigNumerator() ) ),
+		bigIntegerMultiply( bigDenominator(), that.bigDenominator() ) );
 	}
 
 	/**
@@ -2825,6 +3182,12 @@ Comparable<Object>
 	// [Name: see class BigInteger.]
 	public int signum()
 	{
+		// optimization: compact representation.
+		if ( m_compactQ != 0 )
+		{
+			return Long.signum( m_compactN );
+		}
+
 		// note: m_q is positive.
 		return m_n.signum();
 	}
@@ -2856,6 +3219,13 @@ Comparable<Object>
 			return ONE;
 		}
 
+		// optimization: compact representation.
+		// note: compact numerators are never Long.MIN_VALUE, so negation is safe.
+		if ( m_compactQ != 0 )
+		{
+			return valueOfCompact( -m_compactN, m_compactQ );
+		}
+
 		// note: the calculated n/q are not denormalized,
 		// implicit normalize() would not be needed.
 
@@ -2894,6 +3264,13 @@ Comparable<Object>
 			return ONE;
 		}
 
+		// optimization: compact representation.
+		// note: compact numerators are never Long.MIN_VALUE, so negation is safe.
+		if ( m_compactQ != 0 )
+		{
+			return valueOfCompact( -m_compactN, m_compactQ );
+		}
+
 		// note: the calculated n/q are not denormalized,
 		// implicit normalize() would not be needed.
 
@@ -2924,6 +3301,12 @@ Comparable<Object>
 			return this;
 		}
 
+		// optimization: compact representation.
+		if ( m_compactQ != 0 )
+		{
+			return valueOfCompact( m_compactQ, m_compactN );
+		}
+
 		// note: the calculated n/q are not denormalized in the sense
 		// of having common factors, but n might be negative (and become q below)
 
@@ -3025,6 +3408,13 @@ Comparable<Object>
 		}
 		final BigRational that = (BigRational)object;
 
+		// note: a normalized value has only one representation;
+		// compact and non-compact numbers are never equal.
+		if ( m_compactQ != 0 || that.m_compactQ != 0 )
+		{
+			return ( that.m_compactN == m_compactN && that.m_compactQ == m_compactQ );
+		}
+
 		// optimization
 		if ( that.m_n == m_n && that.m_q == m_q )
 		{
@@ -3050,6 +3440,13 @@ Comparable<Object>
 	@Override
 	public int hashCode()
 	{
+		// note: must be consistent with equals(); compact and non-compact
+		// numbers are never equal, so their hash codes may differ.
+		if ( m_compactQ != 0 )
+		{
+			return ( ( Long.hashCode( m_compactN ) + 1 ) * ( Long.hashCode( m_compactQ ) + 2 ) );
+		}
+
 		return ( ( m_n.hashCode() + 1 ) * ( m_q.hashCode() + 2 ) );
 	}
 
@@ -3078,9 +3475,29 @@ Comparable<Object>
 			return 0;
 		}
 
+		// optimization: both operands are compact.
+		// note: both m_compactQ are positive.
+		if ( m_compactQ != 0 && that.m_compactQ != 0 )
+		{
+			// optimization: same denominator [includes both integers].
+			if ( m_compactQ == that.m_compactQ )
+			{
+				return Long.compare( m_compactN, that.m_compactN );
+			}
+
+			try
+			{
+				return Long.compare( Math.multiplyExact( m_compactN, that.m_compactQ ), Math.multiplyExact( that.m_compactN, m_compactQ ) );
+			}
+			catch ( final ArithmeticException ignored )
+			{
+				// overflow; fall back to BigInteger below
+			}
+		}
+
 		// note: both m_q are positive.
-		return bigIntegerMultiply( m_n, that.m_q ).compareTo(
-		bigIntegerMultiply( that.m_n, m_q ) );
+		return bigIntegerMultiply( bigNumerator(), that.bigDenominator() ).compareTo(
+		bigIntegerMultiply( that.bigNumerator(), bigDenominator() ) );
 	}
 
 	/**
@@ -3204,7 +3621,7 @@ Comparable<Object>
 	public BigInteger bigIntegerValue()
 	{
 		// [rounding step, possible loss of precision step]
-		return round().m_n;
+		return round().bigNumerator();
 	}
 
 	/**
@@ -3499,7 +3916,7 @@ Comparable<Object>
 	 * [Roughly] equivalent to {@code new BigRational(value)}.
 	 *
 	 * As an optimization, commonly used numbers are returned as a reused
-	 * constant.
+	 * constant, and small integers are returned from a cache.
 	 */
 	public static BigRational valueOf( final long value )
 	{
@@ -3529,6 +3946,12 @@ Comparable<Object>
 			}
 		}
 
+		// optimization
+		if ( value >= SMALL_INTEGER_LOW && value <= SMALL_INTEGER_HIGH )
+		{
+			return SMALL_INTEGERS[ (int)value - SMALL_INTEGER_LOW ];
+		}
+
 		return new BigRational( value );
 	}
 
@@ -3830,11 +4253,56 @@ Comparable<Object>
 			return this;
 		}
 
+		// optimization: compact representation.
+		if ( m_compactQ != 0 )
+		{
+			// [rounding step, possible loss of precision step]
+			return valueOf( roundCompact( roundMode ) );
+		}
+
 		return new BigRational(
 		// [rounding step, possible loss of precision step]
 		roundToBigInteger( roundMode ) );
 	}
 
+	/**
+	 * Round to long helper function for compact numbers. Internally used.
+	 * Counterpart of roundToBigInteger().
+	 *
+	 * Possible loss of precision.
+	 */
+	// @PrecisionLoss
+	private long roundCompact( final int roundMode )
+	{
+		final long n = m_compactN;
+		final long q = m_compactQ;
+
+		// keep info on the sign
+		final boolean pos = ( n > 0 );
+
+		// operate on positive values
+		// note: compact numerators are never Long.MIN_VALUE, so negation is safe.
+		final long dv = ( pos ? n : -n ) / q;
+		final long r = ( pos ? n : -n ) % q;
+
+		// return if we don't need to round, independent of rounding mode
+		if ( r == 0 )
+		{
+			// [typically not reached since remainder is not zero
+			// with normalized that are not integerp]
+			return ( pos ? dv : -dv );
+		}
+
+		// note: r < q, so r - (q - r) can't overflow.
+		final int comp = Long.signum( r - ( q - r ) );
+
+		// note: dv < Long.MAX_VALUE, since q > 1; adding one can't overflow.
+		final long result = isRoundUp( roundMode, pos, comp, ( dv & 1 ) != 0 ) ? dv + 1 : dv;
+
+		// [rounding step, possible loss of precision step]
+		return ( pos ? result : -result );
+	}
+
 	/**
 	 * Round to BigInteger helper function. Internally used.
 	 *
@@ -3845,8 +4313,8 @@ Comparable<Object>
 	{
 		// note: remainder and its duplicate are calculated for all cases.
 
-		BigInteger n = m_n;
-		final BigInteger q = m_q;
+		BigInteger n = bigNumerator();
+		final BigInteger q = bigDenominator();
 
 		final int sgn = n.signum();
 
@@ -3883,95 +4351,89 @@ Comparable<Object>
 			return dv;
 		}
 
-		boolean up = false;
 		final int comp = r.multiply( BIG_INTEGER_TWO ).compareTo( q );
+		final boolean up = isRoundUp( roundMode, pos, comp, dv.testBit( 0 ) );
+
+		if ( up )
+		{
+			dv = dv.add( BIG_INTEGER_ONE );
+		}
 
+		if ( !pos )
+		{
+			dv = dv.negate();
+		}
+
+		// [rounding step, possible loss of precision step]
+		return dv;
+	}
+
+	/**
+	 * Rounding decision helper function to roundToBigInteger() and
+	 * roundCompact(), for non-integer values.
+	 *
+	 * @param roundMode Rounding mode.
+	 * @param pos       Whether the value is positive.
+	 * @param comp      Comparison of the remainder with one half: -1, 0, 1.
+	 * @param odd       Whether the truncated absolute value is odd.
+	 *
+	 * @return Whether to round the absolute value up (away from zero).
+	 */
+	private static boolean isRoundUp( final int roundMode, final boolean pos, final int comp, final boolean odd )
+	{
 		switch ( roundMode )
 		{
 
 			// Rounding mode to round away from zero.
 			case ROUND_UP:
-				up = true;
-				break;
+				return true;
 
 			// Rounding mode to round towards zero.
 			case ROUND_DOWN:
-				up = false;
-				break;
+				return false;
 
 			// Rounding mode to round towards positive infinity.
 			case ROUND_CEILING:
-				up = pos;
-				break;
+				return pos;
 
 			// Rounding mode to round towards negative infinity.
 			case ROUND_FLOOR:
-				up = !pos;
-				break;
+				return !pos;
 
 			// Rounding mode to round towards "nearest neighbor" unless both
 			// neighbors are equidistant, in which case round up.
 			case ROUND_HALF_UP:
-				up = ( comp >= 0 );
-				break;
+				return ( comp >= 0 );
 
 			// Rounding mode to round towards "nearest neighbor" unless both
 			// neighbors are equidistant, in which case round down.
 			case ROUND_HALF_DOWN:
-				up = ( comp > 0 );
-				break;
+				return ( comp > 0 );
 
 			case ROUND_HALF_CEILING:
-				up = ( comp != 0 ? comp > 0 : pos );
-				break;
+				return ( comp != 0 ? comp > 0 : pos );
 
 			case ROUND_HALF_FLOOR:
-				up = ( comp != 0 ? comp > 0 : !pos );
-				break;
+				return ( comp != 0 ? comp > 0 : !pos );
 
 			// Rounding mode to round towards the "nearest neighbor" unless both
 			// neighbors are equidistant, in which case, round towards the even neighbor.
 			case ROUND_HALF_EVEN:
-				up = ( comp != 0 ?
-				       comp > 0 :
-				       !bigIntegerIsZero( dv.remainder( BIG_INTEGER_TWO ) ) );
-				break;
+				return ( comp != 0 ? comp > 0 : odd );
 
 			case ROUND_HALF_ODD:
-				up = ( comp != 0 ?
-				       comp > 0 :
-				       bigIntegerIsZero( dv.remainder( BIG_INTEGER_TWO ) ) );
-				break;
+				return ( comp != 0 ? comp > 0 : !odd );
 
 			// Rounding mode to assert that the requested operation has an exact
 			// result, hence no rounding is necessary.  If this rounding mode is
 			// specified on an operation that yields an inexact result, an
 			// ArithmeticException is thrown.
 			case ROUND_UNNECESSARY:
-				if ( !bigIntegerIsZero( r ) )
-				{
-					throw new ArithmeticException( "rounding necessary" );
-				}
-				// [typically not reached due to earlier test for integerp]
-				up = false;
-				break;
+				throw new ArithmeticException( "rounding necessary" );
 
 			default:
 				throw new IllegalArgumentException( "unsupported rounding mode" );
 		}
-
-		if ( up )
-		{
-			dv = dv.add( BIG_INTEGER_ONE );
-		}
-
-		if ( !pos )
-		{
-			dv = dv.negate();
-		}
-
-		// [rounding step, possible loss of precision step]
-		return dv;
 	}
 
 	/**
@@ -4096,7 +4558,7 @@ Comparable<Object>
 	 */
 	public BigInteger getNumerator()
 	{
-		return m_n;
+		return bigNumerator();
 	}
 
 	/**
@@ -4106,7 +4568,7 @@ Comparable<Object>
 	 */
 	public BigInteger getDenominator()
 	{
-		return m_q;
+		return bigDenominator();
 	}
 
 	/**
@@ -40,9 +40,8 @@ import org.jetbrains.annotations.*;
  *
  * <li>Leading and trailing whitespace is removed if not quoted.</li>
  *
- * <li>Only '\n' is recognized as a line ending.</li>
- *
- * <li>Line endings can not be quoted.</li>
+ * <li>Line endings can not be quoted. Use {@link CSVReader} to read data
+ * with quoted line endings.</li>
  *
  * </ul>
  *
@@ -127,20 +126,29 @@ public class CSVParser
 	throws IOException
 	{
 		final List<List<String>> result = new ArrayList<>();
-
-		//noinspection IOResourceOpenedButNotSafelyClosed
-		final BufferedReader bufferedReader = ( reader instanceof BufferedReader ) ? (BufferedReader)reader : new BufferedReader( reader );
-		for ( String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine() )
-		{
-			final List<String> row = parseLine( line );
-			if ( row != null )
-			{
-				result.add( row );
-			}
-		}
+		readAll( reader, row -> result.add( row.toList() ) );
 		return result;
 	}
 
+	/**
+	 * Reads all rows from the given stream and passes them to the given
+	 * handler. Rows are streamed using a {@link CSVReader}, so the data is
+	 * never completely held in memory. Like {@link #parseLine}, every line
+	 * break ends a row, even within quotes.
+	 *
+	 * @param reader  Character stream to read from.
+	 * @param handler Handler for rows.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void readAll( @NotNull final Reader reader, @NotNull final CSVRow.Handler handler )
+	throws IOException
+	{
+		final CSVReader csvReader = new CSVReader( reader, this );
+		csvReader.setQuotedLineBreaks( false );
+		csvReader.readAll( handler );
+	}
+
 	/**
 	 * Reads next rom from the given stream.
 	 *
@@ -0,0 +1,950 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Streaming reader for character-separated value (CSV) data. Values are
+ * parsed like {@link CSVParser#parseLine}, except that line breaks may occur
+ * within quoted values as specified by RFC 4180, and that '\r', '\n' and
+ * "\r\n" are all recognized as line endings. Quoted line breaks can be
+ * disabled using {@link #setQuotedLineBreaks}, to read data line by line like
+ * {@link CSVParser#readAll}.
+ *
+ * <p>Data is read into a single reusable character buffer, which only grows
+ * if a row does not fit. Rows can be pulled using {@link #nextRow()}, after
+ * which the reader itself provides the fields of the current row as views on
+ * its buffer, or pushed to a {@link CSVRow.Handler} using {@link #readAll}.
+ *
+ * <p>Large files can be parsed in parallel using {@link #readParallel}.
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc4180">RFC 4180: Common Format and
+ * MIME Type for Comma-Separated Values (CSV) Files</a>
+ */
+public class CSVReader
+implements CSVRow, Closeable
+{
+	/**
+	 * Initial size of the character buffer.
+	 */
+	private static final int INITIAL_BUFFER_SIZE = 0x10000;
+
+	/**
+	 * Maximum number of bytes mapped into memory for a single chunk.
+	 */
+	private static final long MAXIMUM_CHUNK_SIZE = 0x40000000L;
+
+	/**
+	 * Character stream to read from.
+	 */
+	private final Reader _reader;
+
+	/**
+	 * Value separator.
+	 */
+	private final char _separator;
+
+	/**
+	 * Skip lines that start with a '#'.
+	 */
+	private final boolean _skipComments;
+
+	/**
+	 * Skip rows that have no non-empty columns.
+	 */
+	private final boolean _skipEmptyRows;
+
+	/**
+	 * Replace empty values with {@code null}.
+	 */
+	private final boolean _emptyNull;
+
+	/**
+	 * Whether line breaks may occur within quoted values.
+	 */
+	private boolean _quotedLineBreaks = true;
+
+	/**
+	 * Character buffer.
+	 */
+	private char[] _buffer = new char[ INITIAL_BUFFER_SIZE ];
+
+	/**
+	 * Start of unparsed data in buffer.
+	 */
+	private int _start = 0;
+
+	/**
+	 * End of data in buffer.
+	 */
+	private int _limit = 0;
+
+	/**
+	 * Position up to which data was scanned for the end of the current row.
+	 */
+	private int _scan = 0;
+
+	/**
+	 * Whether the scan position is inside quotes.
+	 */
+	private boolean _scanQuoted = false;
+
+	/**
+	 * Whether the scan position is inside a comment.
+	 */
+	private boolean _scanComment = false;
+
+	/**
+	 * Whether the scanned part of the current row has any content.
+	 */
+	private boolean _scanStarted = false;
+
+	/**
+	 * Whether the end of the character stream was reached.
+	 */
+	private boolean _endOfStream = false;
+
+	/**
+	 * Number of fields in current row.
+	 */
+	private int _fieldCount = 0;
+
+	/**
+	 * Start of each field in buffer.
+	 */
+	private int[] _fieldStart = new int[ 16 ];
+
+	/**
+	 * End of each field in buffer.
+	 */
+	private int[] _fieldEnd = new int[ 16 ];
+
+	/**
+	 * Views of fields, reused for each row.
+	 */
+	private FieldView[] _fieldViews = new FieldView[ 16 ];
+
+	/**
+	 * Constructs a new reader.
+	 *
+	 * @param reader Character stream to read from.
+	 * @param format Parser that specifies the CSV format.
+	 */
+	public CSVReader( @NotNull final Reader reader, @NotNull final CSVParser format )
+	{
+		_reader = reader;
+		_separator = format.getSeparator();
+		_skipComments = format.isSkipComments();
+		_skipEmptyRows = format.isSkipEmptyRows();
+		_emptyNull = format.isEmptyNull();
+	}
+
+	/**
+	 * Constructs a new reader.
+	 *
+	 * @param channel Channel to read from.
+	 * @param charset Character set used to decode the data.
+	 * @param format  Parser that specifies the CSV format.
+	 */
+	public CSVReader( @NotNull final ReadableByteChannel channel, @NotNull final Charset charset, @NotNull final CSVParser format )
+	{
+		this( Channels.newReader( channel, charset.newDecoder().onMalformedInput( CodingErrorAction.REPLACE ).onUnmappableCharacter( CodingErrorAction.REPLACE ), -1 ), format );
+	}
+
+	/**
+	 * Returns whether line breaks may occur within quoted values.
+	 *
+	 * @return {@code true} if quoted line breaks are part of the value;
+	 * {@code false} if every line break ends a row.
+	 */
+	public boolean isQuotedLineBreaks()
+	{
+		return _quotedLineBreaks;
+	}
+
+	/**
+	 * Sets whether line breaks may occur within quoted values. If not, every
+	 * line break ends a row and an unbalanced quote only affects the rest of
+	 * its line, like {@link CSVParser#parseLine}.
+	 *
+	 * @param quotedLineBreaks {@code true} if quoted line breaks are part of
+	 *                         the value; {@code false} if every line break
+	 *                         ends a row.
+	 */
+	public void setQuotedLineBreaks( final boolean quotedLineBreaks )
+	{
+		_quotedLineBreaks = quotedLineBreaks;
+	}
+
+	/**
+	 * Reads the next row. The fields of the row are available from this
+	 * reader until the next call.
+	 *
+	 * @return {@code true} if a row was read; {@code false} if the end of the
+	 * data was reached.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public boolean nextRow()
+	throws IOException
+	{
+		boolean result = false;
+		_fieldCount = 0;
+
+		while ( !result )
+		{
+			final int rowEnd = scanRow();
+			final int rowStart = _start; // Note: scanning may move data in buffer
+			if ( rowEnd < 0 )
+			{
+				if ( rowStart == _limit )
+				{
+					break;
+				}
+
+				_start = _limit;
+				result = parseRow( rowStart, _limit );
+			}
+			else
+			{
+				_start = rowEnd + 1;
+				result = parseRow( rowStart, rowEnd );
+			}
+
+			_scan = _start;
+			_scanQuoted = false;
+			_scanComment = false;
+			_scanStarted = false;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Reads all remaining rows and passes them to the given handler.
+	 *
+	 * @param handler Handler for rows.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void readAll( @NotNull final CSVRow.Handler handler )
+	throws IOException
+	{
+		while ( nextRow() )
+		{
+			handler.handleRow( this );
+		}
+	}
+
+	@Override
+	public int getFieldCount()
+	{
+		return _fieldCount;
+	}
+
+	@Override
+	@NotNull
+	public CharSequence getField( final int index )
+	{
+		if ( ( index < 0 ) || ( index >= _fieldCount ) )
+		{
+			throw new IndexOutOfBoundsException( "index: " + index + ", fieldCount: " + _fieldCount );
+		}
+
+		FieldView result = _fieldViews[ index ];
+		if ( result == null )
+		{
+			result = new FieldView( index );
+			_fieldViews[ index ] = result;
+		}
+		return result;
+	}
+
+	@Override
+	@Nullable
+	public String getString( final int index )
+	{
+		if ( ( index < 0 ) || ( index >= _fieldCount ) )
+		{
+			throw new IndexOutOfBoundsException( "index: " + index + ", fieldCount: " + _fieldCount );
+		}
+
+		final int start = _fieldStart[ index ];
+		final int length = _fieldEnd[ index ] - start;
+		return ( length == 0 ) ? _emptyNull ? null : "" : new String( _buffer, start, length );
+	}
+
+	@Override
+	@NotNull
+	public List<String> toList()
+	{
+		final int fieldCount = _fieldCount;
+		final List<String> result = new ArrayList<>( fieldCount );
+		for ( int i = 0; i < fieldCount; i++ )
+		{
+			result.add( getString( i ) );
+		}
+		return result;
+	}
+
+	@Override
+	public void close()
+	throws IOException
+	{
+		_reader.close();
+	}
+
+	/**
+	 * Scans for the end of the current row, reading more data as needed.
+	 *
+	 * @return Index of line break that ends the row; {@code -1} if the end of
+	 * the data was reached.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private int scanRow()
+	throws IOException
+	{
+		int result = -1;
+
+		final char separator = _separator;
+		final boolean skipComments = _skipComments;
+		final boolean quotedLineBreaks = _quotedLineBreaks;
+		boolean quoted = _scanQuoted;
+		boolean comment = _scanComment;
+		boolean started = _scanStarted;
+
+		while ( result < 0 )
+		{
+			final char[] buffer = _buffer;
+			final int limit = _limit;
+			int pos = _scan;
+
+			while ( pos < limit )
+			{
+				final char ch = buffer[ pos ];
+				if ( ( ( ch == '\n' ) || ( ch == '\r' ) ) && ( !quoted || !quotedLineBreaks ) )
+				{
+					result = pos;
+					break;
+				}
+
+				if ( !comment )
+				{
+					if ( ch == '"' )
+					{
+						quoted = !quoted;
+						started = true;
+					}
+					else if ( ( ch == '#' ) && skipComments && !started )
+					{
+						comment = true;
+					}
+					else if ( ( ch == separator ) || ( ( ch != (char)-1 ) && !Character.isWhitespace( ch ) ) )
+					{
+						started = true;
+					}
+				}
+
+				pos++;
+			}
+
+			_scan = pos;
+
+			if ( ( result < 0 ) && !fill() )
+			{
+				break;
+			}
+		}
+
+		_scanQuoted = quoted;
+		_scanComment = comment;
+		_scanStarted = started;
+		return result;
+	}
+
+	/**
+	 * Reads more data into the buffer. Parsed data is discarded and the buffer
+	 * is grown if it is full.
+	 *
+	 * @return {@code true} if data was read; {@code false} if the end of the
+	 * stream was reached.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private boolean fill()
+	throws IOException
+	{
+		boolean result = false;
+
+		if ( !_endOfStream )
+		{
+			final int start = _start;
+			if ( start > 0 )
+			{
+				System.arraycopy( _buffer, start, _buffer, 0, _limit - start );
+				_limit -= start;
+				_scan -= start;
+				_start = 0;
+			}
+
+			if ( _limit == _buffer.length )
+			{
+				_buffer = Arrays.copyOf( _buffer, _buffer.length * 2 );
+			}
+
+			final int read = _reader.read( _buffer, _limit, _buffer.length - _limit );
+			if ( read < 0 )
+			{
+				_endOfStream = true;
+			}
+			else
+			{
+				_limit += read;
+				result = true;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Parses a row of data in the buffer. Values are unquoted in-place, i.e.
+	 * the buffer is modified.
+	 *
+	 * @param start Start of row in buffer.
+	 * @param end   End of row in buffer.
+	 *
+	 * @return {@code true} if the data yielded a row.
+	 */
+	private boolean parseRow( final int start, final int end )
+	{
+		final char[] buffer = _buffer;
+		final char separator = _separator;
+		final boolean skipComments = _skipComments;
+
+		boolean quotedValue = false;
+		boolean quotesStarted = false;
+		boolean quotesEnded = false;
+		boolean valueStarted = false;
+		boolean rowStarted = false;
+
+		int whitespace = 0;
+		int valueStart = start;
+		int write = start;
+
+		int pos = start;
+		while ( pos < end )
+		{
+			final char ch = buffer[ pos++ ];
+
+			if ( ch != (char)-1 )
+			{
+				if ( ( ch == '#' ) && skipComments && !rowStarted )
+				{
+					break;
+				}
+
+				if ( ch == separator )
+				{
+					if ( quotesStarted )
+					{
+						buffer[ write++ ] = ch;
+						valueStarted = true;
+					}
+					else
+					{
+						addField( valueStart, write - whitespace );
+						valueStart = pos;
+						write = pos;
+						quotedValue = false;
+						quotesStarted = false;
+						quotesEnded = false;
+						valueStarted = false;
+						whitespace = 0;
+					}
+					rowStarted = true;
+				}
+				else if ( ch == '"' )
+				{
+					if ( quotesStarted )
+					{
+						if ( ( pos < end ) && ( buffer[ pos ] == '"' ) )
+						{
+							// double quote within quotes: keep single quote
+							pos++;
+							buffer[ write++ ] = ch;
+							valueStarted = true;
+						}
+						else
+						{
+							quotesEnded = true;
+							quotesStarted = false;
+						}
+					}
+					else
+					{
+						quotedValue = true;
+						quotesStarted = true;
+						quotesEnded = false;
+						valueStarted = true; // Because empty values can be quoted too.
+
+						whitespace = 0;
+						write = valueStart; // All characters before the quotes are ignored.
+					}
+					rowStarted = true;
+				}
+				else if ( Character.isWhitespace( ch ) )
+				{
+					if ( quotesStarted ) // Skip unquoted leading whitespace.
+					{
+						buffer[ write++ ] = ch;
+						valueStarted = true;
+					}
+					else if ( valueStarted && !quotesEnded ) // Include contained whitespace.
+					{
+						buffer[ write++ ] = ch;
+						whitespace++;
+					}
+				}
+				else
+				{
+					if ( quotedValue )
+					{
+						if ( !quotesEnded )
+						{
+							buffer[ write++ ] = ch;
+							valueStarted = true;
+						}
+					}
+					else
+					{
+						buffer[ write++ ] = ch;
+						valueStarted = true;
+						whitespace = 0;
+					}
+					rowStarted = true;
+				}
+			}
+		}
+
+		boolean result = false;
+
+		if ( rowStarted )
+		{
+			if ( valueStarted )
+			{
+				addField( valueStart, write - whitespace );
+			}
+
+			result = !_skipEmptyRows || !isEmptyRow();
+		}
+
+		if ( !result )
+		{
+			_fieldCount = 0;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Adds a field to the current row.
+	 *
+	 * @param start Start of field in buffer.
+	 * @param end   End of field in buffer.
+	 */
+	private void addField( final int start, final int end )
+	{
+		final int index = _fieldCount++;
+		if ( index == _fieldStart.length )
+		{
+			final int capacity = index * 2;
+			_fieldStart = Arrays.copyOf( _fieldStart, capacity );
+			_fieldEnd = Arrays.copyOf( _fieldEnd, capacity );
+			_fieldViews = Arrays.copyOf( _fieldViews, capacity );
+		}
+		_fieldStart[ index ] = start;
+		_fieldEnd[ index ] = end;
+	}
+
+	/**
+	 * Returns whether the current row only contains empty fields.
+	 *
+	 * @return {@code true} if row is empty.
+	 */
+	private boolean isEmptyRow()
+	{
+		boolean result = true;
+
+		for ( int i = 0; i < _fieldCount; i++ )
+		{
+			if ( _fieldEnd[ i ] > _fieldStart[ i ] )
+			{
+				result = false;
+				break;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Parses a file in parallel. The file is memory-mapped and split into
+	 * chunks at row boundaries, which are parsed concurrently. Rows are
+	 * passed to the handler from multiple threads in no particular order, so
+	 * the handler must be thread-safe.
+	 *
+	 * <p>Chunks are split by tracking quotes in the raw bytes, which requires
+	 * a character set that encodes quotes and line breaks as single ASCII
+	 * bytes that do not occur in other characters, such as UTF-8 or
+	 * ISO-8859-1. Comment lines must not contain an odd number of quotes.
+	 *
+	 * @param file        File to read.
+	 * @param charset     Character set used to decode the file.
+	 * @param format      Parser that specifies the CSV format.
+	 * @param parallelism Number of threads to use.
+	 * @param handler     Handler for rows.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws IllegalArgumentException if the character set is not supported.
+	 */
+	public static void readParallel( @NotNull final Path file, @NotNull final Charset charset, @NotNull final CSVParser format, final int parallelism, @NotNull final CSVRow.Handler handler )
+	throws IOException
+	{
+		if ( !Arrays.equals( "\"\r\n".getBytes( charset ), new byte[] { '"', '\r', '\n' } ) || ( !StandardCharsets.UTF_8.equals( charset ) && ( charset.newEncoder().maxBytesPerChar() != 1.0f ) ) )
+		{
+			throw new IllegalArgumentException( "Unsupported character set: " + charset );
+		}
+
+		if ( parallelism < 1 )
+		{
+			throw new IllegalArgumentException( "parallelism: " + parallelism );
+		}
+
+		try ( final FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+		{
+			final long size = channel.size();
+			final int chunkCount = (int)Math.max( (long)parallelism, ( size + MAXIMUM_CHUNK_SIZE - 1 ) / MAXIMUM_CHUNK_SIZE );
+
+			final long[] offsets = new long[ chunkCount + 1 ];
+			for ( int i = 0; i <= chunkCount; i++ )
+			{
+				offsets[ i ] = size * (long)i / (long)chunkCount;
+			}
+
+			final DefaultThreadFactory threadFactory = new DefaultThreadFactory();
+			threadFactory.setNamePrefix( "CSVReader-" );
+			threadFactory.setDaemon( true );
+			final ExecutorService executor = Executors.newFixedThreadPool( parallelism, threadFactory );
+			try
+			{
+				/*
+				 * Count quotes in each chunk to determine whether a chunk
+				 * starts within quotes.
+				 */
+				final List<Callable<Boolean>> countTasks = new ArrayList<>( chunkCount );
+				for ( int i = 0; i < chunkCount; i++ )
+				{
+					final long start = offsets[ i ];
+					final long end = offsets[ i + 1 ];
+					countTasks.add( () -> hasOddQuoteCount( channel.map( FileChannel.MapMode.READ_ONLY, start, end - start ) ) );
+				}
+				final List<Boolean> oddQuoteCounts = invokeAll( executor, countTasks );
+
+				/*
+				 * Move chunk boundaries to the next line break outside quotes.
+				 */
+				final List<Callable<Long>> boundaryTasks = new ArrayList<>( chunkCount - 1 );
+				boolean quoted = false;
+				for ( int i = 1; i < chunkCount; i++ )
+				{
+					quoted ^= oddQuoteCounts.get( i - 1 );
+					final long start = offsets[ i ];
+					final boolean startQuoted = quoted;
+					boundaryTasks.add( () -> start + findRowEnd( channel.map( FileChannel.MapMode.READ_ONLY, start, Math.min( size - start, (long)Integer.MAX_VALUE ) ), startQuoted ) );
+				}
+				final List<Long> boundaries = invokeAll( executor, boundaryTasks );
+				for ( int i = 1; i < chunkCount; i++ )
+				{
+					offsets[ i ] = boundaries.get( i - 1 );
+				}
+
+				/*
+				 * Parse chunks.
+				 */
+				final List<Callable<Void>> parseTasks = new ArrayList<>( chunkCount );
+				for ( int i = 0; i < chunkCount; i++ )
+				{
+					final long start = offsets[ i ];
+					final long end = Math.max( start, offsets[ i + 1 ] );
+					parseTasks.add( () ->
+					{
+						final Reader reader = new ByteBufferReader( channel.map( FileChannel.MapMode.READ_ONLY, start, end - start ), charset );
+						new CSVReader( reader, format ).readAll( handler );
+						return null;
+					} );
+				}
+				invokeAll( executor, parseTasks );
+			}
+			finally
+			{
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Runs the given tasks and returns their results.
+	 *
+	 * @param executor Executor to use.
+	 * @param tasks    Tasks to run.
+	 * @param <T>      Result type.
+	 *
+	 * @return Task results.
+	 *
+	 * @throws IOException if a task failed.
+	 */
+	private static <T> List<T> invokeAll( @NotNull final ExecutorService executor, @NotNull final Collection<? extends Callable<T>> tasks )
+	throws IOException
+	{
+		final List<T> result = new ArrayList<>( tasks.size() );
+		try
+		{
+			for ( final Future<T> future : executor.invokeAll( tasks ) )
+			{
+				result.add( future.get() );
+			}
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException( "Interrupted while reading CSV data" );
+		}
+		catch ( final ExecutionException e )
+		{
+			final Throwable cause = e.getCause();
+			if ( cause instanceof IOException )
+			{
+				throw (IOException)cause;
+			}
+			if ( cause instanceof RuntimeException )
+			{
+				throw (RuntimeException)cause;
+			}
+			if ( cause instanceof Error )
+			{
+				throw (Error)cause;
+			}
+			throw new IOException( cause );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the given data contains an odd number of quotes.
+	 *
+	 * @param data Data to scan.
+	 *
+	 * @return {@code true} if the number of quotes is odd.
+	 */
+	private static boolean hasOddQuoteCount( @NotNull final ByteBuffer data )
+	{
+		boolean result = false;
+		while ( data.hasRemaining() )
+		{
+			if ( data.get() == '"' )
+			{
+				result = !result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the first line break outside quotes.
+	 *
+	 * @param data   Data to scan.
+	 * @param quoted Whether the data starts within quotes.
+	 *
+	 * @return Offset after the line break; length of data if none was found.
+	 */
+	private static long findRowEnd( @NotNull final ByteBuffer data, final boolean quoted )
+	{
+		boolean inQuotes = quoted;
+		while ( data.hasRemaining() )
+		{
+			final byte b = data.get();
+			if ( b == '"' )
+			{
+				inQuotes = !inQuotes;
+			}
+			else if ( ( ( b == '\n' ) || ( b == '\r' ) ) && !inQuotes )
+			{
+				break;
+			}
+		}
+		return (long)data.position();
+	}
+
+	/**
+	 * View of a field in the current row.
+	 */
+	private class FieldView
+	implements CharSequence
+	{
+		/**
+		 * Field index.
+		 */
+		private final int _index;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param index Field index.
+		 */
+		FieldView( final int index )
+		{
+			_index = index;
+		}
+
+		@Override
+		public int length()
+		{
+			return _fieldEnd[ _index ] - _fieldStart[ _index ];
+		}
+
+		@Override
+		public char charAt( final int index )
+		{
+			if ( ( index < 0 ) || ( index >= length() ) )
+			{
+				throw new IndexOutOfBoundsException( "index: " + index + ", length: " + length() );
+			}
+			return _buffer[ _fieldStart[ _index ] + index ];
+		}
+
+		@Override
+		public CharSequence subSequence( final int start, final int end )
+		{
+			return toString().substring( start, end );
+		}
+
+		@NotNull
+		@Override
+		public String toString()
+		{
+			return new String( _buffer, _fieldStart[ _index ], length() );
+		}
+	}
+
+	/**
+	 * Decodes characters from a byte buffer.
+	 */
+	private static class ByteBufferReader
+	extends Reader
+	{
+		/**
+		 * Data to decode.
+		 */
+		private final ByteBuffer _data;
+
+		/**
+		 * Character decoder.
+		 */
+		private final CharsetDecoder _decoder;
+
+		/**
+		 * Whether all data was decoded.
+		 */
+		private boolean _decoded = false;
+
+		/**
+		 * Whether the decoder was flushed.
+		 */
+		private boolean _flushed = false;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param data    Data to decode.
+		 * @param charset Character set.
+		 */
+		ByteBufferReader( @NotNull final ByteBuffer data, @NotNull final Charset charset )
+		{
+			_data = data;
+			_decoder = charset.newDecoder().onMalformedInput( CodingErrorAction.REPLACE ).onUnmappableCharacter( CodingErrorAction.REPLACE );
+		}
+
+		@Override
+		public int read( @NotNull final char[] buffer, final int offset, final int length )
+		throws IOException
+		{
+			int result = -1;
+
+			if ( !_flushed )
+			{
+				final CharBuffer out = CharBuffer.wrap( buffer, offset, length );
+
+				CoderResult coderResult = _decoded ? CoderResult.UNDERFLOW : _decoder.decode( _data, out, true );
+				if ( coderResult.isUnderflow() )
+				{
+					_decoded = true;
+					coderResult = _decoder.flush( out );
+					_flushed = coderResult.isUnderflow();
+				}
+
+				if ( coderResult.isError() )
+				{
+					coderResult.throwException();
+				}
+
+				final int read = out.position() - offset;
+				if ( ( read > 0 ) || !_flushed )
+				{
+					result = read;
+				}
+			}
+
+			return result;
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
+}
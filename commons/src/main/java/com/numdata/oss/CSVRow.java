@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Row of CSV data as provided by {@link CSVReader}. Fields are provided as
+ * views on the reader's buffer, so they are only valid until the next row is
+ * read; use {@link #getString} or {@link #toList} to keep values.
+ *
+ * @see CSVReader
+ */
+public interface CSVRow
+{
+	/**
+	 * Returns the number of fields in the row.
+	 *
+	 * @return Number of fields.
+	 */
+	int getFieldCount();
+
+	/**
+	 * Returns a view of the given field. The view is reused and only valid
+	 * until the next row is read.
+	 *
+	 * @param index Field index.
+	 *
+	 * @return Field view.
+	 *
+	 * @throws IndexOutOfBoundsException if the index is out of bounds.
+	 */
+	@NotNull
+	CharSequence getField( int index );
+
+	/**
+	 * Returns the value of the given field.
+	 *
+	 * @param index Field index.
+	 *
+	 * @return Field value; {@code null} if the value is empty and {@link
+	 * CSVParser#isEmptyNull()} is set.
+	 *
+	 * @throws IndexOutOfBoundsException if the index is out of bounds.
+	 */
+	@Nullable
+	String getString( int index );
+
+	/**
+	 * Returns the values of all fields.
+	 *
+	 * @return List of field values (see {@link #getString}).
+	 */
+	@NotNull
+	List<String> toList();
+
+	/**
+	 * Handles rows pushed by {@link CSVReader}.
+	 */
+	interface Handler
+	{
+		/**
+		 * Handle the given row. The row is only valid during this call.
+		 *
+		 * @param row Row of CSV data.
+		 *
+		 * @throws IOException if an error occurs.
+		 */
+		void handleRow( @NotNull CSVRow row )
+		throws IOException;
+	}
+}
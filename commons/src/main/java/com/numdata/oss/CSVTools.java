@@ -28,7 +28,8 @@ package com.numdata.oss;
 
 import java.io.*;
 import java.util.*;
-import java.util.regex.*;
+
+import com.numdata.oss.io.*;
 
 import org.jetbrains.annotations.*;
 
@@ -294,122 +295,13 @@ public class CSVTools
 	public static void writeTidyCSV( @NotNull final Appendable dest, @NotNull final Iterable<? extends Iterable<?>> rows, @NotNull final String separator, @NotNull final CharSequence lineTerminator )
 	throws IOException
 	{
-		final StringBuilder buffer = new StringBuilder();
-
-		// Updated using 'ListIterator.set/add'.
-		//noinspection MismatchedQueryAndUpdateOfCollection
-		final List<Integer> columnWidths = new ArrayList<Integer>();
-
+		final CSVWriter writer = new CSVWriter( new AppendableWriter( dest ), separator, lineTerminator );
+		writer.setTidy( Integer.MAX_VALUE );
 		for ( final Iterable<?> row : rows )
 		{
-			if ( isComment( row ) )
-			{
-				// comment
-			}
-			else
-			{
-				final Iterator<?> valueIterator = row.iterator();
-				if ( valueIterator.hasNext() )
-				{
-					final ListIterator<Integer> columnWidthIterator = columnWidths.listIterator();
-
-					while ( valueIterator.hasNext() )
-					{
-						buffer.setLength( 0 );
-						writeValue( buffer, valueIterator.next(), separator, -1 );
-
-						final int valueWidth = buffer.length();
-						if ( columnWidthIterator.hasNext() )
-						{
-							final int columnWidth = columnWidthIterator.next();
-							if ( columnWidth < valueWidth )
-							{
-								columnWidthIterator.set( valueWidth );
-							}
-						}
-						else
-						{
-							columnWidthIterator.add( valueWidth );
-						}
-					}
-				}
-			}
+			writer.writeRow( row );
 		}
-
-		for ( final Iterator<? extends Iterable<?>> rowIterator = rows.iterator(); rowIterator.hasNext(); )
-		{
-			final Iterable<?> row = rowIterator.next();
-
-			if ( isComment( row ) )
-			{
-				buffer.setLength( 0 );
-				for ( final Object value : row ) // should be only 1 value
-				{
-					buffer.append( value );
-				}
-
-				writeValue( dest, buffer, separator, -1 );
-			}
-			else
-			{
-				int columnIndex = 0;
-
-				for ( final Iterator<?> valueIterator = row.iterator(); valueIterator.hasNext(); )
-				{
-					final Object value = valueIterator.next();
-
-					buffer.setLength( 0 );
-					writeValue( buffer, value, separator, -1 );
-					final int valueLength = buffer.length();
-					dest.append( buffer );
-
-					if ( valueIterator.hasNext() )
-					{
-						final int columnWidth = columnWidths.get( columnIndex++ );
-						for ( int i = valueLength; i < columnWidth; i++ )
-						{
-							dest.append( ' ' );
-						}
-
-						dest.append( separator );
-						dest.append( ' ' );
-					}
-				}
-			}
-
-			if ( rowIterator.hasNext() )
-			{
-				dest.append( lineTerminator );
-			}
-		}
-	}
-
-	/**
-	 * Returns whether the given row is a comment, in the context of writing
-	 * tidy CSV. For compatibility, a comment is defined as a row with only one
-	 * value, in the first column, which starts with a '#' character (after
-	 * normal quote and whitespace handling).
-	 *
-	 * @param row Row to be checked.
-	 *
-	 * @return {@code true} if the rows represents a comment.
-	 */
-	private static boolean isComment( @NotNull final Iterable<?> row )
-	{
-		boolean result = false;
-
-		final Iterator<?> iterator = row.iterator();
-		final Object firstValue = iterator.next();
-		if ( ( firstValue instanceof CharSequence ) && !iterator.hasNext() )
-		{
-			final CharSequence firstString = (CharSequence)firstValue;
-			if ( ( firstString.length() > 0 ) && ( firstString.charAt( 0 ) == '#' ) )
-			{
-				result = true;
-			}
-		}
-
-		return result;
+		writer.flush();
 	}
 
 	/**
@@ -447,42 +339,10 @@ public class CSVTools
 		}
 		else if ( length > 0 )
 		{
-			if ( writeQuoted( value, separator ) )
-			{
-				dest.append( '"' );
-				dest.append( stringValue.replaceAll( "\"", "\"\"" ) );
-				dest.append( '"' );
-			}
-			else
-			{
-				dest.append( stringValue );
-			}
+			CSVWriter.appendValue( dest, stringValue, separator );
 		}
 	}
 
-	/**
-	 * Check if the specified value should be quoted before writing.
-	 *
-	 * RFC 4180 specifies that a value must be quoted if it contains a carriage
-	 * return, line feed, double quote or comma. This method complies, but
-	 * allows for other separator characters instead of comma. In addition,
-	 * values with leading or trailing whitespace are also quoted, even though
-	 * RFC 4180 does not allow whitespace to be ignored.
-	 *
-	 * @param value     Value to check.
-	 * @param separator Separator that is being used.
-	 *
-	 * @return {@code true} if the value should be quoted; {@code false}
-	 * otherwise.
-	 */
-	private static boolean writeQuoted( @Nullable final Object value, @NotNull final String separator )
-	{
-		final String separatorRegex = Pattern.quote( separator );
-		final Pattern quotesRequiredPattern = Pattern.compile( "(\\s.*)|(.*\\s)|(.*([\\r\\n\"]|" + separatorRegex + ").*)" );
-		final Matcher matcher = quotesRequiredPattern.matcher( String.valueOf( value ) );
-		return matcher.matches();
-	}
-
 	/**
 	 * Detects the separator character used in the given stream. To help with
 	 * the auto-detection, expected cell values can be specified. The given
@@ -0,0 +1,674 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Streaming writer for character-separated value (CSV) data. Rows are written
+ * one at a time, either using {@link #writeRow} or using {@link #writeValue}
+ * followed by {@link #endRow}. Output is collected in an internal buffer and
+ * written to the underlying {@link Writer} in bulk.
+ *
+ * <p>Values are quoted like {@link CSVTools#writeCSV}. Values that do not need
+ * quotes are copied as a whole; quoted values are copied in runs between
+ * quotes.
+ *
+ * <p>Tidy output, as produced by {@link CSVTools#writeTidyCSV}, is supported by
+ * estimating column widths from a sample of the first rows (see {@link
+ * #setTidy}). After the sample, columns are widened when wider values are
+ * encountered.
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc4180">RFC 4180: Common Format and
+ * MIME Type for Comma-Separated Values (CSV) Files</a>
+ */
+public class CSVWriter
+implements Flushable, Closeable
+{
+	/**
+	 * Size of output buffer.
+	 */
+	private static final int BUFFER_SIZE = 0x2000;
+
+	/**
+	 * Writer to write to.
+	 */
+	private final Writer _out;
+
+	/**
+	 * Value separator.
+	 */
+	private final String _separator;
+
+	/**
+	 * Separator character if the separator is a single character.
+	 */
+	private final int _separatorChar;
+
+	/**
+	 * Line terminator.
+	 */
+	private final String _lineTerminator;
+
+	/**
+	 * Output buffer.
+	 */
+	private final char[] _buffer = new char[ BUFFER_SIZE ];
+
+	/**
+	 * Number of characters in output buffer.
+	 */
+	private int _bufferLength = 0;
+
+	/**
+	 * Fixed column widths.
+	 */
+	@Nullable
+	private int[] _fixedColumnWidths = null;
+
+	/**
+	 * Whether tidy output is written.
+	 */
+	private boolean _tidy = false;
+
+	/**
+	 * Number of rows that are still to be sampled to determine column widths
+	 * for tidy output.
+	 */
+	private int _sampleSize = 0;
+
+	/**
+	 * Sampled rows, with values in escaped form.
+	 */
+	private final List<List<String>> _sample = new ArrayList<>();
+
+	/**
+	 * Indices of sampled rows that are comments.
+	 */
+	private final BitSet _sampleComments = new BitSet();
+
+	/**
+	 * Whether the first value in the current row starts with a '#'.
+	 */
+	private boolean _commentValue = false;
+
+	/**
+	 * Column widths for tidy output.
+	 */
+	private int[] _columnWidths = new int[ 16 ];
+
+	/**
+	 * Whether any row was written.
+	 */
+	private boolean _rowWritten = false;
+
+	/**
+	 * Index of the next column in the current row.
+	 */
+	private int _columnIndex = 0;
+
+	/**
+	 * Width of the previous value in the current row.
+	 */
+	private int _previousWidth = 0;
+
+	/**
+	 * Buffer for escaped values of a sampled row.
+	 */
+	private final StringBuilder _valueBuilder = new StringBuilder();
+
+	/**
+	 * Constructs a new writer using a comma as separator and '\n' as line
+	 * terminator.
+	 *
+	 * @param out Writer to write to.
+	 */
+	public CSVWriter( @NotNull final Writer out )
+	{
+		this( out, ",", "\n" );
+	}
+
+	/**
+	 * Constructs a new writer.
+	 *
+	 * @param out            Writer to write to.
+	 * @param separator      Separator to use.
+	 * @param lineTerminator Line terminator to use.
+	 */
+	public CSVWriter( @NotNull final Writer out, @NotNull final String separator, @NotNull final CharSequence lineTerminator )
+	{
+		_out = out;
+		_separator = separator;
+		_separatorChar = ( separator.length() == 1 ) ? separator.charAt( 0 ) : -1;
+		_lineTerminator = lineTerminator.toString();
+	}
+
+	/**
+	 * Sets fixed column widths. Values are padded or truncated to fit the
+	 * width and written without quotes. Columns without width are written
+	 * normally.
+	 *
+	 * @param fixedColumnWidths Fixed column widths; {@code null} to disable.
+	 */
+	public void setFixedColumnWidths( @Nullable final int[] fixedColumnWidths )
+	{
+		_fixedColumnWidths = fixedColumnWidths;
+	}
+
+	/**
+	 * Enables tidy output, which aligns columns by padding values with
+	 * spaces. The tidy output is <em>not compliant with RFC 4180</em>, due to
+	 * the extra whitespace that is introduced.
+	 *
+	 * <p>Column widths are determined from the given number of rows, which are
+	 * held in memory until the sample is complete or the writer is flushed. Use
+	 * {@link Integer#MAX_VALUE} to sample all rows, which produces the same
+	 * output as {@link CSVTools#writeTidyCSV}.
+	 *
+	 * <p>Single-column rows that start with a '#' character are considered
+	 * comments and do not affect column widths.
+	 *
+	 * @param sampleSize Number of rows to sample.
+	 */
+	public void setTidy( final int sampleSize )
+	{
+		_tidy = true;
+		_sampleSize = sampleSize;
+	}
+
+	/**
+	 * Writes a row.
+	 *
+	 * @param row Values in the row.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void writeRow( @NotNull final Iterable<?> row )
+	throws IOException
+	{
+		for ( final Object value : row )
+		{
+			writeValue( value );
+		}
+		endRow();
+	}
+
+	/**
+	 * Writes a row.
+	 *
+	 * @param row Values in the row.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void writeRow( @NotNull final Object... row )
+	throws IOException
+	{
+		for ( final Object value : row )
+		{
+			writeValue( value );
+		}
+		endRow();
+	}
+
+	/**
+	 * Writes a value in the current row. {@link CharSequence}s are written
+	 * as-is; other values are converted using {@link String#valueOf}.
+	 *
+	 * @param value Value to write; {@code null} is written as empty value.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void writeValue( @Nullable final Object value )
+	throws IOException
+	{
+		final CharSequence string = ( value == null ) ? "" : ( value instanceof CharSequence ) ? (CharSequence)value : String.valueOf( value );
+		final int columnIndex = _columnIndex++;
+
+		if ( _tidy && ( _sampleSize > 0 ) )
+		{
+			if ( columnIndex == 0 )
+			{
+				_sample.add( new ArrayList<>() );
+				_commentValue = ( value instanceof CharSequence ) && ( string.length() > 0 ) && ( string.charAt( 0 ) == '#' );
+			}
+
+			final StringBuilder valueBuilder = _valueBuilder;
+			valueBuilder.setLength( 0 );
+			appendValue( valueBuilder, string, _separator );
+			_sample.get( _sample.size() - 1 ).add( valueBuilder.toString() );
+		}
+		else
+		{
+			if ( columnIndex == 0 )
+			{
+				if ( _rowWritten )
+				{
+					write( _lineTerminator, 0, _lineTerminator.length() );
+				}
+				_rowWritten = true;
+			}
+			else if ( _tidy )
+			{
+				final int previousColumn = columnIndex - 1;
+				final int columnWidth = Math.max( getColumnWidth( previousColumn ), _previousWidth );
+				setColumnWidth( previousColumn, columnWidth );
+				writeSpaces( columnWidth - _previousWidth );
+				write( _separator, 0, _separator.length() );
+				write( ' ' );
+			}
+			else
+			{
+				write( _separator, 0, _separator.length() );
+			}
+
+			final int[] fixedColumnWidths = _fixedColumnWidths;
+			final int fixedWidth = ( ( fixedColumnWidths != null ) && ( columnIndex < fixedColumnWidths.length ) ) ? fixedColumnWidths[ columnIndex ] : -1;
+			if ( fixedWidth >= 0 )
+			{
+				final int length = Math.min( string.length(), fixedWidth );
+				write( string, 0, length );
+				writeSpaces( fixedWidth - length );
+			}
+			else
+			{
+				_previousWidth = writeEscaped( string );
+			}
+		}
+	}
+
+	/**
+	 * Ends the current row.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void endRow()
+	throws IOException
+	{
+		if ( _tidy && ( _sampleSize > 0 ) )
+		{
+			if ( _columnIndex == 0 )
+			{
+				_sample.add( new ArrayList<>() );
+			}
+			else if ( ( _columnIndex == 1 ) && _commentValue )
+			{
+				_sampleComments.set( _sample.size() - 1 );
+			}
+
+			if ( --_sampleSize == 0 )
+			{
+				writeSample();
+			}
+		}
+		else if ( _columnIndex == 0 )
+		{
+			if ( _rowWritten )
+			{
+				write( _lineTerminator, 0, _lineTerminator.length() );
+			}
+			_rowWritten = true;
+		}
+
+		_columnIndex = 0;
+		_previousWidth = 0;
+	}
+
+	/**
+	 * Writes all buffered output, including sampled rows, to the underlying
+	 * writer and flushes it. Column widths for tidy output are fixed by this
+	 * operation.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Override
+	public void flush()
+	throws IOException
+	{
+		if ( _columnIndex == 0 )
+		{
+			writeSample();
+		}
+		flushBuffer();
+		_out.flush();
+	}
+
+	@Override
+	public void close()
+	throws IOException
+	{
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			_out.close();
+		}
+	}
+
+	/**
+	 * Writes the sampled rows for tidy output.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void writeSample()
+	throws IOException
+	{
+		final List<List<String>> sample = _sample;
+		if ( !sample.isEmpty() )
+		{
+			for ( int rowIndex = 0; rowIndex < sample.size(); rowIndex++ )
+			{
+				final List<String> row = sample.get( rowIndex );
+				if ( !_sampleComments.get( rowIndex ) )
+				{
+					for ( int i = 0; i < row.size(); i++ )
+					{
+						setColumnWidth( i, Math.max( getColumnWidth( i ), row.get( i ).length() ) );
+					}
+				}
+			}
+
+			for ( final List<String> row : sample )
+			{
+				if ( _rowWritten )
+				{
+					write( _lineTerminator, 0, _lineTerminator.length() );
+				}
+				_rowWritten = true;
+
+				final int columnCount = row.size();
+				for ( int i = 0; i < columnCount; i++ )
+				{
+					final String value = row.get( i );
+					write( value, 0, value.length() );
+
+					if ( i < columnCount - 1 )
+					{
+						writeSpaces( getColumnWidth( i ) - value.length() );
+						write( _separator, 0, _separator.length() );
+						write( ' ' );
+					}
+				}
+			}
+
+			sample.clear();
+			_sampleComments.clear();
+		}
+		_sampleSize = 0;
+	}
+
+	/**
+	 * Returns the width of the given column for tidy output.
+	 *
+	 * @param columnIndex Column index.
+	 *
+	 * @return Column width.
+	 */
+	private int getColumnWidth( final int columnIndex )
+	{
+		return ( columnIndex < _columnWidths.length ) ? _columnWidths[ columnIndex ] : 0;
+	}
+
+	/**
+	 * Sets the width of the given column for tidy output.
+	 *
+	 * @param columnIndex Column index.
+	 * @param width       Column width.
+	 */
+	private void setColumnWidth( final int columnIndex, final int width )
+	{
+		if ( columnIndex >= _columnWidths.length )
+		{
+			_columnWidths = Arrays.copyOf( _columnWidths, Math.max( columnIndex + 1, _columnWidths.length * 2 ) );
+		}
+		_columnWidths[ columnIndex ] = width;
+	}
+
+	/**
+	 * Writes the given value, with quotes if needed.
+	 *
+	 * @param value Value to write.
+	 *
+	 * @return Number of characters written.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private int writeEscaped( @NotNull final CharSequence value )
+	throws IOException
+	{
+		final int length = value.length();
+		final int quoteCount = getQuoteCount( value, _separator, _separatorChar );
+		if ( quoteCount < 0 )
+		{
+			write( value, 0, length );
+		}
+		else
+		{
+			write( '"' );
+			int start = 0;
+			for ( int i = 0; i < length; i++ )
+			{
+				if ( value.charAt( i ) == '"' )
+				{
+					write( value, start, i + 1 );
+					start = i; // quote is written again as part of next run
+				}
+			}
+			write( value, start, length );
+			write( '"' );
+		}
+		return ( quoteCount < 0 ) ? length : length + quoteCount + 2;
+	}
+
+	/**
+	 * Writes the given number of spaces.
+	 *
+	 * @param count Number of spaces.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void writeSpaces( final int count )
+	throws IOException
+	{
+		for ( int i = 0; i < count; i++ )
+		{
+			write( ' ' );
+		}
+	}
+
+	/**
+	 * Writes a character to the output buffer.
+	 *
+	 * @param ch Character to write.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void write( final char ch )
+	throws IOException
+	{
+		if ( _bufferLength == BUFFER_SIZE )
+		{
+			flushBuffer();
+		}
+		_buffer[ _bufferLength++ ] = ch;
+	}
+
+	/**
+	 * Writes characters to the output buffer.
+	 *
+	 * @param chars Characters to write.
+	 * @param start Start index (inclusive).
+	 * @param end   End index (exclusive).
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void write( @NotNull final CharSequence chars, final int start, final int end )
+	throws IOException
+	{
+		final char[] buffer = _buffer;
+		int pos = start;
+		while ( pos < end )
+		{
+			if ( _bufferLength == BUFFER_SIZE )
+			{
+				flushBuffer();
+			}
+
+			final int count = Math.min( end - pos, BUFFER_SIZE - _bufferLength );
+			if ( chars instanceof String )
+			{
+				( (String)chars ).getChars( pos, pos + count, buffer, _bufferLength );
+			}
+			else if ( chars instanceof StringBuilder )
+			{
+				( (StringBuilder)chars ).getChars( pos, pos + count, buffer, _bufferLength );
+			}
+			else
+			{
+				for ( int i = 0; i < count; i++ )
+				{
+					buffer[ _bufferLength + i ] = chars.charAt( pos + i );
+				}
+			}
+			_bufferLength += count;
+			pos += count;
+		}
+	}
+
+	/**
+	 * Writes the output buffer to the underlying writer.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void flushBuffer()
+	throws IOException
+	{
+		if ( _bufferLength > 0 )
+		{
+			_out.write( _buffer, 0, _bufferLength );
+			_bufferLength = 0;
+		}
+	}
+
+	/**
+	 * Appends the given value to the given destination, with quotes if
+	 * needed.
+	 *
+	 * @param dest      Destination to append to.
+	 * @param value     Value to append.
+	 * @param separator Separator that is being used.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	static void appendValue( @NotNull final Appendable dest, @NotNull final CharSequence value, @NotNull final String separator )
+	throws IOException
+	{
+		final int length = value.length();
+		if ( getQuoteCount( value, separator, ( separator.length() == 1 ) ? separator.charAt( 0 ) : -1 ) < 0 )
+		{
+			dest.append( value );
+		}
+		else
+		{
+			dest.append( '"' );
+			int start = 0;
+			for ( int i = 0; i < length; i++ )
+			{
+				if ( value.charAt( i ) == '"' )
+				{
+					dest.append( value, start, i + 1 );
+					start = i; // quote is appended again as part of next run
+				}
+			}
+			dest.append( value, start, length );
+			dest.append( '"' );
+		}
+	}
+
+	/**
+	 * Checks whether the given value should be quoted and counts the quotes
+	 * it contains.
+	 *
+	 * <p>RFC 4180 specifies that a value must be quoted if it contains a
+	 * carriage return, line feed, double quote or comma. This method complies,
+	 * but allows for other separator characters instead of comma. In addition,
+	 * values with leading or trailing whitespace are also quoted, even though
+	 * RFC 4180 does not allow whitespace to be ignored.
+	 *
+	 * @param value         Value to check.
+	 * @param separator     Separator that is being used.
+	 * @param separatorChar Separator character; {@code -1} if the separator
+	 *                      is not a single character.
+	 *
+	 * @return Number of quotes in the value; {@code -1} if the value does not
+	 * need to be quoted.
+	 */
+	private static int getQuoteCount( @NotNull final CharSequence value, @NotNull final String separator, final int separatorChar )
+	{
+		final int length = value.length();
+		boolean quote = ( length > 0 ) && ( isWhitespace( value.charAt( 0 ) ) || isWhitespace( value.charAt( length - 1 ) ) );
+		int quoteCount = 0;
+
+		for ( int i = 0; i < length; i++ )
+		{
+			final char ch = value.charAt( i );
+			if ( ch == '"' )
+			{
+				quoteCount++;
+				quote = true;
+			}
+			else if ( ( ch == '\r' ) || ( ch == '\n' ) || ( ch == separatorChar ) )
+			{
+				quote = true;
+			}
+		}
+
+		if ( !quote && ( separatorChar < 0 ) && !separator.isEmpty() )
+		{
+			quote = value.toString().contains( separator );
+		}
+
+		return quote ? quoteCount : -1;
+	}
+
+	/**
+	 * Returns whether the given character is whitespace, as matched by
+	 * '{@code \s}' in a regular expression.
+	 *
+	 * @param ch Character to check.
+	 *
+	 * @return {@code true} if the character is whitespace.
+	 */
+	private static boolean isWhitespace( final char ch )
+	{
+		return ( ch == ' ' ) || ( ch == '\t' ) || ( ch == '\n' ) || ( ch == '\u000B' ) || ( ch == '\f' ) || ( ch == '\r' );
+	}
+}
@@ -28,6 +28,7 @@ package com.numdata.oss;
 
 import java.lang.ref.*;
 import java.util.*;
+import java.util.function.*;
 
 import com.numdata.oss.log.*;
 import org.jetbrains.annotations.*;
@@ -69,6 +70,18 @@ import org.jetbrains.annotations.*;
  * hasNext} must not be called between the calls to {@link Iterator#next() next}
  * and {@code remove}.
  *
+ * Optionally, the total weight of the entries in the cache can be bounded
+ * using {@link #setMaximumWeight}. The weight of each entry is determined by
+ * a {@link Weigher}, e.g. based on the size of the value. When the maximum
+ * weight is exceeded, entries are evicted using a segmented LRU algorithm:
+ * new entries are placed in a probationary segment and are promoted to a
+ * protected segment when used again. Entries are evicted from the
+ * probationary segment first, such that a few large, rarely used values can't
+ * crowd out many small, frequently used ones.
+ *
+ * Statistics about hits, misses, loads and evictions are available through
+ * {@link #getStatistics()}.
+ *
  * <strong>TODO: Implement fail-fast behavior on the iterators.</strong>
  *
  * @param <K> Key type.
@@ -84,6 +97,11 @@ implements Map<K, V>
 	 */
 	private static final ClassLogger LOG = ClassLogger.getFor( Cache.class );
 
+	/**
+	 * Fraction of the maximum weight reserved for the protected segment.
+	 */
+	private static final double PROTECTED_RATIO = 0.8;
+
 	/**
 	 * Keeps track of entries that were reclaimed by the garbage collector.
 	 */
@@ -133,6 +151,80 @@ implements Map<K, V>
 	 */
 	private final List<Index<K, V, ?>> _indices;
 
+	/**
+	 * Determines the weight of entries; {@code null} if weight is not tracked.
+	 */
+	@Nullable
+	private Weigher<? super K, ? super V> _weigher = null;
+
+	/**
+	 * Maximum total weight of all entries.
+	 */
+	private long _maximumWeight = Long.MAX_VALUE;
+
+	/**
+	 * Maximum total weight of entries in the protected segment.
+	 */
+	private long _maximumProtectedWeight = Long.MAX_VALUE;
+
+	/**
+	 * Total weight of all entries.
+	 */
+	private long _totalWeight = 0L;
+
+	/**
+	 * Total weight of entries in the protected segment.
+	 */
+	private long _protectedWeight = 0L;
+
+	/**
+	 * Weights of entries in the probationary segment, from least recently used
+	 * to most recently used. Only used if weight is tracked.
+	 */
+	private final LinkedHashMap<K, Integer> _probationWeights = new LinkedHashMap<K, Integer>( 16, 0.75f, true );
+
+	/**
+	 * Weights of entries in the protected segment, from least recently used to
+	 * most recently used. Only used if weight is tracked.
+	 */
+	private final LinkedHashMap<K, Integer> _protectedWeights = new LinkedHashMap<K, Integer>( 16, 0.75f, true );
+
+	/**
+	 * Number of times a lookup found an entry.
+	 */
+	private long _hitCount = 0L;
+
+	/**
+	 * Number of times a lookup did not find an entry.
+	 */
+	private long _missCount = 0L;
+
+	/**
+	 * Number of values loaded successfully.
+	 */
+	private long _loadSuccessCount = 0L;
+
+	/**
+	 * Number of times loading a value failed.
+	 */
+	private long _loadFailureCount = 0L;
+
+	/**
+	 * Total time spent loading values, in nanoseconds.
+	 */
+	private long _totalLoadTime = 0L;
+
+	/**
+	 * Number of entries evicted, either to limit the total weight or because
+	 * the garbage collector cleared its value.
+	 */
+	private long _evictionCount = 0L;
+
+	/**
+	 * Total weight of evicted entries.
+	 */
+	private long _evictionWeight = 0L;
+
 	/**
 	 * Constructs a new cache.
 	 *
@@ -251,7 +343,281 @@ implements Map<K, V>
 		removeStaleEntries();
 		final CacheReference reference = _map.get( key );
 		referenceUsed( reference );
-		return dereference( reference );
+		final V result = dereference( reference );
+
+		if ( ( result != null ) || ( ( reference == null ) && _map.containsKey( key ) ) )
+		{
+			_hitCount++;
+			if ( _weigher != null )
+			{
+				@SuppressWarnings( "unchecked" )
+				final K typedKey = (K)key;
+				entryUsed( typedKey );
+			}
+		}
+		else
+		{
+			_missCount++;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the value associated with the given key. If there is no such
+	 * value, the value is loaded using the given function and added to the
+	 * cache.
+	 *
+	 * @param key    Key to get value for.
+	 * @param loader Function to load the value for a key.
+	 *
+	 * @return Value associated with the key.
+	 */
+	@Nullable
+	public V getOrLoad( final K key, @NotNull final Function<? super K, ? extends V> loader )
+	{
+		V result = get( key );
+		if ( ( result == null ) && !isPresent( key ) )
+		{
+			final long start = System.nanoTime();
+			boolean success = false;
+			try
+			{
+				result = loader.apply( key );
+				success = true;
+			}
+			finally
+			{
+				recordLoad( success, System.nanoTime() - start );
+			}
+			put( key, result );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether a value is present for the given key. Unlike {@link
+	 * #containsKey}, this is decided by the stored reference itself, so an
+	 * entry whose value was cleared by the garbage collector, but that was
+	 * not yet removed from the cache, is not present.
+	 *
+	 * @param key Key to check.
+	 *
+	 * @return {@code true} if a value (possibly {@code null}) is present.
+	 */
+	boolean isPresent( final Object key )
+	{
+		final CacheReference reference = _map.get( key );
+		return ( reference != null ) ? ( reference.get() != null ) : _map.containsKey( key );
+	}
+
+	/**
+	 * Records the result of loading a value.
+	 *
+	 * @param success  Whether the value was loaded successfully.
+	 * @param loadTime Time spent loading the value, in nanoseconds.
+	 */
+	void recordLoad( final boolean success, final long loadTime )
+	{
+		if ( success )
+		{
+			_loadSuccessCount++;
+		}
+		else
+		{
+			_loadFailureCount++;
+		}
+		_totalLoadTime += loadTime;
+	}
+
+	/**
+	 * Returns statistics about the use of this cache.
+	 *
+	 * @return Cache statistics.
+	 */
+	@NotNull
+	public CacheStatistics getStatistics()
+	{
+		return new CacheStatistics( _hitCount, _missCount, _loadSuccessCount, _loadFailureCount, _totalLoadTime, _evictionCount, _evictionWeight );
+	}
+
+	/**
+	 * Bounds the total weight of the entries in the cache. If the maximum
+	 * weight is exceeded, entries are evicted from the cache.
+	 *
+	 * @param maximumWeight Maximum total weight.
+	 * @param weigher       Determines the weight of each entry.
+	 */
+	public void setMaximumWeight( final long maximumWeight, @NotNull final Weigher<? super K, ? super V> weigher )
+	{
+		if ( maximumWeight < 0L )
+		{
+			throw new IllegalArgumentException( "maximumWeight: " + maximumWeight );
+		}
+
+		removeStaleEntries();
+
+		_weigher = weigher;
+		_maximumWeight = maximumWeight;
+		_maximumProtectedWeight = (long)( (double)maximumWeight * PROTECTED_RATIO );
+		_probationWeights.clear();
+		_protectedWeights.clear();
+		_totalWeight = 0L;
+		_protectedWeight = 0L;
+
+		for ( final Entry<K, CacheReference> entry : _map.entrySet() )
+		{
+			final K key = entry.getKey();
+			entryAdded( key, dereference( entry.getValue() ) );
+		}
+
+		evict();
+	}
+
+	/**
+	 * Returns the total weight of the entries in the cache.
+	 *
+	 * @return Total weight; {@code 0} if no {@link Weigher} is set.
+	 */
+	public long getTotalWeight()
+	{
+		removeStaleEntries();
+		return _totalWeight;
+	}
+
+	/**
+	 * Determines the weight of a cache entry.
+	 *
+	 * @param <K> Key type.
+	 * @param <V> Value type.
+	 */
+	public interface Weigher<K, V>
+	{
+		/**
+		 * Returns the weight of the given entry.
+		 *
+		 * @param key   Key of the entry.
+		 * @param value Value of the entry.
+		 *
+		 * @return Weight of the entry; must not be negative.
+		 */
+		int weigh( K key, @Nullable V value );
+	}
+
+	/**
+	 * Adds an entry to the probationary segment, replacing any existing entry
+	 * for the same key. Does nothing if weight is not tracked.
+	 *
+	 * @param key   Key of the entry.
+	 * @param value Value of the entry.
+	 */
+	private void entryAdded( final K key, @Nullable final V value )
+	{
+		final Weigher<? super K, ? super V> weigher = _weigher;
+		if ( weigher != null )
+		{
+			entryRemoved( key );
+
+			final int weight = weigher.weigh( key, value );
+			if ( weight < 0 )
+			{
+				throw new IllegalArgumentException( "Negative weight " + weight + " for key: " + key );
+			}
+
+			_probationWeights.put( key, weight );
+			_totalWeight += weight;
+		}
+	}
+
+	/**
+	 * Records that an entry was used. If the entry is in the probationary
+	 * segment, it is promoted to the protected segment. Least recently used
+	 * entries from the protected segment are demoted to the probationary
+	 * segment as needed.
+	 *
+	 * @param key Key of the entry.
+	 */
+	private void entryUsed( final K key )
+	{
+		final Integer weight = _probationWeights.remove( key );
+		if ( weight != null )
+		{
+			_protectedWeights.put( key, weight );
+			_protectedWeight += weight;
+
+			final Iterator<Entry<K, Integer>> iterator = _protectedWeights.entrySet().iterator();
+			while ( ( _protectedWeight > _maximumProtectedWeight ) && ( _protectedWeights.size() > 1 ) )
+			{
+				final Entry<K, Integer> demoted = iterator.next();
+				iterator.remove();
+				_protectedWeight -= demoted.getValue();
+				_probationWeights.put( demoted.getKey(), demoted.getValue() );
+			}
+		}
+		else
+		{
+			/* moves the entry to the end */
+			_protectedWeights.get( key );
+		}
+	}
+
+	/**
+	 * Removes an entry from the segment that contains it, if any.
+	 *
+	 * @param key Key of the entry.
+	 *
+	 * @return Weight of the entry; {@code 0} if the entry was not found.
+	 */
+	private int entryRemoved( final Object key )
+	{
+		int result = 0;
+		if ( _weigher != null )
+		{
+			Integer weight = _probationWeights.remove( key );
+			if ( weight == null )
+			{
+				weight = _protectedWeights.remove( key );
+				if ( weight != null )
+				{
+					_protectedWeight -= weight;
+				}
+			}
+
+			if ( weight != null )
+			{
+				result = weight;
+				_totalWeight -= result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Evicts entries until the total weight no longer exceeds the maximum.
+	 * Entries are evicted from the probationary segment first, in least
+	 * recently used order.
+	 */
+	private void evict()
+	{
+		while ( _totalWeight > _maximumWeight )
+		{
+			final Map<K, Integer> segment = _probationWeights.isEmpty() ? _protectedWeights : _probationWeights;
+			if ( segment.isEmpty() )
+			{
+				break;
+			}
+
+			final K key = segment.keySet().iterator().next();
+			final int weight = entryRemoved( key );
+			disposeReference( _map.remove( key ) );
+			_evictionCount++;
+			_evictionWeight += weight;
+
+			if ( LOG.isTraceEnabled() )
+			{
+				LOG.trace( "Evicted entry for key " + key + " with weight " + weight );
+			}
+		}
 	}
 
 	@Nullable
@@ -281,6 +647,8 @@ implements Map<K, V>
 		final CacheReference replaced = _map.put( key, reference );
 		final V result = disposeReference( replaced );
 		addToIndices( key, value );
+		entryAdded( key, value );
+		evict();
 		return result;
 	}
 
@@ -291,6 +659,7 @@ implements Map<K, V>
 		removeStaleEntries();
 		final CacheReference removed = _map.remove( key );
 		final V result = disposeReference( removed );
+		entryRemoved( key );
 		return result;
 	}
 
@@ -314,6 +683,11 @@ implements Map<K, V>
 			it.remove();
 			disposeReference( reference );
 		}
+
+		_probationWeights.clear();
+		_protectedWeights.clear();
+		_totalWeight = 0L;
+		_protectedWeight = 0L;
 	}
 
 	/**
@@ -548,17 +922,27 @@ implements Map<K, V>
 		 */
 		private final int _maximumHardReferences;
 
+		/**
+		 * Usage of each reference known to the policy. The usages are linked
+		 * in order of last use, in one of two lists: {@link #_softUsages} or
+		 * {@link #_hardUsages}. This allows all operations on the policy to be
+		 * performed in constant time.
+		 */
+		private final Map<FlexibleReference<?>, Usage> _usages;
+
 		/**
 		 * Keeps track of order in which soft-referenced entries were last
-		 * used.
+		 * used. This is the head (and tail) of a circular linked list, from
+		 * least recently used to most recently used.
 		 */
-		private final List<Usage> _softUsages;
+		private final Usage _softUsages;
 
 		/**
 		 * Keeps track of order in which hard-referenced entries were last
-		 * used.
+		 * used. This is the head (and tail) of a circular linked list, from
+		 * least recently used to most recently used.
 		 */
-		private final List<Usage> _hardUsages;
+		private final Usage _hardUsages;
 
 		/**
 		 * Constructs a default caching policy. The policy has a softness of
@@ -627,8 +1011,9 @@ implements Map<K, V>
 			_minimumHardReferences = minHard;
 			_maximumHardReferences = maxHard;
 
-			_softUsages = new LinkedHashList<Usage>();
-			_hardUsages = new LinkedHashList<Usage>();
+			_usages = new IdentityHashMap<FlexibleReference<?>, Usage>();
+			_softUsages = new Usage( null );
+			_hardUsages = new Usage( null );
 		}
 
 		@Override
@@ -648,12 +1033,11 @@ implements Map<K, V>
 		{
 			if ( reference != null )
 			{
-				final Usage usage = new Usage( reference );
+				final Usage usage = getUsage( reference );
 
 				if ( reference.isSoft() )
 				{
-					_softUsages.remove( usage );
-					_softUsages.add( usage );
+					usage.moveToEnd( _softUsages );
 
 					final FlexibleReference<?> counterbalance = getCounterbalance( reference, false );
 					if ( ( counterbalance != null ) && reference.harden() )
@@ -663,8 +1047,7 @@ implements Map<K, V>
 				}
 				else
 				{
-					_hardUsages.remove( usage );
-					_hardUsages.add( usage );
+					usage.moveToEnd( _hardUsages );
 				}
 			}
 		}
@@ -672,11 +1055,11 @@ implements Map<K, V>
 		@Override
 		public void referenceDisposed( final Cache<?, ?> cache, final FlexibleReference<?> reference )
 		{
-			final Usage usage = new Usage( reference );
-			final boolean removed = _softUsages.remove( usage ) || _hardUsages.remove( usage );
-
-			if ( removed )
+			final Usage usage = _usages.remove( reference );
+			if ( usage != null )
 			{
+				usage.unlink();
+
 				FlexibleReference<?> counterbalance = null;
 
 				if ( !reference.isHard() )
@@ -705,6 +1088,25 @@ implements Map<K, V>
 			}
 		}
 
+		/**
+		 * Returns the usage of the given reference, creating it if needed.
+		 *
+		 * @param reference Reference to get the usage for.
+		 *
+		 * @return Usage of the reference.
+		 */
+		@NotNull
+		private Usage getUsage( @NotNull final FlexibleReference<?> reference )
+		{
+			Usage result = _usages.get( reference );
+			if ( result == null )
+			{
+				result = new Usage( reference );
+				_usages.put( reference, result );
+			}
+			return result;
+		}
+
 		/**
 		 * Returns whether a soft reference should be switched to a hard
 		 * reference for the given cache.
@@ -765,28 +1167,26 @@ implements Map<K, V>
 
 			if ( soft )
 			{
-				final List<Usage> usages = _softUsages;
-				for ( final ListIterator<Usage> it = usages.listIterator( usages.size() ); it.hasPrevious(); )
+				final Usage usages = _softUsages;
+				for ( Usage usage = usages._previous; usage != usages; usage = usage._previous )
 				{
-					final Usage usage = it.previous();
-
 					final FlexibleReference<?> candidate = usage._reference;
 					if ( candidate != reference )
 					{
-						result = usage._reference;
+						result = candidate;
 						break;
 					}
 				}
 			}
 			else
 			{
-				final List<Usage> usages = _hardUsages;
-				for ( final Usage usage : usages )
+				final Usage usages = _hardUsages;
+				for ( Usage usage = usages._next; usage != usages; usage = usage._next )
 				{
 					final FlexibleReference<?> candidate = usage._reference;
 					if ( candidate != reference )
 					{
-						result = usage._reference;
+						result = candidate;
 						break;
 					}
 				}
@@ -798,61 +1198,68 @@ implements Map<K, V>
 		@Override
 		public void referenceSoftnessChanged( final Cache<?, ?> cache, final FlexibleReference<?> reference, final boolean softened )
 		{
-			final Usage usage = new Usage( reference );
-			if ( softened )
-			{
-				_hardUsages.remove( usage );
-				_softUsages.add( usage );
-			}
-			else
-			{
-				_softUsages.remove( usage );
-				_hardUsages.add( usage );
-			}
+			getUsage( reference ).moveToEnd( softened ? _softUsages : _hardUsages );
 		}
 
 		/**
-		 * Represents a usage of a references in the cache.
+		 * Represents a usage of a references in the cache, as a node in a
+		 * doubly linked list of usages.
 		 */
 		private static class Usage
 		{
 			/**
-			 * Reference that was used.
+			 * Reference that was used; {@code null} for the head of a list.
 			 */
 			private final FlexibleReference<?> _reference;
 
 			/**
-			 * Constructs a new usage for the given reference.
+			 * Previous node in the list.
+			 */
+			private Usage _previous;
+
+			/**
+			 * Next node in the list.
+			 */
+			private Usage _next;
+
+			/**
+			 * Constructs a new usage for the given reference. The usage is not
+			 * linked to any other usages.
 			 *
 			 * @param reference Reference that was used.
 			 */
 			private Usage( final FlexibleReference<?> reference )
 			{
 				_reference = reference;
+				_previous = this;
+				_next = this;
 			}
 
-			public boolean equals( final Object obj )
+			/**
+			 * Removes this usage from the list it is in, if any.
+			 */
+			private void unlink()
 			{
-				final boolean result;
-				if ( obj == this )
-				{
-					result = true;
-				}
-				else if ( obj instanceof Usage )
-				{
-					final Usage other = (Usage)obj;
-					result = ( _reference == other._reference ) || _reference.equals( other._reference );
-				}
-				else
-				{
-					result = false;
-				}
-				return result;
+				_previous._next = _next;
+				_next._previous = _previous;
+				_previous = this;
+				_next = this;
 			}
 
-			public int hashCode()
+			/**
+			 * Moves this usage to the end of the given list, i.e. makes it the
+			 * most recently used.
+			 *
+			 * @param head Head of the list.
+			 */
+			private void moveToEnd( final Usage head )
 			{
-				return _reference.hashCode();
+				unlink();
+				final Usage last = head._previous;
+				_previous = last;
+				_next = head;
+				last._next = this;
+				head._previous = this;
 			}
 		}
 	}
@@ -975,6 +1382,8 @@ implements Map<K, V>
 			final K key = reference.getKey();
 			disposeReference( reference );
 			_map.remove( key );
+			_evictionWeight += entryRemoved( key );
+			_evictionCount++;
 
 			if ( trace )
 			{
@@ -1332,6 +1741,7 @@ implements Map<K, V>
 
 			_iterator.remove();
 			disposeReference( _next.getReference() );
+			entryRemoved( _next.getKey() );
 		}
 	}
 
@@ -1386,6 +1796,8 @@ implements Map<K, V>
 			final CacheReference replaced = _entry.setValue( reference );
 			final V result = disposeReference( replaced );
 			addToIndices( key, value );
+			/* eviction is deferred, since it would break iteration */
+			entryAdded( key, value );
 			return result;
 		}
 
@@ -1505,6 +1917,8 @@ implements Map<K, V>
 	 * Allows for access to a map using an indexed attribute, instead of the
 	 * keys from the map.
 	 *
+	 * Indices used with a {@link ConcurrentCache} must be thread-safe.
+	 *
 	 * @param <K> Key type of the map.
 	 * @param <V> Value type of the map.
 	 * @param <I> Indexed attribute type.
@@ -1549,7 +1963,8 @@ implements Map<K, V>
 	}
 
 	/**
-	 * Implements a one-to-one index of a map.
+	 * Implements a one-to-one index of a map. The index is thread-safe, so it
+	 * may also be used with a {@link ConcurrentCache}.
 	 *
 	 * @param <K> Key type of the map.
 	 * @param <V> Value type of the map.
@@ -1564,6 +1979,12 @@ implements Map<K, V>
 		@NotNull
 		private final Map<I, K> _attributeToKey;
 
+		/**
+		 * Maps each key in the indexed map to its indexed attribute value.
+		 */
+		@NotNull
+		private final Map<K, I> _keyToAttribute;
+
 		/**
 		 * Constructs a new one-to-one index of the given attribute.
 		 *
@@ -1573,30 +1994,34 @@ implements Map<K, V>
 		{
 			super( attribute );
 			_attributeToKey = new HashMap<I, K>();
+			_keyToAttribute = new HashMap<K, I>();
 		}
 
 		@Override
-		public void clear()
+		public synchronized void clear()
 		{
 			_attributeToKey.clear();
+			_keyToAttribute.clear();
 		}
 
 		@Override
-		public void addToIndex( @Nullable final K key, @Nullable final V value )
+		public synchronized void addToIndex( @Nullable final K key, @Nullable final V value )
 		{
-			_attributeToKey.put( _attribute.index( value ), key );
+			removeFromIndex( key );
+			final I attribute = _attribute.index( value );
+			_attributeToKey.put( attribute, key );
+			_keyToAttribute.put( key, attribute );
 		}
 
 		@Override
-		public void removeFromIndex( @Nullable final K key )
+		public synchronized void removeFromIndex( @Nullable final K key )
 		{
-			final Collection<K> indexedKeys = _attributeToKey.values();
-			for ( final Iterator<K> it = indexedKeys.iterator(); it.hasNext(); )
+			if ( _keyToAttribute.containsKey( key ) )
 			{
-				final K indexedKey = it.next();
-				if ( ( key == null ) ? ( indexedKey == null ) : key.equals( indexedKey ) )
+				final I attribute = _keyToAttribute.remove( key );
+				if ( Objects.equals( key, _attributeToKey.get( attribute ) ) )
 				{
-					it.remove();
+					_attributeToKey.remove( attribute );
 				}
 			}
 		}
@@ -1624,7 +2049,7 @@ implements Map<K, V>
 		 * @return Key for the given attribute.
 		 */
 		@Nullable
-		public K getKey( @Nullable final I attribute )
+		public synchronized K getKey( @Nullable final I attribute )
 		{
 			return _attributeToKey.get( attribute );
 		}
@@ -1641,12 +2066,48 @@ implements Map<K, V>
 		@Nullable
 		public V remove( @SuppressWarnings( "TypeMayBeWeakened" ) @NotNull final Cache<K, V> map, @Nullable final I attribute )
 		{
-			return map.remove( _attributeToKey.remove( attribute ) );
+			return removeImpl( map, attribute );
+		}
+
+		/**
+		 * Removes the entry associated from the given attribute value from the
+		 * given map.
+		 *
+		 * @param map       Map to retrieve values from.
+		 * @param attribute Attribute value to be looked up.
+		 *
+		 * @return Removed value, if any.
+		 */
+		@Nullable
+		public V remove( @SuppressWarnings( "TypeMayBeWeakened" ) @NotNull final ConcurrentCache<K, V> map, @Nullable final I attribute )
+		{
+			return removeImpl( map, attribute );
+		}
+
+		/**
+		 * Removes the entry associated from the given attribute value from the
+		 * given map.
+		 *
+		 * @param map       Map to retrieve values from.
+		 * @param attribute Attribute value to be looked up.
+		 *
+		 * @return Removed value, if any.
+		 */
+		@Nullable
+		private V removeImpl( @NotNull final Map<K, V> map, @Nullable final I attribute )
+		{
+			final K key;
+			synchronized ( this )
+			{
+				key = _attributeToKey.remove( attribute );
+			}
+			return map.remove( key );
 		}
 	}
 
 	/**
-	 * Implements a one-to-many index of a map.
+	 * Implements a one-to-many index of a map. The index is thread-safe, so it
+	 * may also be used with a {@link ConcurrentCache}.
 	 *
 	 * @param <K> Key type of the map.
 	 * @param <V> Value type of the map.
@@ -1662,11 +2123,10 @@ implements Map<K, V>
 		private final Map<I, Set<K>> _indexToKey;
 
 		/**
-		 * During the {@link #remove(Cache, Object)} method, the key that is
-		 * currently being removed from the cache. Otherwise {@code null}.
+		 * Maps each key in the indexed map to its indexed value.
 		 */
-		@Nullable
-		private K _removeKey = null;
+		@NotNull
+		private final Map<K, I> _keyToIndex;
 
 		/**
 		 * Constructs a new one-to-many index of the given attribute.
@@ -1677,17 +2137,21 @@ implements Map<K, V>
 		{
 			super( attribute );
 			_indexToKey = new HashMap<I, Set<K>>();
+			_keyToIndex = new HashMap<K, I>();
 		}
 
 		@Override
-		public void clear()
+		public synchronized void clear()
 		{
 			_indexToKey.clear();
+			_keyToIndex.clear();
 		}
 
 		@Override
-		public void addToIndex( @Nullable final K key, @Nullable final V value )
+		public synchronized void addToIndex( @Nullable final K key, @Nullable final V value )
 		{
+			removeFromIndex( key );
+
 			final I index = _attribute.index( value );
 
 			Set<K> values = _indexToKey.get( index );
@@ -1698,23 +2162,22 @@ implements Map<K, V>
 			}
 
 			values.add( key );
+			_keyToIndex.put( key, index );
 		}
 
 		@Override
-		public void removeFromIndex( @Nullable final K key )
+		public synchronized void removeFromIndex( @Nullable final K key )
 		{
-			//noinspection ObjectEquality
-			if ( _removeKey != key )
+			if ( _keyToIndex.containsKey( key ) )
 			{
-				for ( final Set<K> indexedKeys : _indexToKey.values() )
+				final I index = _keyToIndex.remove( key );
+				final Set<K> indexedKeys = _indexToKey.get( index );
+				if ( indexedKeys != null )
 				{
-					for ( final Iterator<K> it = indexedKeys.iterator(); it.hasNext(); )
+					indexedKeys.remove( key );
+					if ( indexedKeys.isEmpty() )
 					{
-						final K indexedKey = it.next();
-						if ( ( key == null ) ? ( indexedKey == null ) : key.equals( indexedKey ) )
-						{
-							it.remove();
-						}
+						_indexToKey.remove( index );
 					}
 				}
 			}
@@ -1734,17 +2197,21 @@ implements Map<K, V>
 		{
 			final List<V> result;
 
-			final Set<K> keys = _indexToKey.get( index );
+			final List<K> keys;
+			synchronized ( this )
+			{
+				final Set<K> indexedKeys = _indexToKey.get( index );
+				keys = ( indexedKeys == null ) ? null : new ArrayList<K>( indexedKeys );
+			}
+
 			if ( keys == null )
 			{
 				result = Collections.emptyList();
 			}
 			else
 			{
-				final Iterable<K> keysCopy = new ArrayList<K>( keys );
-
 				result = new ArrayList<V>( keys.size() );
-				for ( final K key : keysCopy )
+				for ( final K key : keys )
 				{
 					final V value = cache.get( key );
 					if ( ( value != null ) || cache.containsKey( key ) )
@@ -1766,13 +2233,51 @@ implements Map<K, V>
 		 *
 		 * @return List of removed values.
 		 */
-		@SuppressWarnings( "FieldRepeatedlyAccessedInMethod" )
 		@NotNull
 		public List<V> remove( @SuppressWarnings( "TypeMayBeWeakened" ) @NotNull final Cache<K, V> cache, @Nullable final I index )
+		{
+			return removeImpl( cache, index );
+		}
+
+		/**
+		 * Removes the mappings associated with the given indexed value from the
+		 * cache.
+		 *
+		 * @param cache Cache to remove mappings from.
+		 * @param index Index to remove all associated mappings for.
+		 *
+		 * @return List of removed values.
+		 */
+		@NotNull
+		public List<V> remove( @SuppressWarnings( "TypeMayBeWeakened" ) @NotNull final ConcurrentCache<K, V> cache, @Nullable final I index )
+		{
+			return removeImpl( cache, index );
+		}
+
+		/**
+		 * Removes the mappings associated with the given indexed value from the
+		 * cache.
+		 *
+		 * @param cache Cache to remove mappings from.
+		 * @param index Index to remove all associated mappings for.
+		 *
+		 * @return List of removed values.
+		 */
+		@NotNull
+		private List<V> removeImpl( @NotNull final Map<K, V> cache, @Nullable final I index )
 		{
 			final List<V> result;
 
-			final Set<K> keys = _indexToKey.remove( index );
+			final Set<K> keys;
+			synchronized ( this )
+			{
+				keys = _indexToKey.remove( index );
+				if ( keys != null )
+				{
+					_keyToIndex.keySet().removeAll( keys );
+				}
+			}
+
 			if ( keys == null )
 			{
 				result = Collections.emptyList();
@@ -1782,10 +2287,8 @@ implements Map<K, V>
 				result = new ArrayList<V>( keys.size() );
 				for ( final K key : keys )
 				{
-					_removeKey = key;
 					result.add( cache.remove( key ) );
 				}
-				_removeKey = null;
 			}
 
 			return result;
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Statistics about the use of a {@link Cache} or {@link ConcurrentCache}.
+ * Instances are immutable snapshots.
+ */
+public final class CacheStatistics
+{
+	/**
+	 * Number of times a lookup found an entry.
+	 */
+	private final long _hitCount;
+
+	/**
+	 * Number of times a lookup did not find an entry.
+	 */
+	private final long _missCount;
+
+	/**
+	 * Number of values loaded successfully.
+	 */
+	private final long _loadSuccessCount;
+
+	/**
+	 * Number of times loading a value failed.
+	 */
+	private final long _loadFailureCount;
+
+	/**
+	 * Total time spent loading values, in nanoseconds.
+	 */
+	private final long _totalLoadTime;
+
+	/**
+	 * Number of evicted entries.
+	 */
+	private final long _evictionCount;
+
+	/**
+	 * Total weight of evicted entries.
+	 */
+	private final long _evictionWeight;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param hitCount         Number of times a lookup found an entry.
+	 * @param missCount        Number of times a lookup did not find an entry.
+	 * @param loadSuccessCount Number of values loaded successfully.
+	 * @param loadFailureCount Number of times loading a value failed.
+	 * @param totalLoadTime    Total time spent loading values, in nanoseconds.
+	 * @param evictionCount    Number of evicted entries.
+	 * @param evictionWeight   Total weight of evicted entries.
+	 */
+	public CacheStatistics( final long hitCount, final long missCount, final long loadSuccessCount, final long loadFailureCount, final long totalLoadTime, final long evictionCount, final long evictionWeight )
+	{
+		_hitCount = hitCount;
+		_missCount = missCount;
+		_loadSuccessCount = loadSuccessCount;
+		_loadFailureCount = loadFailureCount;
+		_totalLoadTime = totalLoadTime;
+		_evictionCount = evictionCount;
+		_evictionWeight = evictionWeight;
+	}
+
+	/**
+	 * Returns the number of times a lookup found an entry.
+	 *
+	 * @return Number of hits.
+	 */
+	public long getHitCount()
+	{
+		return _hitCount;
+	}
+
+	/**
+	 * Returns the number of times a lookup did not find an entry.
+	 *
+	 * @return Number of misses.
+	 */
+	public long getMissCount()
+	{
+		return _missCount;
+	}
+
+	/**
+	 * Returns the total number of lookups.
+	 *
+	 * @return Number of hits and misses.
+	 */
+	public long getRequestCount()
+	{
+		return _hitCount + _missCount;
+	}
+
+	/**
+	 * Returns the ratio of lookups that found an entry.
+	 *
+	 * @return Hit rate; {@code 1.0} if there were no lookups.
+	 */
+	public double getHitRate()
+	{
+		final long requestCount = getRequestCount();
+		return ( requestCount == 0L ) ? 1.0 : (double)_hitCount / (double)requestCount;
+	}
+
+	/**
+	 * Returns the number of values loaded successfully.
+	 *
+	 * @return Number of successful loads.
+	 */
+	public long getLoadSuccessCount()
+	{
+		return _loadSuccessCount;
+	}
+
+	/**
+	 * Returns the number of times loading a value failed.
+	 *
+	 * @return Number of failed loads.
+	 */
+	public long getLoadFailureCount()
+	{
+		return _loadFailureCount;
+	}
+
+	/**
+	 * Returns the total time spent loading values.
+	 *
+	 * @return Total load time, in nanoseconds.
+	 */
+	public long getTotalLoadTime()
+	{
+		return _totalLoadTime;
+	}
+
+	/**
+	 * Returns the average time spent loading a value.
+	 *
+	 * @return Average load time, in nanoseconds; {@code 0.0} if no values
+	 * were loaded.
+	 */
+	public double getAverageLoadPenalty()
+	{
+		final long loadCount = _loadSuccessCount + _loadFailureCount;
+		return ( loadCount == 0L ) ? 0.0 : (double)_totalLoadTime / (double)loadCount;
+	}
+
+	/**
+	 * Returns the number of evicted entries, including entries of which the
+	 * value was reclaimed by the garbage collector.
+	 *
+	 * @return Number of evictions.
+	 */
+	public long getEvictionCount()
+	{
+		return _evictionCount;
+	}
+
+	/**
+	 * Returns the total weight of evicted entries.
+	 *
+	 * @return Eviction weight.
+	 */
+	public long getEvictionWeight()
+	{
+		return _evictionWeight;
+	}
+
+	/**
+	 * Returns the sum of these statistics and the given statistics.
+	 *
+	 * @param other Statistics to add.
+	 *
+	 * @return Combined statistics.
+	 */
+	@NotNull
+	public CacheStatistics plus( @NotNull final CacheStatistics other )
+	{
+		return new CacheStatistics( _hitCount + other._hitCount, _missCount + other._missCount, _loadSuccessCount + other._loadSuccessCount, _loadFailureCount + other._loadFailureCount, _totalLoadTime + other._totalLoadTime, _evictionCount + other._evictionCount, _evictionWeight + other._evictionWeight );
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CacheStatistics[hitCount=" + _hitCount + ", missCount=" + _missCount + ", loadSuccessCount=" + _loadSuccessCount + ", loadFailureCount=" + _loadFailureCount + ", totalLoadTime=" + _totalLoadTime + ", evictionCount=" + _evictionCount + ", evictionWeight=" + _evictionWeight + ']';
+	}
+}
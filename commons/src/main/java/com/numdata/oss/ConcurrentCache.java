@@ -0,0 +1,791 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Thread-safe variant of {@link Cache}. Entries are distributed over a number
+ * of segments based on the hash code of their key. Each segment is a {@link
+ * Cache} with its own {@link Cache.CachingPolicy caching policy}, guarded by
+ * its own lock, so threads accessing different segments don't block each
+ * other.
+ *
+ * Values are referenced using hard or soft references, exactly like {@link
+ * Cache}. Note that any limits imposed by a caching policy, e.g. the minimum
+ * and maximum number of hard references, apply to each segment separately.
+ *
+ * Indices may be added as with {@link Cache#addIndex}, provided that they are
+ * thread-safe, like {@link Cache.OneToOneIndex} and {@link
+ * Cache.OneToManyIndex}.
+ *
+ * Values can be loaded on demand using {@link #getOrLoad}, which collapses
+ * concurrent loads of the same key into a single load.
+ *
+ * Iterators over the views of this map are weakly consistent; they iterate
+ * over a snapshot of each segment and never throw {@link
+ * ConcurrentModificationException}.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ */
+public class ConcurrentCache<K, V>
+extends AbstractMap<K, V>
+{
+	/**
+	 * Default number of segments.
+	 */
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+	/**
+	 * Key used in {@link #_loading} for the {@code null} key.
+	 */
+	private static final Object NULL_KEY = new Object();
+
+	/**
+	 * Segments of the cache.
+	 */
+	@NotNull
+	private final Segment<K, V>[] _segments;
+
+	/**
+	 * Number of bits to shift a mixed hash code to get a segment index.
+	 */
+	private final int _segmentShift;
+
+	/**
+	 * Loads in progress, by key.
+	 */
+	private final ConcurrentMap<Object, FutureTask<V>> _loading = new ConcurrentHashMap<Object, FutureTask<V>>();
+
+	/**
+	 * View of the entries in the map. (created as needed)
+	 */
+	private Set<Entry<K, V>> _entrySet = null;
+
+	/**
+	 * Constructs a new cache with the default number of segments, each using
+	 * the default caching policy.
+	 */
+	public ConcurrentCache()
+	{
+		this( DEFAULT_CONCURRENCY_LEVEL );
+	}
+
+	/**
+	 * Constructs a new cache with the given concurrency level, using the
+	 * default caching policy.
+	 *
+	 * @param concurrencyLevel Estimated number of concurrently accessing
+	 *                         threads.
+	 */
+	public ConcurrentCache( final int concurrencyLevel )
+	{
+		this( concurrencyLevel, Cache.DefaultCachingPolicy::new );
+	}
+
+	/**
+	 * Constructs a new cache with the given concurrency level. Because caching
+	 * policies keep track of the references in a single cache, each segment
+	 * needs its own caching policy.
+	 *
+	 * @param concurrencyLevel Estimated number of concurrently accessing
+	 *                         threads.
+	 * @param policyFactory    Creates the caching policy for each segment.
+	 */
+	public ConcurrentCache( final int concurrencyLevel, @NotNull final Supplier<? extends Cache.CachingPolicy> policyFactory )
+	{
+		if ( concurrencyLevel <= 0 )
+		{
+			throw new IllegalArgumentException( "concurrencyLevel: " + concurrencyLevel );
+		}
+
+		final int segmentCount = Integer.highestOneBit( Math.min( concurrencyLevel, 1 << 16 ) * 2 - 1 );
+
+		@SuppressWarnings( { "unchecked", "rawtypes" } )
+		final Segment<K, V>[] segments = new Segment[ segmentCount ];
+		for ( int i = 0; i < segmentCount; i++ )
+		{
+			segments[ i ] = new Segment<K, V>( new Cache<K, V>( policyFactory.get() ) );
+		}
+
+		_segments = segments;
+		_segmentShift = 32 - Integer.numberOfTrailingZeros( segmentCount );
+	}
+
+	/**
+	 * Returns the segment that stores the given key.
+	 *
+	 * @param key Key to get the segment for.
+	 *
+	 * @return Segment for the key.
+	 */
+	@NotNull
+	private Segment<K, V> getSegment( @Nullable final Object key )
+	{
+		final Segment<K, V>[] segments = _segments;
+		final Segment<K, V> result;
+		if ( segments.length == 1 )
+		{
+			result = segments[ 0 ];
+		}
+		else
+		{
+			/*
+			 * Uses the high bits of a multiplicative hash, so the segment index
+			 * is independent of the bits used by the segment's hash table.
+			 */
+			final int hash = ( key == null ) ? 0 : key.hashCode();
+			result = segments[ ( hash * 0x9e3779b9 ) >>> _segmentShift ];
+		}
+		return result;
+	}
+
+	@Override
+	public int size()
+	{
+		int result = 0;
+		for ( final Segment<K, V> segment : _segments )
+		{
+			segment.lock();
+			try
+			{
+				result += segment._cache.size();
+			}
+			finally
+			{
+				segment.unlock();
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		boolean result = true;
+		for ( final Segment<K, V> segment : _segments )
+		{
+			segment.lock();
+			try
+			{
+				result = segment._cache.isEmpty();
+			}
+			finally
+			{
+				segment.unlock();
+			}
+
+			if ( !result )
+			{
+				break;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean containsKey( final Object key )
+	{
+		final Segment<K, V> segment = getSegment( key );
+		segment.lock();
+		try
+		{
+			return segment._cache.containsKey( key );
+		}
+		finally
+		{
+			segment.unlock();
+		}
+	}
+
+	@Nullable
+	@Override
+	public V get( final Object key )
+	{
+		final Segment<K, V> segment = getSegment( key );
+		segment.lock();
+		try
+		{
+			return segment._cache.get( key );
+		}
+		finally
+		{
+			segment.unlock();
+		}
+	}
+
+	/**
+	 * Returns the value associated with the given key. If there is no such
+	 * value, the value is loaded using the given function and added to the
+	 * cache. If multiple threads request the same missing key at the same
+	 * time, the value is loaded only once; the other threads wait for the
+	 * result.
+	 *
+	 * @param key    Key to get value for.
+	 * @param loader Function to load the value for a key.
+	 *
+	 * @return Value associated with the key.
+	 */
+	@Nullable
+	public V getOrLoad( final K key, @NotNull final Function<? super K, ? extends V> loader )
+	{
+		final Segment<K, V> segment = getSegment( key );
+
+		V result;
+		boolean present;
+		segment.lock();
+		try
+		{
+			final Cache<K, V> cache = segment._cache;
+			result = cache.get( key );
+			present = ( result != null ) || cache.isPresent( key );
+		}
+		finally
+		{
+			segment.unlock();
+		}
+
+		if ( !present )
+		{
+			final Object loadKey = ( key == null ) ? NULL_KEY : key;
+			final FutureTask<V> task = new FutureTask<V>( () -> load( segment, key, loader ) );
+			final FutureTask<V> existing = _loading.putIfAbsent( loadKey, task );
+			if ( existing == null )
+			{
+				try
+				{
+					task.run();
+				}
+				finally
+				{
+					_loading.remove( loadKey, task );
+				}
+				result = getLoadResult( task );
+			}
+			else
+			{
+				result = getLoadResult( existing );
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Loads the value for the given key and adds it to the cache, unless
+	 * another thread added a value in the meantime.
+	 *
+	 * @param segment Segment that stores the key.
+	 * @param key     Key to load value for.
+	 * @param loader  Function to load the value for a key.
+	 *
+	 * @return Loaded value.
+	 */
+	@Nullable
+	private V load( @NotNull final Segment<K, V> segment, final K key, @NotNull final Function<? super K, ? extends V> loader )
+	{
+		V result = null;
+		boolean present;
+
+		segment.lock();
+		try
+		{
+			final Cache<K, V> cache = segment._cache;
+			if ( cache.isPresent( key ) )
+			{
+				result = cache.get( key );
+			}
+			/* the value may have been cleared since it was checked */
+			present = ( result != null ) || cache.isPresent( key );
+		}
+		finally
+		{
+			segment.unlock();
+		}
+
+		if ( !present )
+		{
+			final long start = System.nanoTime();
+			boolean success = false;
+			try
+			{
+				result = loader.apply( key );
+				success = true;
+			}
+			finally
+			{
+				final long loadTime = System.nanoTime() - start;
+				segment.lock();
+				try
+				{
+					final Cache<K, V> cache = segment._cache;
+					cache.recordLoad( success, loadTime );
+					if ( success )
+					{
+						cache.put( key, result );
+					}
+				}
+				finally
+				{
+					segment.unlock();
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Waits for a load to complete and returns its result.
+	 *
+	 * @param task Load task.
+	 * @param <T>  Value type.
+	 *
+	 * @return Loaded value.
+	 */
+	@Nullable
+	private static <T> T getLoadResult( @NotNull final FutureTask<T> task )
+	{
+		boolean interrupted = false;
+		try
+		{
+			while ( true )
+			{
+				try
+				{
+					return task.get();
+				}
+				catch ( final InterruptedException e )
+				{
+					interrupted = true;
+				}
+				catch ( final ExecutionException e )
+				{
+					final Throwable cause = e.getCause();
+					if ( cause instanceof RuntimeException )
+					{
+						throw (RuntimeException)cause;
+					}
+					if ( cause instanceof Error )
+					{
+						throw (Error)cause;
+					}
+					throw new IllegalStateException( cause );
+				}
+			}
+		}
+		finally
+		{
+			if ( interrupted )
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Returns statistics about the use of this cache, combined over all
+	 * segments.
+	 *
+	 * @return Cache statistics.
+	 */
+	@NotNull
+	public CacheStatistics getStatistics()
+	{
+		CacheStatistics result = new CacheStatistics( 0L, 0L, 0L, 0L, 0L, 0L, 0L );
+		for ( final Segment<K, V> segment : _segments )
+		{
+			segment.lock();
+			try
+			{
+				result = result.plus( segment._cache.getStatistics() );
+			}
+			finally
+			{
+				segment.unlock();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Bounds the total weight of the entries in the cache. The maximum weight
+	 * is divided evenly over the segments of the cache.
+	 *
+	 * @param maximumWeight Maximum total weight.
+	 * @param weigher       Determines the weight of each entry.
+	 *
+	 * @see Cache#setMaximumWeight
+	 */
+	public void setMaximumWeight( final long maximumWeight, @NotNull final Cache.Weigher<? super K, ? super V> weigher )
+	{
+		if ( maximumWeight < 0L )
+		{
+			throw new IllegalArgumentException( "maximumWeight: " + maximumWeight );
+		}
+
+		final Segment<K, V>[] segments = _segments;
+		final long segmentWeight = maximumWeight / segments.length + ( ( maximumWeight % segments.length == 0L ) ? 0L : 1L );
+		for ( final Segment<K, V> segment : segments )
+		{
+			segment.lock();
+			try
+			{
+				segment._cache.setMaximumWeight( segmentWeight, weigher );
+			}
+			finally
+			{
+				segment.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Returns the total weight of the entries in the cache.
+	 *
+	 * @return Total weight; {@code 0} if no {@link Cache.Weigher} is set.
+	 */
+	public long getTotalWeight()
+	{
+		long result = 0L;
+		for ( final Segment<K, V> segment : _segments )
+		{
+			segment.lock();
+			try
+			{
+				result += segment._cache.getTotalWeight();
+			}
+			finally
+			{
+				segment.unlock();
+			}
+		}
+		return result;
+	}
+
+	@Nullable
+	@Override
+	public V put( final K key, final V value )
+	{
+		final Segment<K, V> segment = getSegment( key );
+		segment.lock();
+		try
+		{
+			return segment._cache.put( key, value );
+		}
+		finally
+		{
+			segment.unlock();
+		}
+	}
+
+	/**
+	 * Atomically associates the given value with the given key, if the key
+	 * is not already associated with a value.
+	 *
+	 * @param key   Key to be put.
+	 * @param value Value to be put.
+	 *
+	 * @return Current value associated with the key; {@code null} if the
+	 * value was put.
+	 */
+	@Nullable
+	@Override
+	public V putIfAbsent( final K key, final V value )
+	{
+		final Segment<K, V> segment = getSegment( key );
+		segment.lock();
+		try
+		{
+			final Cache<K, V> cache = segment._cache;
+			V result = cache.get( key );
+			if ( result == null )
+			{
+				result = cache.put( key, value );
+			}
+			return result;
+		}
+		finally
+		{
+			segment.unlock();
+		}
+	}
+
+	@Nullable
+	@Override
+	public V remove( final Object key )
+	{
+		final Segment<K, V> segment = getSegment( key );
+		segment.lock();
+		try
+		{
+			return segment._cache.remove( key );
+		}
+		finally
+		{
+			segment.unlock();
+		}
+	}
+
+	@Override
+	public void clear()
+	{
+		for ( final Segment<K, V> segment : _segments )
+		{
+			segment.lock();
+			try
+			{
+				segment._cache.clear();
+			}
+			finally
+			{
+				segment.unlock();
+			}
+		}
+	}
+
+	@NotNull
+	@Override
+	public Set<Entry<K, V>> entrySet()
+	{
+		final Set<Entry<K, V>> entrySet = _entrySet;
+		return ( entrySet != null ) ? entrySet : ( _entrySet = new EntrySet() );
+	}
+
+	/**
+	 * Adds an index to the cache. The index must be thread-safe.
+	 *
+	 * @param index Index to be added.
+	 */
+	public void addIndex( @NotNull final Cache.Index<K, V, ?> index )
+	{
+		for ( final Segment<K, V> segment : _segments )
+		{
+			segment.lock();
+			try
+			{
+				segment._cache.addIndex( index );
+			}
+			finally
+			{
+				segment.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Removes an index from the cache.
+	 *
+	 * @param index Index to be removed.
+	 */
+	public void removeIndex( @NotNull final Cache.Index<K, V, ?> index )
+	{
+		for ( final Segment<K, V> segment : _segments )
+		{
+			segment.lock();
+			try
+			{
+				segment._cache.removeIndex( index );
+			}
+			finally
+			{
+				segment.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Segment of the cache, which is a cache guarded by a lock.
+	 *
+	 * @param <K> Key type.
+	 * @param <V> Value type.
+	 */
+	private static class Segment<K, V>
+	extends ReentrantLock
+	{
+		/**
+		 * Serialized data version.
+		 */
+		private static final long serialVersionUID = 4127359846128773093L;
+
+		/**
+		 * Entries in the segment.
+		 */
+		@NotNull
+		private final Cache<K, V> _cache;
+
+		/**
+		 * Constructs a new segment.
+		 *
+		 * @param cache Cache to store the segment's entries.
+		 */
+		private Segment( @NotNull final Cache<K, V> cache )
+		{
+			_cache = cache;
+		}
+	}
+
+	/**
+	 * Implements a view of the entries in the cache.
+	 */
+	private class EntrySet
+	extends AbstractSet<Entry<K, V>>
+	{
+		@NotNull
+		@Override
+		public Iterator<Entry<K, V>> iterator()
+		{
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size()
+		{
+			return ConcurrentCache.this.size();
+		}
+
+		@Override
+		public void clear()
+		{
+			ConcurrentCache.this.clear();
+		}
+	}
+
+	/**
+	 * Iterates over the entries in the cache, one segment at a time, using a
+	 * snapshot of the entries in each segment.
+	 */
+	private class EntryIterator
+	implements Iterator<Entry<K, V>>
+	{
+		/**
+		 * Index of the next segment to take a snapshot of.
+		 */
+		private int _nextSegment = 0;
+
+		/**
+		 * Iterator over the snapshot of the current segment.
+		 */
+		@NotNull
+		private Iterator<Entry<K, V>> _snapshot = Collections.emptyIterator();
+
+		/**
+		 * Entry last returned by {@link #next()}.
+		 */
+		@Nullable
+		private Entry<K, V> _last = null;
+
+		@Override
+		public boolean hasNext()
+		{
+			final Segment<K, V>[] segments = _segments;
+			while ( !_snapshot.hasNext() && ( _nextSegment < segments.length ) )
+			{
+				final Segment<K, V> segment = segments[ _nextSegment++ ];
+				final List<Entry<K, V>> snapshot;
+				segment.lock();
+				try
+				{
+					final Cache<K, V> cache = segment._cache;
+					snapshot = new ArrayList<Entry<K, V>>( cache.size() );
+					for ( final Entry<K, V> entry : cache.entrySet() )
+					{
+						snapshot.add( new SnapshotEntry( entry.getKey(), entry.getValue() ) );
+					}
+				}
+				finally
+				{
+					segment.unlock();
+				}
+				_snapshot = snapshot.iterator();
+			}
+			return _snapshot.hasNext();
+		}
+
+		@Override
+		public Entry<K, V> next()
+		{
+			if ( !hasNext() )
+			{
+				//noinspection NewExceptionWithoutArguments
+				throw new NoSuchElementException();
+			}
+			final Entry<K, V> result = _snapshot.next();
+			_last = result;
+			return result;
+		}
+
+		@Override
+		public void remove()
+		{
+			final Entry<K, V> last = _last;
+			if ( last == null )
+			{
+				throw new IllegalStateException( "next not called or element already removed" );
+			}
+			_last = null;
+			ConcurrentCache.this.remove( last.getKey() );
+		}
+	}
+
+	/**
+	 * Entry from a snapshot of the cache. Setting the value of the entry
+	 * updates the cache.
+	 */
+	private class SnapshotEntry
+	extends SimpleEntry<K, V>
+	{
+		/**
+		 * Serialized data version.
+		 */
+		private static final long serialVersionUID = -6219384763305927711L;
+
+		/**
+		 * Constructs a new entry.
+		 *
+		 * @param key   Key of the entry.
+		 * @param value Value of the entry.
+		 */
+		private SnapshotEntry( final K key, final V value )
+		{
+			super( key, value );
+		}
+
+		@Override
+		public V setValue( final V value )
+		{
+			super.setValue( value );
+			return put( getKey(), value );
+		}
+	}
+}
@@ -0,0 +1,715 @@
+/*
+ * Copyright (c) 2003-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss;
+
+import java.io.*;
+import java.math.*;
+import java.text.*;
+import java.time.format.*;
+import java.util.*;
+import java.util.function.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Factory for localized formats. JDK formats are expensive to create but not
+ * thread-safe, so this factory keeps a prototype of each format, mapped by
+ * locale and options, and hands out a clone of the prototype on every call.
+ * The caller may use and modify the returned format freely, as long as it
+ * stays confined to a single thread.
+ *
+ * For dates and times, immutable and thread-safe {@link DateTimeFormatter}s
+ * are available that need not be cloned at all. Plain integer and
+ * fixed-decimal numbers can be formatted without creating a {@link
+ * DecimalFormat} using the {@code formatTo} methods.
+ *
+ * @author Peter S. Heijnen
+ */
+public final class FormatFactory
+{
+	/**
+	 * Maximum number of fraction digits supported by {@link
+	 * #formatTo(Appendable, double, int, Locale)} without falling back to
+	 * {@link DecimalFormat}.
+	 */
+	private static final int MAXIMUM_FAST_FRACTION_DIGITS = 15;
+
+	/**
+	 * Maximum scaled value supported by {@link #formatTo(Appendable, double,
+	 * int, Locale)} without falling back to {@link DecimalFormat}.
+	 */
+	private static final double MAXIMUM_FAST_SCALED_VALUE = 1.0e15;
+
+	/**
+	 * Powers of ten up to {@link #MAXIMUM_FAST_FRACTION_DIGITS}.
+	 */
+	private static final double[] POWERS_OF_TEN = { 1.0e0, 1.0e1, 1.0e2, 1.0e3, 1.0e4, 1.0e5, 1.0e6, 1.0e7, 1.0e8, 1.0e9, 1.0e10, 1.0e11, 1.0e12, 1.0e13, 1.0e14, 1.0e15 };
+
+	/**
+	 * Prototype formats, mapped by locale and options.
+	 */
+	private static final ConcurrentCache<FormatKey, Format> PROTOTYPES = new ConcurrentCache<>();
+
+	/**
+	 * Prototype decimal format symbols, by locale.
+	 */
+	private static final ConcurrentCache<Locale, DecimalFormatSymbols> DECIMAL_FORMAT_SYMBOLS = new ConcurrentCache<>();
+
+	/**
+	 * Symbols used for plain number formatting, by locale.
+	 */
+	private static final ConcurrentCache<Locale, PlainNumberSymbols> PLAIN_NUMBER_SYMBOLS = new ConcurrentCache<>();
+
+	/**
+	 * Immutable date/time formatters, mapped by locale and options.
+	 */
+	private static final ConcurrentCache<FormatKey, DateTimeFormatter> DATE_TIME_FORMATTERS = new ConcurrentCache<>();
+
+	/**
+	 * Kinds of formats.
+	 */
+	private enum FormatType
+	{
+		/** Number format with default fraction digits. */
+		DEFAULT_NUMBER,
+
+		/** Number format. */
+		NUMBER,
+
+		/** Percent format. */
+		PERCENT,
+
+		/** Currency format with custom currency symbol. */
+		CURRENCY_SYMBOL,
+
+		/** Currency format for a {@link Currency}. */
+		CURRENCY,
+
+		/** Date format. */
+		DATE,
+
+		/** Date/time format. */
+		DATE_TIME
+	}
+
+	/**
+	 * Utility class is not supposed to be instantiated.
+	 */
+	private FormatFactory()
+	{
+	}
+
+	/**
+	 * Get format to use for numbers. Grouping is disabled.
+	 *
+	 * @param locale Locale to use for localized formatting.
+	 *
+	 * @return Number format.
+	 *
+	 * @see TextTools#getNumberFormat(Locale)
+	 */
+	@NotNull
+	public static NumberFormat getNumberFormat( @NotNull final Locale locale )
+	{
+		return (NumberFormat)getPrototype( new FormatKey( FormatType.DEFAULT_NUMBER, locale, 0, 0, false, null ) ).clone();
+	}
+
+	/**
+	 * Get format to use for numbers with the specified amount of fraction
+	 * digits.
+	 *
+	 * @param locale                Locale to use for localized formatting.
+	 * @param minimumFractionDigits Minimum number of fraction digits.
+	 * @param maximumFractionDigits Maximum number of fraction digits.
+	 * @param groupingUsed          Use grouping of digits or not.
+	 *
+	 * @return Number format.
+	 *
+	 * @see TextTools#getNumberFormat(Locale, int, int, boolean)
+	 */
+	@NotNull
+	public static NumberFormat getNumberFormat( @NotNull final Locale locale, final int minimumFractionDigits, final int maximumFractionDigits, final boolean groupingUsed )
+	{
+		if ( minimumFractionDigits > maximumFractionDigits )
+		{
+			throw new IllegalArgumentException( minimumFractionDigits + " > " + maximumFractionDigits );
+		}
+
+		final FormatKey key = new FormatKey( FormatType.NUMBER, locale, minimumFractionDigits, maximumFractionDigits, groupingUsed, null );
+		return (NumberFormat)getPrototype( key ).clone();
+	}
+
+	/**
+	 * Get localized percent format.
+	 *
+	 * @param locale Locale to use for localized formatting.
+	 *
+	 * @return Percent format.
+	 *
+	 * @see TextTools#getPercentFormat(Locale)
+	 */
+	@NotNull
+	public static NumberFormat getPercentFormat( @NotNull final Locale locale )
+	{
+		return (NumberFormat)getPrototype( new FormatKey( FormatType.PERCENT, locale, 0, 0, false, null ) ).clone();
+	}
+
+	/**
+	 * Get localized currency format.
+	 *
+	 * @param locale Locale to get currency format of.
+	 * @param symbol Currency symbol to use.
+	 *
+	 * @return Currency format.
+	 *
+	 * @see TextTools#getCurrencyFormat(Locale, String)
+	 */
+	@NotNull
+	public static DecimalFormat getCurrencyFormat( @NotNull final Locale locale, @NotNull final String symbol )
+	{
+		return (DecimalFormat)getPrototype( new FormatKey( FormatType.CURRENCY_SYMBOL, locale, 0, 0, false, symbol ) ).clone();
+	}
+
+	/**
+	 * Get localized currency format.
+	 *
+	 * @param locale   Locale to get currency format of.
+	 * @param currency Currency to use.
+	 *
+	 * @return Currency format.
+	 *
+	 * @see TextTools#getCurrencyFormat(Locale, Currency)
+	 */
+	@NotNull
+	public static DecimalFormat getCurrencyFormat( @NotNull final Locale locale, @NotNull final Currency currency )
+	{
+		return (DecimalFormat)getPrototype( new FormatKey( FormatType.CURRENCY, locale, 0, 0, false, currency ) ).clone();
+	}
+
+	/**
+	 * Get localized date (not including time) format.
+	 *
+	 * @param locale Locale to use for localized formatting.
+	 *
+	 * @return Date format.
+	 *
+	 * @see TextTools#getDateFormat(Locale)
+	 */
+	@NotNull
+	public static SimpleDateFormat getDateFormat( @NotNull final Locale locale )
+	{
+		return getDateFormat( FormatType.DATE, locale );
+	}
+
+	/**
+	 * Get localized date/time format.
+	 *
+	 * @param locale Locale to use for localized formatting.
+	 *
+	 * @return Date/time format.
+	 *
+	 * @see TextTools#getDateTimeFormat(Locale)
+	 */
+	@NotNull
+	public static SimpleDateFormat getDateTimeFormat( @NotNull final Locale locale )
+	{
+		return getDateFormat( FormatType.DATE_TIME, locale );
+	}
+
+	/**
+	 * Get decimal format symbols for the given locale.
+	 *
+	 * @param locale Locale to get symbols for.
+	 *
+	 * @return Decimal format symbols.
+	 */
+	@NotNull
+	public static DecimalFormatSymbols getDecimalFormatSymbols( @NotNull final Locale locale )
+	{
+		final DecimalFormatSymbols prototype = getOrLoad( DECIMAL_FORMAT_SYMBOLS, locale, DecimalFormatSymbols::getInstance );
+		return (DecimalFormatSymbols)prototype.clone();
+	}
+
+	/**
+	 * Get immutable, thread-safe, short localized date formatter.
+	 *
+	 * @param locale Locale to use for localized formatting.
+	 *
+	 * @return Date formatter.
+	 */
+	@NotNull
+	public static DateTimeFormatter getDateFormatter( @NotNull final Locale locale )
+	{
+		return getOrLoad( DATE_TIME_FORMATTERS, new FormatKey( FormatType.DATE, locale, 0, 0, false, null ), key -> DateTimeFormatter.ofLocalizedDate( FormatStyle.SHORT ).withLocale( locale ) );
+	}
+
+	/**
+	 * Get immutable, thread-safe, short localized date/time formatter.
+	 *
+	 * @param locale Locale to use for localized formatting.
+	 *
+	 * @return Date/time formatter.
+	 */
+	@NotNull
+	public static DateTimeFormatter getDateTimeFormatter( @NotNull final Locale locale )
+	{
+		return getOrLoad( DATE_TIME_FORMATTERS, new FormatKey( FormatType.DATE_TIME, locale, 0, 0, false, null ), key -> DateTimeFormatter.ofLocalizedDateTime( FormatStyle.SHORT ).withLocale( locale ) );
+	}
+
+	/**
+	 * Formats an integer without grouping. The result is the same as that of
+	 * {@code getNumberFormat( locale, 0, 0, false ).format( value )}, but no
+	 * format or intermediate string is created.
+	 *
+	 * @param out    Character sequence to append to.
+	 * @param value  Value to format.
+	 * @param locale Locale to use for localized formatting.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static void formatTo( @NotNull final Appendable out, final long value, @NotNull final Locale locale )
+	throws IOException
+	{
+		final PlainNumberSymbols symbols = getPlainNumberSymbols( locale );
+		final boolean negative = ( value < 0L );
+
+		out.append( negative ? symbols._negativePrefix : symbols._positivePrefix );
+		appendDigits( out, value, 1, symbols._zeroDigit );
+		out.append( negative ? symbols._negativeSuffix : symbols._positiveSuffix );
+	}
+
+	/**
+	 * Formats a number with a fixed number of fraction digits without
+	 * grouping, rounding half up. The result is the same as that of {@code
+	 * getNumberFormat( locale, fractionDigits, fractionDigits, false ).format(
+	 * value )}. For finite values of reasonable magnitude and precision that
+	 * are not close to a rounding tie, no format or intermediate string is
+	 * created.
+	 *
+	 * @param out            Character sequence to append to.
+	 * @param value          Value to format.
+	 * @param fractionDigits Number of fraction digits.
+	 * @param locale         Locale to use for localized formatting.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static void formatTo( @NotNull final Appendable out, final double value, final int fractionDigits, @NotNull final Locale locale )
+	throws IOException
+	{
+		if ( fractionDigits < 0 )
+		{
+			throw new IllegalArgumentException( "fractionDigits: " + fractionDigits );
+		}
+
+		final double magnitude = Math.abs( value );
+		final double scaled = ( fractionDigits <= MAXIMUM_FAST_FRACTION_DIGITS ) ? magnitude * POWERS_OF_TEN[ fractionDigits ] : Double.NaN;
+		final double floor = Math.floor( scaled );
+		final double remainder = scaled - floor;
+
+		/*
+		 * The scaled value may be inexact, so values close to a tie are left
+		 * to 'DecimalFormat', whose rounding of such values depends on the
+		 * shortest decimal representation of the value rather than its exact
+		 * binary value (e.g. 5.0E-7 is rounded up to 0.000001).
+		 */
+		if ( ( scaled < MAXIMUM_FAST_SCALED_VALUE ) && ( Math.abs( remainder - 0.5 ) > 4.0 * Math.ulp( scaled ) ) ) /* false for NaN and infinity */
+		{
+			final long unscaled = (long)floor + ( ( remainder > 0.5 ) ? 1L : 0L );
+
+			final PlainNumberSymbols symbols = getPlainNumberSymbols( locale );
+			final boolean negative = ( value < 0.0 ) || ( ( value == 0.0 ) && ( 1.0 / value < 0.0 ) );
+
+			out.append( negative ? symbols._negativePrefix : symbols._positivePrefix );
+			if ( fractionDigits == 0 )
+			{
+				appendDigits( out, unscaled, 1, symbols._zeroDigit );
+			}
+			else
+			{
+				final long divisor = (long)POWERS_OF_TEN[ fractionDigits ];
+				appendDigits( out, unscaled / divisor, 1, symbols._zeroDigit );
+				out.append( symbols._decimalSeparator );
+				appendDigits( out, unscaled % divisor, fractionDigits, symbols._zeroDigit );
+			}
+			out.append( negative ? symbols._negativeSuffix : symbols._positiveSuffix );
+		}
+		else
+		{
+			final NumberFormat format = getNumberFormat( locale, fractionDigits, fractionDigits, false );
+			out.append( format.format( value ) );
+		}
+	}
+
+	/**
+	 * Appends the decimal digits of a number, without sign.
+	 *
+	 * @param out       Character sequence to append to.
+	 * @param value     Value whose digits to append.
+	 * @param minDigits Minimum number of digits, padded with leading zeroes.
+	 * @param zeroDigit Character used for zero.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void appendDigits( @NotNull final Appendable out, final long value, final int minDigits, final char zeroDigit )
+	throws IOException
+	{
+		/*
+		 * Work with negative values, so 'Long.MIN_VALUE' needs no special
+		 * treatment.
+		 */
+		final long negated = ( value > 0L ) ? -value : value;
+
+		int digits = 1;
+		long divisor = 1L;
+		while ( ( negated / divisor ) <= -10L )
+		{
+			divisor *= 10L;
+			digits++;
+		}
+
+		for ( int i = digits; i < minDigits; i++ )
+		{
+			out.append( zeroDigit );
+		}
+
+		for ( ; divisor > 0L; divisor /= 10L )
+		{
+			out.append( (char)( zeroDigit - (int)( ( negated / divisor ) % 10L ) ) );
+		}
+	}
+
+	/**
+	 * Returns the value for the given key from the given cache, loading it if
+	 * needed.
+	 *
+	 * @param cache  Cache to get the value from.
+	 * @param key    Key of the value.
+	 * @param loader Loads the value if it's not in the cache.
+	 * @param <K>    Key type.
+	 * @param <V>    Value type.
+	 *
+	 * @return Cached or loaded value.
+	 *
+	 * @throws IllegalStateException if no value is available for the key.
+	 */
+	@NotNull
+	private static <K, V> V getOrLoad( @NotNull final ConcurrentCache<K, V> cache, @NotNull final K key, @NotNull final Function<? super K, ? extends V> loader )
+	{
+		final V result = cache.getOrLoad( key, loader );
+		if ( result == null )
+		{
+			throw new IllegalStateException( "No value for " + key );
+		}
+		return result;
+	}
+
+	/**
+	 * Get localized date or date/time format. The prototype was created with
+	 * the default time zone at that time, so the current default time zone is
+	 * set on the returned format.
+	 *
+	 * @param type   Type of format.
+	 * @param locale Locale to use for localized formatting.
+	 *
+	 * @return Date format.
+	 */
+	@NotNull
+	private static SimpleDateFormat getDateFormat( @NotNull final FormatType type, @NotNull final Locale locale )
+	{
+		final SimpleDateFormat result = (SimpleDateFormat)getPrototype( new FormatKey( type, locale, 0, 0, false, null ) ).clone();
+		result.setTimeZone( TimeZone.getDefault() );
+		return result;
+	}
+
+	/**
+	 * Get prototype of a format. The prototype must not be modified or used
+	 * directly; use a clone instead.
+	 *
+	 * @param key Key that identifies the format.
+	 *
+	 * @return Prototype format.
+	 */
+	@NotNull
+	private static Format getPrototype( @NotNull final FormatKey key )
+	{
+		return getOrLoad( PROTOTYPES, key, FormatFactory::createFormat );
+	}
+
+	/**
+	 * Get symbols used for plain number formatting.
+	 *
+	 * @param locale Locale to get symbols for.
+	 *
+	 * @return Symbols for plain number formatting.
+	 */
+	@NotNull
+	private static PlainNumberSymbols getPlainNumberSymbols( @NotNull final Locale locale )
+	{
+		return getOrLoad( PLAIN_NUMBER_SYMBOLS, locale, key -> new PlainNumberSymbols( (DecimalFormat)getPrototype( new FormatKey( FormatType.DEFAULT_NUMBER, key, 0, 0, false, null ) ) ) );
+	}
+
+	/**
+	 * Creates a new format.
+	 *
+	 * @param key Key that identifies the format.
+	 *
+	 * @return New format.
+	 */
+	@NotNull
+	private static Format createFormat( @NotNull final FormatKey key )
+	{
+		final Locale locale = key._locale;
+		final Format result;
+
+		switch ( key._type )
+		{
+			case DEFAULT_NUMBER:
+			{
+				final NumberFormat format = NumberFormat.getNumberInstance( locale );
+				format.setRoundingMode( RoundingMode.HALF_UP );
+				format.setGroupingUsed( false );
+				result = format;
+				break;
+			}
+
+			case NUMBER:
+			{
+				final int maximumFractionDigits = key._maximumFractionDigits;
+
+				final NumberFormat format;
+				if ( maximumFractionDigits == 0 )
+				{
+					format = NumberFormat.getIntegerInstance( locale );
+				}
+				else
+				{
+					format = NumberFormat.getNumberInstance( locale );
+					format.setMinimumFractionDigits( key._minimumFractionDigits );
+					format.setMaximumFractionDigits( maximumFractionDigits );
+				}
+
+				format.setRoundingMode( RoundingMode.HALF_UP );
+				format.setGroupingUsed( key._groupingUsed );
+				result = format;
+				break;
+			}
+
+			case PERCENT:
+			{
+				final NumberFormat format = NumberFormat.getPercentInstance( locale );
+				format.setRoundingMode( RoundingMode.HALF_UP );
+				result = format;
+				break;
+			}
+
+			case CURRENCY_SYMBOL:
+			{
+				final String symbol = (String)key._argument;
+				final DecimalFormat format = (DecimalFormat)NumberFormat.getCurrencyInstance( locale );
+				format.setRoundingMode( RoundingMode.HALF_UP );
+				final DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+				symbols.setCurrencySymbol( symbol );
+				symbols.setInternationalCurrencySymbol( symbol );
+				format.setDecimalFormatSymbols( symbols );
+				result = format;
+				break;
+			}
+
+			case CURRENCY:
+			{
+				final Currency currency = (Currency)key._argument;
+				final DecimalFormat format = (DecimalFormat)NumberFormat.getCurrencyInstance( locale );
+				format.setRoundingMode( RoundingMode.HALF_UP );
+				format.setCurrency( currency );
+
+				final int fractionDigits = currency.getDefaultFractionDigits();
+				if ( fractionDigits >= 0 )
+				{
+					format.setMinimumFractionDigits( fractionDigits );
+					format.setMaximumFractionDigits( fractionDigits );
+				}
+				result = format;
+				break;
+			}
+
+			case DATE:
+				result = DateFormat.getDateInstance( DateFormat.SHORT, locale );
+				break;
+
+			case DATE_TIME:
+				result = DateFormat.getDateTimeInstance( DateFormat.SHORT, DateFormat.SHORT, locale );
+				break;
+
+			default:
+				throw new AssertionError( key._type );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Symbols used for plain number formatting, taken from a localized number
+	 * format without grouping.
+	 */
+	private static class PlainNumberSymbols
+	{
+		/**
+		 * Prefix for positive numbers.
+		 */
+		@NotNull
+		private final String _positivePrefix;
+
+		/**
+		 * Suffix for positive numbers.
+		 */
+		@NotNull
+		private final String _positiveSuffix;
+
+		/**
+		 * Prefix for negative numbers.
+		 */
+		@NotNull
+		private final String _negativePrefix;
+
+		/**
+		 * Suffix for negative numbers.
+		 */
+		@NotNull
+		private final String _negativeSuffix;
+
+		/**
+		 * Character used for zero.
+		 */
+		private final char _zeroDigit;
+
+		/**
+		 * Decimal separator.
+		 */
+		private final char _decimalSeparator;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param format Number format to take symbols from.
+		 */
+		private PlainNumberSymbols( @NotNull final DecimalFormat format )
+		{
+			final DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+			_positivePrefix = format.getPositivePrefix();
+			_positiveSuffix = format.getPositiveSuffix();
+			_negativePrefix = format.getNegativePrefix();
+			_negativeSuffix = format.getNegativeSuffix();
+			_zeroDigit = symbols.getZeroDigit();
+			_decimalSeparator = symbols.getDecimalSeparator();
+		}
+	}
+
+	/**
+	 * Identifies a format by its type, locale and options.
+	 */
+	private static class FormatKey
+	{
+		/**
+		 * Type of format.
+		 */
+		@NotNull
+		private final FormatType _type;
+
+		/**
+		 * Locale to use for localized formatting.
+		 */
+		@NotNull
+		private final Locale _locale;
+
+		/**
+		 * Minimum number of fraction digits.
+		 */
+		private final int _minimumFractionDigits;
+
+		/**
+		 * Maximum number of fraction digits.
+		 */
+		private final int _maximumFractionDigits;
+
+		/**
+		 * Use grouping of digits or not.
+		 */
+		private final boolean _groupingUsed;
+
+		/**
+		 * Additional argument, e.g. a currency.
+		 */
+		@Nullable
+		private final Object _argument;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param type                  Type of format.
+		 * @param locale                Locale to use for localized formatting.
+		 * @param minimumFractionDigits Minimum number of fraction digits.
+		 * @param maximumFractionDigits Maximum number of fraction digits.
+		 * @param groupingUsed          Use grouping of digits or not.
+		 * @param argument              Additional argument, e.g. a currency.
+		 */
+		private FormatKey( @NotNull final FormatType type, @NotNull final Locale locale, final int minimumFractionDigits, final int maximumFractionDigits, final boolean groupingUsed, @Nullable final Object argument )
+		{
+			_type = type;
+			_locale = locale;
+			_minimumFractionDigits = minimumFractionDigits;
+			_maximumFractionDigits = maximumFractionDigits;
+			_groupingUsed = groupingUsed;
+			_argument = argument;
+		}
+
+		@Override
+		public boolean equals( final Object obj )
+		{
+			final boolean result;
+			if ( obj == this )
+			{
+				result = true;
+			}
+			else if ( obj instanceof FormatKey )
+			{
+				final FormatKey other = (FormatKey)obj;
+				result = ( _type == other._type ) && _locale.equals( other._locale ) && ( _minimumFractionDigits == other._minimumFractionDigits ) && ( _maximumFractionDigits == other._maximumFractionDigits ) && ( _groupingUsed == other._groupingUsed ) && Objects.equals( _argument, other._argument );
+			}
+			else
+			{
+				result = false;
+			}
+			return result;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return ( ( _type.hashCode() * 31 + _locale.hashCode() ) * 31 + _minimumFractionDigits * 17 + _maximumFractionDigits ) * 31 + Objects.hashCode( _argument );
+		}
+	}
+}
@@ -957,32 +957,7 @@ public class HTMLTools
 	public static void escapeAttributeValue( @NotNull final Appendable result, @NotNull final CharSequence source )
 	throws IOException
 	{
-		final int length = source.length();
-		for ( int i = 0; i < length; i++ )
-		{
-			final char c = source.charAt( i );
-			switch ( c )
-			{
-				case '<':
-					result.append( "&lt;" );
-					break;
-				case '>':
-					result.append( "&gt;" );
-					break;
-				case '&':
-					result.append( "&amp;" );
-					break;
-				case '"':
-					result.append( "&quot;" );
-					break;
-				case '\'':
-					result.append( "&#39;" );
-					break;
-				default:
-					result.append( c );
-					break;
-			}
-		}
+		escape( result, source, true );
 	}
 
 	/**
@@ -1020,26 +995,115 @@ public class HTMLTools
 	 */
 	public static void escapeCharacterData( @NotNull final Appendable result, @NotNull final CharSequence source )
 	throws IOException
+	{
+		escape( result, source, false );
+	}
+
+	/**
+	 * Escapes the given string for use as character data or attribute value
+	 * in an HTML document. Runs of characters that need no escaping are
+	 * appended as a whole, using the most direct method available for the
+	 * type of {@link Appendable}.
+	 *
+	 * @param result         Character sequence to append the result to.
+	 * @param source         String to be escaped.
+	 * @param attributeValue Escape quotes for use in an attribute value.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void escape( @NotNull final Appendable result, @NotNull final CharSequence source, final boolean attributeValue )
+	throws IOException
 	{
 		final int length = source.length();
+		int start = 0;
+
 		for ( int i = 0; i < length; i++ )
 		{
-			final char c = source.charAt( i );
-			switch ( c )
+			final String replacement;
+			switch ( source.charAt( i ) )
 			{
 				case '<':
-					result.append( "&lt;" );
+					replacement = "&lt;";
 					break;
 				case '>':
-					result.append( "&gt;" );
+					replacement = "&gt;";
 					break;
 				case '&':
-					result.append( "&amp;" );
+					replacement = "&amp;";
+					break;
+				case '"':
+					replacement = attributeValue ? "&quot;" : null;
+					break;
+				case '\'':
+					replacement = attributeValue ? "&#39;" : null;
 					break;
 				default:
-					result.append( c );
+					replacement = null;
 					break;
 			}
+
+			if ( replacement != null )
+			{
+				appendRange( result, source, start, i );
+				result.append( replacement );
+				start = i + 1;
+			}
+		}
+
+		appendRange( result, source, start, length );
+	}
+
+	/**
+	 * Appends a range of characters. This avoids the per-character calls and
+	 * sub-sequences that {@link Appendable#append(CharSequence, int, int)} may
+	 * cause, e.g. for {@link Writer}.
+	 *
+	 * @param result Character sequence to append the characters to.
+	 * @param source Source of characters.
+	 * @param start  Start index (inclusive).
+	 * @param end    End index (exclusive).
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void appendRange( @NotNull final Appendable result, @NotNull final CharSequence source, final int start, final int end )
+	throws IOException
+	{
+		final int length = end - start;
+		if ( length == 1 )
+		{
+			result.append( source.charAt( start ) );
+		}
+		else if ( length > 0 )
+		{
+			if ( result instanceof StringBuilder )
+			{
+				( (StringBuilder)result ).append( source, start, end );
+			}
+			else if ( result instanceof Writer )
+			{
+				final Writer writer = (Writer)result;
+				if ( source instanceof String )
+				{
+					writer.write( (String)source, start, length );
+				}
+				else
+				{
+					final char[] buffer = new char[ Math.min( length, 1024 ) ];
+					for ( int pos = start; pos < end; )
+					{
+						final int count = Math.min( end - pos, buffer.length );
+						for ( int i = 0; i < count; i++ )
+						{
+							buffer[ i ] = source.charAt( pos++ );
+						}
+						writer.write( buffer, 0, count );
+					}
+				}
+			}
+			else
+			{
+				result.append( source, start, end );
+			}
 		}
 	}
 
@@ -756,7 +756,7 @@ implements Serializable
 	 */
 	public LengthMeasureFormat getNumberFormat( @NotNull final Locale locale )
 	{
-		return new LengthMeasureFormat( this, DecimalFormatSymbols.getInstance( locale ) );
+		return new LengthMeasureFormat( this, FormatFactory.getDecimalFormatSymbols( locale ) );
 	}
 
 	/**
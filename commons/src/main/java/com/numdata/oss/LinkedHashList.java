@@ -859,7 +859,7 @@ implements Deque<E>
 			{
 				final Entry<E> next = current._next;
 				current._next = null;
-				addToHashTable( current, indexFor( entry._hash ) );
+				addToHashTable( current, indexFor( current._hash ) );
 				current = next;
 			}
 		}
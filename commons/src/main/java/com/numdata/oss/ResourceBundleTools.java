@@ -27,10 +27,11 @@
 package com.numdata.oss;
 
 import java.io.*;
+import java.net.*;
 import java.text.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
-import java.util.zip.*;
 
 import com.numdata.oss.log.*;
 import org.jetbrains.annotations.*;
@@ -54,10 +55,18 @@ public class ResourceBundleTools
 	private static final ResourcePack _resourceData;
 
 	/**
-	 * Recursive bundle cache.
+	 * Recursive bundle cache, mapped by locale and class name. Each bundle
+	 * hierarchy is loaded only once; a {@code null} result indicates that no
+	 * bundle exists.
 	 */
 	@SuppressWarnings( "ConstantNamingConvention" )
-	private static final Map<Locale, Map<String, ResourceBundle>> _recursiveBundleCache = new HashMap<>();
+	private static final ConcurrentMap<Locale, ConcurrentMap<String, FutureTask<ResourceBundle>>> _recursiveBundleCache = new ConcurrentHashMap<>();
+
+	/**
+	 * Cache of compiled message formats used by the {@code format} methods.
+	 */
+	@SuppressWarnings( "ConstantNamingConvention" )
+	private static final ConcurrentCache<MessageFormatKey, MessageFormat> _messageFormatCache = new ConcurrentCache<>();
 
 	/*
 	 * Try to load resource data from 'res.dat' resource. This should be as
@@ -69,12 +78,30 @@ public class ResourceBundleTools
 		try
 		{
 			final ClassLoader classLoader = ResourceBundleTools.class.getClassLoader();
-
-			try ( final InputStream is = classLoader.getResourceAsStream( "res.dat" ) )
+			final URL url = classLoader.getResource( "res.dat" );
+			if ( url != null )
 			{
-				if ( is != null )
+				/*
+				 * Map data in indexed format directly from the file system if
+				 * possible; otherwise, read either format from the stream.
+				 */
+				if ( "file".equals( url.getProtocol() ) )
+				{
+					try
+					{
+						result = ResourcePack.map( new File( url.toURI() ) );
+					}
+					catch ( final IOException ignored )
+					{
+					}
+				}
+
+				if ( result == null )
 				{
-					result = new ResourcePack( new DataInputStream( new GZIPInputStream( is ) ) );
+					try ( final InputStream is = url.openStream() )
+					{
+						result = ResourcePack.read( is );
+					}
 				}
 			}
 		}
@@ -98,12 +125,42 @@ public class ResourceBundleTools
 	public static void clearCache()
 	{
 		ResourceBundle.clearCache( ResourceBundleTools.class.getClassLoader() );
-		final Map<Locale, Map<String, ResourceBundle>> recursiveBundleCache = _recursiveBundleCache;
-		//noinspection SynchronizationOnLocalVariableOrMethodParameter
-		synchronized ( recursiveBundleCache )
+		_recursiveBundleCache.clear();
+		_messageFormatCache.clear();
+	}
+
+	/**
+	 * Loads the bundle hierarchies of the given classes for the given locales
+	 * into the cache, e.g. during application startup. Classes without any
+	 * bundle are ignored.
+	 *
+	 * @param classes Classes to load bundle hierarchies for.
+	 * @param locales Locales to load bundle hierarchies for.
+	 *
+	 * @see #getBundleHierarchy
+	 */
+	public static void preloadBundleHierarchies( @NotNull final Iterable<? extends Class<?>> classes, @NotNull final Iterable<Locale> locales )
+	{
+		final long start = System.nanoTime();
+		int count = 0;
+
+		for ( final Locale locale : locales )
 		{
-			recursiveBundleCache.clear();
+			for ( final Class<?> clazz : classes )
+			{
+				try
+				{
+					getBundleHierarchy( clazz, locale );
+					count++;
+				}
+				catch ( final MissingResourceException ignored )
+				{
+				}
+			}
 		}
+
+		final int loaded = count;
+		LOG.debug( () -> "preloadBundleHierarchies() loaded " + loaded + " bundle hierarchies in " + ( System.nanoTime() - start ) / 1000000L + " ms" );
 	}
 
 	/**
@@ -131,25 +188,40 @@ public class ResourceBundleTools
 
 		final Locale usedLocale = ( locale == null ) ? Locale.getDefault() : locale;
 
-		final Map<Locale, Map<String, ResourceBundle>> recursiveBundleCache = _recursiveBundleCache;
-		//noinspection SynchronizationOnLocalVariableOrMethodParameter
-		synchronized ( recursiveBundleCache )
+		/*
+		 * Lookups of cached hierarchies don't lock. A missing hierarchy is
+		 * loaded by the first thread that requests it; other threads wait for
+		 * that result. Loading happens outside of any lock, since it
+		 * recursively gets the hierarchies of related classes.
+		 */
+		ConcurrentMap<String, FutureTask<ResourceBundle>> localeCache = _recursiveBundleCache.get( usedLocale );
+		if ( localeCache == null )
 		{
-			final Map<String, ResourceBundle> localeCache = recursiveBundleCache.computeIfAbsent( usedLocale, k -> new HashMap<>( 1 ) );
-			if ( localeCache.containsKey( className ) )
-			{
-				result = localeCache.get( className );
-			}
-			else
+			localeCache = _recursiveBundleCache.computeIfAbsent( usedLocale, k -> new ConcurrentHashMap<>() );
+		}
+
+		FutureTask<ResourceBundle> task = localeCache.get( className );
+		if ( task == null )
+		{
+			final FutureTask<ResourceBundle> newTask = new FutureTask<>( () -> loadBundleHierarchy( clazz, usedLocale ) );
+			task = localeCache.putIfAbsent( className, newTask );
+			if ( task == null )
 			{
-				final List<ResourceBundle> bundles = getHierarchyBundles( clazz, usedLocale );
-				LOG.trace( () -> "getBundleHierarchy() combine " + bundles.size() + " bundle(s) for class  " + clazz.getName() );
-				result = bundles.isEmpty() ? null : bundles.size() == 1 ? bundles.get( 0 ) : new MergedResourceBundle( className, usedLocale, bundles.toArray( new ResourceBundle[ 0 ] ) );
-				LOG.trace( () -> "getBundleHierarchy() result for " + clazz.getName() + " => " + ( ( result != null ) ? "bundle with keys " + new TreeSet<>( result.keySet() ) : "null" ) );
-				localeCache.put( className, result );
+				task = newTask;
+				newTask.run();
 			}
 		}
 
+		try
+		{
+			result = getTaskResult( task );
+		}
+		catch ( final RuntimeException | Error e )
+		{
+			localeCache.remove( className, task );
+			throw e;
+		}
+
 		if ( result == null )
 		{
 			throw new MissingResourceException( className, className, null );
@@ -158,6 +230,73 @@ public class ResourceBundleTools
 		return result;
 	}
 
+	/**
+	 * Load resource bundle for the specified class hierarchy and locale.
+	 *
+	 * @param clazz  Class to get the bundle for.
+	 * @param locale Locale to get the bundle for.
+	 *
+	 * @return ResourceBundle for specified source and locale; {@code null} if
+	 * no resource bundle for the specified class can be found.
+	 */
+	@Nullable
+	private static ResourceBundle loadBundleHierarchy( @NotNull final Class<?> clazz, @NotNull final Locale locale )
+	{
+		final List<ResourceBundle> bundles = getHierarchyBundles( clazz, locale );
+		LOG.trace( () -> "getBundleHierarchy() combine " + bundles.size() + " bundle(s) for class  " + clazz.getName() );
+		final ResourceBundle result = bundles.isEmpty() ? null : bundles.size() == 1 ? bundles.get( 0 ) : new MergedResourceBundle( clazz.getName(), locale, bundles.toArray( new ResourceBundle[ 0 ] ) );
+		LOG.trace( () -> "getBundleHierarchy() result for " + clazz.getName() + " => " + ( ( result != null ) ? "bundle with keys " + new TreeSet<>( result.keySet() ) : "null" ) );
+		return result;
+	}
+
+	/**
+	 * Waits for a task to complete and returns its result.
+	 *
+	 * @param task Task to get result from.
+	 * @param <T>  Result type.
+	 *
+	 * @return Result of the task.
+	 */
+	@Nullable
+	private static <T> T getTaskResult( @NotNull final FutureTask<T> task )
+	{
+		boolean interrupted = false;
+		try
+		{
+			while ( true )
+			{
+				try
+				{
+					return task.get();
+				}
+				catch ( final InterruptedException e )
+				{
+					interrupted = true;
+				}
+				catch ( final ExecutionException e )
+				{
+					final Throwable cause = e.getCause();
+					if ( cause instanceof RuntimeException )
+					{
+						throw (RuntimeException)cause;
+					}
+					if ( cause instanceof Error )
+					{
+						throw (Error)cause;
+					}
+					throw new IllegalStateException( cause );
+				}
+			}
+		}
+		finally
+		{
+			if ( interrupted )
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
 	/**
 	 * Get resource bundles for the specified class hierarchy and locale. If no
 	 * locale is specified, the default locale is used.
@@ -759,7 +898,7 @@ public class ResourceBundleTools
 	@NotNull
 	public static String format( @Nullable final ResourceBundle bundle, @NotNull final String key, final long argument )
 	{
-		return MessageFormat.format( getString( bundle, key, key ), argument );
+		return format( Locale.getDefault( Locale.Category.FORMAT ), bundle, key, argument );
 	}
 
 	/**
@@ -779,7 +918,7 @@ public class ResourceBundleTools
 	@NotNull
 	public static String format( @Nullable final ResourceBundle bundle, @NotNull final String key, final double argument )
 	{
-		return MessageFormat.format( getString( bundle, key, key ), argument );
+		return format( Locale.getDefault( Locale.Category.FORMAT ), bundle, key, argument );
 	}
 
 	/**
@@ -799,7 +938,7 @@ public class ResourceBundleTools
 	@NotNull
 	public static String format( @Nullable final ResourceBundle bundle, @NotNull final String key, final Object... arguments )
 	{
-		return MessageFormat.format( getString( bundle, key, key ), arguments );
+		return format( Locale.getDefault( Locale.Category.FORMAT ), bundle, key, arguments );
 	}
 
 	/**
@@ -820,7 +959,17 @@ public class ResourceBundleTools
 	@NotNull
 	public static String format( @Nullable final Locale locale, @Nullable final ResourceBundle bundle, @NotNull final String key, final Object... arguments )
 	{
-		return new MessageFormat( getString( bundle, key, key ), locale ).format( arguments );
+		final String pattern = getString( bundle, key, key );
+		final MessageFormat messageFormat = _messageFormatCache.getOrLoad( new MessageFormatKey( pattern, locale ), k -> new MessageFormat( pattern, locale ) );
+
+		/*
+		 * Message formats are not thread-safe.
+		 */
+		//noinspection SynchronizationOnLocalVariableOrMethodParameter
+		synchronized ( messageFormat )
+		{
+			return messageFormat.format( arguments );
+		}
 	}
 
 	/**
@@ -919,6 +1068,64 @@ public class ResourceBundleTools
 		return result;
 	}
 
+	/**
+	 * Key in {@link #_messageFormatCache}. Message formats are identified by
+	 * their pattern and locale, so equal patterns from different bundles or
+	 * keys share a compiled format.
+	 */
+	private static class MessageFormatKey
+	{
+		/**
+		 * Message pattern.
+		 */
+		@NotNull
+		private final String _pattern;
+
+		/**
+		 * Locale used to format the pattern.
+		 */
+		@Nullable
+		private final Locale _locale;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param pattern Message pattern.
+		 * @param locale  Locale used to format the pattern.
+		 */
+		private MessageFormatKey( @NotNull final String pattern, @Nullable final Locale locale )
+		{
+			_pattern = pattern;
+			_locale = locale;
+		}
+
+		@Override
+		public boolean equals( final Object obj )
+		{
+			final boolean result;
+			if ( obj == this )
+			{
+				result = true;
+			}
+			else if ( obj instanceof MessageFormatKey )
+			{
+				final MessageFormatKey other = (MessageFormatKey)obj;
+				result = _pattern.equals( other._pattern ) && Objects.equals( _locale, other._locale );
+			}
+			else
+			{
+				result = false;
+			}
+			return result;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return _pattern.hashCode() * 31 + Objects.hashCode( _locale );
+		}
+	}
+
 	/**
 	 * {@link ControlWithoutFallback} used by {@link #getBundle(Class,
 	 * Locale)}.
@@ -27,9 +27,14 @@
 package com.numdata.oss;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
 import java.util.*;
 import java.util.zip.*;
 
+import com.numdata.oss.io.*;
 import org.jetbrains.annotations.*;
 
 /**
@@ -45,11 +50,46 @@ import org.jetbrains.annotations.*;
  *
  * </ul>
  *
+ * Two storage formats are supported. The original format is a GZIP-compressed
+ * stream that is decoded completely when it is read (see {@link
+ * #ResourcePack(DataInputStream)} and {@link #write}). The indexed format is
+ * uncompressed and meant to be memory-mapped (see {@link #map(File)} and
+ * {@link #writeIndexed}). It consists of:
+ *
+ * <ol>
+ *
+ * <li>A header with the {@link #INDEXED_FORMAT_MAGIC magic number}.</li>
+ *
+ * <li>A table of offsets into a shared, deduplicated table of UTF-8
+ * strings.</li>
+ *
+ * <li>The locales, as string indices.</li>
+ *
+ * <li>An index of bundles with their name (string index) and offset.</li>
+ *
+ * <li>The string data; each string is stored as its length in bytes followed
+ * by the UTF-8 encoded string.</li>
+ *
+ * <li>The bundles; each bundle consists of its number of entries, a column
+ * with key string indices, and a column of value string indices (-1 for no
+ * value) per locale.</li>
+ *
+ * </ol>
+ *
+ * All numbers are 32-bit big-endian integers. Bundles and strings in the
+ * indexed format are only decoded when they are needed; a bundle is only
+ * decoded completely when it is modified or exported.
+ *
  * @author Peter S. Heijnen
  */
 @SuppressWarnings( "FinalClass" )
 public final class ResourcePack
 {
+	/**
+	 * Magic number at the start of resource pack data in indexed format.
+	 */
+	public static final int INDEXED_FORMAT_MAGIC = 0x52505632;
+
 	/**
 	 * List of locales in this resource pack.
 	 */
@@ -80,6 +120,31 @@ public final class ResourcePack
 	 */
 	private int _rootLocaleIndex;
 
+	/**
+	 * Resource pack data in indexed format; {@code null} if this pack was not
+	 * read from indexed data.
+	 */
+	@Nullable
+	private ByteBuffer _indexedData = null;
+
+	/**
+	 * Strings from indexed data that were decoded so far.
+	 */
+	@NotNull
+	private String[] _indexedStrings = new String[ 0 ];
+
+	/**
+	 * Number of locale columns in indexed data.
+	 */
+	private int _indexedLocaleCount = 0;
+
+	/**
+	 * Offsets of bundles in the indexed data that were not decoded into
+	 * {@link #_bundles} yet, mapped by bundle base name.
+	 */
+	@NotNull
+	private final Map<String, Integer> _indexedBundles = new HashMap<String, Integer>();
+
 	/**
 	 * Construct new resource pack.
 	 */
@@ -150,6 +215,116 @@ public final class ResourcePack
 		updateLocaleIndices();
 	}
 
+	/**
+	 * Construct resource pack from data in indexed format. Only the locales
+	 * and the bundle index are decoded immediately; bundles are decoded when
+	 * they are first requested. The given buffer must not be modified while
+	 * this pack is in use.
+	 *
+	 * @param data Resource pack data, starting at the buffer's position.
+	 *
+	 * @throws IOException if the data is not in indexed format or corrupt.
+	 */
+	public ResourcePack( @NotNull final ByteBuffer data )
+	throws IOException
+	{
+		this();
+
+		final ByteBuffer buffer = data.slice();
+		buffer.order( ByteOrder.BIG_ENDIAN );
+
+		if ( ( buffer.remaining() < 8 ) || ( buffer.getInt( 0 ) != INDEXED_FORMAT_MAGIC ) )
+		{
+			throw new IOException( "Not an indexed resource pack" );
+		}
+
+		try
+		{
+			final int nrStrings = buffer.getInt( 4 );
+			_indexedData = buffer;
+			_indexedStrings = new String[ nrStrings ];
+
+			int position = 8 + 4 * nrStrings;
+
+			/*
+			 * Load locales.
+			 */
+			final int nrLocales = buffer.getInt( position );
+			position += 4;
+
+			final Locale[] locales = new Locale[ nrLocales ];
+			for ( int i = 0; i < nrLocales; i++ )
+			{
+				locales[ i ] = LocaleTools.parseLocale( getIndexedString( buffer.getInt( position ) ) );
+				position += 4;
+			}
+
+			/*
+			 * Load bundle index.
+			 */
+			final int nrBundles = buffer.getInt( position );
+			position += 4;
+
+			for ( int i = 0; i < nrBundles; i++ )
+			{
+				_indexedBundles.put( getIndexedString( buffer.getInt( position ) ), buffer.getInt( position + 4 ) );
+				position += 8;
+			}
+
+			_locales = locales;
+			_indexedLocaleCount = nrLocales;
+			updateLocaleIndices();
+		}
+		catch ( final IndexOutOfBoundsException e )
+		{
+			throw new IOException( "Corrupt resource pack: " + e, e );
+		}
+		catch ( final NegativeArraySizeException e )
+		{
+			throw new IOException( "Corrupt resource pack: " + e, e );
+		}
+	}
+
+	/**
+	 * Read resource pack from a memory-mapped file in indexed format.
+	 *
+	 * @param file File to read.
+	 *
+	 * @return Resource pack.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	public static ResourcePack map( @NotNull final File file )
+	throws IOException
+	{
+		try ( final FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+		{
+			return new ResourcePack( channel.map( FileChannel.MapMode.READ_ONLY, 0L, channel.size() ) );
+		}
+	}
+
+	/**
+	 * Read resource pack from a stream in either the original or the indexed
+	 * format. The format is detected automatically. The stream is not closed.
+	 *
+	 * @param is Stream to read from.
+	 *
+	 * @return Resource pack.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	public static ResourcePack read( @NotNull final InputStream is )
+	throws IOException
+	{
+		final ByteChunkBuffer buffer = new ByteChunkBuffer( Math.max( is.available(), 0x1000 ) );
+		buffer.readFrom( is );
+		final ByteBuffer data = buffer.toByteBuffer();
+
+		return ( data.remaining() >= 4 ) && ( data.getInt( 0 ) == INDEXED_FORMAT_MAGIC ) ? new ResourcePack( data ) : new ResourcePack( new DataInputStream( new GZIPInputStream( new ByteArrayInputStream( data.array(), data.arrayOffset(), data.remaining() ) ) ) );
+	}
+
 	/**
 	 * Replacement of {@code ResourceBundle.getBundle()} method using the data
 	 * in this pack.
@@ -162,7 +337,7 @@ public final class ResourcePack
 	 * @throws MissingResourceException if the requested bundle is unavailable.
 	 */
 	@NotNull
-	public ResourceBundle getBundle( @NotNull final String name, @NotNull final Locale locale )
+	public synchronized ResourceBundle getBundle( @NotNull final String name, @NotNull final Locale locale )
 	{
 		ResourceBundle result = null;
 
@@ -175,7 +350,8 @@ public final class ResourcePack
 		if ( result == null )
 		{
 			final Map<String, String[]> entries = _bundles.get( name );
-			if ( entries != null )
+			final Integer indexedOffset = ( entries == null ) ? _indexedBundles.get( name ) : null;
+			if ( ( entries != null ) || ( indexedOffset != null ) )
 			{
 				final int localeIndex = getBestLocaleIndex( locale );
 
@@ -183,12 +359,12 @@ public final class ResourcePack
 
 				if ( ( rootLocaleIndex >= 0 ) && ( localeIndex != rootLocaleIndex ) )
 				{
-					result = new ResourceBundleImpl( null, entries, rootLocaleIndex );
+					result = new ResourceBundleImpl( null, ( entries != null ) ? getEntries( entries, rootLocaleIndex ) : getIndexedEntries( indexedOffset, rootLocaleIndex ) );
 				}
 
 				if ( localeIndex >= 0 )
 				{
-					result = new ResourceBundleImpl( result, entries, localeIndex );
+					result = new ResourceBundleImpl( result, ( entries != null ) ? getEntries( entries, localeIndex ) : getIndexedEntries( indexedOffset, localeIndex ) );
 				}
 
 				if ( result != null )
@@ -220,7 +396,7 @@ public final class ResourcePack
 	 * @param name   Name of bundle.
 	 * @param bundle Resource bundle to read data from.
 	 */
-	public void insertBundleData( @NotNull final Locale locale, @NotNull final String name, @NotNull final ResourceBundle bundle )
+	public synchronized void insertBundleData( @NotNull final Locale locale, @NotNull final String name, @NotNull final ResourceBundle bundle )
 	{
 		final int index = getOrCreateLocaleIndex( locale );
 		final Map<String, String[]> bundleData = getOrCreateBundleData( name );
@@ -257,7 +433,7 @@ public final class ResourcePack
 	 * @param locales List of locales in data.
 	 * @param data    Two-dimensional array with data.
 	 */
-	public void insertBundleData( @NotNull final String name, @NotNull final Locale[] locales, @NotNull final String[][] data )
+	public synchronized void insertBundleData( @NotNull final String name, @NotNull final Locale[] locales, @NotNull final String[][] data )
 	{
 		/*
 		 * Determine index for each specified locale.
@@ -426,9 +602,10 @@ public final class ResourcePack
 	 * @return Array with names of bundles in this resource pack.
 	 */
 	@NotNull
-	public String[] getBundleNames()
+	public synchronized String[] getBundleNames()
 	{
-		final Set<String> keys = _bundles.keySet();
+		final Set<String> keys = new HashSet<String>( _bundles.keySet() );
+		keys.addAll( _indexedBundles.keySet() );
 
 		final String[] result = keys.toArray( new String[ keys.size() ] );
 		Arrays.sort( result );
@@ -441,9 +618,10 @@ public final class ResourcePack
 	 *
 	 * @param name Name of bundle to remove.
 	 */
-	public void removeBundle( @NotNull final String name )
+	public synchronized void removeBundle( @NotNull final String name )
 	{
 		_bundles.remove( name );
+		_indexedBundles.remove( name );
 	}
 
 	/**
@@ -454,14 +632,15 @@ public final class ResourcePack
 	 * @param oldName Old bundle name.
 	 * @param newName New bundle name.
 	 */
-	public void renameBundle( @NotNull final String oldName, @NotNull final String newName )
+	public synchronized void renameBundle( @NotNull final String oldName, @NotNull final String newName )
 	{
 		if ( !oldName.equals( newName ) )
 		{
-			final Map<String, String[]> bundle = _bundles.get( oldName );
+			final Map<String, String[]> bundle = getDecodedBundleData( oldName );
 			if ( bundle != null )
 			{
 				_bundles.remove( oldName );
+				_indexedBundles.remove( newName );
 				_bundles.put( newName, bundle );
 			}
 		}
@@ -479,11 +658,17 @@ public final class ResourcePack
 	 *
 	 * @return ResourceBundleImpl data in a two-dimensional string array (see
 	 * comments).
+	 *
+	 * @throws MissingResourceException if the bundle does not exist.
 	 */
 	@NotNull
-	public String[][] getBundleData( @NotNull final String name )
+	public synchronized String[][] getBundleData( @NotNull final String name )
 	{
-		final Map<String, String[]> bundleData = _bundles.get( name );
+		final Map<String, String[]> bundleData = getDecodedBundleData( name );
+		if ( bundleData == null )
+		{
+			throw new MissingResourceException( name, name, null );
+		}
 
 		final int nrLocales = _locales.length;
 		final int nrKeys = bundleData.size();
@@ -519,7 +704,7 @@ public final class ResourcePack
 	@NotNull
 	private Map<String, String[]> getOrCreateBundleData( @NotNull final String name )
 	{
-		Map<String, String[]> bundleData = _bundles.get( name );
+		Map<String, String[]> bundleData = getDecodedBundleData( name );
 		if ( bundleData == null )
 		{
 			bundleData = new HashMap<String, String[]>();
@@ -528,6 +713,158 @@ public final class ResourcePack
 		return bundleData;
 	}
 
+	/**
+	 * Get the named bundle data. If the bundle is only available in the
+	 * indexed data, it is decoded and moved to {@link #_bundles}, so it can be
+	 * modified.
+	 *
+	 * @param name Bundle name.
+	 *
+	 * @return Bundle data; {@code null} if the bundle does not exist.
+	 */
+	@Nullable
+	private Map<String, String[]> getDecodedBundleData( @NotNull final String name )
+	{
+		Map<String, String[]> result = _bundles.get( name );
+		if ( result == null )
+		{
+			final Integer offset = _indexedBundles.remove( name );
+			if ( offset != null )
+			{
+				final ByteBuffer data = _indexedData;
+				final int nrLocales = _indexedLocaleCount;
+				final int nrEntries = data.getInt( offset );
+
+				result = new HashMap<String, String[]>( nrEntries * 4 / 3 + 1 );
+				for ( int i = 0; i < nrEntries; i++ )
+				{
+					final String[] values = new String[ nrLocales ];
+					for ( int k = 0; k < nrLocales; k++ )
+					{
+						final int valueIndex = data.getInt( offset + 4 + 4 * ( ( k + 1 ) * nrEntries + i ) );
+						values[ k ] = ( valueIndex < 0 ) ? null : getIndexedString( valueIndex );
+					}
+
+					result.put( getIndexedString( data.getInt( offset + 4 + 4 * i ) ), values );
+				}
+
+				_bundles.put( name, result );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get string from the string table in the indexed data.
+	 *
+	 * @param index Index of string.
+	 *
+	 * @return String.
+	 */
+	@NotNull
+	private String getIndexedString( final int index )
+	{
+		String result = _indexedStrings[ index ];
+		if ( result == null )
+		{
+			final ByteBuffer data = _indexedData.duplicate();
+			final int offset = data.getInt( 8 + 4 * index );
+
+			final byte[] bytes = new byte[ data.getInt( offset ) ];
+			data.position( offset + 4 );
+			data.get( bytes );
+
+			result = new String( bytes, StandardCharsets.UTF_8 );
+			_indexedStrings[ index ] = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Get resource entries for a locale from decoded bundle data. Entries
+	 * without a value for the locale fall back to the root locale.
+	 *
+	 * @param entries    Bundle data.
+	 * @param valueIndex Index of locale, used as index in values.
+	 *
+	 * @return Resource entries.
+	 */
+	@NotNull
+	private Map<String, String> getEntries( @NotNull final Map<String, String[]> entries, final int valueIndex )
+	{
+		final Map<String, String> result = new HashMap<String, String>();
+
+		for ( final Map.Entry<String, String[]> entry : entries.entrySet() )
+		{
+			final String[] values = entry.getValue();
+
+			if ( values != null )
+			{
+				final int length = values.length;
+
+				String value = null;
+				int i;
+				if ( ( ( i = valueIndex ) < 0 ) || ( i >= length ) || ( ( value = values[ i ] ) == null ) )
+				{
+					if ( ( ( i = _rootLocaleIndex ) >= 0 ) && ( i < length ) )
+					{
+						value = values[ i ];
+					}
+				}
+
+				if ( value != null )
+				{
+					result.put( entry.getKey(), value );
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get resource entries for a locale directly from a bundle in the indexed
+	 * data. Only the key column and the columns for the given locale and the
+	 * root locale are decoded. Entries without a value for the locale fall
+	 * back to the root locale.
+	 *
+	 * @param offset     Offset of bundle in indexed data.
+	 * @param valueIndex Index of locale, used as column index.
+	 *
+	 * @return Resource entries.
+	 */
+	@NotNull
+	private Map<String, String> getIndexedEntries( final int offset, final int valueIndex )
+	{
+		final ByteBuffer data = _indexedData;
+		final int nrLocales = _indexedLocaleCount;
+		final int nrEntries = data.getInt( offset );
+		final int rootLocaleIndex = _rootLocaleIndex;
+
+		final Map<String, String> result = new HashMap<String, String>( nrEntries * 4 / 3 + 1 );
+
+		for ( int i = 0; i < nrEntries; i++ )
+		{
+			int stringIndex = -1;
+			if ( ( valueIndex >= 0 ) && ( valueIndex < nrLocales ) )
+			{
+				stringIndex = data.getInt( offset + 4 + 4 * ( ( valueIndex + 1 ) * nrEntries + i ) );
+			}
+
+			if ( ( stringIndex < 0 ) && ( rootLocaleIndex >= 0 ) && ( rootLocaleIndex < nrLocales ) )
+			{
+				stringIndex = data.getInt( offset + 4 + 4 * ( ( rootLocaleIndex + 1 ) * nrEntries + i ) );
+			}
+
+			if ( stringIndex >= 0 )
+			{
+				result.put( getIndexedString( data.getInt( offset + 4 + 4 * i ) ), getIndexedString( stringIndex ) );
+			}
+		}
+
+		return result;
+	}
+
 	/**
 	 * Write resource pack data to the specified stream.
 	 *
@@ -535,7 +872,7 @@ public final class ResourcePack
 	 *
 	 * @throws IOException if there was a problem writing the data.
 	 */
-	public void write( @NotNull final OutputStream out )
+	public synchronized void write( @NotNull final OutputStream out )
 	throws IOException
 	{
 		final Locale[] locales = _locales;
@@ -581,6 +918,150 @@ public final class ResourcePack
 		gzos.finish();
 	}
 
+	/**
+	 * Write resource pack data to the specified stream in indexed format.
+	 * The stream is not closed.
+	 *
+	 * @param out Stream to write to.
+	 *
+	 * @throws IOException if there was a problem writing the data.
+	 */
+	public synchronized void writeIndexed( @NotNull final OutputStream out )
+	throws IOException
+	{
+		final Locale[] locales = _locales;
+		final int nrLocales = locales.length;
+		final String[] bundleNames = getBundleNames();
+		final int nrBundles = bundleNames.length;
+
+		/*
+		 * Build string table and bundle columns.
+		 */
+		final Map<String, Integer> stringIndices = new LinkedHashMap<String, Integer>();
+
+		final int[] localeIndices = new int[ nrLocales ];
+		for ( int i = 0; i < nrLocales; i++ )
+		{
+			localeIndices[ i ] = getStringIndex( stringIndices, locales[ i ].toString() );
+		}
+
+		final int[] nameIndices = new int[ nrBundles ];
+		final int[][] bundleColumns = new int[ nrBundles ][];
+		for ( int i = 0; i < nrBundles; i++ )
+		{
+			final String name = bundleNames[ i ];
+			nameIndices[ i ] = getStringIndex( stringIndices, name );
+
+			final String[][] entries = getBundleData( name );
+			Arrays.sort( entries, ( row1, row2 ) -> row1[ 0 ].compareTo( row2[ 0 ] ) );
+
+			final int nrEntries = entries.length;
+			final int[] columns = new int[ ( nrLocales + 1 ) * nrEntries ];
+			for ( int j = 0; j < nrEntries; j++ )
+			{
+				final String[] entry = entries[ j ];
+				columns[ j ] = getStringIndex( stringIndices, entry[ 0 ] );
+
+				for ( int k = 0; k < nrLocales; k++ )
+				{
+					final String value = entry[ k + 1 ];
+					columns[ ( k + 1 ) * nrEntries + j ] = ( value == null ) ? -1 : getStringIndex( stringIndices, value );
+				}
+			}
+
+			bundleColumns[ i ] = columns;
+		}
+
+		final int nrStrings = stringIndices.size();
+		final byte[][] strings = new byte[ nrStrings ][];
+		int stringIndex = 0;
+		for ( final String string : stringIndices.keySet() )
+		{
+			strings[ stringIndex++ ] = string.getBytes( StandardCharsets.UTF_8 );
+		}
+
+		/*
+		 * Determine offsets.
+		 */
+		int offset = 4 + 4 + 4 * nrStrings + 4 + 4 * nrLocales + 4 + 8 * nrBundles;
+
+		final int[] stringOffsets = new int[ nrStrings ];
+		for ( int i = 0; i < nrStrings; i++ )
+		{
+			stringOffsets[ i ] = offset;
+			offset += 4 + strings[ i ].length;
+		}
+
+		final int[] bundleOffsets = new int[ nrBundles ];
+		for ( int i = 0; i < nrBundles; i++ )
+		{
+			bundleOffsets[ i ] = offset;
+			offset += 4 + 4 * bundleColumns[ i ].length;
+		}
+
+		/*
+		 * Write data.
+		 */
+		final DataOutputStream dataOut = new DataOutputStream( new BufferedOutputStream( out ) );
+
+		dataOut.writeInt( INDEXED_FORMAT_MAGIC );
+		dataOut.writeInt( nrStrings );
+		for ( final int stringOffset : stringOffsets )
+		{
+			dataOut.writeInt( stringOffset );
+		}
+
+		dataOut.writeInt( nrLocales );
+		for ( final int localeIndex : localeIndices )
+		{
+			dataOut.writeInt( localeIndex );
+		}
+
+		dataOut.writeInt( nrBundles );
+		for ( int i = 0; i < nrBundles; i++ )
+		{
+			dataOut.writeInt( nameIndices[ i ] );
+			dataOut.writeInt( bundleOffsets[ i ] );
+		}
+
+		for ( final byte[] string : strings )
+		{
+			dataOut.writeInt( string.length );
+			dataOut.write( string );
+		}
+
+		for ( final int[] columns : bundleColumns )
+		{
+			dataOut.writeInt( columns.length / ( nrLocales + 1 ) );
+			for ( final int value : columns )
+			{
+				dataOut.writeInt( value );
+			}
+		}
+
+		dataOut.flush();
+	}
+
+	/**
+	 * Get index of a string in a string table that is being built. The
+	 * string is added to the table if needed.
+	 *
+	 * @param stringIndices String table.
+	 * @param string        String to get index of.
+	 *
+	 * @return Index of string.
+	 */
+	private static int getStringIndex( @NotNull final Map<String, Integer> stringIndices, @NotNull final String string )
+	{
+		Integer result = stringIndices.get( string );
+		if ( result == null )
+		{
+			result = stringIndices.size();
+			stringIndices.put( string, result );
+		}
+		return result;
+	}
+
 	/**
 	 * This class implements a {@code ResourceBundle} using the central storage
 	 * facility in this pack.
@@ -598,42 +1079,13 @@ public final class ResourcePack
 		/**
 		 * Construct bundle.
 		 *
-		 * @param parent     Parent bundle.
-		 * @param entries    Entries of resource bundle.
-		 * @param valueIndex Index of locale, used as index in values.
-		 *
-		 * @throws MissingResourceException if the requested bundle is
-		 * unavailable.
+		 * @param parent  Parent bundle.
+		 * @param entries Entries of resource bundle.
 		 */
-		private ResourceBundleImpl( @Nullable final ResourceBundle parent, @NotNull final Map<String, String[]> entries, final int valueIndex )
+		private ResourceBundleImpl( @Nullable final ResourceBundle parent, @NotNull final Map<String, String> entries )
 		{
 			this.parent = parent;
-			_entries = new HashMap<String, String>();
-
-			for ( final Map.Entry<String, String[]> entry : entries.entrySet() )
-			{
-				final String[] values = entry.getValue();
-
-				if ( values != null )
-				{
-					final int length = values.length;
-
-					String value = null;
-					int i;
-					if ( ( ( i = valueIndex ) < 0 ) || ( i >= length ) || ( ( value = values[ i ] ) == null ) )
-					{
-						if ( ( ( i = _rootLocaleIndex ) >= 0 ) && ( i < length ) )
-						{
-							value = values[ i ];
-						}
-					}
-
-					if ( value != null )
-					{
-						_entries.put( entry.getKey(), value );
-					}
-				}
-			}
+			_entries = entries;
 		}
 
 		@Nullable
@@ -939,13 +939,7 @@ public final class TextTools
 	 */
 	public static DecimalFormat getCurrencyFormat( @NotNull final Locale locale, @NotNull final String symbol )
 	{
-		final DecimalFormat format = (DecimalFormat)NumberFormat.getCurrencyInstance( locale );
-		format.setRoundingMode( RoundingMode.HALF_UP );
-		final DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
-		symbols.setCurrencySymbol( symbol );
-		symbols.setInternationalCurrencySymbol( symbol );
-		format.setDecimalFormatSymbols( symbols );
-		return format;
+		return FormatFactory.getCurrencyFormat( locale, symbol );
 	}
 
 	/**
@@ -958,18 +952,7 @@ public final class TextTools
 	 */
 	public static DecimalFormat getCurrencyFormat( @NotNull final Locale locale, @NotNull final Currency currency )
 	{
-		final DecimalFormat result = (DecimalFormat)NumberFormat.getCurrencyInstance( locale );
-		result.setRoundingMode( RoundingMode.HALF_UP );
-		result.setCurrency( currency );
-
-		final int fractionDigits = currency.getDefaultFractionDigits();
-		if ( fractionDigits >= 0 )
-		{
-			result.setMinimumFractionDigits( fractionDigits );
-			result.setMaximumFractionDigits( fractionDigits );
-		}
-
-		return result;
+		return FormatFactory.getCurrencyFormat( locale, currency );
 	}
 
 	/**
@@ -981,7 +964,7 @@ public final class TextTools
 	 */
 	public static SimpleDateFormat getDateFormat( @NotNull final Locale locale )
 	{
-		return (SimpleDateFormat)DateFormat.getDateInstance( DateFormat.SHORT, locale );
+		return FormatFactory.getDateFormat( locale );
 	}
 
 	/**
@@ -993,7 +976,7 @@ public final class TextTools
 	 */
 	public static SimpleDateFormat getDateTimeFormat( @NotNull final Locale locale )
 	{
-		return (SimpleDateFormat)DateFormat.getDateTimeInstance( DateFormat.SHORT, DateFormat.SHORT, locale );
+		return FormatFactory.getDateTimeFormat( locale );
 	}
 
 	/**
@@ -1174,10 +1157,7 @@ public final class TextTools
 	@NotNull
 	public static NumberFormat getNumberFormat( @NotNull final Locale locale )
 	{
-		final NumberFormat result = NumberFormat.getNumberInstance( locale );
-		result.setRoundingMode( RoundingMode.HALF_UP );
-		result.setGroupingUsed( false );
-		return result;
+		return FormatFactory.getNumberFormat( locale );
 	}
 
 	/**
@@ -1194,28 +1174,7 @@ public final class TextTools
 	@NotNull
 	public static NumberFormat getNumberFormat( @NotNull final Locale locale, final int minimumFractionDigits, final int maximumFractionDigits, final boolean groupingUsed )
 	{
-		final NumberFormat result;
-
-		if ( minimumFractionDigits > maximumFractionDigits )
-		{
-			throw new IllegalArgumentException( minimumFractionDigits + " > " + maximumFractionDigits );
-		}
-
-		if ( maximumFractionDigits == 0 )
-		{
-			result = NumberFormat.getIntegerInstance( locale );
-		}
-		else
-		{
-			result = getNumberFormat( locale );
-			result.setMinimumFractionDigits( minimumFractionDigits );
-			result.setMaximumFractionDigits( maximumFractionDigits );
-		}
-
-		result.setRoundingMode( RoundingMode.HALF_UP );
-		result.setGroupingUsed( groupingUsed );
-
-		return result;
+		return FormatFactory.getNumberFormat( locale, minimumFractionDigits, maximumFractionDigits, groupingUsed );
 	}
 
 	/**
@@ -1228,9 +1187,7 @@ public final class TextTools
 	@NotNull
 	public static NumberFormat getPercentFormat( @NotNull final Locale locale )
 	{
-		final NumberFormat result = NumberFormat.getPercentInstance( locale );
-		result.setRoundingMode( RoundingMode.HALF_UP );
-		return result;
+		return FormatFactory.getPercentFormat( locale );
 	}
 
 	/**
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2004-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.io;
+
+import java.util.concurrent.atomic.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Pool of reusable byte and character buffers for short-lived I/O work, such
+ * as copying streams or encoding strings. Buffers are kept in a small pool
+ * that is shared by all threads and accessed without locking.
+ *
+ * The pool only references the buffers themselves, so it does not keep
+ * per-thread state alive in (container) threads, which would prevent the
+ * class loader of a web application from being unloaded.
+ *
+ * A buffer must not be used after it was released. Buffers are not cleared
+ * between uses. Buffers that are larger than {@link #MAXIMUM_POOLED_SIZE} are
+ * never pooled.
+ *
+ * @author Peter S. Heijnen
+ */
+public final class BufferPool
+{
+	/**
+	 * Size of buffers that are handed out by default.
+	 */
+	public static final int BUFFER_SIZE = 0x2000;
+
+	/**
+	 * Maximum size of a buffer that is retained by the pool.
+	 */
+	public static final int MAXIMUM_POOLED_SIZE = 0x10000;
+
+	/**
+	 * Maximum number of buffers of each type retained by the pool.
+	 */
+	private static final int MAXIMUM_POOLED_BUFFERS = 4 * Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Pooled byte buffers; empty slots are {@code null}.
+	 */
+	private static final AtomicReferenceArray<byte[]> BYTE_BUFFERS = new AtomicReferenceArray<byte[]>( MAXIMUM_POOLED_BUFFERS );
+
+	/**
+	 * Pooled character buffers; empty slots are {@code null}.
+	 */
+	private static final AtomicReferenceArray<char[]> CHAR_BUFFERS = new AtomicReferenceArray<char[]>( MAXIMUM_POOLED_BUFFERS );
+
+	/**
+	 * Utility class is not supposed to be instantiated.
+	 */
+	private BufferPool()
+	{
+	}
+
+	/**
+	 * Acquires a byte buffer of at least {@link #BUFFER_SIZE} bytes.
+	 *
+	 * @return Byte buffer.
+	 */
+	@NotNull
+	public static byte[] getByteBuffer()
+	{
+		return getByteBuffer( BUFFER_SIZE );
+	}
+
+	/**
+	 * Acquires a byte buffer with at least the given size.
+	 *
+	 * @param minimumSize Minimum size of the buffer.
+	 *
+	 * @return Byte buffer.
+	 */
+	@NotNull
+	public static byte[] getByteBuffer( final int minimumSize )
+	{
+		byte[] result = null;
+
+		if ( minimumSize <= MAXIMUM_POOLED_SIZE )
+		{
+			final AtomicReferenceArray<byte[]> pooled = BYTE_BUFFERS;
+			final int start = getStartSlot();
+			for ( int i = 0; i < MAXIMUM_POOLED_BUFFERS; i++ )
+			{
+				final int slot = ( start + i ) % MAXIMUM_POOLED_BUFFERS;
+				final byte[] candidate = pooled.get( slot );
+				if ( ( candidate != null ) && ( candidate.length >= minimumSize ) && pooled.compareAndSet( slot, candidate, null ) )
+				{
+					result = candidate;
+					break;
+				}
+			}
+		}
+
+		return ( result != null ) ? result : new byte[ Math.max( BUFFER_SIZE, minimumSize ) ];
+	}
+
+	/**
+	 * Returns a byte buffer to the pool. The buffer must not be used by the
+	 * caller afterwards.
+	 *
+	 * @param buffer Buffer to release.
+	 */
+	public static void release( @NotNull final byte[] buffer )
+	{
+		if ( ( buffer.length >= BUFFER_SIZE ) && ( buffer.length <= MAXIMUM_POOLED_SIZE ) )
+		{
+			final AtomicReferenceArray<byte[]> pooled = BYTE_BUFFERS;
+			final int start = getStartSlot();
+			for ( int i = 0; i < MAXIMUM_POOLED_BUFFERS; i++ )
+			{
+				final int slot = ( start + i ) % MAXIMUM_POOLED_BUFFERS;
+				if ( ( pooled.get( slot ) == null ) && pooled.compareAndSet( slot, null, buffer ) )
+				{
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Acquires a character buffer of at least {@link #BUFFER_SIZE}
+	 * characters.
+	 *
+	 * @return Character buffer.
+	 */
+	@NotNull
+	public static char[] getCharBuffer()
+	{
+		return getCharBuffer( BUFFER_SIZE );
+	}
+
+	/**
+	 * Acquires a character buffer with at least the given size.
+	 *
+	 * @param minimumSize Minimum size of the buffer.
+	 *
+	 * @return Character buffer.
+	 */
+	@NotNull
+	public static char[] getCharBuffer( final int minimumSize )
+	{
+		char[] result = null;
+
+		if ( minimumSize <= MAXIMUM_POOLED_SIZE )
+		{
+			final AtomicReferenceArray<char[]> pooled = CHAR_BUFFERS;
+			final int start = getStartSlot();
+			for ( int i = 0; i < MAXIMUM_POOLED_BUFFERS; i++ )
+			{
+				final int slot = ( start + i ) % MAXIMUM_POOLED_BUFFERS;
+				final char[] candidate = pooled.get( slot );
+				if ( ( candidate != null ) && ( candidate.length >= minimumSize ) && pooled.compareAndSet( slot, candidate, null ) )
+				{
+					result = candidate;
+					break;
+				}
+			}
+		}
+
+		return ( result != null ) ? result : new char[ Math.max( BUFFER_SIZE, minimumSize ) ];
+	}
+
+	/**
+	 * Returns a character buffer to the pool. The buffer must not be used by
+	 * the caller afterwards.
+	 *
+	 * @param buffer Buffer to release.
+	 */
+	public static void release( @NotNull final char[] buffer )
+	{
+		if ( ( buffer.length >= BUFFER_SIZE ) && ( buffer.length <= MAXIMUM_POOLED_SIZE ) )
+		{
+			final AtomicReferenceArray<char[]> pooled = CHAR_BUFFERS;
+			final int start = getStartSlot();
+			for ( int i = 0; i < MAXIMUM_POOLED_BUFFERS; i++ )
+			{
+				final int slot = ( start + i ) % MAXIMUM_POOLED_BUFFERS;
+				if ( ( pooled.get( slot ) == null ) && pooled.compareAndSet( slot, null, buffer ) )
+				{
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all buffers from the pool, e.g. to free memory after a burst of
+	 * I/O work.
+	 */
+	public static void clear()
+	{
+		for ( int i = 0; i < MAXIMUM_POOLED_BUFFERS; i++ )
+		{
+			BYTE_BUFFERS.set( i, null );
+			CHAR_BUFFERS.set( i, null );
+		}
+	}
+
+	/**
+	 * Returns the slot at which the current thread starts searching the pool.
+	 * This spreads concurrent threads over the pool, to reduce contention.
+	 *
+	 * @return Index of the first slot to try.
+	 */
+	private static int getStartSlot()
+	{
+		return (int)( Thread.currentThread().getId() % (long)MAXIMUM_POOLED_BUFFERS );
+	}
+}
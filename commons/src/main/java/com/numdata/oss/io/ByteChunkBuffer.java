@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2004-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.io;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Growable byte container that stores its content in a list of chunks. Unlike
+ * {@link ByteArrayOutputStream}, growing never copies data that was already
+ * written; the content is copied at most once, when a single contiguous array
+ * is requested.
+ *
+ * If all content fits exactly in the first chunk, {@link #toByteArray()} and
+ * {@link #toByteBuffer()} return that chunk without copying it. Use the
+ * {@link #ByteChunkBuffer(int)} constructor with the expected size to benefit
+ * from this.
+ *
+ * This class is not thread-safe.
+ *
+ * @author Peter S. Heijnen
+ */
+public class ByteChunkBuffer
+extends OutputStream
+{
+	/**
+	 * Default size of the first chunk.
+	 */
+	private static final int DEFAULT_CHUNK_SIZE = 0x400;
+
+	/**
+	 * Maximum size of a chunk.
+	 */
+	private static final int MAXIMUM_CHUNK_SIZE = 0x100000;
+
+	/**
+	 * Empty byte array.
+	 */
+	private static final byte[] NO_BYTES = new byte[ 0 ];
+
+	/**
+	 * Size of the first chunk.
+	 */
+	private final int _initialChunkSize;
+
+	/**
+	 * Completely filled chunks.
+	 */
+	private final List<byte[]> _fullChunks = new ArrayList<>();
+
+	/**
+	 * Chunk that is currently being filled; {@code null} if no data was
+	 * written yet.
+	 */
+	@Nullable
+	private byte[] _chunk = null;
+
+	/**
+	 * Number of bytes used in the current chunk.
+	 */
+	private int _chunkUsed = 0;
+
+	/**
+	 * Total number of bytes in the completely filled chunks.
+	 */
+	private int _fullChunksSize = 0;
+
+	/**
+	 * Constructs an empty buffer.
+	 */
+	public ByteChunkBuffer()
+	{
+		this( DEFAULT_CHUNK_SIZE );
+	}
+
+	/**
+	 * Constructs an empty buffer.
+	 *
+	 * @param initialChunkSize Size of the first chunk, e.g. the expected size
+	 *                         of the content.
+	 */
+	public ByteChunkBuffer( final int initialChunkSize )
+	{
+		if ( initialChunkSize <= 0 )
+		{
+			throw new IllegalArgumentException( "initialChunkSize: " + initialChunkSize );
+		}
+
+		_initialChunkSize = initialChunkSize;
+	}
+
+	/**
+	 * Returns the number of bytes in this buffer.
+	 *
+	 * @return Number of bytes.
+	 */
+	public int size()
+	{
+		return _fullChunksSize + _chunkUsed;
+	}
+
+	/**
+	 * Removes all content from this buffer.
+	 */
+	public void reset()
+	{
+		_fullChunks.clear();
+		_fullChunksSize = 0;
+		_chunk = null;
+		_chunkUsed = 0;
+	}
+
+	@Override
+	public void write( final int b )
+	{
+		byte[] chunk = _chunk;
+		if ( ( chunk == null ) || ( _chunkUsed == chunk.length ) )
+		{
+			chunk = nextChunk();
+		}
+
+		chunk[ _chunkUsed++ ] = (byte)b;
+	}
+
+	@Override
+	public void write( @NotNull final byte[] b, final int off, final int len )
+	{
+		if ( ( off < 0 ) || ( len < 0 ) || ( off > b.length - len ) )
+		{
+			throw new IndexOutOfBoundsException();
+		}
+
+		int offset = off;
+		int remaining = len;
+		while ( remaining > 0 )
+		{
+			byte[] chunk = _chunk;
+			if ( ( chunk == null ) || ( _chunkUsed == chunk.length ) )
+			{
+				chunk = nextChunk();
+			}
+
+			final int count = Math.min( remaining, chunk.length - _chunkUsed );
+			System.arraycopy( b, offset, chunk, _chunkUsed, count );
+			_chunkUsed += count;
+			offset += count;
+			remaining -= count;
+		}
+	}
+
+	/**
+	 * Reads all remaining data from the given input stream into this buffer.
+	 * Data is read directly into the chunks, without intermediate buffers.
+	 * The stream is not closed.
+	 *
+	 * @param in Stream to read from.
+	 *
+	 * @return Number of bytes read.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public long readFrom( @NotNull final InputStream in )
+	throws IOException
+	{
+		long result = 0L;
+
+		while ( true )
+		{
+			byte[] chunk = _chunk;
+			if ( ( chunk == null ) || ( _chunkUsed == chunk.length ) )
+			{
+				/*
+				 * Probe for end of stream before allocating a new chunk, so an
+				 * exactly filled chunk can be returned as-is.
+				 */
+				if ( chunk != null )
+				{
+					final int b = in.read();
+					if ( b < 0 )
+					{
+						break;
+					}
+
+					write( b );
+					result++;
+					continue;
+				}
+
+				chunk = nextChunk();
+			}
+
+			final int read = in.read( chunk, _chunkUsed, chunk.length - _chunkUsed );
+			if ( read < 0 )
+			{
+				break;
+			}
+
+			_chunkUsed += read;
+			result += (long)read;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Reads all remaining data from the given channel into this buffer. The
+	 * channel is not closed. For a non-blocking channel, this method returns
+	 * as soon as no more data is available.
+	 *
+	 * @param in Channel to read from.
+	 *
+	 * @return Number of bytes read.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public long readFrom( @NotNull final ReadableByteChannel in )
+	throws IOException
+	{
+		long result = 0L;
+
+		while ( true )
+		{
+			byte[] chunk = _chunk;
+			if ( ( chunk == null ) || ( _chunkUsed == chunk.length ) )
+			{
+				chunk = nextChunk();
+			}
+
+			final int read = in.read( ByteBuffer.wrap( chunk, _chunkUsed, chunk.length - _chunkUsed ) );
+			if ( read <= 0 )
+			{
+				break;
+			}
+
+			_chunkUsed += read;
+			result += (long)read;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the content of this buffer as a byte array. If the content is
+	 * stored in a single, completely filled chunk, that chunk is returned;
+	 * otherwise, the content is copied into a new array.
+	 *
+	 * @return Content of this buffer.
+	 */
+	@NotNull
+	public byte[] toByteArray()
+	{
+		final byte[] result;
+
+		final byte[] chunk = _chunk;
+		if ( chunk == null )
+		{
+			result = NO_BYTES;
+		}
+		else if ( _fullChunks.isEmpty() && ( _chunkUsed == chunk.length ) )
+		{
+			result = chunk;
+		}
+		else
+		{
+			result = new byte[ size() ];
+
+			int position = 0;
+			for ( final byte[] fullChunk : _fullChunks )
+			{
+				System.arraycopy( fullChunk, 0, result, position, fullChunk.length );
+				position += fullChunk.length;
+			}
+
+			System.arraycopy( chunk, 0, result, position, _chunkUsed );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the content of this buffer as a byte buffer. If the content is
+	 * stored in a single chunk, the returned buffer wraps that chunk;
+	 * otherwise, the content is copied into a new array first.
+	 *
+	 * @return Content of this buffer.
+	 */
+	@NotNull
+	public ByteBuffer toByteBuffer()
+	{
+		final byte[] chunk = _chunk;
+		return ( ( chunk != null ) && _fullChunks.isEmpty() ) ? ByteBuffer.wrap( chunk, 0, _chunkUsed ).slice() : ByteBuffer.wrap( toByteArray() );
+	}
+
+	/**
+	 * Writes the content of this buffer to the given output stream.
+	 *
+	 * @param out Stream to write to.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void writeTo( @NotNull final OutputStream out )
+	throws IOException
+	{
+		for ( final byte[] fullChunk : _fullChunks )
+		{
+			out.write( fullChunk );
+		}
+
+		final byte[] chunk = _chunk;
+		if ( chunk != null )
+		{
+			out.write( chunk, 0, _chunkUsed );
+		}
+	}
+
+	/**
+	 * Writes the content of this buffer to the given channel.
+	 *
+	 * @param out Channel to write to.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void writeTo( @NotNull final WritableByteChannel out )
+	throws IOException
+	{
+		for ( final byte[] fullChunk : _fullChunks )
+		{
+			writeFully( out, ByteBuffer.wrap( fullChunk ) );
+		}
+
+		final byte[] chunk = _chunk;
+		if ( chunk != null )
+		{
+			writeFully( out, ByteBuffer.wrap( chunk, 0, _chunkUsed ) );
+		}
+	}
+
+	/**
+	 * Writes all remaining bytes in the given buffer to a channel.
+	 *
+	 * @param out    Channel to write to.
+	 * @param buffer Buffer to write.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void writeFully( final WritableByteChannel out, final ByteBuffer buffer )
+	throws IOException
+	{
+		while ( buffer.hasRemaining() )
+		{
+			out.write( buffer );
+		}
+	}
+
+	/**
+	 * Starts a new chunk. The current chunk, if any, must be full.
+	 *
+	 * @return New chunk.
+	 */
+	private byte[] nextChunk()
+	{
+		final byte[] chunk = _chunk;
+		final int size;
+
+		if ( chunk == null )
+		{
+			size = _initialChunkSize;
+		}
+		else
+		{
+			_fullChunks.add( chunk );
+			_fullChunksSize += chunk.length;
+			if ( _fullChunksSize < 0 )
+			{
+				throw new OutOfMemoryError( "Content exceeds maximum array size" );
+			}
+
+			size = Math.max( DEFAULT_CHUNK_SIZE, Math.min( _fullChunksSize, MAXIMUM_CHUNK_SIZE ) );
+		}
+
+		final byte[] result = new byte[ size ];
+		_chunk = result;
+		_chunkUsed = 0;
+		return result;
+	}
+}
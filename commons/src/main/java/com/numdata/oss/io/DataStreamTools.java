@@ -27,6 +27,8 @@
 package com.numdata.oss.io;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
 import java.util.*;
 import java.util.zip.*;
 
@@ -817,20 +819,30 @@ public class DataStreamTools
 			final int len = value.length();
 			writeVarInt( os, (long)len );
 
-			for ( int i = 0; i < len; i++ )
+			final byte[] buffer = BufferPool.getByteBuffer();
+			try
 			{
-				int code = (int)value.charAt( i );
-				if ( code < 0 )
-				{
-					code = -code;
-				}
-
-				if ( code > 0xFF )
+				for ( int done = 0; done < len; )
 				{
-					throw new IOException( "illegal char" );
+					final int count = Math.min( len - done, buffer.length );
+					for ( int i = 0; i < count; i++ )
+					{
+						final int code = (int)value.charAt( done++ );
+						if ( code > 0xFF )
+						{
+							os.write( buffer, 0, i );
+							throw new IOException( "illegal char" );
+						}
+
+						buffer[ i ] = (byte)code;
+					}
+
+					os.write( buffer, 0, count );
 				}
-
-				os.write( code );
+			}
+			finally
+			{
+				BufferPool.release( buffer );
 			}
 		}
 	}
@@ -854,7 +866,7 @@ public class DataStreamTools
 		/*
 		 * Get string length and character following it. Interpret -1 as {@code null}.
 		 */
-		long len = readVarInt( is );
+		final long len = readVarInt( is );
 		if ( len == -1L )
 		{
 			result = null;
@@ -865,19 +877,29 @@ public class DataStreamTools
 		}
 		else if ( ( len > 0L ) && ( len < (long)Integer.MAX_VALUE ) )
 		{
-			final StringBuilder sb = new StringBuilder( (int)len );
-			for ( ; len > 0L; len-- )
+			final int length = (int)len;
+			final char[] chars = new char[ length ];
+
+			final byte[] buffer = BufferPool.getByteBuffer();
+			try
 			{
-				final int i = is.read();
-				if ( i < 0 )
+				for ( int done = 0; done < length; )
 				{
-					throw new EOFException();
-				}
+					final int count = Math.min( length - done, buffer.length );
+					readByteArray( is, buffer, 0, count );
 
-				sb.append( (char)i );
+					for ( int i = 0; i < count; i++ )
+					{
+						chars[ done++ ] = (char)( buffer[ i ] & 0xFF );
+					}
+				}
+			}
+			finally
+			{
+				BufferPool.release( buffer );
 			}
 
-			result = sb.toString();
+			result = new String( chars );
 		}
 		else
 		{
@@ -1021,62 +1043,14 @@ public class DataStreamTools
 	throws IOException
 	{
 		/*
-		 * We use a Fibonacci growing buffer in this algorithm to read as
-		 * efficient as possible. We start with a relatively small buffer. After
-		 * reading a block of data, we create a new array to fit the data we've
-		 * read so far. The old array is then reused on the next iteration.
-		 *
-		 * NOTICE:
-		 *    The algorithm has a deficiency: if we get a reliable available()
-		 *    count (actually the correct number of bytes left in the stream), we
-		 *    create one unnecessary buffer. We could actually return the buffer
-		 *    on the first iteration without ever creating a new one.
+		 * Data is read into a chunked buffer, so growing never copies data
+		 * that was already read. If available() reports the correct number
+		 * of bytes left in the stream, the first chunk is returned as-is.
 		 */
-		byte[] total = null;
-		byte[] buffer = new byte[ Math.max( is.available(), 1024 ) ]; // initial buffer size
-
-		boolean done = false;
-		while ( !done )
-		{
-			/*
-			 * Read data into current buffer until it's full.
-			 */
-			int totalRead = 0;
-			while ( totalRead < buffer.length )
-			{
-				final int read = is.read( buffer, totalRead, buffer.length - totalRead );
-				if ( read == -1 )
-				{
-					done = true;
-					break;
-				}
-				totalRead += read;
-			}
-
-			/*
-			 * Create next buffer
-			 */
-			if ( totalRead > 0 )
-			{
-				if ( total != null )
-				{
-					final byte[] newTotal = new byte[ total.length + totalRead ];
-
-					System.arraycopy( total, 0, newTotal, 0, total.length );
-					System.arraycopy( buffer, 0, newTotal, total.length, totalRead );
-
-					buffer = total;
-					total = newTotal;
-				}
-				else
-				{
-					total = new byte[ totalRead ];
-					System.arraycopy( buffer, 0, total, 0, totalRead );
-				}
-			}
-		}
-
-		return total == null ? NO_BYTES : total;
+		final int available = is.available();
+		final ByteChunkBuffer buffer = new ByteChunkBuffer( ( available > 0 ) ? available : 0x400 );
+		buffer.readFrom( is );
+		return buffer.toByteArray();
 	}
 
 	/**
@@ -1538,9 +1512,25 @@ public class DataStreamTools
 			final int len = value.length();
 			writeInt( os, len );
 
-			for ( int i = 0; i < len; i++ )
+			final byte[] buffer = BufferPool.getByteBuffer();
+			try
+			{
+				for ( int done = 0; done < len; )
+				{
+					final int count = Math.min( len - done, buffer.length / 2 );
+					for ( int i = 0; i < count; i++ )
+					{
+						final char ch = value.charAt( done++ );
+						buffer[ 2 * i ] = (byte)( ch >>> 8 );
+						buffer[ 2 * i + 1 ] = (byte)ch;
+					}
+
+					os.write( buffer, 0, 2 * count );
+				}
+			}
+			finally
 			{
-				writeChar( os, value.charAt( i ) );
+				BufferPool.release( buffer );
 			}
 		}
 	}
@@ -1565,7 +1555,7 @@ public class DataStreamTools
 		/*
 		 * Get string length and character following it. Interpret -1 as {@code null}.
 		 */
-		int len = readInt( is );
+		final int len = readInt( is );
 		if ( len == -1 )
 		{
 			result = null;
@@ -1576,13 +1566,28 @@ public class DataStreamTools
 		}
 		else if ( len > 0 )
 		{
-			final StringBuilder sb = new StringBuilder( len );
-			for ( ; len > 0; len-- )
+			final char[] chars = new char[ len ];
+
+			final byte[] buffer = BufferPool.getByteBuffer();
+			try
+			{
+				for ( int done = 0; done < len; )
+				{
+					final int count = Math.min( len - done, buffer.length / 2 );
+					readByteArray( is, buffer, 0, 2 * count );
+
+					for ( int i = 0; i < count; i++ )
+					{
+						chars[ done++ ] = (char)( ( ( buffer[ 2 * i ] & 0xFF ) << 8 ) | ( buffer[ 2 * i + 1 ] & 0xFF ) );
+					}
+				}
+			}
+			finally
 			{
-				sb.append( readChar( is ) );
+				BufferPool.release( buffer );
 			}
 
-			result = sb.toString();
+			result = new String( chars );
 		}
 		else
 		{
@@ -1619,7 +1624,35 @@ public class DataStreamTools
 			utflen += ( ( ch > 0 ) && ( ch < 0x80 ) ) ? 1 : ( ch < 0x800 ) ? 2 : 3;
 		}
 
-		final byte[] buffer = new byte[ utflen + 2 ];
+		final byte[] buffer = BufferPool.getByteBuffer( utflen + 2 );
+		try
+		{
+			writeUTF( os, value, buffer, utflen );
+		}
+		finally
+		{
+			BufferPool.release( buffer );
+		}
+
+		return utflen + 2;
+	}
+
+	/**
+	 * Writes a string using UTF-8 encoding with a pre-calculated length.
+	 *
+	 * @param os     Output stream.
+	 * @param value  String to be written.
+	 * @param buffer Buffer to encode string in.
+	 * @param utflen Length of UTF-8 encoded string.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @see #writeUTF(OutputStream, CharSequence)
+	 */
+	private static void writeUTF( final OutputStream os, final CharSequence value, final byte[] buffer, final int utflen )
+	throws IOException
+	{
+		final int strlen = value.length();
+
 		buffer[ 0 ] = (byte)( ( utflen >>> 8 ) & 0xFF );
 		buffer[ 1 ] = (byte)( utflen & 0xFF );
 		int count = 2;
@@ -1645,7 +1678,6 @@ public class DataStreamTools
 		}
 
 		os.write( buffer, 0, utflen + 2 );
-		return utflen + 2;
 	}
 
 	/**
@@ -1853,50 +1885,218 @@ public class DataStreamTools
 	public static void pipe( final OutputStream out, final InputStream in )
 	throws IOException
 	{
-		final byte[] buffer = new byte[ Math.max( 0x400, Math.min( in.available(), 0x10000 ) ) ]; // initial buffer size
+		transfer( in, out );
+	}
 
-		while ( true )
+	/**
+	 * Pipe from one stream to another stream.
+	 *
+	 * @param out Stream to write to.
+	 * @param in  Stream to read to.
+	 *
+	 * @throws IOException if an error occurs while accessing resources.
+	 */
+	public static void pipe( final Appendable out, final Reader in )
+	throws IOException
+	{
+		final char[] charArray = BufferPool.getCharBuffer();
+		try
 		{
-			final int read = in.read( buffer );
-			if ( read == -1 )
+			final CharSequence charBuffer = new CharArray( charArray );
+
+			while ( true )
 			{
-				break;
+				final int read = in.read( charArray );
+				if ( read == -1 )
+				{
+					break;
+				}
+
+				if ( read > 0 )
+				{
+					out.append( charBuffer, 0, read );
+				}
 			}
+		}
+		finally
+		{
+			BufferPool.release( charArray );
+		}
+	}
 
-			if ( read > 0 )
+	/**
+	 * Transfers all remaining data from an input stream to an output stream.
+	 * Neither stream is closed.
+	 *
+	 * If both streams are plain file streams, the data is transferred between
+	 * their file channels (see {@link #transfer(ReadableByteChannel,
+	 * WritableByteChannel)}), which allows the operating system to copy the
+	 * data of regular files without passing it through the Java heap.
+	 * Otherwise, a pooled buffer is used.
+	 *
+	 * @param in  Stream to read from.
+	 * @param out Stream to write to.
+	 *
+	 * @return Number of bytes transferred.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static long transfer( @NotNull final InputStream in, @NotNull final OutputStream out )
+	throws IOException
+	{
+		long result = 0L;
+
+		if ( ( in.getClass() == FileInputStream.class ) && ( out.getClass() == FileOutputStream.class ) )
+		{
+			result = transfer( ( (FileInputStream)in ).getChannel(), ( (FileOutputStream)out ).getChannel() );
+		}
+		else
+		{
+			final byte[] buffer = BufferPool.getByteBuffer();
+			try
 			{
-				out.write( buffer, 0, read );
+				while ( true )
+				{
+					final int read = in.read( buffer );
+					if ( read == -1 )
+					{
+						break;
+					}
+
+					if ( read > 0 )
+					{
+						out.write( buffer, 0, read );
+						result += (long)read;
+					}
+				}
+			}
+			finally
+			{
+				BufferPool.release( buffer );
 			}
 		}
+
+		return result;
 	}
 
 	/**
-	 * Pipe from one stream to another stream.
+	 * Transfers all remaining data from a file to an output stream. The stream
+	 * is not closed.
 	 *
-	 * @param out Stream to write to.
-	 * @param in  Stream to read to.
+	 * @param file File to read from.
+	 * @param out  Stream to write to.
 	 *
-	 * @throws IOException if an error occurs while accessing resources.
+	 * @return Number of bytes transferred.
+	 *
+	 * @throws IOException if an I/O error occurs.
 	 */
-	public static void pipe( final Appendable out, final Reader in )
+	public static long transfer( @NotNull final File file, @NotNull final OutputStream out )
 	throws IOException
 	{
-		final char[] charArray = new char[ 0x400 ];
-		final CharSequence charBuffer = new CharArray( charArray );
+		try ( final FileInputStream in = new FileInputStream( file ) )
+		{
+			return transfer( in, out );
+		}
+	}
 
-		while ( true )
+	/**
+	 * Transfers all remaining data from one channel to another. Neither
+	 * channel is closed. Both channels must be in blocking mode.
+	 *
+	 * If the source is a seekable {@link FileChannel}, {@link
+	 * FileChannel#transferTo} is used up to the size of the file, so the
+	 * operating system may copy the data directly. Any remaining data, or all
+	 * data for other channels (e.g. pipes and special files, whose size may be
+	 * reported as zero), is copied using a pooled buffer.
+	 *
+	 * @param in  Channel to read from.
+	 * @param out Channel to write to.
+	 *
+	 * @return Number of bytes transferred.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static long transfer( @NotNull final ReadableByteChannel in, @NotNull final WritableByteChannel out )
+	throws IOException
+	{
+		long result = ( in instanceof FileChannel ) ? transferFile( (FileChannel)in, out ) : 0L;
+
+		final byte[] array = BufferPool.getByteBuffer();
+		try
 		{
-			final int read = in.read( charArray );
-			if ( read == -1 )
+			final ByteBuffer buffer = ByteBuffer.wrap( array );
+			while ( in.read( buffer ) >= 0 )
 			{
-				break;
+				buffer.flip();
+				while ( buffer.hasRemaining() )
+				{
+					result += (long)out.write( buffer );
+				}
+				buffer.clear();
 			}
+		}
+		finally
+		{
+			BufferPool.release( array );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Transfers data from a file channel to another channel using {@link
+	 * FileChannel#transferTo}, as long as that makes progress. The position of
+	 * the file channel is advanced past the transferred data. Nothing is
+	 * transferred if the channel is not seekable, e.g. for a pipe.
+	 *
+	 * @param in  Channel to read from.
+	 * @param out Channel to write to.
+	 *
+	 * @return Number of bytes transferred.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static long transferFile( @NotNull final FileChannel in, @NotNull final WritableByteChannel out )
+	throws IOException
+	{
+		long result = 0L;
+
+		long position;
+		long size;
+		try
+		{
+			position = in.position();
+			size = in.size();
+		}
+		catch ( final IOException ignored )
+		{
+			/* not seekable (e.g. 'Illegal seek' for pipes) */
+			position = 0L;
+			size = 0L;
+		}
 
-			if ( read > 0 )
+		/*
+		 * 'transferTo' does not update the channel position, and may transfer
+		 * fewer bytes than requested.
+		 */
+		while ( position < size )
+		{
+			final long transferred = in.transferTo( position, size - position, out );
+			if ( transferred <= 0L )
 			{
-				out.append( charBuffer, 0, read );
+				break;
 			}
+
+			position += transferred;
+			result += transferred;
 		}
+
+		if ( result > 0L )
+		{
+			in.position( position );
+		}
+
+		return result;
 	}
 
 	/**
@@ -16,6 +16,10 @@
 
 package com.numdata.oss;
 
+import java.io.*;
+import java.math.*;
+import java.util.*;
+
 import static org.junit.Assert.*;
 import org.junit.*;
 
@@ -27,6 +31,11 @@ import org.junit.*;
  */
 public class TestBigRational
 {
+	/**
+	 * Name of this class.
+	 */
+	private static final String CLASS_NAME = TestBigRational.class.getName();
+
 	/**
 	 * Run tests.
 	 */
@@ -2013,4 +2022,125 @@ public class TestBigRational
 
 		// done.
 	}
+
+	/**
+	 * Tests arithmetic on values near the limits of the compact (long)
+	 * representation, which must overflow to BigInteger and back.
+	 */
+	@Test
+	public void testCompactOverflow()
+	{
+		System.out.println( CLASS_NAME + ".testCompactOverflow" );
+
+		final BigRational max = BigRational.valueOf( Long.MAX_VALUE );
+		final BigRational min = BigRational.valueOf( Long.MIN_VALUE );
+		final BigInteger bigMax = BigInteger.valueOf( Long.MAX_VALUE );
+		final BigInteger bigMin = BigInteger.valueOf( Long.MIN_VALUE );
+
+		assertEquals( "Unexpected result", bigMax.add( BigInteger.ONE ), max.add( 1 ).getNumerator() );
+		assertEquals( "Unexpected result", bigMin.subtract( BigInteger.ONE ), min.subtract( 1 ).getNumerator() );
+		assertEquals( "Unexpected result", bigMax.multiply( bigMax ), max.multiply( max ).getNumerator() );
+		assertEquals( "Unexpected result", bigMin.negate(), min.negate().getNumerator() );
+		assertEquals( "Unexpected result", bigMin.negate(), min.abs().getNumerator() );
+		assertEquals( "Unexpected result", max, max.add( 1 ).subtract( 1 ) );
+		assertEquals( "Unexpected result", max, max.multiply( max ).divide( max ) );
+		assertEquals( "Unexpected result", min, min.negate().negate() );
+		assertEquals( "Unexpected result", max.hashCode(), max.add( 1 ).subtract( 1 ).hashCode() );
+		assertEquals( "Unexpected result", BigRational.ONE, new BigRational( Long.MIN_VALUE, Long.MIN_VALUE ) );
+
+		final BigRational tiny = new BigRational( 1, Long.MAX_VALUE );
+		final BigRational otherTiny = new BigRational( 1, Long.MAX_VALUE - 1 );
+		assertEquals( "Unexpected result", new BigRational( bigMax.add( bigMax ).subtract( BigInteger.ONE ), bigMax.multiply( bigMax.subtract( BigInteger.ONE ) ) ), tiny.add( otherTiny ) );
+		assertTrue( "Unexpected comparison", tiny.compareTo( otherTiny ) < 0 );
+		assertTrue( "Unexpected comparison", otherTiny.compareTo( tiny ) > 0 );
+		assertTrue( "Unexpected comparison", new BigRational( Long.MAX_VALUE, 3 ).compareTo( new BigRational( Long.MAX_VALUE - 1, 3 ) ) > 0 );
+		assertTrue( "Unexpected comparison", new BigRational( Long.MAX_VALUE - 1, 2 ).compareTo( new BigRational( Long.MAX_VALUE, 3 ) ) > 0 );
+
+		assertEquals( "Unexpected result", BigRational.valueOf( Long.MAX_VALUE / 2 + 1 ), max.divide( 2 ).round() );
+		assertEquals( "Unexpected result", BigRational.valueOf( -( Long.MAX_VALUE / 2 ) - 1 ), max.divide( -2 ).round( BigRational.ROUND_HALF_EVEN ) );
+	}
+
+	/**
+	 * Tests that common integers are interned.
+	 */
+	@Test
+	public void testSmallIntegers()
+	{
+		System.out.println( CLASS_NAME + ".testSmallIntegers" );
+
+		assertSame( "Expected constant", BigRational.ZERO, BigRational.valueOf( 0 ) );
+		assertSame( "Expected constant", BigRational.ONE, new BigRational( 1, 3 ).add( new BigRational( 2, 3 ) ) );
+		assertSame( "Expected constant", BigRational.MINUS_ONE, BigRational.ONE.negate() );
+		assertSame( "Expected constant", BigRational.ZERO, new BigRational( 1, 3 ).subtract( new BigRational( 1, 3 ) ) );
+		assertSame( "Expected cached value", BigRational.valueOf( 1000 ), new BigRational( 1, 4 ).multiply( 4000 ) );
+		assertSame( "Expected cached value", BigRational.valueOf( -128 ), BigRational.valueOf( -256 ).divide( 2 ) );
+		assertEquals( "Unexpected result", new BigRational( 5000 ), BigRational.valueOf( 5000 ) );
+	}
+
+	/**
+	 * Tests serialization, including the serialized form written before the
+	 * compact representation was introduced.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSerialization()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testSerialization" );
+
+		for ( final BigRational value : Arrays.asList( BigRational.ZERO, new BigRational( 3, 4 ), new BigRational( -5 ), new BigRational( Long.MAX_VALUE ).multiply( new BigRational( 3, 2 ) ) ) )
+		{
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try ( final ObjectOutputStream objectOut = new ObjectOutputStream( out ) )
+			{
+				objectOut.writeObject( value );
+			}
+
+			final BigRational copy = deserialize( out.toByteArray() );
+			assertEquals( "Unexpected value", value, copy );
+			assertEquals( "Unexpected sum", value.add( BigRational.ONE ), copy.add( BigRational.ONE ) );
+			assertEquals( "Unexpected string", value.toString(), copy.toString() );
+		}
+
+		// -3/4 as serialized before the compact representation was introduced
+		final String serialized = "aced00057372001b636f6d2e6e756d646174612e6f73732e426967526174696f" +
+		                           "6e616ce9e07a706389b0d10200024c00036d5f6e7400164c6a6176612f6d6174" +
+		                           "682f426967496e74656765723b4c00036d5f7171007e0001787200106a617661" +
+		                           "2e6c616e672e4e756d62657286ac951d0b94e08b0200007870737200146a6176" +
+		                           "612e6d6174682e426967496e74656765728cfc9f1fa93bfb1d03000649000862" +
+		                           "6974436f756e744900096269744c656e67746849001366697273744e6f6e7a65" +
+		                           "726f427974654e756d49000c6c6f776573745365744269744900067369676e75" +
+		                           "6d5b00096d61676e69747564657400025b427871007e0002ffffffffffffffff" +
+		                           "fffffffefffffffeffffffff757200025b42acf317f8060854e0020000787000" +
+		                           "00000103787371007e0004fffffffffffffffffffffffefffffffe0000000175" +
+		                           "71007e0007000000010478";
+		final byte[] data = new byte[ serialized.length() / 2 ];
+		for ( int i = 0; i < data.length; i++ )
+		{
+			data[ i ] = (byte)Integer.parseInt( serialized.substring( i * 2, i * 2 + 2 ), 16 );
+		}
+
+		final BigRational old = deserialize( data );
+		assertEquals( "Unexpected value", new BigRational( -3, 4 ), old );
+		assertEquals( "Unexpected product", new BigRational( -9, 16 ), old.multiply( new BigRational( 3, 4 ) ) );
+	}
+
+	/**
+	 * Deserializes a {@link BigRational}.
+	 *
+	 * @param data Serialized data.
+	 *
+	 * @return Deserialized value.
+	 *
+	 * @throws Exception if deserialization fails.
+	 */
+	private static BigRational deserialize( final byte[] data )
+	throws Exception
+	{
+		try ( final ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( data ) ) )
+		{
+			return (BigRational)in.readObject();
+		}
+	}
 }
@@ -65,6 +65,11 @@ public class TestCSVParser
 		final List<List<String>> expected = Arrays.asList( Arrays.asList( "a", "b" ), Arrays.asList( "1", "2", "3" ) );
 		final List<List<String>> actual = csvParser.readAll( new StringReader( "\n\na,b\n1,2,3\n\n" ) );
 		assertEquals( "Unexpected output", expected, actual );
+
+		final List<String> lines = Arrays.asList( "a,b", "5\" screw,y", "c,d", "\"e,f" );
+		final List<List<String>> unbalanced = csvParser.readAll( new StringReader( String.join( "\n", lines ) ) );
+		assertEquals( "Unbalanced quotes should not span lines", 4, unbalanced.size() );
+		assertEquals( "Unexpected output", csvParser.parseLines( lines ), unbalanced );
 	}
 
 	@Test
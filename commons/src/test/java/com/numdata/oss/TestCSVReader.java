@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+/**
+ * Unit test for {@link CSVReader}.
+ */
+public class TestCSVReader
+{
+	/**
+	 * Folder for temporary files.
+	 */
+	@Rule
+	public TemporaryFolder _folder = new TemporaryFolder();
+
+	/**
+	 * Tests that values are parsed like {@link CSVParser#parseLines}.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSameAsParseLines()
+	throws Exception
+	{
+		final CSVParser csvParser = new CSVParser();
+		csvParser.setSkipComments( true );
+		csvParser.setSkipEmptyRows( true );
+		csvParser.setEmptyNull( true );
+
+		final List<String> input = Arrays.asList( "#",
+		                                          "    # hello \"",
+		                                          "1,2,\"3\"",
+		                                          "\" \", \"Hi\"\"\",\"Hi\"\"there\",\",\" ",
+		                                          "\t ",
+		                                          "1,2,,4",
+		                                          "  1 ,  2 , \"3\" , 4  ",
+		                                          ",,",
+		                                          "a,b," );
+
+		final List<List<String>> expected = csvParser.parseLines( input );
+		assertEquals( "Unexpected result", expected, readAll( csvParser, String.join( "\n", input ) ) );
+		assertEquals( "Unexpected result", expected, readAll( csvParser, String.join( "\r\n", input ) ) );
+		assertEquals( "Unexpected result", expected, readAll( csvParser, String.join( "\r", input ) + '\n' ) );
+	}
+
+	/**
+	 * Tests quoted line breaks and field views.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testQuotedLineBreaks()
+	throws Exception
+	{
+		final CSVParser csvParser = new CSVParser();
+		csvParser.setSeparator( ';' );
+
+		final CSVReader reader = new CSVReader( new StringReader( "id;text\r\n1;\"line 1\r\nline 2\"\r\n2;\"say \"\"hi\"\"\n\";x" ), csvParser );
+		assertTrue( "Expected row", reader.nextRow() );
+		assertEquals( "Unexpected row", Arrays.asList( "id", "text" ), reader.toList() );
+
+		assertTrue( "Expected row", reader.nextRow() );
+		assertEquals( "Unexpected field count", 2, reader.getFieldCount() );
+		final CharSequence field = reader.getField( 1 );
+		assertEquals( "Unexpected length", 14, field.length() );
+		assertEquals( "Unexpected character", '\r', field.charAt( 6 ) );
+		assertEquals( "Unexpected value", "line 1\r\nline 2", field.toString() );
+		assertEquals( "Unexpected sub-sequence", "line 2", field.subSequence( 8, 14 ).toString() );
+
+		assertTrue( "Expected row", reader.nextRow() );
+		assertEquals( "Unexpected row", Arrays.asList( "2", "say \"hi\"\n", "x" ), reader.toList() );
+		assertSame( "Field view should be reused", field, reader.getField( 1 ) );
+
+		assertFalse( "Unexpected row", reader.nextRow() );
+		assertEquals( "Unexpected field count", 0, reader.getFieldCount() );
+		try
+		{
+			reader.getField( 0 );
+			fail( "Expected exception" );
+		}
+		catch ( final IndexOutOfBoundsException e )
+		{
+			/* expected */
+		}
+
+		final CSVReader lineReader = new CSVReader( new StringReader( "1;\"line 1\nline 2\"\n2;5\" screw\n3;x" ), csvParser );
+		assertTrue( "Quoted line breaks should be enabled by default", lineReader.isQuotedLineBreaks() );
+		lineReader.setQuotedLineBreaks( false );
+		final List<List<String>> rows = new ArrayList<>();
+		lineReader.readAll( row -> rows.add( row.toList() ) );
+		assertEquals( "Unexpected rows", csvParser.parseLines( Arrays.asList( "1;\"line 1", "line 2\"", "2;5\" screw", "3;x" ) ), rows );
+	}
+
+	/**
+	 * Tests rows that exceed the initial buffer size and rows that cross
+	 * buffer boundaries, read from a channel.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testLargeInput()
+	throws Exception
+	{
+		final List<List<String>> expected = new ArrayList<>();
+		final StringBuilder data = new StringBuilder();
+		final char[] longValue = new char[ 200000 ];
+		Arrays.fill( longValue, 'x' );
+		for ( int i = 0; i < 20000; i++ )
+		{
+			final String value = ( i == 1234 ) ? new String( longValue ) : "value " + i;
+			expected.add( Arrays.asList( String.valueOf( i ), value + "\n€" ) );
+			data.append( i ).append( ",\"" ).append( value ).append( "\n€\"\r\n" );
+		}
+
+		final CSVParser csvParser = new CSVParser();
+		final List<List<String>> actual = new ArrayList<>();
+		try ( final CSVReader reader = new CSVReader( Channels.newChannel( new ByteArrayInputStream( data.toString().getBytes( StandardCharsets.UTF_8 ) ) ), StandardCharsets.UTF_8, csvParser ) )
+		{
+			reader.readAll( row -> actual.add( row.toList() ) );
+		}
+		assertEquals( "Unexpected result", expected, actual );
+	}
+
+	/**
+	 * Tests {@link CSVReader#readParallel}.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testReadParallel()
+	throws Exception
+	{
+		final StringBuilder data = new StringBuilder();
+		for ( int i = 0; i < 10000; i++ )
+		{
+			data.append( i ).append( ",\"quoted\n\"\"," ).append( i ).append( "\"\"\r\n\",é\n" );
+		}
+
+		final File file = _folder.newFile( "test.csv" );
+		Files.write( file.toPath(), data.toString().getBytes( StandardCharsets.UTF_8 ) );
+
+		final CSVParser csvParser = new CSVParser();
+		final List<List<String>> expected = readAll( csvParser, data.toString() );
+		assertEquals( "Unexpected row count", 10000, expected.size() );
+
+		for ( final int parallelism : new int[] { 1, 3, 7 } )
+		{
+			final List<List<String>> actual = Collections.synchronizedList( new ArrayList<>() );
+			CSVReader.readParallel( file.toPath(), StandardCharsets.UTF_8, csvParser, parallelism, row -> actual.add( row.toList() ) );
+			actual.sort( Comparator.comparing( row -> Integer.valueOf( row.get( 0 ) ) ) );
+			assertEquals( "Unexpected result for parallelism " + parallelism, expected, actual );
+		}
+
+		try
+		{
+			CSVReader.readParallel( file.toPath(), StandardCharsets.UTF_16, csvParser, 2, row -> {} );
+			fail( "Expected exception" );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			/* expected */
+		}
+	}
+
+	/**
+	 * Reads all rows from the given data.
+	 *
+	 * @param csvParser CSV format.
+	 * @param data      Data to read.
+	 *
+	 * @return Rows.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static List<List<String>> readAll( final CSVParser csvParser, final String data )
+	throws IOException
+	{
+		final List<List<String>> result = new ArrayList<>();
+		final CSVReader reader = new CSVReader( new StringReader( data ), csvParser );
+		while ( reader.nextRow() )
+		{
+			result.add( reader.toList() );
+		}
+		return result;
+	}
+}
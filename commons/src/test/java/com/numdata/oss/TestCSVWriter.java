@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Unit test for {@link CSVWriter}.
+ */
+public class TestCSVWriter
+{
+	/**
+	 * Tests writing rows, including values that need quotes.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testWriteRow()
+	throws Exception
+	{
+		final List<List<?>> rows = Arrays.asList( Arrays.asList( "a", "b c", " d", "e\t" ),
+		                                          Arrays.asList( 1, null, "", new StringBuilder( "x\"y\"\"z" ) ),
+		                                          Collections.emptyList(),
+		                                          Arrays.asList( "line 1\nline 2\nline 3", "1,5", "semi;colon" ) );
+
+		final StringWriter out = new StringWriter();
+		try ( final CSVWriter writer = new CSVWriter( out, ",", "\r\n" ) )
+		{
+			for ( final List<?> row : rows )
+			{
+				writer.writeRow( row );
+			}
+		}
+
+		assertEquals( "Unexpected output", "a,b c,\" d\",\"e\t\"\r\n" +
+		                                   "1,,,\"x\"\"y\"\"\"\"z\"\r\n" +
+		                                   "\r\n" +
+		                                   "\"line 1\nline 2\nline 3\",\"1,5\",semi;colon", out.toString() );
+
+		final StringBuilder expected = new StringBuilder();
+		CSVTools.writeCSV( expected, rows, ",", "\r\n", null );
+		assertEquals( "Output should match 'CSVTools'", expected.toString(), out.toString() );
+
+		final CSVParser csvParser = new CSVParser();
+		final List<List<String>> read = new ArrayList<>();
+		new CSVReader( new StringReader( out.toString() ), csvParser ).readAll( row -> read.add( row.toList() ) );
+		assertEquals( "Unexpected value read back", "x\"y\"\"z", read.get( 1 ).get( 3 ) );
+		assertEquals( "Unexpected value read back", "line 1\nline 2\nline 3", read.get( 2 ).get( 0 ) );
+
+		final StringWriter separatorOut = new StringWriter();
+		final CSVWriter separatorWriter = new CSVWriter( separatorOut, "::", "\n" );
+		separatorWriter.writeRow( "a:b", "c::d" );
+		separatorWriter.writeValue( 1 );
+		separatorWriter.writeValue( 2 );
+		separatorWriter.endRow();
+		separatorWriter.flush();
+		assertEquals( "Unexpected output", "a:b::\"c::d\"\n1::2", separatorOut.toString() );
+	}
+
+	/**
+	 * Tests writing fixed-width columns.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testFixedColumnWidths()
+	throws Exception
+	{
+		final StringWriter out = new StringWriter();
+		final CSVWriter writer = new CSVWriter( out, "|", "\n" );
+		writer.setFixedColumnWidths( new int[] { 3, 0, 5 } );
+		writer.writeRow( "abcdef", "gone", "x y", "\"rest\"" );
+		writer.writeRow( "a", "b", "c" );
+		writer.flush();
+		assertEquals( "Unexpected output", "abc||x y  |\"\"\"rest\"\"\"\na  ||c    ", out.toString() );
+	}
+
+	/**
+	 * Tests tidy output, with and without sampling.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testTidy()
+	throws Exception
+	{
+		final List<List<String>> rows = Arrays.asList( Arrays.asList( "#comment that is very long" ),
+		                                               Arrays.asList( "a", "bb", "c" ),
+		                                               Arrays.asList( "aaa", "b", "cccc" ),
+		                                               Arrays.asList( "a\"", "b" ),
+		                                               Arrays.asList( "aaaaa", "bbb", "c" ),
+		                                               Arrays.asList( "a", "b", "c" ) );
+
+		final StringBuilder expected = new StringBuilder();
+		CSVTools.writeTidyCSV( expected, rows, ',', "\n" );
+
+		final StringWriter out = new StringWriter();
+		CSVWriter writer = new CSVWriter( out );
+		writer.setTidy( Integer.MAX_VALUE );
+		for ( final List<String> row : rows )
+		{
+			writer.writeRow( row );
+		}
+		writer.close();
+		assertEquals( "Unexpected output", expected.toString(), out.toString() );
+
+		assertEquals( "Unexpected output", "#comment that is very long\n" +
+		                                   "a    , bb , c\n" +
+		                                   "aaa  , b  , cccc\n" +
+		                                   "\"a\"\"\", b\n" +
+		                                   "aaaaa, bbb, c\n" +
+		                                   "a    , b  , c", out.toString() );
+
+		final StringWriter sampledOut = new StringWriter();
+		writer = new CSVWriter( sampledOut );
+		writer.setTidy( 3 );
+		for ( final List<String> row : rows )
+		{
+			writer.writeRow( row );
+		}
+		writer.close();
+		assertEquals( "Unexpected output", "#comment that is very long\n" +
+		                                   "a  , bb, c\n" +
+		                                   "aaa, b , cccc\n" +
+		                                   "\"a\"\"\", b\n" +
+		                                   "aaaaa, bbb, c\n" +
+		                                   "a    , b  , c", sampledOut.toString() );
+	}
+
+	/**
+	 * Tests writing more data than fits in the output buffer.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testLargeOutput()
+	throws Exception
+	{
+		final char[] longValue = new char[ 20000 ];
+		Arrays.fill( longValue, '"' );
+
+		final List<List<?>> rows = new ArrayList<>();
+		for ( int i = 0; i < 5000; i++ )
+		{
+			rows.add( Arrays.asList( i, "value " + i, ( i % 1000 == 0 ) ? new String( longValue ) : "" ) );
+		}
+
+		final StringWriter out = new StringWriter();
+		final CSVWriter writer = new CSVWriter( out );
+		for ( final List<?> row : rows )
+		{
+			writer.writeRow( row );
+		}
+		writer.flush();
+
+		assertEquals( "Unexpected output", CSVTools.writeCSV( rows ), out.toString() );
+	}
+}
@@ -695,6 +695,170 @@ public class TestCache
 		assertSame( "Cache should contain object.", value5, cache.get( 5 ) );
 	}
 
+	/**
+	 * Tests eviction of entries when the maximum weight is exceeded.
+	 */
+	@Test
+	public void testMaximumWeight()
+	{
+		System.out.println( CLASS_NAME + ".testMaximumWeight" );
+
+		final Cache.Weigher<String, String> weigher = new Cache.Weigher<String, String>()
+		{
+			@Override
+			public int weigh( final String key, final String value )
+			{
+				return ( value == null ) ? 0 : value.length();
+			}
+		};
+
+		final String small = "0123456789";
+		final StringBuilder large = new StringBuilder();
+		for ( int i = 0; i < 6; i++ )
+		{
+			large.append( small );
+		}
+
+		/*
+		 * Entries that were used recently are protected from eviction.
+		 */
+		final Cache<String, String> cache = new Cache<String, String>();
+		for ( int i = 0; i < 5; i++ )
+		{
+			cache.put( "small" + i, small );
+		}
+		cache.setMaximumWeight( 100L, weigher );
+		assertEquals( "Unexpected total weight.", 50L, cache.getTotalWeight() );
+
+		for ( int i = 0; i < 5; i++ )
+		{
+			assertSame( "Cache should contain object.", small, cache.get( "small" + i ) );
+		}
+
+		cache.put( "large", large.toString() );
+		assertFalse( "Large entry should be evicted.", cache.containsKey( "large" ) );
+		assertEquals( "Unexpected size.", 5, cache.size() );
+		assertEquals( "Unexpected total weight.", 50L, cache.getTotalWeight() );
+		assertEquals( "Unexpected eviction count.", 1L, cache.getStatistics().getEvictionCount() );
+		assertEquals( "Unexpected eviction weight.", 60L, cache.getStatistics().getEvictionWeight() );
+
+		/*
+		 * Otherwise, least recently added entries are evicted first.
+		 */
+		final Cache<String, String> unused = new Cache<String, String>();
+		unused.setMaximumWeight( 100L, weigher );
+		for ( int i = 0; i < 5; i++ )
+		{
+			unused.put( "small" + i, small );
+		}
+		unused.put( "large", large.toString() );
+		assertFalse( "Oldest entry should be evicted.", unused.containsKey( "small0" ) );
+		assertTrue( "Large entry should not be evicted.", unused.containsKey( "large" ) );
+		assertEquals( "Unexpected total weight.", 100L, unused.getTotalWeight() );
+
+		unused.remove( "large" );
+		assertEquals( "Unexpected total weight.", 40L, unused.getTotalWeight() );
+		unused.put( "small1", null );
+		assertEquals( "Unexpected total weight.", 30L, unused.getTotalWeight() );
+		unused.clear();
+		assertEquals( "Unexpected total weight.", 0L, unused.getTotalWeight() );
+	}
+
+	/**
+	 * Tests {@link Cache#getOrLoad} and {@link Cache#getStatistics()}.
+	 */
+	@Test
+	public void testGetOrLoad()
+	{
+		System.out.println( CLASS_NAME + ".testGetOrLoad" );
+
+		final List<FlexibleReference<?>> references = new ArrayList<FlexibleReference<?>>();
+		final Cache<Integer, String> cache = new Cache<Integer, String>( new Cache.DefaultCachingPolicy()
+		{
+			@Override
+			public void referenceUsed( final Cache<?, ?> cache, final FlexibleReference<?> reference )
+			{
+				references.add( reference );
+				super.referenceUsed( cache, reference );
+			}
+		} );
+		final int[] loads = { 0 };
+		final java.util.function.Function<Integer, String> loader = key ->
+		{
+			loads[ 0 ]++;
+			if ( key < 0 )
+			{
+				throw new IllegalArgumentException( "negative" );
+			}
+			return ( key == 0 ) ? null : "value" + key;
+		};
+
+		assertEquals( "Unexpected value.", "value1", cache.getOrLoad( 1, loader ) );
+		assertEquals( "Unexpected value.", "value1", cache.getOrLoad( 1, loader ) );
+		assertNull( "Unexpected value.", cache.getOrLoad( 0, loader ) );
+		assertNull( "Unexpected value.", cache.getOrLoad( 0, loader ) );
+		assertEquals( "Unexpected load count.", 2, loads[ 0 ] );
+
+		try
+		{
+			cache.getOrLoad( -1, loader );
+			fail( "Expected 'IllegalArgumentException'." );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			/* expected */
+		}
+		assertFalse( "Failed load should not be cached.", cache.containsKey( -1 ) );
+
+		final CacheStatistics statistics = cache.getStatistics();
+		assertEquals( "Unexpected hit count.", 2L, statistics.getHitCount() );
+		assertEquals( "Unexpected miss count.", 3L, statistics.getMissCount() );
+		assertEquals( "Unexpected request count.", 5L, statistics.getRequestCount() );
+		assertEquals( "Unexpected hit rate.", 0.4, statistics.getHitRate(), 0.0 );
+		assertEquals( "Unexpected load success count.", 2L, statistics.getLoadSuccessCount() );
+		assertEquals( "Unexpected load failure count.", 1L, statistics.getLoadFailureCount() );
+		assertTrue( "Unexpected average load penalty.", statistics.getAverageLoadPenalty() > 0.0 );
+		assertEquals( "Unexpected eviction count.", 0L, statistics.getEvictionCount() );
+	}
+
+	/**
+	 * Tests that {@link Cache#getOrLoad} reloads a value whose soft reference
+	 * was cleared by the garbage collector, but not yet enqueued.
+	 */
+	@Test
+	public void testGetOrLoadClearedReference()
+	{
+		System.out.println( CLASS_NAME + ".testGetOrLoadClearedReference" );
+
+		final List<FlexibleReference<?>> references = new ArrayList<FlexibleReference<?>>();
+		final Cache<Integer, String> cache = new Cache<Integer, String>( new Cache.DefaultCachingPolicy()
+		{
+			@Override
+			public void referenceUsed( final Cache<?, ?> cache, final FlexibleReference<?> reference )
+			{
+				references.add( reference );
+				super.referenceUsed( cache, reference );
+			}
+		} );
+		final int[] loads = { 0 };
+		final java.util.function.Function<Integer, String> loader = key ->
+		{
+			loads[ 0 ]++;
+			return "value" + key;
+		};
+
+		assertEquals( "Unexpected value.", "value1", cache.getOrLoad( 1, loader ) );
+		assertEquals( "Unexpected number of used references.", 1, references.size() );
+		/* Clear without enqueuing, like the garbage collector may do. */
+		final FlexibleReference<?> reference = references.get( 0 );
+		reference.soften();
+		reference.clear();
+		assertTrue( "Cleared entry should still be in the map.", cache.containsKey( 1 ) );
+		assertEquals( "Unexpected value.", "value1", cache.getOrLoad( 1, loader ) );
+		assertEquals( "Unexpected load count.", 2, loads[ 0 ] );
+		assertEquals( "Unexpected value.", "value1", cache.get( 1 ) );
+	}
+
 	/**
 	 * Tests the performance of the default caching policy.
 	 */
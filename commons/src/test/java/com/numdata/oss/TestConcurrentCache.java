@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Unit test for the {@link ConcurrentCache} class.
+ */
+public class TestConcurrentCache
+{
+	/**
+	 * Name of this class.
+	 */
+	private static final String CLASS_NAME = TestConcurrentCache.class.getName();
+
+	/**
+	 * Tests basic map operations.
+	 */
+	@Test
+	public void testMap()
+	{
+		System.out.println( CLASS_NAME + ".testMap" );
+
+		for ( final int concurrencyLevel : new int[] { 1, 3, 16 } )
+		{
+			final ConcurrentCache<Integer, String> cache = new ConcurrentCache<Integer, String>( concurrencyLevel );
+			assertTrue( "Cache should be empty.", cache.isEmpty() );
+
+			final Map<Integer, String> expected = new HashMap<Integer, String>();
+			for ( int i = 0; i < 100; i++ )
+			{
+				assertNull( "Unexpected previous value.", cache.put( i, "value" + i ) );
+				expected.put( i, "value" + i );
+			}
+			assertNull( "Unexpected previous value.", cache.put( null, null ) );
+			expected.put( null, null );
+
+			assertFalse( "Cache should not be empty.", cache.isEmpty() );
+			assertEquals( "Unexpected size.", 101, cache.size() );
+			assertEquals( "Unexpected contents.", expected, cache );
+			assertEquals( "Unexpected contents.", expected, new HashMap<Integer, String>( cache ) );
+			assertTrue( "Cache should contain null key.", cache.containsKey( null ) );
+			assertTrue( "Cache should contain value.", cache.containsValue( "value42" ) );
+
+			assertEquals( "Unexpected value.", "value1", cache.putIfAbsent( 1, "other" ) );
+			assertEquals( "Unexpected value.", "value1", cache.get( 1 ) );
+			assertNull( "Unexpected value.", cache.putIfAbsent( 1000, "value1000" ) );
+			assertEquals( "Unexpected value.", "value1000", cache.remove( 1000 ) );
+
+			for ( final Iterator<Map.Entry<Integer, String>> it = cache.entrySet().iterator(); it.hasNext(); )
+			{
+				final Map.Entry<Integer, String> entry = it.next();
+				final Integer key = entry.getKey();
+				if ( key == null )
+				{
+					it.remove();
+				}
+				else if ( key % 2 == 0 )
+				{
+					assertEquals( "Unexpected previous value.", "value" + key, entry.setValue( "even" + key ) );
+				}
+			}
+			assertFalse( "Cache should not contain null key.", cache.containsKey( null ) );
+			assertEquals( "Unexpected value.", "even10", cache.get( 10 ) );
+			assertEquals( "Unexpected value.", "value11", cache.get( 11 ) );
+
+			cache.clear();
+			assertTrue( "Cache should be empty.", cache.isEmpty() );
+		}
+	}
+
+	/**
+	 * Tests indices spanning multiple segments.
+	 */
+	@Test
+	public void testIndices()
+	{
+		System.out.println( CLASS_NAME + ".testIndices" );
+
+		final ConcurrentCache<Integer, String> cache = new ConcurrentCache<Integer, String>();
+		for ( int i = 0; i < 20; i++ )
+		{
+			cache.put( i, "value" + i );
+		}
+
+		final Cache.Attribute<String, String> identity = new Cache.Attribute<String, String>()
+		{
+			@Override
+			public String index( final String value )
+			{
+				return value;
+			}
+		};
+
+		final Cache.Attribute<String, Integer> length = new Cache.Attribute<String, Integer>()
+		{
+			@Override
+			public Integer index( final String value )
+			{
+				return value.length();
+			}
+		};
+
+		final Cache.OneToOneIndex<Integer, String, String> oneToOne = new Cache.OneToOneIndex<Integer, String, String>( identity );
+		final Cache.OneToManyIndex<Integer, String, Integer> oneToMany = new Cache.OneToManyIndex<Integer, String, Integer>( length );
+		cache.addIndex( oneToOne );
+		cache.addIndex( oneToMany );
+
+		assertEquals( "Unexpected key.", Integer.valueOf( 7 ), oneToOne.getKey( "value7" ) );
+		assertEquals( "Unexpected value.", "value7", oneToOne.get( cache, "value7" ) );
+		assertEquals( "Unexpected values.", 10, oneToMany.get( cache, 6 ).size() );
+
+		cache.put( 7, "changed" );
+		assertNull( "Index should be updated.", oneToOne.getKey( "value7" ) );
+		assertEquals( "Unexpected key.", Integer.valueOf( 7 ), oneToOne.getKey( "changed" ) );
+		assertEquals( "Unexpected values.", 9, oneToMany.get( cache, 6 ).size() );
+		assertEquals( "Unexpected values.", 11, oneToMany.get( cache, 7 ).size() );
+
+		assertEquals( "Unexpected removed value.", "value8", oneToOne.remove( cache, "value8" ) );
+		assertFalse( "Value should be removed.", cache.containsKey( 8 ) );
+
+		final List<String> removed = oneToMany.remove( cache, 6 );
+		assertEquals( "Unexpected removed values.", 8, removed.size() );
+		assertEquals( "Unexpected size.", 11, cache.size() );
+		assertNull( "Index should be updated.", oneToOne.getKey( "value1" ) );
+		assertTrue( "Index should be updated.", oneToMany.get( cache, 6 ).isEmpty() );
+
+		cache.removeIndex( oneToOne );
+		cache.put( 100, "value100" );
+		assertNull( "Index should be removed.", oneToOne.getKey( "value100" ) );
+		assertEquals( "Unexpected values.", 1, oneToMany.get( cache, 8 ).size() );
+	}
+
+	/**
+	 * Tests concurrent access to the cache.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testConcurrentAccess()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testConcurrentAccess" );
+
+		final ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<Integer, Integer>();
+		final Cache.OneToOneIndex<Integer, Integer, Integer> index = new Cache.OneToOneIndex<Integer, Integer, Integer>( new Cache.Attribute<Integer, Integer>()
+		{
+			@Override
+			public Integer index( final Integer value )
+			{
+				return -value;
+			}
+		} );
+		cache.addIndex( index );
+
+		final int threadCount = 8;
+		final int keyCount = 1000;
+		final ExecutorService executor = Executors.newFixedThreadPool( threadCount );
+		final AtomicInteger errors = new AtomicInteger();
+		try
+		{
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for ( int t = 0; t < threadCount; t++ )
+			{
+				final int seed = t;
+				futures.add( executor.submit( new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						final Random random = new Random( seed );
+						for ( int i = 0; i < 20000; i++ )
+						{
+							final int key = random.nextInt( keyCount );
+							if ( random.nextInt( 10 ) == 0 )
+							{
+								cache.put( key, key );
+							}
+							else if ( random.nextInt( 100 ) == 0 )
+							{
+								cache.remove( key );
+							}
+							else
+							{
+								final Integer value = cache.get( key );
+								if ( ( value != null ) && ( value != key ) )
+								{
+									errors.incrementAndGet();
+								}
+							}
+						}
+					}
+				} ) );
+			}
+
+			for ( final Future<?> future : futures )
+			{
+				future.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		assertEquals( "Unexpected values.", 0, errors.get() );
+
+		for ( final Map.Entry<Integer, Integer> entry : cache.entrySet() )
+		{
+			assertEquals( "Unexpected value.", entry.getKey(), entry.getValue() );
+			assertEquals( "Inconsistent index.", entry.getKey(), index.getKey( -entry.getValue() ) );
+		}
+	}
+
+	/**
+	 * Tests that {@link ConcurrentCache#getOrLoad} loads a value only once
+	 * when requested by multiple threads at the same time.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGetOrLoad()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testGetOrLoad" );
+
+		final List<FlexibleReference<?>> references = new CopyOnWriteArrayList<FlexibleReference<?>>();
+		final ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>( 1, () -> new Cache.DefaultCachingPolicy()
+		{
+			@Override
+			public void referenceUsed( final Cache<?, ?> cache, final FlexibleReference<?> reference )
+			{
+				references.add( reference );
+				super.referenceUsed( cache, reference );
+			}
+		} );
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch loading = new CountDownLatch( 1 );
+		final CountDownLatch release = new CountDownLatch( 1 );
+
+		final int threadCount = 4;
+		final ExecutorService executor = Executors.newFixedThreadPool( threadCount );
+		try
+		{
+			final List<Future<String>> futures = new ArrayList<Future<String>>();
+			for ( int i = 0; i < threadCount; i++ )
+			{
+				futures.add( executor.submit( () -> cache.getOrLoad( "key", key ->
+				{
+					loads.incrementAndGet();
+					loading.countDown();
+					try
+					{
+						release.await();
+					}
+					catch ( final InterruptedException e )
+					{
+						throw new IllegalStateException( e );
+					}
+					return "value";
+				} ) ) );
+			}
+
+			assertTrue( "Load should start.", loading.await( 10L, TimeUnit.SECONDS ) );
+			/* give other threads the opportunity to start a second load */
+			Thread.sleep( 100L );
+			release.countDown();
+
+			for ( final Future<String> future : futures )
+			{
+				assertEquals( "Unexpected value.", "value", future.get( 10L, TimeUnit.SECONDS ) );
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		assertEquals( "Value should be loaded once.", 1, loads.get() );
+		assertEquals( "Unexpected value.", "value", cache.getOrLoad( "key", key -> "other" ) );
+		assertNull( "Unexpected value.", cache.getOrLoad( null, key -> null ) );
+		assertTrue( "Null key should be cached.", cache.containsKey( null ) );
+
+		try
+		{
+			cache.getOrLoad( "failure", key ->
+			{
+				throw new IllegalArgumentException( key );
+			} );
+			fail( "Expected 'IllegalArgumentException'." );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			assertEquals( "Unexpected message.", "failure", e.getMessage() );
+		}
+
+		final CacheStatistics statistics = cache.getStatistics();
+		assertEquals( "Unexpected load success count.", 2L, statistics.getLoadSuccessCount() );
+		assertEquals( "Unexpected load failure count.", 1L, statistics.getLoadFailureCount() );
+		assertTrue( "Unexpected hit count.", statistics.getHitCount() >= 1L );
+		assertNotNull( "Missing string representation.", statistics.toString() );
+	}
+
+	/**
+	 * Tests that {@link ConcurrentCache#getOrLoad} reloads a value whose soft
+	 * reference was cleared by the garbage collector, but not yet enqueued.
+	 */
+	@Test
+	public void testGetOrLoadClearedReference()
+	{
+		System.out.println( CLASS_NAME + ".testGetOrLoadClearedReference" );
+
+		final List<FlexibleReference<?>> references = new CopyOnWriteArrayList<FlexibleReference<?>>();
+		final ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>( 1, () -> new Cache.DefaultCachingPolicy()
+		{
+			@Override
+			public void referenceUsed( final Cache<?, ?> cache, final FlexibleReference<?> reference )
+			{
+				references.add( reference );
+				super.referenceUsed( cache, reference );
+			}
+		} );
+		final AtomicInteger loads = new AtomicInteger();
+		final java.util.function.Function<String, String> loader = key ->
+		{
+			loads.incrementAndGet();
+			return key.toUpperCase();
+		};
+
+		assertEquals( "Unexpected value.", "KEY", cache.getOrLoad( "key", loader ) );
+		assertEquals( "Unexpected number of used references.", 1, references.size() );
+		/* Clear without enqueuing, like the garbage collector may do. */
+		final FlexibleReference<?> reference = references.get( 0 );
+		reference.soften();
+		reference.clear();
+		assertTrue( "Cleared entry should still be in the map.", cache.containsKey( "key" ) );
+		assertEquals( "Unexpected value.", "KEY", cache.getOrLoad( "key", loader ) );
+		assertEquals( "Unexpected load count.", 2, loads.get() );
+		assertEquals( "Unexpected value.", "KEY", cache.get( "key" ) );
+	}
+
+	/**
+	 * Tests a weight-bounded cache.
+	 */
+	@Test
+	public void testMaximumWeight()
+	{
+		System.out.println( CLASS_NAME + ".testMaximumWeight" );
+
+		final ConcurrentCache<Integer, int[]> cache = new ConcurrentCache<Integer, int[]>( 4 );
+		cache.setMaximumWeight( 4000L, new Cache.Weigher<Integer, int[]>()
+		{
+			@Override
+			public int weigh( final Integer key, final int[] value )
+			{
+				return value.length;
+			}
+		} );
+
+		for ( int i = 0; i < 1000; i++ )
+		{
+			cache.put( i, new int[ 100 ] );
+			assertTrue( "Maximum weight exceeded.", cache.getTotalWeight() <= 4000L );
+		}
+
+		assertTrue( "Entries should be evicted.", cache.size() <= 40 );
+		assertEquals( "Unexpected eviction count.", 1000L - cache.size(), cache.getStatistics().getEvictionCount() );
+	}
+}
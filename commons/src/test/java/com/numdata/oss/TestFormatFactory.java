@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2004-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss;
+
+import java.text.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Unit test for {@link FormatFactory}.
+ *
+ * @author Peter S. Heijnen
+ */
+public class TestFormatFactory
+{
+	/**
+	 * Name of this class.
+	 */
+	private static final String CLASS_NAME = TestFormatFactory.class.getName();
+
+	/**
+	 * Locales to test with.
+	 */
+	private static final Locale[] LOCALES = { Locale.US, new Locale( "nl", "NL" ), Locale.GERMANY, new Locale( "ar", "EG" ), new Locale( "fa", "IR" ), new Locale( "sv", "SE" ) };
+
+	/**
+	 * Tests that formats are independent clones with the requested options.
+	 */
+	@Test
+	public void testGetFormat()
+	{
+		final String where = CLASS_NAME + ".testGetFormat()";
+		System.out.println( where );
+
+		final NumberFormat format1 = FormatFactory.getNumberFormat( Locale.US, 1, 3, true );
+		final NumberFormat format2 = FormatFactory.getNumberFormat( Locale.US, 1, 3, true );
+		assertNotSame( "Formats should be independent.", format1, format2 );
+		assertEquals( "Unexpected result.", "1,234.568", format1.format( 1234.5675 ) );
+		assertEquals( "Unexpected result.", "0.5", format1.format( 0.5 ) );
+
+		format1.setMaximumFractionDigits( 1 );
+		assertEquals( "Modifying a format must not affect others.", "1,234.568", format2.format( 1234.5675 ) );
+
+		assertEquals( "Unexpected result.", "1235", FormatFactory.getNumberFormat( Locale.US, 0, 0, false ).format( 1234.5 ) );
+		assertEquals( "Unexpected result.", "1234.568", FormatFactory.getNumberFormat( Locale.US ).format( 1234.5675 ) );
+		assertEquals( "Unexpected result.", "13%", FormatFactory.getPercentFormat( Locale.US ).format( 0.125 ) );
+		assertEquals( "Unexpected result.", "\u20ac1.25", FormatFactory.getCurrencyFormat( Locale.US, "\u20ac" ).format( 1.245 ) );
+		assertEquals( "Unexpected result.", "$1.25", FormatFactory.getCurrencyFormat( Locale.US, Currency.getInstance( "USD" ) ).format( 1.245 ) );
+
+		try
+		{
+			FormatFactory.getNumberFormat( Locale.US, 2, 1, false );
+			fail( "Expected 'IllegalArgumentException'." );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			/* expected */
+		}
+
+		for ( final Locale locale : LOCALES )
+		{
+			final Date date = new Date( 1234567890123L );
+			assertEquals( "Unexpected date format for " + locale, DateFormat.getDateInstance( DateFormat.SHORT, locale ).format( date ), FormatFactory.getDateFormat( locale ).format( date ) );
+			assertEquals( "Unexpected date/time format for " + locale, DateFormat.getDateTimeInstance( DateFormat.SHORT, DateFormat.SHORT, locale ).format( date ), FormatFactory.getDateTimeFormat( locale ).format( date ) );
+			assertSame( "Formatter should be cached.", FormatFactory.getDateFormatter( locale ), FormatFactory.getDateFormatter( locale ) );
+			assertEquals( "Unexpected formatter locale.", locale, FormatFactory.getDateTimeFormatter( locale ).getLocale() );
+			assertNotNull( "Formatter should work.", FormatFactory.getDateTimeFormatter( locale ).format( LocalDateTime.of( 2020, 2, 29, 13, 45 ) ) );
+		}
+	}
+
+	/**
+	 * Tests {@link FormatFactory#formatTo(Appendable, long, Locale)}.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testFormatLong()
+	throws Exception
+	{
+		final String where = CLASS_NAME + ".testFormatLong()";
+		System.out.println( where );
+
+		final Random random = new Random( 1L );
+		final long[] specialValues = { 0L, 1L, -1L, 9L, 10L, -10L, 99L, 100L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1L };
+
+		for ( final Locale locale : LOCALES )
+		{
+			final NumberFormat expected = FormatFactory.getNumberFormat( locale, 0, 0, false );
+			final StringBuilder actual = new StringBuilder();
+
+			for ( int i = 0; i < 10000; i++ )
+			{
+				final long value = ( i < specialValues.length ) ? specialValues[ i ] : random.nextLong() >> random.nextInt( 64 );
+				actual.setLength( 0 );
+				FormatFactory.formatTo( actual, value, locale );
+				assertEquals( "Unexpected result for " + value + " in " + locale, expected.format( value ), actual.toString() );
+			}
+		}
+	}
+
+	/**
+	 * Tests {@link FormatFactory#formatTo(Appendable, double, int, Locale)}.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testFormatDouble()
+	throws Exception
+	{
+		final String where = CLASS_NAME + ".testFormatDouble()";
+		System.out.println( where );
+
+		final Random random = new Random( 2L );
+		final double[] specialValues = { 0.0, -0.0, 0.5, -0.5, 1.5, 2.5, 0.125, 1.005, 2.675, -0.001, 0.045, 1.0e-10, 5.0e-7, -5.0e-7, 2.5e-7, 1.5e-6, 123456.789, 9.995, 1.0e14, 1.0e20, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE };
+
+		for ( final Locale locale : LOCALES )
+		{
+			for ( int fractionDigits = 0; fractionDigits <= 17; fractionDigits++ )
+			{
+				final NumberFormat expected = FormatFactory.getNumberFormat( locale, fractionDigits, fractionDigits, false );
+				final StringBuilder actual = new StringBuilder();
+
+				for ( int i = 0; i < 2000; i++ )
+				{
+					final double value;
+					if ( i < specialValues.length )
+					{
+						value = specialValues[ i ];
+					}
+					else if ( i % 2 == 0 )
+					{
+						/* values near ties */
+						value = (double)( random.nextInt( 200001 ) - 100000 ) / 1000.0 + 0.0005;
+					}
+					else
+					{
+						value = ( random.nextDouble() - 0.5 ) * Math.pow( 10.0, (double)( random.nextInt( 16 ) - 4 ) );
+					}
+
+					actual.setLength( 0 );
+					FormatFactory.formatTo( actual, value, fractionDigits, locale );
+					assertEquals( "Unexpected result for " + value + " with " + fractionDigits + " fraction digits in " + locale, expected.format( value ), actual.toString() );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tests that date formats use the current default time zone, not the
+	 * default time zone at the time the format was first created.
+	 */
+	@Test
+	public void testDateFormatTimeZone()
+	{
+		final String where = CLASS_NAME + ".testDateFormatTimeZone()";
+		System.out.println( where );
+
+		final TimeZone defaultTimeZone = TimeZone.getDefault();
+		try
+		{
+			TimeZone.setDefault( TimeZone.getTimeZone( "UTC" ) );
+			assertEquals( "Unexpected time zone.", "UTC", FormatFactory.getDateFormat( Locale.US ).getTimeZone().getID() );
+			assertEquals( "Unexpected time zone.", "UTC", FormatFactory.getDateTimeFormat( Locale.US ).getTimeZone().getID() );
+
+			TimeZone.setDefault( TimeZone.getTimeZone( "Asia/Tokyo" ) );
+			assertEquals( "Unexpected time zone.", "Asia/Tokyo", FormatFactory.getDateFormat( Locale.US ).getTimeZone().getID() );
+			assertEquals( "Unexpected time zone.", "Asia/Tokyo", FormatFactory.getDateTimeFormat( Locale.US ).getTimeZone().getID() );
+		}
+		finally
+		{
+			TimeZone.setDefault( defaultTimeZone );
+		}
+	}
+}
@@ -140,4 +140,68 @@ public class TestHTMLTools
 		HTMLTools.writeHeading( out, 2, "Hello <HTML> world!", "This is \"my id\"" );
 		assertEquals( "Unexpected result.", "<h2 id=\"This is &quot;my id&quot;\">Hello &lt;HTML&gt; world!</h2>\n", out.toString() );
 	}
+
+	/**
+	 * Tests {@link HTMLTools#escapeCharacterData} and {@link
+	 * HTMLTools#escapeAttributeValue} methods for different types of
+	 * destination and source.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testEscape()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testEscape" );
+
+		final String[][] tests =
+		{
+			{ "", "", "" },
+			{ "plain text", "plain text", "plain text" },
+			{ "<", "&lt;", "&lt;" },
+			{ "a<b>c&d", "a&lt;b&gt;c&amp;d", "a&lt;b&gt;c&amp;d" },
+			{ "'single' and \"double\"", "'single' and \"double\"", "&#39;single&#39; and &quot;double&quot;" },
+			{ "<<&>>x", "&lt;&lt;&amp;&gt;&gt;x", "&lt;&lt;&amp;&gt;&gt;x" },
+		};
+
+		for ( final String[] test : tests )
+		{
+			final String source = test[ 0 ];
+			final String characterData = test[ 1 ];
+			final String attributeValue = test[ 2 ];
+
+			assertEquals( "Unexpected result for '" + source + "'", characterData, HTMLTools.escapeCharacterData( source ) );
+			assertEquals( "Unexpected result for '" + source + "'", attributeValue, HTMLTools.escapeAttributeValue( source ) );
+
+			for ( final CharSequence sourceSequence : new CharSequence[] { source, new StringBuilder( source ) } )
+			{
+				final StringWriter writer = new StringWriter();
+				HTMLTools.escapeCharacterData( writer, sourceSequence );
+				assertEquals( "Unexpected result for '" + source + "' to Writer", characterData, writer.toString() );
+
+				final StringWriter attributeWriter = new StringWriter();
+				HTMLTools.escapeAttributeValue( attributeWriter, sourceSequence );
+				assertEquals( "Unexpected result for '" + source + "' to Writer", attributeValue, attributeWriter.toString() );
+
+				final StringBuffer buffer = new StringBuffer();
+				HTMLTools.escapeCharacterData( buffer, sourceSequence );
+				assertEquals( "Unexpected result for '" + source + "' to StringBuffer", characterData, buffer.toString() );
+
+				final StringBuilder builder = new StringBuilder( "prefix:" );
+				HTMLTools.escapeAttributeValue( builder, sourceSequence );
+				assertEquals( "Unexpected result for '" + source + "' to StringBuilder", "prefix:" + attributeValue, builder.toString() );
+			}
+		}
+
+		final StringBuilder longSource = new StringBuilder();
+		final StringBuilder longExpected = new StringBuilder();
+		for ( int i = 0; i < 1000; i++ )
+		{
+			longSource.append( "text without special characters " ).append( i ).append( '&' );
+			longExpected.append( "text without special characters " ).append( i ).append( "&amp;" );
+		}
+		final StringWriter writer = new StringWriter();
+		HTMLTools.escapeCharacterData( writer, longSource );
+		assertEquals( "Unexpected result for long source", longExpected.toString(), writer.toString() );
+	}
 }
@@ -306,4 +306,38 @@ public class TestLinkedHashList
 		list.addAll( 6, Arrays.asList( "g", "h" ) );
 		assertEquals( Arrays.asList( "f", "a", "b", "d", "e", "c", "g", "h" ), list );
 	}
+
+	/**
+	 * Tests that elements can be removed after the hash table was resized,
+	 * including elements that shared a bucket with differently hashed
+	 * elements.
+	 */
+	@Test
+	public void testRemoveAfterResize()
+	{
+		System.out.println( CLASS_NAME + ".testRemoveAfterResize()" );
+		final LinkedHashList<Integer> list = new LinkedHashList<Integer>();
+
+		/* hash codes that are multiples of 16 share a bucket before resizing */
+		final int count = 1000;
+		for ( int i = 0; i < count; i++ )
+		{
+			list.add( i * 16 );
+		}
+		assertEquals( "Unexpected size", count, list.size() );
+
+		for ( int i = 0; i < count; i += 2 )
+		{
+			assertTrue( "Element " + i + " should be removed", list.remove( Integer.valueOf( i * 16 ) ) );
+		}
+		assertEquals( "Unexpected size", count / 2, list.size() );
+
+		int polled = 0;
+		while ( list.poll() != null )
+		{
+			polled++;
+		}
+		assertEquals( "Unexpected number of polled elements", count / 2, polled );
+		assertTrue( "List should be empty", list.isEmpty() );
+	}
 }
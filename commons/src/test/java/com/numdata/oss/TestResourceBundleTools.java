@@ -28,6 +28,7 @@ package com.numdata.oss;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static org.junit.Assert.*;
 import org.junit.*;
@@ -106,4 +107,65 @@ public class TestResourceBundleTools
 			assertEquals( "getString( '" + list[ i ] + "' ) vs. choices[" + ( j + 1 ) + ']', testBundle.getString( list[ i ] ), choices[ j + 1 ] );
 		}
 	}
+
+	/**
+	 * Tests {@link ResourceBundleTools#preloadBundleHierarchies} and
+	 * concurrent use of {@link ResourceBundleTools#getBundleHierarchy} and
+	 * {@link ResourceBundleTools#format(Locale, Class, String, Object...)}.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testConcurrentBundleHierarchy()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testConcurrentBundleHierarchy()" );
+
+		final Locale localeNL = new Locale( "nl" );
+		final Locale localeDE = new Locale( "de" );
+
+		ResourceBundleTools.clearCache();
+		ResourceBundleTools.preloadBundleHierarchies( Arrays.asList( ElapsedTimeFormatter.class, TestResourceBundleTools.class ), Arrays.asList( Locale.ROOT, localeNL, localeDE ) );
+
+		final ResourceBundle bundleNL = ResourceBundleTools.getBundleHierarchy( ElapsedTimeFormatter.class, localeNL );
+		assertEquals( "Unexpected message.", "2 dagen", ResourceBundleTools.format( localeNL, ElapsedTimeFormatter.class, "longDaysFormat", 2 ) );
+		assertEquals( "Unexpected message.", "1 day", ResourceBundleTools.format( Locale.ROOT, ElapsedTimeFormatter.class, "longDaysFormat", 1 ) );
+
+		final int threadCount = 8;
+		final ExecutorService executor = Executors.newFixedThreadPool( threadCount );
+		try
+		{
+			final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for ( int i = 0; i < threadCount; i++ )
+			{
+				results.add( executor.submit( () -> {
+					boolean result = true;
+					for ( int j = 0; j < 1000; j++ )
+					{
+						result &= ( ResourceBundleTools.getBundleHierarchy( ElapsedTimeFormatter.class, localeNL ) == bundleNL );
+						result &= ( j + " dagen" ).equals( ResourceBundleTools.format( localeNL, ElapsedTimeFormatter.class, "longDaysFormat", j ) ) || ( j < 2 );
+						try
+						{
+							ResourceBundleTools.getBundleHierarchy( TestResourceBundleTools.class, localeNL );
+							result = false;
+						}
+						catch ( final MissingResourceException e )
+						{
+							/* expected */
+						}
+					}
+					return result;
+				} ) );
+			}
+
+			for ( final Future<Boolean> result : results )
+			{
+				assertTrue( "Unexpected result from concurrent lookup.", result.get() );
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
 }
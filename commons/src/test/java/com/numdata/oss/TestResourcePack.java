@@ -115,6 +115,108 @@ public class TestResourcePack
 		}
 	}
 
+	/**
+	 * Tests write and read functionality of the indexed format provided by
+	 * {@link ResourcePack#writeIndexed(OutputStream)}, {@link
+	 * ResourcePack#read(InputStream)} and {@link ResourcePack#map(File)}.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testWriteIndexed()
+	throws Exception
+	{
+		final String where = CLASS_NAME + ".testWriteIndexed()";
+		System.out.println( where );
+
+		final Locale locale = new Locale( "", "", "" );
+		final Locale localeNL = new Locale( "nl", "", "" );
+		final Locale localeDE = new Locale( "de", "DE", "" );
+
+		final ResourcePack resourcePack = new ResourcePack();
+		resourcePack.insertBundleData( "first", new Locale[] { locale, localeNL, localeDE }, new String[][] {
+		{ "a", "one", "een", "eins" },
+		{ "b", "two", "twee", null },
+		{ "c", "three", null, "drei" },
+		} );
+		resourcePack.insertBundleData( "second", new Locale[] { locale, localeNL }, new String[][] {
+		{ "a", "one", "een" },
+		{ "d", "four", "vier" },
+		} );
+
+		final ByteArrayOutputStream legacyOut = new ByteArrayOutputStream();
+		resourcePack.write( legacyOut );
+
+		final ByteArrayOutputStream indexedOut = new ByteArrayOutputStream();
+		ResourcePack.read( new ByteArrayInputStream( legacyOut.toByteArray() ) ).writeIndexed( indexedOut );
+
+		final File file = File.createTempFile( "TestResourcePack", ".dat" );
+		try
+		{
+			final FileOutputStream fileOut = new FileOutputStream( file );
+			try
+			{
+				fileOut.write( indexedOut.toByteArray() );
+			}
+			finally
+			{
+				fileOut.close();
+			}
+
+			final ResourcePack[] actualPacks = {
+			ResourcePack.read( new ByteArrayInputStream( indexedOut.toByteArray() ) ),
+			ResourcePack.map( file )
+			};
+
+			for ( final ResourcePack actualPack : actualPacks )
+			{
+				assertTrue( "Different locales in resource pack.", Arrays.equals( resourcePack.getLocales(), actualPack.getLocales() ) );
+				assertTrue( "Different bundle names in resource pack.", Arrays.equals( new String[] { "first", "second" }, actualPack.getBundleNames() ) );
+
+				final ResourceBundle bundleNL = actualPack.getBundle( "first", localeNL );
+				assertEquals( "Unexpected value.", "een", bundleNL.getString( "a" ) );
+				assertEquals( "Unexpected value.", "twee", bundleNL.getString( "b" ) );
+				assertEquals( "Unexpected value.", "three", bundleNL.getString( "c" ) );
+
+				final ResourceBundle bundleDE = actualPack.getBundle( "first", localeDE );
+				assertEquals( "Unexpected value.", "eins", bundleDE.getString( "a" ) );
+				assertEquals( "Unexpected value.", "two", bundleDE.getString( "b" ) );
+				assertEquals( "Unexpected value.", "drei", bundleDE.getString( "c" ) );
+
+				final ResourceBundle secondDE = actualPack.getBundle( "second", localeDE );
+				assertEquals( "Unexpected value.", "four", secondDE.getString( "d" ) );
+
+				try
+				{
+					actualPack.getBundle( "third", localeNL );
+					fail( "Expected 'MissingResourceException'." );
+				}
+				catch ( final MissingResourceException e )
+				{
+					/* expected */
+				}
+
+				actualPack.renameBundle( "second", "renamed" );
+				actualPack.insertBundleData( "renamed", new Locale[] { localeNL }, new String[][] { { "e", "vijf" } } );
+				assertTrue( "Different bundle names in resource pack.", Arrays.equals( new String[] { "first", "renamed" }, actualPack.getBundleNames() ) );
+
+				final ResourceBundle renamedNL = actualPack.getBundle( "renamed", localeNL );
+				assertEquals( "Unexpected value.", "vier", renamedNL.getString( "d" ) );
+				assertEquals( "Unexpected value.", "vijf", renamedNL.getString( "e" ) );
+
+				final ByteArrayOutputStream out = new ByteArrayOutputStream();
+				actualPack.write( out );
+				final ResourcePack legacyPack = new ResourcePack( new DataInputStream( new GZIPInputStream( new ByteArrayInputStream( out.toByteArray() ) ) ) );
+				assertEquals( "Unexpected resource bundle contents.", ResourceBundleTools.getProperties( bundleDE ), ResourceBundleTools.getProperties( legacyPack.getBundle( "first", localeDE ) ) );
+			}
+		}
+		finally
+		{
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
 	/**
 	 * Creates a resource bundle.
 	 *
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2004-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.io;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test for {@link BufferPool} class.
+ *
+ * @author Peter S. Heijnen
+ */
+public class TestBufferPool
+{
+	/**
+	 * Name of this class.
+	 */
+	private static final String CLASS_NAME = TestBufferPool.class.getName();
+
+	/**
+	 * Tests that released buffers are reused.
+	 */
+	@Test
+	public void testReuse()
+	{
+		final String where = CLASS_NAME + ".testReuse()";
+		System.out.println( where );
+
+		BufferPool.clear();
+
+		final byte[] bytes = BufferPool.getByteBuffer();
+		assertTrue( "Buffer too small.", bytes.length >= BufferPool.BUFFER_SIZE );
+		BufferPool.release( bytes );
+		assertSame( "Buffer should be reused.", bytes, BufferPool.getByteBuffer() );
+
+		final char[] chars = BufferPool.getCharBuffer();
+		assertTrue( "Buffer too small.", chars.length >= BufferPool.BUFFER_SIZE );
+		BufferPool.release( chars );
+		assertSame( "Buffer should be reused.", chars, BufferPool.getCharBuffer() );
+
+		final byte[] small = BufferPool.getByteBuffer();
+		BufferPool.release( small );
+		final byte[] large = BufferPool.getByteBuffer( 2 * BufferPool.BUFFER_SIZE );
+		assertNotSame( "Buffer is too small to be reused.", small, large );
+		assertTrue( "Buffer too small.", large.length >= 2 * BufferPool.BUFFER_SIZE );
+
+		final byte[] huge = new byte[ BufferPool.MAXIMUM_POOLED_SIZE + 1 ];
+		BufferPool.release( huge );
+		assertNotSame( "Buffer should not be pooled.", huge, BufferPool.getByteBuffer( BufferPool.MAXIMUM_POOLED_SIZE ) );
+	}
+
+	/**
+	 * Tests that buffers can be released by another thread than the one that
+	 * acquired them, and that {@link BufferPool#clear()} empties the pool.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSharedPool()
+	throws Exception
+	{
+		final String where = CLASS_NAME + ".testSharedPool()";
+		System.out.println( where );
+
+		BufferPool.clear();
+
+		final byte[] buffer = BufferPool.getByteBuffer();
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			executor.submit( () -> BufferPool.release( buffer ) ).get();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		assertSame( "Buffer released by other thread should be reused.", buffer, BufferPool.getByteBuffer() );
+
+		BufferPool.release( buffer );
+		BufferPool.clear();
+		assertNotSame( "Pool should be empty.", buffer, BufferPool.getByteBuffer() );
+	}
+}
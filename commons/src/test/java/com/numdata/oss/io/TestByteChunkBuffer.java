@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2004-2020, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.io;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Test for {@link ByteChunkBuffer} class.
+ *
+ * @author Peter S. Heijnen
+ */
+public class TestByteChunkBuffer
+{
+	/**
+	 * Name of this class.
+	 */
+	private static final String CLASS_NAME = TestByteChunkBuffer.class.getName();
+
+	/**
+	 * Tests writing data that spans multiple chunks.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Test
+	public void testWrite()
+	throws IOException
+	{
+		final String where = CLASS_NAME + ".testWrite()";
+		System.out.println( where );
+
+		final byte[] data = new byte[ 10000 ];
+		new Random( 1L ).nextBytes( data );
+
+		final ByteChunkBuffer buffer = new ByteChunkBuffer( 100 );
+		assertEquals( "Unexpected size.", 0, buffer.size() );
+		assertEquals( "Unexpected length.", 0, buffer.toByteArray().length );
+
+		buffer.write( data[ 0 ] );
+		buffer.write( data, 1, 999 );
+		buffer.write( data, 1000, data.length - 1000 );
+		assertEquals( "Unexpected size.", data.length, buffer.size() );
+		assertArrayEquals( "Unexpected content.", data, buffer.toByteArray() );
+
+		final ByteBuffer byteBuffer = buffer.toByteBuffer();
+		assertEquals( "Unexpected remaining bytes.", (long)data.length, (long)byteBuffer.remaining() );
+		final byte[] fromBuffer = new byte[ data.length ];
+		byteBuffer.get( fromBuffer );
+		assertArrayEquals( "Unexpected content.", data, fromBuffer );
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		buffer.writeTo( out );
+		assertArrayEquals( "Unexpected content.", data, out.toByteArray() );
+
+		out.reset();
+		buffer.writeTo( Channels.newChannel( out ) );
+		assertArrayEquals( "Unexpected content.", data, out.toByteArray() );
+
+		buffer.reset();
+		assertEquals( "Unexpected size.", 0, buffer.size() );
+		assertEquals( "Unexpected length.", 0, buffer.toByteArray().length );
+	}
+
+	/**
+	 * Tests that content that exactly fits the first chunk is returned without
+	 * being copied.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Test
+	public void testExactFit()
+	throws IOException
+	{
+		final String where = CLASS_NAME + ".testExactFit()";
+		System.out.println( where );
+
+		final byte[] data = new byte[ 5000 ];
+		new Random( 2L ).nextBytes( data );
+
+		final ByteChunkBuffer buffer = new ByteChunkBuffer( data.length );
+		assertEquals( "Unexpected number of bytes read.", (long)data.length, buffer.readFrom( new ByteArrayInputStream( data ) ) );
+
+		final byte[] first = buffer.toByteArray();
+		assertArrayEquals( "Unexpected content.", data, first );
+		assertSame( "Content should not be copied.", first, buffer.toByteArray() );
+		assertSame( "Content should not be copied.", first, buffer.toByteBuffer().array() );
+
+		buffer.write( 42 );
+		final byte[] grown = buffer.toByteArray();
+		assertEquals( "Unexpected length.", (long)( data.length + 1 ), (long)grown.length );
+		assertEquals( "Unexpected last byte.", 42L, (long)grown[ data.length ] );
+	}
+
+	/**
+	 * Tests reading from streams and channels that deliver data in small
+	 * pieces.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Test
+	public void testReadFrom()
+	throws IOException
+	{
+		final String where = CLASS_NAME + ".testReadFrom()";
+		System.out.println( where );
+
+		final byte[] data = new byte[ 100000 ];
+		new Random( 3L ).nextBytes( data );
+
+		final InputStream trickling = new FilterInputStream( new ByteArrayInputStream( data ) )
+		{
+			@Override
+			public int read( final byte[] b, final int off, final int len )
+			throws IOException
+			{
+				return super.read( b, off, Math.min( len, 7 ) );
+			}
+		};
+
+		final ByteChunkBuffer buffer = new ByteChunkBuffer( 10 );
+		assertEquals( "Unexpected number of bytes read.", (long)data.length, buffer.readFrom( trickling ) );
+		assertArrayEquals( "Unexpected content.", data, buffer.toByteArray() );
+
+		buffer.reset();
+		assertEquals( "Unexpected number of bytes read.", (long)data.length, buffer.readFrom( Channels.newChannel( new ByteArrayInputStream( data ) ) ) );
+		assertArrayEquals( "Unexpected content.", data, buffer.toByteArray() );
+	}
+
+	/**
+	 * Tests that {@link ByteChunkBuffer#readFrom(ReadableByteChannel)} returns
+	 * when a non-blocking channel has no more data available.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Test
+	public void testReadFromNonBlocking()
+	throws IOException
+	{
+		final String where = CLASS_NAME + ".testReadFromNonBlocking()";
+		System.out.println( where );
+
+		final Pipe pipe = Pipe.open();
+		try
+		{
+			final Pipe.SourceChannel source = pipe.source();
+			source.configureBlocking( false );
+
+			final byte[] data = { 1, 2, 3, 4, 5 };
+			pipe.sink().write( ByteBuffer.wrap( data ) );
+
+			final ByteChunkBuffer buffer = new ByteChunkBuffer( 10 );
+			assertEquals( "Unexpected number of bytes read.", (long)data.length, buffer.readFrom( source ) );
+			assertArrayEquals( "Unexpected content.", data, buffer.toByteArray() );
+
+			assertEquals( "Unexpected number of bytes read.", 0L, buffer.readFrom( source ) );
+		}
+		finally
+		{
+			pipe.sink().close();
+			pipe.source().close();
+		}
+	}
+}
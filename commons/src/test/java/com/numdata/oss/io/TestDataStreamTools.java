@@ -543,4 +543,219 @@ public class TestDataStreamTools
 		//noinspection ResultOfMethodCallIgnored
 		file.delete();
 	}
+
+	/**
+	 * Tests {@link DataStreamTools#writeString} and {@link
+	 * DataStreamTools#readString} with strings that exceed the size of a
+	 * pooled buffer.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Test
+	public void readWriteLongString()
+	throws IOException
+	{
+		final String where = CLASS_NAME + ".readWriteLongString()";
+		System.out.println( where );
+
+		final StringBuilder sb = new StringBuilder();
+		final Random random = new Random( 42L );
+		for ( int i = 0; i < 3 * BufferPool.BUFFER_SIZE + 17; i++ )
+		{
+			sb.append( (char)random.nextInt( 0x10000 ) );
+		}
+		final String value = sb.toString();
+
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		DataStreamTools.writeString( os, value );
+		DataStreamTools.writeString( os, "" );
+		DataStreamTools.writeString( os, null );
+		DataStreamTools.writeString( os, "tail" );
+		assertEquals( "Unexpected number of bytes written.", 4 * 4 + 2 * value.length() + 2 * 4, os.size() );
+
+		final ByteArrayInputStream is = new ByteArrayInputStream( os.toByteArray() );
+		assertEquals( "Unexpected string.", value, DataStreamTools.readString( is ) );
+		assertEquals( "Unexpected string.", "", DataStreamTools.readString( is ) );
+		assertNull( "Unexpected string.", DataStreamTools.readString( is ) );
+		assertEquals( "Unexpected string.", "tail", DataStreamTools.readString( is ) );
+		assertEquals( "Unexpected data after strings.", -1, is.read() );
+	}
+
+	/**
+	 * Tests that {@link DataStreamTools#readByteArray(InputStream)} returns
+	 * the same content regardless of how reliable {@link
+	 * InputStream#available()} is.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Test
+	public void readByteArrayWithAvailable()
+	throws IOException
+	{
+		final String where = CLASS_NAME + ".readByteArrayWithAvailable()";
+		System.out.println( where );
+
+		final byte[] data = new byte[ 5000 ];
+		new Random( 1L ).nextBytes( data );
+
+		assertArrayEquals( "Unexpected content with exact available().", data, DataStreamTools.readByteArray( new ByteArrayInputStream( data ) ) );
+
+		final InputStream underestimating = new FilterInputStream( new ByteArrayInputStream( data ) )
+		{
+			@Override
+			public int available()
+			{
+				return 10;
+			}
+		};
+		assertArrayEquals( "Unexpected content with low available().", data, DataStreamTools.readByteArray( underestimating ) );
+	}
+
+	/**
+	 * Tests {@link DataStreamTools#transfer(InputStream, OutputStream)} with
+	 * file streams and with other streams.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Test
+	public void transfer()
+	throws IOException
+	{
+		final String where = CLASS_NAME + ".transfer()";
+		System.out.println( where );
+
+		final byte[] data = new byte[ 100000 ];
+		new Random( 2L ).nextBytes( data );
+
+		final File source = File.createTempFile( "TestDataStreamTools", ".bin" );
+		final File target = File.createTempFile( "TestDataStreamTools", ".bin" );
+		try
+		{
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			assertEquals( "Unexpected number of bytes transferred.", (long)data.length, DataStreamTools.transfer( new ByteArrayInputStream( data ), buffer ) );
+			assertArrayEquals( "Unexpected content.", data, buffer.toByteArray() );
+
+			final OutputStream os = new FileOutputStream( source );
+			try
+			{
+				os.write( data );
+			}
+			finally
+			{
+				os.close();
+			}
+
+			final FileInputStream is = new FileInputStream( source );
+			try
+			{
+				assertEquals( "Unexpected skip result.", 1000L, is.skip( 1000L ) );
+
+				final FileOutputStream fos = new FileOutputStream( target );
+				try
+				{
+					assertEquals( "Unexpected number of bytes transferred.", (long)( data.length - 1000 ), DataStreamTools.transfer( is, fos ) );
+				}
+				finally
+				{
+					fos.close();
+				}
+
+				assertEquals( "Stream should be at end of file.", -1, is.read() );
+			}
+			finally
+			{
+				is.close();
+			}
+
+			assertArrayEquals( "Unexpected content.", Arrays.copyOfRange( data, 1000, data.length ), DataStreamTools.readByteArray( target ) );
+		}
+		finally
+		{
+			//noinspection ResultOfMethodCallIgnored
+			source.delete();
+			//noinspection ResultOfMethodCallIgnored
+			target.delete();
+		}
+	}
+
+	/**
+	 * Tests {@link DataStreamTools#transfer(InputStream, OutputStream)} with
+	 * file streams for files that are not regular files, i.e. files whose
+	 * reported size is zero (like those in '/proc') and pipes, which are not
+	 * seekable. These tests only run where such files are available.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void transferSpecialFiles()
+	throws Exception
+	{
+		final String where = CLASS_NAME + ".transferSpecialFiles()";
+		System.out.println( where );
+
+		final File target = File.createTempFile( "TestDataStreamTools", ".bin" );
+		final File fifo = new File( target.getPath() + ".fifo" );
+		try
+		{
+			final File status = new File( "/proc/self/status" );
+			if ( status.exists() )
+			{
+				final long transferred;
+				try ( final FileInputStream is = new FileInputStream( status );
+				      final FileOutputStream fos = new FileOutputStream( target ) )
+				{
+					transferred = DataStreamTools.transfer( is, fos );
+				}
+
+				assertTrue( "Expected data from " + status, transferred > 0L );
+				assertEquals( "Unexpected target length.", transferred, target.length() );
+			}
+
+			boolean fifoCreated;
+			try
+			{
+				fifoCreated = ( new ProcessBuilder( "mkfifo", fifo.getPath() ).start().waitFor() == 0 );
+			}
+			catch ( final IOException ignored )
+			{
+				/* 'mkfifo' not available */
+				fifoCreated = false;
+			}
+
+			if ( fifoCreated )
+			{
+				final byte[] data = new byte[ 100000 ];
+				new Random( 3L ).nextBytes( data );
+
+				final Thread writer = new Thread( () ->
+				{
+					try ( final FileOutputStream out = new FileOutputStream( fifo ) )
+					{
+						out.write( data );
+					}
+					catch ( final IOException e )
+					{
+						throw new AssertionError( e );
+					}
+				} );
+				writer.start();
+
+				try ( final FileInputStream is = new FileInputStream( fifo );
+				      final FileOutputStream fos = new FileOutputStream( target ) )
+				{
+					DataStreamTools.pipe( fos, is );
+				}
+				writer.join();
+
+				assertArrayEquals( "Unexpected content.", data, DataStreamTools.readByteArray( target ) );
+			}
+		}
+		finally
+		{
+			//noinspection ResultOfMethodCallIgnored
+			fifo.delete();
+			//noinspection ResultOfMethodCallIgnored
+			target.delete();
+		}
+	}
 }
@@ -29,6 +29,7 @@ package com.numdata.oss.deployment;
 import java.io.*;
 import java.nio.charset.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 
 import com.numdata.oss.*;
@@ -58,6 +59,11 @@ public class BasicProgramFeatures
 	@NotNull
 	private final Map<String, Feature> _features = new HashMap<>();
 
+	/**
+	 * Unknown features for which a warning was given.
+	 */
+	private final Set<String> _unknownFeatures = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+
 	/**
 	 * Default user level.
 	 */
@@ -135,6 +141,20 @@ public class BasicProgramFeatures
 		return new BasicProgramFeatures( this, false );
 	}
 
+	/**
+	 * Creates an immutable snapshot of these program features, compiled for
+	 * fast feature checks from any number of threads. Use this for frequent
+	 * feature checks, e.g. on user interface and request handling paths, once
+	 * the program features are configured.
+	 *
+	 * @return Compiled program features.
+	 */
+	@NotNull
+	public CompiledProgramFeatures compile()
+	{
+		return new CompiledProgramFeatures( this, _unknownFeatureWarningsEnabled );
+	}
+
 	/**
 	 * Disable warning messages about requested but unknown features (on {@link
 	 * System#err}. These messages can be very useful when a new software
@@ -915,19 +935,12 @@ public class BasicProgramFeatures
 	@Nullable
 	Feature lookup( @NotNull final String name )
 	{
-		final Map<String, Feature> features = _features;
-		Feature result = features.get( name );
+		final Feature result = _features.get( name );
 
-		if ( result == null )
+		if ( ( result == null ) && _unknownFeatureWarningsEnabled && _unknownFeatures.add( name ) )
 		{
-			if ( _unknownFeatureWarningsEnabled && !features.containsKey( name ) )
-			{
-				//noinspection UseOfSystemOutOrSystemErr
-				System.err.println( "WARNING: Unknown feature '" + name + "' requested." );
-				features.put( name, null );
-			}
-
-			result = null;
+			//noinspection UseOfSystemOutOrSystemErr
+			System.err.println( "WARNING: Unknown feature '" + name + "' requested." );
 		}
 
 		return result;
@@ -0,0 +1,545 @@
+/*
+ * Copyright (c) 2010-2021, Unicon Creation BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.deployment;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.numdata.oss.deployment.ProgramFeatures.*;
+import org.jetbrains.annotations.*;
+
+/**
+ * Immutable snapshot of {@link BasicProgramFeatures}, compiled for fast
+ * feature checks. Each feature is assigned an integer id, and availability and
+ * writability are stored as a bit set for each {@link UserLevel}, so checking
+ * a feature is a single bit test. Enum sets are computed once per prefix and
+ * enum type.
+ *
+ * Instances are safe for use by multiple threads without locking. Changes to
+ * the program features after the snapshot was created are not reflected in
+ * the snapshot.
+ *
+ * @author Gerrit Meinders
+ * @see BasicProgramFeatures#compile()
+ */
+public final class CompiledProgramFeatures
+{
+	/**
+	 * Feature id returned by {@link #getFeatureId} for unknown features.
+	 */
+	public static final int UNKNOWN_FEATURE = -1;
+
+	/**
+	 * All user levels, indexed by ordinal.
+	 */
+	private static final UserLevel[] USER_LEVELS = UserLevel.values();
+
+	/**
+	 * Whether to warn (once) about unknown features.
+	 */
+	private final boolean _unknownFeatureWarningsEnabled;
+
+	/**
+	 * Feature ids, by feature name.
+	 */
+	@NotNull
+	private final Map<String, Integer> _featureIds;
+
+	/**
+	 * Bit sets of available features, indexed by user level ordinal.
+	 */
+	@NotNull
+	private final long[][] _available;
+
+	/**
+	 * Bit sets of writable features, indexed by user level ordinal.
+	 */
+	@NotNull
+	private final long[][] _writable;
+
+	/**
+	 * Default user level.
+	 */
+	@NotNull
+	private final UserLevel _defaultUserLevel;
+
+	/**
+	 * Extended user level.
+	 */
+	@NotNull
+	private final UserLevel _extendedUserLevel;
+
+	/**
+	 * Current user level.
+	 */
+	@NotNull
+	private final UserLevel _currentUserLevel;
+
+	/**
+	 * Highest of the default and extended user level.
+	 */
+	@NotNull
+	private final UserLevel _highestUserLevel;
+
+	/**
+	 * Unknown features for which a warning was given.
+	 */
+	private final Set<String> _unknownFeatures = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+
+	/**
+	 * Enum sets computed so far, by enum type and feature name prefix.
+	 */
+	private final ConcurrentMap<List<Object>, EnumSets<?>> _enumSets = new ConcurrentHashMap<>();
+
+	/**
+	 * Compiles the given program features.
+	 *
+	 * @param features                      Program features to compile.
+	 * @param unknownFeatureWarningsEnabled Whether to warn about unknown
+	 *                                      features.
+	 */
+	CompiledProgramFeatures( @NotNull final BasicProgramFeatures features, final boolean unknownFeatureWarningsEnabled )
+	{
+		_unknownFeatureWarningsEnabled = unknownFeatureWarningsEnabled;
+		_defaultUserLevel = features.getDefaultUserLevel();
+		_extendedUserLevel = features.getExtendedUserLevel();
+		_currentUserLevel = features.getCurrentUserLevel();
+		_highestUserLevel = UserLevel.highest( _defaultUserLevel, _extendedUserLevel );
+
+		final Map<String, BasicProgramFeatures.Feature> definitions = features.getFeatures();
+		final int words = ( definitions.size() + 63 ) >>> 6;
+		final long[][] available = new long[ USER_LEVELS.length ][ words ];
+		final long[][] writable = new long[ USER_LEVELS.length ][ words ];
+		final Map<String, Integer> featureIds = new HashMap<>( definitions.size() * 4 / 3 + 1 );
+
+		int id = 0;
+		for ( final Map.Entry<String, BasicProgramFeatures.Feature> entry : definitions.entrySet() )
+		{
+			final BasicProgramFeatures.Feature feature = entry.getValue();
+			final UserLevel availabilityLevel = ( feature != null ) ? feature.getAvailabilityLevel() : null;
+			final UserLevel writabilityLevel = ( feature != null ) ? feature.getWritabilityLevel() : null;
+
+			for ( final UserLevel level : USER_LEVELS )
+			{
+				if ( ( availabilityLevel == null ) || level.isAtLeast( availabilityLevel ) )
+				{
+					available[ level.ordinal() ][ id >>> 6 ] |= 1L << id;
+				}
+
+				if ( ( writabilityLevel == null ) || level.isAtLeast( writabilityLevel ) )
+				{
+					writable[ level.ordinal() ][ id >>> 6 ] |= 1L << id;
+				}
+			}
+
+			featureIds.put( entry.getKey(), id++ );
+		}
+
+		_featureIds = featureIds;
+		_available = available;
+		_writable = writable;
+	}
+
+	/**
+	 * Returns the id of the given feature, which may be used for even faster
+	 * feature checks.
+	 *
+	 * @param name Feature name.
+	 *
+	 * @return Feature id; {@link #UNKNOWN_FEATURE} if the feature is not
+	 * registered.
+	 */
+	public int getFeatureId( @NotNull final String name )
+	{
+		final Integer id = _featureIds.get( name );
+		final int result;
+		if ( id != null )
+		{
+			result = id;
+		}
+		else
+		{
+			if ( _unknownFeatureWarningsEnabled && _unknownFeatures.add( name ) )
+			{
+				//noinspection UseOfSystemOutOrSystemErr
+				System.err.println( "WARNING: Unknown feature '" + name + "' requested." );
+			}
+			result = UNKNOWN_FEATURE;
+		}
+		return result;
+	}
+
+	/**
+	 * Get default user level.
+	 *
+	 * @return Default user level.
+	 */
+	@NotNull
+	public UserLevel getDefaultUserLevel()
+	{
+		return _defaultUserLevel;
+	}
+
+	/**
+	 * Get extended user level.
+	 *
+	 * @return Extended user level.
+	 */
+	@NotNull
+	public UserLevel getExtendedUserLevel()
+	{
+		return _extendedUserLevel;
+	}
+
+	/**
+	 * Get current user level, i.e. the default or extended user level.
+	 *
+	 * @return Current user level.
+	 */
+	@NotNull
+	public UserLevel getCurrentUserLevel()
+	{
+		return _currentUserLevel;
+	}
+
+	/**
+	 * Tests the bit for the given feature in the given bit set.
+	 *
+	 * @param bits Bit set.
+	 * @param id   Feature id.
+	 *
+	 * @return {@code true} if the bit is set or the feature is unknown.
+	 */
+	private static boolean test( @NotNull final long[] bits, final int id )
+	{
+		return ( id < 0 ) || ( ( bits[ id >>> 6 ] & ( 1L << id ) ) != 0L );
+	}
+
+	/**
+	 * Check if the specified program feature is available at the specified
+	 * user level.
+	 *
+	 * @param name      Name of feature to check.
+	 * @param userLevel User level to check.
+	 *
+	 * @return {@code true} if the feature is available at the specified level.
+	 *
+	 * @see BasicProgramFeatures#isAvailableAtLevel
+	 */
+	public boolean isAvailableAtLevel( @NotNull final String name, @NotNull final UserLevel userLevel )
+	{
+		return isAvailableAtLevel( getFeatureId( name ), userLevel );
+	}
+
+	/**
+	 * Check if the specified program feature is available at the specified
+	 * user level.
+	 *
+	 * @param id        Id of feature to check.
+	 * @param userLevel User level to check.
+	 *
+	 * @return {@code true} if the feature is available at the specified level.
+	 *
+	 * @see #getFeatureId
+	 */
+	public boolean isAvailableAtLevel( final int id, @NotNull final UserLevel userLevel )
+	{
+		return test( _available[ userLevel.ordinal() ], id );
+	}
+
+	/**
+	 * Check if the specified program feature is available at all, i.e. at the
+	 * default or extended user level.
+	 *
+	 * @param name Name of feature to check.
+	 *
+	 * @return {@code true} if the feature is available at all.
+	 *
+	 * @see BasicProgramFeatures#isAvailableAtAll
+	 */
+	public boolean isAvailableAtAll( @NotNull final String name )
+	{
+		return isAvailableAtLevel( getFeatureId( name ), _highestUserLevel );
+	}
+
+	/**
+	 * Check if the specified program feature is currently available.
+	 *
+	 * @param name Name of feature to check.
+	 *
+	 * @return {@code true} if the feature is currently available.
+	 *
+	 * @see BasicProgramFeatures#isAvailableNow
+	 */
+	public boolean isAvailableNow( @NotNull final String name )
+	{
+		return isAvailableAtLevel( getFeatureId( name ), _currentUserLevel );
+	}
+
+	/**
+	 * Check if the specified program feature is currently available.
+	 *
+	 * @param id Id of feature to check.
+	 *
+	 * @return {@code true} if the feature is currently available.
+	 *
+	 * @see #getFeatureId
+	 */
+	public boolean isAvailableNow( final int id )
+	{
+		return isAvailableAtLevel( id, _currentUserLevel );
+	}
+
+	/**
+	 * Check if the specified program feature is writable at the specified user
+	 * level.
+	 *
+	 * @param name      Name of feature to check.
+	 * @param userLevel User level to check.
+	 *
+	 * @return {@code true} if the feature is writable at the specified level.
+	 *
+	 * @see BasicProgramFeatures#isWritableAtLevel
+	 */
+	public boolean isWritableAtLevel( @NotNull final String name, @NotNull final UserLevel userLevel )
+	{
+		return isWritableAtLevel( getFeatureId( name ), userLevel );
+	}
+
+	/**
+	 * Check if the specified program feature is writable at the specified user
+	 * level.
+	 *
+	 * @param id        Id of feature to check.
+	 * @param userLevel User level to check.
+	 *
+	 * @return {@code true} if the feature is writable at the specified level.
+	 *
+	 * @see #getFeatureId
+	 */
+	public boolean isWritableAtLevel( final int id, @NotNull final UserLevel userLevel )
+	{
+		return test( _writable[ userLevel.ordinal() ], id );
+	}
+
+	/**
+	 * Check if the specified program feature is writable at all, i.e. at the
+	 * default or extended user level.
+	 *
+	 * @param name Name of feature to check.
+	 *
+	 * @return {@code true} if the feature is writable at all.
+	 *
+	 * @see BasicProgramFeatures#isWritableAtAll
+	 */
+	public boolean isWritableAtAll( @NotNull final String name )
+	{
+		return isWritableAtLevel( getFeatureId( name ), _highestUserLevel );
+	}
+
+	/**
+	 * Check if the specified program feature is currently writable.
+	 *
+	 * @param name Name of feature to check.
+	 *
+	 * @return {@code true} if the feature is currently writable.
+	 *
+	 * @see BasicProgramFeatures#isWritableNow
+	 */
+	public boolean isWritableNow( @NotNull final String name )
+	{
+		return isWritableAtLevel( getFeatureId( name ), _currentUserLevel );
+	}
+
+	/**
+	 * Check if the specified program feature is currently writable.
+	 *
+	 * @param id Id of feature to check.
+	 *
+	 * @return {@code true} if the feature is currently writable.
+	 *
+	 * @see #getFeatureId
+	 */
+	public boolean isWritableNow( final int id )
+	{
+		return isWritableAtLevel( id, _currentUserLevel );
+	}
+
+	/**
+	 * Returns an enum set of elements that are {@link #isAvailableNow available
+	 * now}.
+	 *
+	 * @param name     Program feature name prefix.
+	 * @param enumType Enum type.
+	 * @param <T>      Enum type.
+	 *
+	 * @return Enum set of elements that are available now.
+	 *
+	 * @see BasicProgramFeatures#getAvailableNowEnumSet
+	 */
+	public <T extends Enum<T>> @NotNull EnumSet<T> getAvailableNowEnumSet( final @NotNull String name, final @NotNull Class<T> enumType )
+	{
+		return getEnumSets( name, enumType )._availableNow.clone();
+	}
+
+	/**
+	 * Returns an enum set of elements that are {@link #isAvailableAtAll
+	 * available at all}.
+	 *
+	 * @param name     Program feature name prefix.
+	 * @param enumType Enum type.
+	 * @param <T>      Enum type.
+	 *
+	 * @return Enum set of elements that are available at all.
+	 *
+	 * @see BasicProgramFeatures#getAvailableAtAllEnumSet
+	 */
+	public <T extends Enum<T>> @NotNull EnumSet<T> getAvailableAtAllEnumSet( final @NotNull String name, final @NotNull Class<T> enumType )
+	{
+		return getEnumSets( name, enumType )._availableAtAll.clone();
+	}
+
+	/**
+	 * Returns an enum set of elements that are {@link #isWritableNow writable
+	 * now}.
+	 *
+	 * @param name     Program feature name prefix.
+	 * @param enumType Enum type.
+	 * @param <T>      Enum type.
+	 *
+	 * @return Enum set of elements that are writable now.
+	 *
+	 * @see BasicProgramFeatures#getWritableNowEnumSet
+	 */
+	public <T extends Enum<T>> @NotNull EnumSet<T> getWritableNowEnumSet( final @NotNull String name, final @NotNull Class<T> enumType )
+	{
+		return getEnumSets( name, enumType )._writableNow.clone();
+	}
+
+	/**
+	 * Returns an enum set of elements that are {@link #isWritableAtAll writable
+	 * at all}.
+	 *
+	 * @param name     Program feature name prefix.
+	 * @param enumType Enum type.
+	 * @param <T>      Enum type.
+	 *
+	 * @return Enum set of elements that are writable at all.
+	 *
+	 * @see BasicProgramFeatures#getWritableAtAllEnumSet
+	 */
+	public <T extends Enum<T>> @NotNull EnumSet<T> getWritableAtAllEnumSet( final @NotNull String name, final @NotNull Class<T> enumType )
+	{
+		return getEnumSets( name, enumType )._writableAtAll.clone();
+	}
+
+	/**
+	 * Returns the enum sets for the given feature name prefix and enum type,
+	 * computing them if needed.
+	 *
+	 * @param name     Program feature name prefix.
+	 * @param enumType Enum type.
+	 * @param <T>      Enum type.
+	 *
+	 * @return Enum sets.
+	 */
+	@NotNull
+	private <T extends Enum<T>> EnumSets<T> getEnumSets( final @NotNull String name, final @NotNull Class<T> enumType )
+	{
+		//noinspection unchecked
+		return (EnumSets<T>)_enumSets.computeIfAbsent( Arrays.asList( enumType, name ), key -> new EnumSets<>( name, enumType ) );
+	}
+
+	/**
+	 * Enum sets for a feature name prefix and enum type.
+	 *
+	 * @param <T> Enum type.
+	 */
+	private final class EnumSets<T extends Enum<T>>
+	{
+		/**
+		 * Elements that are available now.
+		 */
+		final EnumSet<T> _availableNow;
+
+		/**
+		 * Elements that are available at all.
+		 */
+		final EnumSet<T> _availableAtAll;
+
+		/**
+		 * Elements that are writable now.
+		 */
+		final EnumSet<T> _writableNow;
+
+		/**
+		 * Elements that are writable at all.
+		 */
+		final EnumSet<T> _writableAtAll;
+
+		/**
+		 * Computes the enum sets. Program feature names are created by
+		 * concatenating the {@code name} parameter, a period (".") and the name
+		 * of each enum constant.
+		 *
+		 * @param name     Program feature name prefix.
+		 * @param enumType Enum type.
+		 */
+		EnumSets( final @NotNull String name, final @NotNull Class<T> enumType )
+		{
+			_availableNow = EnumSet.noneOf( enumType );
+			_availableAtAll = EnumSet.noneOf( enumType );
+			_writableNow = EnumSet.noneOf( enumType );
+			_writableAtAll = EnumSet.noneOf( enumType );
+
+			for ( final T element : enumType.getEnumConstants() )
+			{
+				final int id = getFeatureId( name + '.' + element );
+
+				if ( isAvailableAtLevel( id, _currentUserLevel ) )
+				{
+					_availableNow.add( element );
+				}
+
+				if ( isAvailableAtLevel( id, _highestUserLevel ) )
+				{
+					_availableAtAll.add( element );
+				}
+
+				if ( isWritableAtLevel( id, _currentUserLevel ) )
+				{
+					_writableNow.add( element );
+				}
+
+				if ( isWritableAtLevel( id, _highestUserLevel ) )
+				{
+					_writableAtAll.add( element );
+				}
+			}
+		}
+	}
+}
@@ -330,4 +330,62 @@ public class TestBasicProgramFeatures
 		assertEquals( "Unexpected 'writable at all' set", EnumSet.of( ALWAYS, OBSERVER, NOVICE, BEGINNER, NORMAL, ADVANCED ),
 		              features.getWritableAtAllEnumSet( "set1", ProgramFeatures.UserLevel.class ) );
 	}
+
+	@Test
+	public void testCompile()
+	{
+		final BasicProgramFeatures features = new BasicProgramFeatures();
+		features.disableUnknownFeatureWarnings();
+		for ( final UserLevel level : UserLevel.values() )
+		{
+			features.setFeature( "set1." + level, level, UserLevel.highest( level, ( level == NEVER ) ? NEVER : UserLevel.values()[ level.ordinal() + 1 ] ) );
+		}
+		for ( int i = 0; i < 100; i++ )
+		{
+			features.setFeature( "feature" + i, UserLevel.values()[ i % UserLevel.values().length ], UserLevel.values()[ ( i / 3 ) % UserLevel.values().length ] );
+		}
+		features.setResource( "resourceOnly", "key", "value" );
+
+		for ( final boolean extended : new boolean[] { false, true } )
+		{
+			features.setDefaultUserLevel( NORMAL );
+			features.setExtendedUserLevel( EXPERT );
+			features.setExtendedUserLevelEnabled( extended );
+
+			final CompiledProgramFeatures compiled = features.compile();
+			assertEquals( "Unexpected current user level", features.getCurrentUserLevel(), compiled.getCurrentUserLevel() );
+
+			final List<String> names = new ArrayList<>( features.getFeatures().keySet() );
+			names.add( "unknown" );
+			for ( final String name : names )
+			{
+				for ( final UserLevel level : UserLevel.values() )
+				{
+					assertEquals( "isAvailableAtLevel( " + name + ", " + level + " )", features.isAvailableAtLevel( name, level ), compiled.isAvailableAtLevel( name, level ) );
+					assertEquals( "isWritableAtLevel( " + name + ", " + level + " )", features.isWritableAtLevel( name, level ), compiled.isWritableAtLevel( name, level ) );
+				}
+
+				assertEquals( "isAvailableNow( " + name + " )", features.isAvailableNow( name ), compiled.isAvailableNow( name ) );
+				assertEquals( "isAvailableAtAll( " + name + " )", features.isAvailableAtAll( name ), compiled.isAvailableAtAll( name ) );
+				assertEquals( "isWritableNow( " + name + " )", features.isWritableNow( name ), compiled.isWritableNow( name ) );
+				assertEquals( "isWritableAtAll( " + name + " )", features.isWritableAtAll( name ), compiled.isWritableAtAll( name ) );
+				assertEquals( "isAvailableNow( id of " + name + " )", features.isAvailableNow( name ), compiled.isAvailableNow( compiled.getFeatureId( name ) ) );
+			}
+
+			assertEquals( "Unexpected id for unknown feature", CompiledProgramFeatures.UNKNOWN_FEATURE, compiled.getFeatureId( "unknown" ) );
+
+			for ( final String prefix : Arrays.asList( "set1", "unknown" ) )
+			{
+				assertEquals( "Unexpected 'available now' set", features.getAvailableNowEnumSet( prefix, UserLevel.class ), compiled.getAvailableNowEnumSet( prefix, UserLevel.class ) );
+				assertEquals( "Unexpected 'available at all' set", features.getAvailableAtAllEnumSet( prefix, UserLevel.class ), compiled.getAvailableAtAllEnumSet( prefix, UserLevel.class ) );
+				assertEquals( "Unexpected 'writable now' set", features.getWritableNowEnumSet( prefix, UserLevel.class ), compiled.getWritableNowEnumSet( prefix, UserLevel.class ) );
+				assertEquals( "Unexpected 'writable at all' set", features.getWritableAtAllEnumSet( prefix, UserLevel.class ), compiled.getWritableAtAllEnumSet( prefix, UserLevel.class ) );
+			}
+
+			compiled.getAvailableNowEnumSet( "set1", UserLevel.class ).clear();
+			assertEquals( "Enum set should not be shared", features.getAvailableNowEnumSet( "set1", UserLevel.class ), compiled.getAvailableNowEnumSet( "set1", UserLevel.class ) );
+		}
+
+		assertFalse( "Unknown features should not be added", features.getFeatures().containsKey( "unknown" ) );
+	}
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.email;
+
+/**
+ * Snapshot of statistics collected by {@link BulkMailer}.
+ */
+public final class BulkMailStatistics
+{
+	/**
+	 * Number of messages sent successfully.
+	 */
+	private final long _sentCount;
+
+	/**
+	 * Number of messages that could not be sent.
+	 */
+	private final long _failedCount;
+
+	/**
+	 * Number of retried attempts.
+	 */
+	private final long _retryCount;
+
+	/**
+	 * Number of recipients rejected by the server.
+	 */
+	private final long _rejectedRecipientCount;
+
+	/**
+	 * Number of connections opened.
+	 */
+	private final long _connectionCount;
+
+	/**
+	 * Number of message bytes sent.
+	 */
+	private final long _byteCount;
+
+	/**
+	 * Time from the first send until the last completed send, in nanoseconds.
+	 */
+	private final long _elapsedTime;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param sentCount              Number of messages sent successfully.
+	 * @param failedCount            Number of messages that could not be sent.
+	 * @param retryCount             Number of retried attempts.
+	 * @param rejectedRecipientCount Number of recipients rejected.
+	 * @param connectionCount        Number of connections opened.
+	 * @param byteCount              Number of message bytes sent.
+	 * @param elapsedTime            Elapsed time in nanoseconds.
+	 */
+	BulkMailStatistics( final long sentCount, final long failedCount, final long retryCount, final long rejectedRecipientCount, final long connectionCount, final long byteCount, final long elapsedTime )
+	{
+		_sentCount = sentCount;
+		_failedCount = failedCount;
+		_retryCount = retryCount;
+		_rejectedRecipientCount = rejectedRecipientCount;
+		_connectionCount = connectionCount;
+		_byteCount = byteCount;
+		_elapsedTime = elapsedTime;
+	}
+
+	/**
+	 * Returns the number of messages sent successfully.
+	 *
+	 * @return Number of messages sent.
+	 */
+	public long getSentCount()
+	{
+		return _sentCount;
+	}
+
+	/**
+	 * Returns the number of messages that could not be sent.
+	 *
+	 * @return Number of failed messages.
+	 */
+	public long getFailedCount()
+	{
+		return _failedCount;
+	}
+
+	/**
+	 * Returns the number of attempts that were retries of a failed attempt.
+	 *
+	 * @return Number of retries.
+	 */
+	public long getRetryCount()
+	{
+		return _retryCount;
+	}
+
+	/**
+	 * Returns the number of recipients that were rejected by the server for
+	 * messages that were otherwise sent successfully.
+	 *
+	 * @return Number of rejected recipients.
+	 */
+	public long getRejectedRecipientCount()
+	{
+		return _rejectedRecipientCount;
+	}
+
+	/**
+	 * Returns the number of connections that were opened.
+	 *
+	 * @return Number of connections.
+	 */
+	public long getConnectionCount()
+	{
+		return _connectionCount;
+	}
+
+	/**
+	 * Returns the number of message bytes sent successfully.
+	 *
+	 * @return Number of bytes.
+	 */
+	public long getByteCount()
+	{
+		return _byteCount;
+	}
+
+	/**
+	 * Returns the time from the first send until the last completed send.
+	 *
+	 * @return Elapsed time in nanoseconds.
+	 */
+	public long getElapsedTime()
+	{
+		return _elapsedTime;
+	}
+
+	/**
+	 * Returns the number of messages (sent or failed) handled per second.
+	 *
+	 * @return Messages per second; {@code 0.0} if no time has elapsed.
+	 */
+	public double getMessagesPerSecond()
+	{
+		return ( _elapsedTime > 0 ) ? (double)( _sentCount + _failedCount ) * 1.0e9 / (double)_elapsedTime : 0.0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "BulkMailStatistics[sent=" + _sentCount + ", failed=" + _failedCount + ", retries=" + _retryCount + ", rejectedRecipients=" + _rejectedRecipientCount + ", connections=" + _connectionCount + ", bytes=" + _byteCount + ", messagesPerSecond=" + getMessagesPerSecond() + ']';
+	}
+}
@@ -0,0 +1,726 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.email;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.mail.*;
+import javax.mail.internet.*;
+
+import com.numdata.oss.*;
+import com.numdata.oss.log.*;
+import org.jetbrains.annotations.*;
+
+/**
+ * Sends large numbers of e-mail messages over a small pool of persistent SMTP
+ * connections. Messages can be sent synchronously using {@link #send}, or
+ * asynchronously using {@link #submit}, in which case they are sent by a
+ * worker thread per connection. Commands are pipelined if the server supports
+ * it (see {@link SmtpConnection}).
+ *
+ * Attempts that fail with an I/O error or a transient (4xx) reply are retried
+ * with exponential back-off. Statistics are available from {@link
+ * #getStatistics()}.
+ *
+ * Example:
+ * <pre>
+ * try ( final BulkMailer mailer = new BulkMailer( emailSettings, 4 ) )
+ * {
+ *     for ( final EMail email : emails )
+ *     {
+ *         mailer.submit( email );
+ *     }
+ * }
+ * </pre>
+ */
+public class BulkMailer
+implements Closeable
+{
+	/**
+	 * Log used for messages related to this class.
+	 */
+	private static final ClassLogger LOG = ClassLogger.getFor( BulkMailer.class );
+
+	/**
+	 * Host name of the SMTP server.
+	 */
+	@NotNull
+	private final String _host;
+
+	/**
+	 * Port of the SMTP server.
+	 */
+	private final int _port;
+
+	/**
+	 * Whether to use SSL/TLS.
+	 */
+	private final boolean _ssl;
+
+	/**
+	 * User name to authenticate with; {@code null} to not authenticate.
+	 */
+	@Nullable
+	private final String _user;
+
+	/**
+	 * Password to authenticate with.
+	 */
+	@Nullable
+	private final String _password;
+
+	/**
+	 * Limits the number of open connections.
+	 */
+	@NotNull
+	private final Semaphore _connectionPermits;
+
+	/**
+	 * Idle connections, most recently used first.
+	 */
+	@NotNull
+	private final BlockingDeque<SmtpConnection> _idleConnections = new LinkedBlockingDeque<SmtpConnection>();
+
+	/**
+	 * Worker threads for {@link #submit}.
+	 */
+	@NotNull
+	private final ExecutorService _executor;
+
+	/**
+	 * Name of the local host, sent in 'EHLO'/'HELO'.
+	 */
+	@NotNull
+	private String _heloName = "localhost";
+
+	/**
+	 * Connect and read timeout in milliseconds.
+	 */
+	private int _timeout = 30000;
+
+	/**
+	 * Maximum number of messages sent over a single connection.
+	 */
+	private int _maximumMessagesPerConnection = 100;
+
+	/**
+	 * Maximum time in milliseconds that a connection may be idle before it is
+	 * reused.
+	 */
+	private long _maximumIdleTime = 30000L;
+
+	/**
+	 * Maximum number of attempts to send a message.
+	 */
+	private int _maximumAttempts = 3;
+
+	/**
+	 * Delay in milliseconds before the first retry. Doubled for each next
+	 * retry.
+	 */
+	private long _retryDelay = 1000L;
+
+	/**
+	 * Maximum delay in milliseconds between retries.
+	 */
+	private long _maximumRetryDelay = 60000L;
+
+	/**
+	 * Set when the mailer is closed.
+	 */
+	private volatile boolean _closed = false;
+
+	/**
+	 * Number of messages sent successfully.
+	 */
+	private final AtomicLong _sentCount = new AtomicLong();
+
+	/**
+	 * Number of messages that could not be sent.
+	 */
+	private final AtomicLong _failedCount = new AtomicLong();
+
+	/**
+	 * Number of retried attempts.
+	 */
+	private final AtomicLong _retryCount = new AtomicLong();
+
+	/**
+	 * Number of recipients rejected by the server.
+	 */
+	private final AtomicLong _rejectedRecipientCount = new AtomicLong();
+
+	/**
+	 * Number of connections opened.
+	 */
+	private final AtomicLong _connectionCount = new AtomicLong();
+
+	/**
+	 * Number of message bytes sent.
+	 */
+	private final AtomicLong _byteCount = new AtomicLong();
+
+	/**
+	 * Time of the first send, from {@link System#nanoTime()}; {@code 0} if
+	 * nothing was sent yet.
+	 */
+	private final AtomicLong _firstSendTime = new AtomicLong();
+
+	/**
+	 * Time when the last send was completed, from {@link System#nanoTime()}.
+	 */
+	private final AtomicLong _lastCompletionTime = new AtomicLong();
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param emailSettings      Settings for the SMTP server. The 'smtps'
+	 *                           protocol uses SSL/TLS.
+	 * @param maximumConnections Maximum number of connections, which is also
+	 *                           the number of worker threads.
+	 */
+	public BulkMailer( @NotNull final EmailSettings emailSettings, final int maximumConnections )
+	{
+		this( emailSettings.getHost(), emailSettings.getPort(), "smtps".equalsIgnoreCase( emailSettings.getProtocol() ), emailSettings.getUser(), emailSettings.getPassword(), maximumConnections );
+	}
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param host               Host name of the SMTP server.
+	 * @param port               Port of the SMTP server; {@code 0} for the
+	 *                           default port.
+	 * @param ssl                Whether to use SSL/TLS.
+	 * @param user               User name; {@code null} or empty to not
+	 *                           authenticate.
+	 * @param password           Password.
+	 * @param maximumConnections Maximum number of connections, which is also
+	 *                           the number of worker threads.
+	 */
+	public BulkMailer( @NotNull final String host, final int port, final boolean ssl, @Nullable final String user, @Nullable final String password, final int maximumConnections )
+	{
+		if ( maximumConnections < 1 )
+		{
+			throw new IllegalArgumentException( "maximumConnections: " + maximumConnections );
+		}
+
+		_host = host;
+		_port = ( port > 0 ) ? port : ssl ? 465 : 25;
+		_ssl = ssl;
+		_user = TextTools.isEmpty( user ) ? null : user;
+		_password = password;
+		_connectionPermits = new Semaphore( maximumConnections );
+
+		final DefaultThreadFactory threadFactory = new DefaultThreadFactory();
+		threadFactory.setNamePrefix( BulkMailer.class.getSimpleName() );
+		threadFactory.setDaemon( true );
+		_executor = Executors.newFixedThreadPool( maximumConnections, threadFactory );
+	}
+
+	/**
+	 * Sets the name of the local host, sent in 'EHLO'/'HELO'.
+	 *
+	 * @param heloName Name of the local host.
+	 */
+	public void setHeloName( @NotNull final String heloName )
+	{
+		_heloName = heloName;
+	}
+
+	/**
+	 * Sets the connect and read timeout.
+	 *
+	 * @param timeout Timeout in milliseconds.
+	 */
+	public void setTimeout( final int timeout )
+	{
+		_timeout = timeout;
+	}
+
+	/**
+	 * Sets the maximum number of messages sent over a single connection,
+	 * after which a new connection is opened. Many servers limit this.
+	 *
+	 * @param maximumMessagesPerConnection Maximum number of messages.
+	 */
+	public void setMaximumMessagesPerConnection( final int maximumMessagesPerConnection )
+	{
+		_maximumMessagesPerConnection = maximumMessagesPerConnection;
+	}
+
+	/**
+	 * Sets the maximum time that a connection may be idle before it is reused.
+	 * Connections that were idle for longer are closed, since the server is
+	 * likely to have closed them.
+	 *
+	 * @param maximumIdleTime Maximum idle time in milliseconds.
+	 */
+	public void setMaximumIdleTime( final long maximumIdleTime )
+	{
+		_maximumIdleTime = maximumIdleTime;
+	}
+
+	/**
+	 * Sets the maximum number of attempts to send a message.
+	 *
+	 * @param maximumAttempts Maximum number of attempts.
+	 */
+	public void setMaximumAttempts( final int maximumAttempts )
+	{
+		_maximumAttempts = maximumAttempts;
+	}
+
+	/**
+	 * Sets the delays between attempts to send a message. The delay is doubled
+	 * after each attempt, up to the given maximum.
+	 *
+	 * @param retryDelay        Delay before the first retry, in milliseconds.
+	 * @param maximumRetryDelay Maximum delay, in milliseconds.
+	 */
+	public void setRetryDelay( final long retryDelay, final long maximumRetryDelay )
+	{
+		_retryDelay = retryDelay;
+		_maximumRetryDelay = maximumRetryDelay;
+	}
+
+	/**
+	 * Sends an e-mail message, retrying if needed.
+	 *
+	 * @param email E-mail message.
+	 *
+	 * @return Result.
+	 */
+	@NotNull
+	public Result send( @NotNull final EMail email )
+	{
+		return send( SmtpMessage.create( email ) );
+	}
+
+	/**
+	 * Sends a MIME message, retrying if needed.
+	 *
+	 * @param message MIME message.
+	 *
+	 * @return Result.
+	 *
+	 * @throws MessagingException if the message is invalid.
+	 * @throws IOException if the message content can't be written.
+	 */
+	@NotNull
+	public Result send( @NotNull final MimeMessage message )
+	throws MessagingException, IOException
+	{
+		return send( SmtpMessage.create( message ) );
+	}
+
+	/**
+	 * Sends a message, retrying if needed.
+	 *
+	 * @param message Message to send.
+	 *
+	 * @return Result.
+	 */
+	@NotNull
+	public Result send( @NotNull final SmtpMessage message )
+	{
+		_firstSendTime.compareAndSet( 0L, System.nanoTime() );
+
+		boolean success = false;
+		int attempt = 0;
+		List<String> rejected = Collections.emptyList();
+		Exception failure = null;
+
+		while ( !success && ( attempt < _maximumAttempts ) )
+		{
+			try
+			{
+				if ( attempt > 0 )
+				{
+					_retryCount.incrementAndGet();
+					Thread.sleep( Math.min( _maximumRetryDelay, _retryDelay << Math.min( attempt - 1, 30 ) ) );
+				}
+				attempt++;
+
+				final SmtpConnection connection = acquireConnection();
+				try
+				{
+					rejected = connection.send( message );
+					success = true;
+				}
+				finally
+				{
+					releaseConnection( connection );
+				}
+			}
+			catch ( final SmtpException e )
+			{
+				LOG.debug( "Attempt " + attempt + " to send " + message + " failed", e );
+				failure = e;
+				if ( !e.isTransient() )
+				{
+					break;
+				}
+			}
+			catch ( final IOException e )
+			{
+				LOG.debug( "Attempt " + attempt + " to send " + message + " failed", e );
+				failure = e;
+			}
+			catch ( final InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+				failure = e;
+				break;
+			}
+		}
+
+		if ( success )
+		{
+			_sentCount.incrementAndGet();
+			_byteCount.addAndGet( (long)message.getData().length );
+			_rejectedRecipientCount.addAndGet( (long)rejected.size() );
+		}
+		else
+		{
+			_failedCount.incrementAndGet();
+			LOG.warn( "Failed to send " + message + " after " + attempt + " attempt(s)", failure );
+		}
+		_lastCompletionTime.set( System.nanoTime() );
+
+		return new Result( message, success, attempt, rejected, success ? null : failure );
+	}
+
+	/**
+	 * Submits an e-mail message to be sent by a worker thread.
+	 *
+	 * @param email E-mail message.
+	 *
+	 * @return Future result.
+	 */
+	@NotNull
+	public Future<Result> submit( @NotNull final EMail email )
+	{
+		return submit( SmtpMessage.create( email ) );
+	}
+
+	/**
+	 * Submits a message to be sent by a worker thread.
+	 *
+	 * @param message Message to send.
+	 *
+	 * @return Future result.
+	 *
+	 * @throws RejectedExecutionException if the mailer is closed.
+	 */
+	@NotNull
+	public Future<Result> submit( @NotNull final SmtpMessage message )
+	{
+		return _executor.submit( () -> send( message ) );
+	}
+
+	/**
+	 * Sends the given messages using the worker threads, and waits until all
+	 * messages are handled.
+	 *
+	 * @param messages Messages to send.
+	 *
+	 * @return Results, in the same order as the messages.
+	 *
+	 * @throws InterruptedException if the current thread is interrupted.
+	 */
+	@NotNull
+	public List<Result> sendAll( @NotNull final Collection<SmtpMessage> messages )
+	throws InterruptedException
+	{
+		final List<Future<Result>> futures = new ArrayList<Future<Result>>( messages.size() );
+		for ( final SmtpMessage message : messages )
+		{
+			futures.add( submit( message ) );
+		}
+
+		final List<Result> result = new ArrayList<Result>( futures.size() );
+		for ( final Future<Result> future : futures )
+		{
+			try
+			{
+				result.add( future.get() );
+			}
+			catch ( final ExecutionException e )
+			{
+				throw new RuntimeException( e.getCause() );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a snapshot of the statistics of this mailer.
+	 *
+	 * @return Statistics.
+	 */
+	@NotNull
+	public BulkMailStatistics getStatistics()
+	{
+		final long firstSendTime = _firstSendTime.get();
+		final long elapsedTime = ( firstSendTime != 0L ) ? Math.max( 0L, _lastCompletionTime.get() - firstSendTime ) : 0L;
+		return new BulkMailStatistics( _sentCount.get(), _failedCount.get(), _retryCount.get(), _rejectedRecipientCount.get(), _connectionCount.get(), _byteCount.get(), elapsedTime );
+	}
+
+	/**
+	 * Waits until all submitted messages are handled, then closes all
+	 * connections.
+	 */
+	@Override
+	public void close()
+	{
+		_closed = true;
+		_executor.shutdown();
+		try
+		{
+			while ( !_executor.awaitTermination( 1L, TimeUnit.MINUTES ) )
+			{
+				LOG.debug( "Waiting for submitted messages to be sent" );
+			}
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			_executor.shutdownNow();
+		}
+		closeIdleConnections();
+	}
+
+	/**
+	 * Gets a connection from the pool, or opens a new connection. This blocks
+	 * while the maximum number of connections are in use.
+	 *
+	 * @return Connection.
+	 *
+	 * @throws IOException if a connection could not be opened.
+	 * @throws InterruptedException if the current thread is interrupted.
+	 */
+	@NotNull
+	private SmtpConnection acquireConnection()
+	throws IOException, InterruptedException
+	{
+		_connectionPermits.acquire();
+		try
+		{
+			final long now = System.currentTimeMillis();
+
+			SmtpConnection connection;
+			while ( ( connection = _idleConnections.pollFirst() ) != null )
+			{
+				if ( connection.isUsable() && ( now - connection.getLastUsed() < _maximumIdleTime ) )
+				{
+					return connection;
+				}
+				connection.close();
+			}
+
+			connection = SmtpConnection.open( _host, _port, _ssl, _heloName, _timeout );
+			_connectionCount.incrementAndGet();
+
+			final String user = _user;
+			if ( user != null )
+			{
+				try
+				{
+					connection.authenticate( user, ( _password != null ) ? _password : "" );
+				}
+				catch ( final IOException e )
+				{
+					connection.close();
+					throw e;
+				}
+			}
+
+			return connection;
+		}
+		catch ( final IOException | RuntimeException e )
+		{
+			_connectionPermits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns a connection to the pool. The connection is closed if it can't
+	 * be reused.
+	 *
+	 * @param connection Connection to release.
+	 */
+	private void releaseConnection( @NotNull final SmtpConnection connection )
+	{
+		try
+		{
+			if ( connection.isUsable() && ( connection.getMessageCount() < _maximumMessagesPerConnection ) && !_closed )
+			{
+				_idleConnections.offerFirst( connection );
+				if ( _closed )
+				{
+					closeIdleConnections();
+				}
+			}
+			else
+			{
+				connection.close();
+			}
+		}
+		finally
+		{
+			_connectionPermits.release();
+		}
+	}
+
+	/**
+	 * Closes all idle connections.
+	 */
+	private void closeIdleConnections()
+	{
+		SmtpConnection connection;
+		while ( ( connection = _idleConnections.pollFirst() ) != null )
+		{
+			connection.close();
+		}
+	}
+
+	/**
+	 * Result of sending a message.
+	 */
+	public static final class Result
+	{
+		/**
+		 * Message that was sent.
+		 */
+		@NotNull
+		private final SmtpMessage _message;
+
+		/**
+		 * Whether the message was sent successfully.
+		 */
+		private final boolean _successful;
+
+		/**
+		 * Number of attempts.
+		 */
+		private final int _attempts;
+
+		/**
+		 * Recipients rejected by the server.
+		 */
+		@NotNull
+		private final List<String> _rejectedRecipients;
+
+		/**
+		 * Cause of failure.
+		 */
+		@Nullable
+		private final Exception _exception;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param message            Message that was sent.
+		 * @param successful         Whether the message was sent successfully.
+		 * @param attempts           Number of attempts.
+		 * @param rejectedRecipients Recipients rejected by the server.
+		 * @param exception          Cause of failure.
+		 */
+		Result( @NotNull final SmtpMessage message, final boolean successful, final int attempts, @NotNull final List<String> rejectedRecipients, @Nullable final Exception exception )
+		{
+			_message = message;
+			_successful = successful;
+			_attempts = attempts;
+			_rejectedRecipients = rejectedRecipients;
+			_exception = exception;
+		}
+
+		/**
+		 * Returns the message that was sent.
+		 *
+		 * @return Message.
+		 */
+		@NotNull
+		public SmtpMessage getMessage()
+		{
+			return _message;
+		}
+
+		/**
+		 * Returns whether the message was sent successfully, i.e. it was
+		 * accepted by the server for at least one recipient.
+		 *
+		 * @return {@code true} if the message was sent.
+		 */
+		public boolean isSuccessful()
+		{
+			return _successful;
+		}
+
+		/**
+		 * Returns the number of attempts made to send the message.
+		 *
+		 * @return Number of attempts.
+		 */
+		public int getAttempts()
+		{
+			return _attempts;
+		}
+
+		/**
+		 * Returns the recipients that were rejected by the server, although
+		 * the message was sent to other recipients.
+		 *
+		 * @return Rejected recipients.
+		 */
+		@NotNull
+		public List<String> getRejectedRecipients()
+		{
+			return _rejectedRecipients;
+		}
+
+		/**
+		 * Returns the cause of failure.
+		 *
+		 * @return Cause of failure; {@code null} if the message was sent.
+		 */
+		@Nullable
+		public Exception getException()
+		{
+			return _exception;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Result[message=" + _message + ", successful=" + _successful + ", attempts=" + _attempts + ", rejectedRecipients=" + _rejectedRecipients + ", exception=" + _exception + ']';
+		}
+	}
+}
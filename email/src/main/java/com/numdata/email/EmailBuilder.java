@@ -143,6 +143,24 @@ public class EmailBuilder
 		Transport.send( createMessage( session ) );
 	}
 
+	/**
+	 * Send message using a bulk mailer, which reuses connections to the SMTP
+	 * server. The email settings of this builder are not used.
+	 *
+	 * @param mailer Bulk mailer to use.
+	 *
+	 * @return Result.
+	 *
+	 * @throws MessagingException if there was a problem composing the message.
+	 * @throws IOException if the message content can't be written.
+	 */
+	@NotNull
+	public BulkMailer.Result send( @NotNull final BulkMailer mailer )
+	throws MessagingException, IOException
+	{
+		return mailer.send( createMessage() );
+	}
+
 	/**
 	 * Create message.
 	 *
@@ -26,12 +26,14 @@
  */
 package com.numdata.email;
 
-import java.lang.reflect.*;
+import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import com.numdata.oss.*;
 import com.numdata.oss.log.*;
+import org.jetbrains.annotations.*;
 
 /**
  * This E-mail generator reads an E-mail template to construct an E-mail
@@ -67,6 +69,9 @@ import com.numdata.oss.log.*;
  *
  * </dl>
  *
+ * Templates are parsed once and cached. The template source is checked for
+ * modifications at most once per {@link #setCheckInterval check interval}.
+ *
  * @author Peter S. Heijnen
  */
 public final class EmailGenerator
@@ -81,6 +86,16 @@ public final class EmailGenerator
 	 */
 	private final URL _templateBaseURL;
 
+	/**
+	 * Parsed templates by code.
+	 */
+	private final ConcurrentMap<String, CachedTemplate> _templates = new ConcurrentHashMap<String, CachedTemplate>();
+
+	/**
+	 * Minimum time in milliseconds between checks for modified templates.
+	 */
+	private long _checkInterval = 5000L;
+
 	/**
 	 * Construct E-mail generator for the specified base URL.
 	 *
@@ -91,6 +106,26 @@ public final class EmailGenerator
 		_templateBaseURL = templateBaseURL;
 	}
 
+	/**
+	 * Sets the minimum time between checks whether a cached template was
+	 * modified. Use {@code 0} to check on every use, or {@link Long#MAX_VALUE}
+	 * to never check.
+	 *
+	 * @param checkInterval Check interval in milliseconds.
+	 */
+	public void setCheckInterval( final long checkInterval )
+	{
+		_checkInterval = checkInterval;
+	}
+
+	/**
+	 * Removes all parsed templates from the cache.
+	 */
+	public void clearTemplateCache()
+	{
+		_templates.clear();
+	}
+
 	/**
 	 * Send an E-mail message from a specified template using the specified tag
 	 * objects to fill in tag values that may occur in the template.
@@ -124,6 +159,41 @@ public final class EmailGenerator
 		return LOG.exiting( "sendEmail", result );
 	}
 
+	/**
+	 * Send an E-mail message from a specified template using the specified tag
+	 * objects to fill in tag values that may occur in the template. The
+	 * message is sent using the given bulk mailer, which reuses connections
+	 * to the SMTP server.
+	 *
+	 * @param code       Template code (normally a filename).
+	 * @param tagObjects Values for tag objects to fill in tag values.
+	 * @param mailer     Bulk mailer to send the message with.
+	 *
+	 * @return {@code true} if E-mail was sent successfully; {@code false} if
+	 * there was a problem reading the template or sending the E-mail message.
+	 */
+	public boolean send( final String code, final Map<String, Object> tagObjects, @NotNull final BulkMailer mailer )
+	{
+		final boolean result;
+
+		final EMail email = generate( code, tagObjects );
+		if ( email == null )
+		{
+			result = false;
+			LOG.error( "Sending E-mail template '" + code + "' failed (Template not found)" );
+		}
+		else
+		{
+			result = mailer.send( email ).isSuccessful();
+			if ( !result )
+			{
+				LOG.error( "Sending E-mail template '" + code + "' failed (SMTP error)" );
+			}
+		}
+
+		return result;
+	}
+
 	/**
 	 * Generate an E-mail message from a specified template using the specified
 	 * tag objects to fill in tag values that may occur in the template.
@@ -141,9 +211,7 @@ public final class EmailGenerator
 
 		try
 		{
-			final URL url = new URL( _templateBaseURL, code );
-
-			final String template = TextTools.loadText( url );
+			final EmailTemplate template = getTemplate( code );
 			if ( template != null )
 			{
 				final Map<String, Object> combinedTagObjects = new HashMap<String, Object>( 2 );
@@ -153,7 +221,7 @@ public final class EmailGenerator
 					combinedTagObjects.putAll( tagObjects );
 				}
 
-				result = generate( TextTools.tokenize( template, '\n' ), combinedTagObjects );
+				result = template.generate( combinedTagObjects );
 			}
 		}
 		catch ( MalformedURLException notRelative )
@@ -165,432 +233,134 @@ public final class EmailGenerator
 	}
 
 	/**
-	 * Generate an E-mail message from a specified template using the specified
-	 * tag objects to fill in tag values that may occur in the template.
+	 * Returns the parsed template with the given code. The template is loaded
+	 * and parsed if it is not cached yet, or if it was modified.
 	 *
-	 * @param template   Template text as array of string lines (no newlines
-	 *                   allowed).
-	 * @param tagObjects Values for tag objects to fill in tag values.
+	 * @param code Template code (normally a filename).
+	 *
+	 * @return Parsed template; {@code null} if the template could not be read.
 	 *
-	 * @return EMail message resulting from template text.
+	 * @throws MalformedURLException if the code is not a valid relative path.
 	 */
-	private static EMail generate( final String[] template, final Map<String, Object> tagObjects )
+	@Nullable
+	private EmailTemplate getTemplate( final String code )
+	throws MalformedURLException
 	{
-		final EMail email = new EMail();
-		final StringBuffer contentBuffer = new StringBuffer();
+		final long now = System.currentTimeMillis();
 
-		boolean inHeader = false;
-		String inContent = null;
-
-		for ( final String line : template )
+		CachedTemplate cached = _templates.get( code );
+		if ( ( cached != null ) && ( now - cached._lastChecked >= _checkInterval ) )
 		{
-			/*
-			 * Handle block identifiers.
-			 */
-			final String id = getBlockIdentifier( line );
-			if ( id != null )
-			{
-				boolean idFound = false;
-				final String content = inContent;
-
-				if ( "HEADER".equalsIgnoreCase( id ) )
-				{
-					inHeader = true;
-					inContent = null;
-					continue;
-				}
-
-				if ( id.regionMatches( true, 0, "CONTENT:", 0, 8 ) )
-				{
-					idFound = true;
-					inHeader = false;
-					inContent = String.valueOf( TextTools.getTrimmedSubsequence( id, 8, id.length() ) );
-				}
-
-				/*
-				 * If a block identifier was found, write out the previous content block.
-				 * Continue with next line.
-				 */
-				if ( idFound )
-				{
-					addEMailPart( email, content, contentBuffer.toString() );
-					contentBuffer.setLength( 0 );
-					continue;
-				}
-			}
-
-			/*
-			 * If the line contains data, use to set a E-mail header, or append
-			 * the line to the current content block. Anything that doesn't fit in
-			 * will be silently ignored.
-			 */
-			if ( inHeader )
+			final long lastModified = getLastModified( cached._url );
+			if ( ( lastModified == 0L ) || ( lastModified != cached._lastModified ) )
 			{
-				setEMailHeader( email, tagObjects, line );
+				cached = null;
 			}
 			else
 			{
-				appendTaggedString( contentBuffer, tagObjects, line );
-				contentBuffer.append( '\n' );
+				cached._lastChecked = now;
 			}
 		}
 
-		addEMailPart( email, inContent, contentBuffer.toString() );
-		return email;
-	}
-
-	/**
-	 * Add email part to message.
-	 *
-	 * @param email   EMail message to add the part to.
-	 * @param content Content type / subtype.
-	 * @param data    Message part data.
-	 */
-	private static void addEMailPart( final EMail email, final String content, final String data )
-	{
-		if ( ( email != null ) && ( content != null ) && ( data != null ) && !data.isEmpty() )
+		if ( cached == null )
 		{
-			final EMailPart part = new EMailPart( data );
-
-			final int i = content.indexOf( (int)'/' );
-			if ( i > 0 )
-			{
-				part.contentType = TextTools.getTrimmedSubstring( content, 0, i );
-				part.contentSubType = TextTools.getTrimmedSubstring( content, i + 1, content.length() );
-			}
-
-			email.addPart( part );
-		}
-	}
-
-	/**
-	 * This method is called by {@link #appendTaggedString} to add a single tag
-	 * to the destination buffer. There is no guarantee that the tag is valid.
-	 *
-	 * A tag comes in the format '{object name}[.{field name}]' (the field name
-	 * is optional). The object name is used to find a value object in the
-	 * collection of tag objects passed to this method. If a field name is set,
-	 * that field must be a public field of the object. If the object is not
-	 * found, the tag itself will be appended to the destination buffer.
-	 *
-	 * @param dest       Destination buffer for text with tags replaced.
-	 * @param tagObjects Tag objects to fill in tag values.
-	 * @param tag        Source string (with tags).
-	 */
-	private static void appendTag( final StringBuffer dest, final Map<String, Object> tagObjects, final String tag )
-	{
-		/*
-		 * Ignore any obviously illegal requests.
-		 */
-		if ( ( tagObjects != null ) && ( tag != null ) && !tag.isEmpty() && ( dest != null ) )
-		{
-			/*
-			 * Parse tag into object and field name.
-			 */
-			final int i = tag.indexOf( (int)'.' );
-			final String objectName = ( i > 0 ) ? tag.substring( 0, i ) : tag;
-			final String fieldName = ( i > 0 ) ? tag.substring( i + 1 ) : null;
-
-			/*
-			 * Find the named object and if a field name was specified, try to get its
-			 * value from the object.
-			 */
-			final Object target = tagObjects.get( objectName );
-			Object value = null;
-
-			if ( target != null )
-			{
-				if ( fieldName != null )
-				{
-					try
-					{
-						final Class<?> targetClass = target.getClass();
-
-						final Field field = targetClass.getField( fieldName );
-						value = field.get( target );
-						if ( value == null )
-						{
-							value = "null";
-						}
-					}
-					catch ( Exception e )
-					{
-						/* ignore reflection errors, use target as value */
-					}
-				}
-				else
-				{
-					value = target;
-				}
-			}
-
-			/*
-			 * If a value was found, append it; if not, add the tag to the destination buffer.
-			 */
-			if ( value != null )
+			final URL url = new URL( _templateBaseURL, code );
+			final long lastModified = getLastModified( url );
+			final String text = TextTools.loadText( url );
+			if ( text != null )
 			{
-				dest.append( value );
+				cached = new CachedTemplate( url, new EmailTemplate( TextTools.tokenize( text, '\n' ) ), lastModified, now );
+				_templates.put( code, cached );
 			}
 			else
 			{
-				dest.append( '[' );
-				dest.append( tag );
-				dest.append( ']' );
+				_templates.remove( code );
 			}
 		}
+
+		return ( cached != null ) ? cached._template : null;
 	}
 
 	/**
-	 * This method takes a source line and appends it to the specified
-	 * destination buffer while replacing special template tags in the source
-	 * string.
+	 * Returns the last modification time of the resource at the given URL.
 	 *
-	 * Each line in the template is fed through this method to replace any tags
-	 * inside. A tag is recognized by some text between square brackets. A
-	 * square bracket in the text may be escaped using a backslash (\).
+	 * @param url URL of the resource.
 	 *
-	 * @param dest       Destination buffer for text with tags replaced.
-	 * @param tagObjects Tag objects to fill in tag values.
-	 * @param source     Source string (with tags).
+	 * @return Last modification time; {@code 0} if unknown.
 	 */
-	private static void appendTaggedString( final StringBuffer dest, final Map<String, Object> tagObjects, final String source )
+	private static long getLastModified( @NotNull final URL url )
 	{
-		final int length = source.length();
-
-		int pos = 0;
-		while ( pos < length )
+		long result = 0L;
+		try
 		{
-			final char c = source.charAt( pos++ );
-
-			/*
-			 * Handle normal and escaped (using backslash) characters.
-			 */
-			if ( c == '\\' && pos < length )
+			if ( "file".equals( url.getProtocol() ) )
 			{
-				dest.append( source.charAt( pos++ ) );
-				continue;
+				result = new File( url.toURI() ).lastModified();
 			}
-
-			if ( c != '[' )
-			{
-				dest.append( c );
-				continue;
-			}
-
-			/*
-			 * Handle '[' (possible start of tag)
-			 */
-			StringBuffer tag = null;
-			final int oldPos = pos;
-
-			while ( true )
+			else
 			{
-				final int end = source.indexOf( (int)']', pos );
-				if ( end >= pos )
+				final URLConnection connection = url.openConnection();
+				if ( connection instanceof HttpURLConnection )
 				{
-					if ( tag == null )
-					{
-						tag = new StringBuffer( end - pos );
-					}
-
-					if ( end > pos )
-					{
-						if ( source.charAt( end - 1 ) == '\\' )
-						{
-							tag.append( source.substring( pos, end - 1 ) );
-							tag.append( ']' );
-							pos = end + 1;
-							continue;
-						}
-
-						tag.append( source.substring( pos, end ) );
-						pos = end + 1;
-					}
+					final HttpURLConnection httpConnection = (HttpURLConnection)connection;
+					httpConnection.setRequestMethod( "HEAD" );
+					result = httpConnection.getLastModified();
+					httpConnection.disconnect();
+				}
+				else
+				{
+					result = connection.getLastModified();
 				}
-				break;
-			}
-
-			if ( tag != null )
-			{
-				final String tagValue = tag.toString();
-				appendTag( dest, tagObjects, tagValue.trim() );
-			}
-			else
-			{
-				pos = oldPos;
-				dest.append( c );
 			}
 		}
+		catch ( final IOException | URISyntaxException | IllegalArgumentException e )
+		{
+			LOG.debug( "Failed to get last modification time of " + url, e );
+		}
+		return result;
 	}
 
 	/**
-	 * Get a so-called 'block identifier' from the specified template line. A
-	 * block identifier is a strings between square brackets as single content
-	 * of a line e.g. '[Header]'. If the line matches the criteria, the string
-	 * between brackets is returned (with leading and trailing whitespace
-	 * removed).
-	 *
-	 * @param line Template line to test.
-	 *
-	 * @return Block identifier string; {@code null} if the line did not match
-	 * the criteria for a block identifier.
+	 * Parsed template in the cache.
 	 */
-	private static String getBlockIdentifier( final String line )
+	private static class CachedTemplate
 	{
-		final int length = line.length();
-
-		/*
-		 * Find starting '[' (must be first non-whitespace character of a line.
-		 */
-		int start = 0;
-		while ( true )
-		{
-			if ( start == length )
-			{
-				return null;
-			}
-
-			final char c = line.charAt( start++ );
-
-			if ( c == '[' )
-			{
-				break;
-			}
-
-			if ( !Character.isWhitespace( c ) )
-			{
-				return null;
-			}
-		}
-
-		/*
-		 * Ignore whitespace after '['.
+		/**
+		 * URL of the template.
 		 */
-		while ( Character.isWhitespace( line.charAt( start ) ) )
-		{
-			start++;
-		}
+		@NotNull
+		private final URL _url;
 
-		/*
-		 * Find ending ']' (must be the last non-whitespace character of a line).
+		/**
+		 * Parsed template.
 		 */
-		int end = length - 1;
-		while ( true )
-		{
-			if ( end <= start )
-			{
-				return null;
-			}
-
-			final char c = line.charAt( end-- );
-
-			if ( c == ']' )
-			{
-				break;
-			}
+		@NotNull
+		private final EmailTemplate _template;
 
-			if ( !Character.isWhitespace( c ) )
-			{
-				return null;
-			}
-		}
-
-		/*
-		 * Ignore whitespace before ']'.
+		/**
+		 * Last modification time of the template; {@code 0} if unknown.
 		 */
-		while ( Character.isWhitespace( line.charAt( end ) ) )
-		{
-			end--;
-		}
+		private final long _lastModified;
 
-		/*
-		 * Fail if the is nothing between the brackets.
+		/**
+		 * Time when the template was last checked for modifications.
 		 */
-		if ( start == end )
-		{
-			return null;
-		}
-
-		/*
-		 * Fail if there are any '[' or ']' between the outer ones.
+		private volatile long _lastChecked;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param url          URL of the template.
+		 * @param template     Parsed template.
+		 * @param lastModified Last modification time of the template.
+		 * @param lastChecked  Time when the template was loaded.
 		 */
-		for ( int i = start; i <= end; i++ )
+		private CachedTemplate( @NotNull final URL url, @NotNull final EmailTemplate template, final long lastModified, final long lastChecked )
 		{
-			final char c = line.charAt( i );
-			if ( c == '[' || c == ']' )
-			{
-				return null;
-			}
-		}
-
-		/*
-		 * We have a winner! Return the string between the brackets.
-		 */
-		return line.substring( start, end + 1 );
-	}
-
-	/**
-	 * Sets a header line for the specified E-mail message. The header line must
-	 * be in standard E-mail header format '{field}: {value}' whitespace around
-	 * the colon and and the start or end of the line are ignored. Also, header
-	 * field names are not case-sensitive.
-	 *
-	 * @param email      EMail message to modify.
-	 * @param tagObjects Tag objects to fill in tag values.
-	 * @param header     Header text (with tags).
-	 */
-	private static void setEMailHeader( final EMail email, final Map<String, Object> tagObjects, final String header )
-	{
-		/*
-		 * Ignore obviously illegal request.
-		 */
-		if ( ( email != null ) && ( header != null ) && !header.isEmpty() )
-		{
-			/*
-			 * Parse line into field and value (separated by colon).
-			 */
-			final int i = header.indexOf( (int)':' );
-			if ( i >= 0 )
-			{
-				final String field = TextTools.getTrimmedSubstring( header, 0, i );
-				if ( !field.isEmpty() )
-				{
-					String value = TextTools.getTrimmedSubstring( header, i + 1, header.length() );
-					if ( !value.isEmpty() )
-					{
-						/*
-						 * Replace tags in value.
-						 */
-						final StringBuffer sb = new StringBuffer( value.length() );
-						appendTaggedString( sb, tagObjects, value );
-						value = sb.toString();
-
-						/*
-						 * Set field values.
-						 */
-						if ( "From".equalsIgnoreCase( field ) )
-						{
-							email.from = value;
-						}
-						else if ( "Reply-To".equalsIgnoreCase( field ) )
-						{
-							email.replyTo = value;
-						}
-						else if ( "To".equalsIgnoreCase( field ) )
-						{
-							email.addRecipient( value );
-						}
-						else if ( "Subject".equalsIgnoreCase( field ) )
-						{
-							email.subject = value;
-						}
-						else
-						{
-							throw new RuntimeException( "Invalid E-mail header field '" + field + "' set to '" + value + "'!" );
-						}
-					}
-				}
-			}
+			_url = url;
+			_template = template;
+			_lastModified = lastModified;
+			_lastChecked = lastChecked;
 		}
 	}
 }
@@ -0,0 +1,776 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.email;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import com.numdata.oss.*;
+import org.jetbrains.annotations.*;
+
+/**
+ * Parsed E-mail template, as used by {@link EmailGenerator}. The template is
+ * parsed once into header fields and content parts, with the text of each
+ * split into literal text and tag references, so generating a message only
+ * needs to look up tag values.
+ *
+ * Instances are immutable and can be used by multiple threads concurrently.
+ *
+ * @see EmailGenerator
+ */
+final class EmailTemplate
+{
+	/**
+	 * Header fields.
+	 */
+	@NotNull
+	private final List<HeaderField> _headerFields;
+
+	/**
+	 * Content parts.
+	 */
+	@NotNull
+	private final List<ContentPart> _contentParts;
+
+	/**
+	 * Parses an E-mail template.
+	 *
+	 * @param template Template text as array of string lines (no newlines
+	 *                 allowed).
+	 */
+	EmailTemplate( @NotNull final String[] template )
+	{
+		final List<HeaderField> headerFields = new ArrayList<HeaderField>();
+		final List<ContentPart> contentParts = new ArrayList<ContentPart>();
+		final TaggedTextBuilder contentBuilder = new TaggedTextBuilder();
+
+		boolean inHeader = false;
+		String inContent = null;
+
+		for ( final String line : template )
+		{
+			/*
+			 * Handle block identifiers.
+			 */
+			final String id = getBlockIdentifier( line );
+			if ( id != null )
+			{
+				if ( "HEADER".equalsIgnoreCase( id ) )
+				{
+					inHeader = true;
+					inContent = null;
+					continue;
+				}
+
+				/*
+				 * If a content block identifier was found, add the previous
+				 * content block. Continue with next line.
+				 */
+				if ( id.regionMatches( true, 0, "CONTENT:", 0, 8 ) )
+				{
+					addContentPart( contentParts, inContent, contentBuilder );
+					inHeader = false;
+					inContent = String.valueOf( TextTools.getTrimmedSubsequence( id, 8, id.length() ) );
+					continue;
+				}
+			}
+
+			/*
+			 * If the line contains data, use to set a E-mail header, or append
+			 * the line to the current content block. Anything that doesn't fit
+			 * in will be silently ignored.
+			 */
+			if ( inHeader )
+			{
+				final HeaderField headerField = parseHeaderField( line );
+				if ( headerField != null )
+				{
+					headerFields.add( headerField );
+				}
+			}
+			else
+			{
+				contentBuilder.appendTaggedString( line );
+				contentBuilder.appendLiteral( '\n' );
+			}
+		}
+
+		addContentPart( contentParts, inContent, contentBuilder );
+
+		_headerFields = headerFields;
+		_contentParts = contentParts;
+	}
+
+	/**
+	 * Generate an E-mail message from this template using the specified tag
+	 * objects to fill in tag values that may occur in the template.
+	 *
+	 * @param tagObjects Values for tag objects to fill in tag values.
+	 *
+	 * @return EMail message resulting from template.
+	 */
+	@NotNull
+	EMail generate( @NotNull final Map<String, Object> tagObjects )
+	{
+		final EMail email = new EMail();
+
+		for ( final HeaderField headerField : _headerFields )
+		{
+			headerField.apply( email, tagObjects );
+		}
+
+		for ( final ContentPart contentPart : _contentParts )
+		{
+			final String data = contentPart._text.toString( tagObjects );
+			if ( !data.isEmpty() )
+			{
+				final EMailPart part = new EMailPart( data );
+				if ( contentPart._contentType != null )
+				{
+					part.contentType = contentPart._contentType;
+					part.contentSubType = contentPart._contentSubType;
+				}
+				email.addPart( part );
+			}
+		}
+
+		return email;
+	}
+
+	/**
+	 * Adds a content part for the current content block, if any, and clears
+	 * the content builder.
+	 *
+	 * @param contentParts   Content parts to add the part to.
+	 * @param content        Content type / subtype; {@code null} if not in a
+	 *                       content block.
+	 * @param contentBuilder Builder for the content block's text.
+	 */
+	private static void addContentPart( @NotNull final List<ContentPart> contentParts, @Nullable final String content, @NotNull final TaggedTextBuilder contentBuilder )
+	{
+		if ( ( content != null ) && !contentBuilder.isEmpty() )
+		{
+			contentParts.add( new ContentPart( content, contentBuilder.build() ) );
+		}
+		contentBuilder.clear();
+	}
+
+	/**
+	 * Parses a header line. The header line must be in standard E-mail header
+	 * format '{field}: {value}' whitespace around the colon and and the start
+	 * or end of the line are ignored.
+	 *
+	 * @param header Header text (with tags).
+	 *
+	 * @return Header field; {@code null} if the line is not a header line.
+	 */
+	@Nullable
+	private static HeaderField parseHeaderField( @NotNull final String header )
+	{
+		HeaderField result = null;
+
+		/*
+		 * Parse line into field and value (separated by colon).
+		 */
+		final int i = header.indexOf( (int)':' );
+		if ( i >= 0 )
+		{
+			final String field = TextTools.getTrimmedSubstring( header, 0, i );
+			if ( !field.isEmpty() )
+			{
+				final String value = TextTools.getTrimmedSubstring( header, i + 1, header.length() );
+				if ( !value.isEmpty() )
+				{
+					final TaggedTextBuilder builder = new TaggedTextBuilder();
+					builder.appendTaggedString( value );
+					result = new HeaderField( field, builder.build() );
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get a so-called 'block identifier' from the specified template line. A
+	 * block identifier is a strings between square brackets as single content
+	 * of a line e.g. '[Header]'. If the line matches the criteria, the string
+	 * between brackets is returned (with leading and trailing whitespace
+	 * removed).
+	 *
+	 * @param line Template line to test.
+	 *
+	 * @return Block identifier string; {@code null} if the line did not match
+	 * the criteria for a block identifier.
+	 */
+	@Nullable
+	static String getBlockIdentifier( @NotNull final String line )
+	{
+		final int length = line.length();
+
+		/*
+		 * Find starting '[' (must be first non-whitespace character of a line.
+		 */
+		int start = 0;
+		while ( true )
+		{
+			if ( start == length )
+			{
+				return null;
+			}
+
+			final char c = line.charAt( start++ );
+
+			if ( c == '[' )
+			{
+				break;
+			}
+
+			if ( !Character.isWhitespace( c ) )
+			{
+				return null;
+			}
+		}
+
+		/*
+		 * Ignore whitespace after '['.
+		 */
+		while ( ( start < length ) && Character.isWhitespace( line.charAt( start ) ) )
+		{
+			start++;
+		}
+
+		/*
+		 * Find ending ']' (must be the last non-whitespace character of a line).
+		 */
+		int end = length - 1;
+		while ( true )
+		{
+			if ( end <= start )
+			{
+				return null;
+			}
+
+			final char c = line.charAt( end-- );
+
+			if ( c == ']' )
+			{
+				break;
+			}
+
+			if ( !Character.isWhitespace( c ) )
+			{
+				return null;
+			}
+		}
+
+		/*
+		 * Ignore whitespace before ']'.
+		 */
+		while ( Character.isWhitespace( line.charAt( end ) ) )
+		{
+			end--;
+		}
+
+		/*
+		 * Fail if the is nothing between the brackets.
+		 */
+		if ( start == end )
+		{
+			return null;
+		}
+
+		/*
+		 * Fail if there are any '[' or ']' between the outer ones.
+		 */
+		for ( int i = start; i <= end; i++ )
+		{
+			final char c = line.charAt( i );
+			if ( c == '[' || c == ']' )
+			{
+				return null;
+			}
+		}
+
+		/*
+		 * We have a winner! Return the string between the brackets.
+		 */
+		return line.substring( start, end + 1 );
+	}
+
+	/**
+	 * Header field of the template.
+	 */
+	private static class HeaderField
+	{
+		/**
+		 * Field name.
+		 */
+		@NotNull
+		private final String _field;
+
+		/**
+		 * Field value.
+		 */
+		@NotNull
+		private final TaggedText _value;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param field Field name.
+		 * @param value Field value.
+		 */
+		private HeaderField( @NotNull final String field, @NotNull final TaggedText value )
+		{
+			_field = field;
+			_value = value;
+		}
+
+		/**
+		 * Sets the header field of the given E-mail message. Header field
+		 * names are not case-sensitive.
+		 *
+		 * @param email      EMail message to modify.
+		 * @param tagObjects Tag objects to fill in tag values.
+		 */
+		void apply( @NotNull final EMail email, @NotNull final Map<String, Object> tagObjects )
+		{
+			final String field = _field;
+			final String value = _value.toString( tagObjects );
+
+			if ( "From".equalsIgnoreCase( field ) )
+			{
+				email.from = value;
+			}
+			else if ( "Reply-To".equalsIgnoreCase( field ) )
+			{
+				email.replyTo = value;
+			}
+			else if ( "To".equalsIgnoreCase( field ) )
+			{
+				email.addRecipient( value );
+			}
+			else if ( "Subject".equalsIgnoreCase( field ) )
+			{
+				email.subject = value;
+			}
+			else
+			{
+				throw new RuntimeException( "Invalid E-mail header field '" + field + "' set to '" + value + "'!" );
+			}
+		}
+	}
+
+	/**
+	 * Content part of the template.
+	 */
+	private static class ContentPart
+	{
+		/**
+		 * Content type; {@code null} to use the default.
+		 */
+		@Nullable
+		private final String _contentType;
+
+		/**
+		 * Content sub type; {@code null} to use the default.
+		 */
+		@Nullable
+		private final String _contentSubType;
+
+		/**
+		 * Content text.
+		 */
+		@NotNull
+		private final TaggedText _text;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param content Content type / subtype.
+		 * @param text    Content text.
+		 */
+		private ContentPart( @NotNull final String content, @NotNull final TaggedText text )
+		{
+			final int i = content.indexOf( (int)'/' );
+			if ( i > 0 )
+			{
+				_contentType = TextTools.getTrimmedSubstring( content, 0, i );
+				_contentSubType = TextTools.getTrimmedSubstring( content, i + 1, content.length() );
+			}
+			else
+			{
+				_contentType = null;
+				_contentSubType = null;
+			}
+			_text = text;
+		}
+	}
+
+	/**
+	 * Text consisting of literal text and tags.
+	 */
+	private static class TaggedText
+	{
+		/**
+		 * Segments of the text: either a literal {@link String} or a {@link
+		 * Tag}.
+		 */
+		@NotNull
+		private final Object[] _segments;
+
+		/**
+		 * Estimated length of the text with tags replaced.
+		 */
+		private final int _estimatedLength;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param segments        Segments of the text.
+		 * @param estimatedLength Estimated length of the text.
+		 */
+		private TaggedText( @NotNull final Object[] segments, final int estimatedLength )
+		{
+			_segments = segments;
+			_estimatedLength = estimatedLength;
+		}
+
+		/**
+		 * Returns the text with tags replaced.
+		 *
+		 * @param tagObjects Tag objects to fill in tag values.
+		 *
+		 * @return Text with tags replaced.
+		 */
+		@NotNull
+		String toString( @NotNull final Map<String, Object> tagObjects )
+		{
+			final Object[] segments = _segments;
+
+			final String result;
+			if ( segments.length == 0 )
+			{
+				result = "";
+			}
+			else if ( ( segments.length == 1 ) && ( segments[ 0 ] instanceof String ) )
+			{
+				result = (String)segments[ 0 ];
+			}
+			else
+			{
+				final StringBuilder sb = new StringBuilder( _estimatedLength );
+				for ( final Object segment : segments )
+				{
+					if ( segment instanceof Tag )
+					{
+						( (Tag)segment ).appendTo( sb, tagObjects );
+					}
+					else
+					{
+						sb.append( (String)segment );
+					}
+				}
+				result = sb.toString();
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Builds a {@link TaggedText}.
+	 */
+	private static class TaggedTextBuilder
+	{
+		/**
+		 * Segments of the text.
+		 */
+		private final List<Object> _segments = new ArrayList<Object>();
+
+		/**
+		 * Literal text after the last tag.
+		 */
+		private final StringBuilder _literal = new StringBuilder();
+
+		/**
+		 * Estimated length of the text with tags replaced.
+		 */
+		private int _estimatedLength = 0;
+
+		/**
+		 * Returns whether the text is empty.
+		 *
+		 * @return {@code true} if the text is empty.
+		 */
+		boolean isEmpty()
+		{
+			return _segments.isEmpty() && ( _literal.length() == 0 );
+		}
+
+		/**
+		 * Clears the text.
+		 */
+		void clear()
+		{
+			_segments.clear();
+			_literal.setLength( 0 );
+			_estimatedLength = 0;
+		}
+
+		/**
+		 * Appends a literal character.
+		 *
+		 * @param c Character to append.
+		 */
+		void appendLiteral( final char c )
+		{
+			_literal.append( c );
+		}
+
+		/**
+		 * Appends a tag.
+		 *
+		 * @param tag Tag text, i.e. the text between brackets.
+		 */
+		void appendTag( @NotNull final String tag )
+		{
+			/*
+			 * Ignore empty tags.
+			 */
+			if ( !tag.isEmpty() )
+			{
+				flushLiteral();
+				_segments.add( new Tag( tag ) );
+				_estimatedLength += 16;
+			}
+		}
+
+		/**
+		 * Builds the text.
+		 *
+		 * @return Text.
+		 */
+		@NotNull
+		TaggedText build()
+		{
+			flushLiteral();
+			return new TaggedText( _segments.toArray(), _estimatedLength );
+		}
+
+		/**
+		 * Adds the pending literal text as a segment.
+		 */
+		private void flushLiteral()
+		{
+			final StringBuilder literal = _literal;
+			if ( literal.length() > 0 )
+			{
+				_segments.add( literal.toString() );
+				_estimatedLength += literal.length();
+				literal.setLength( 0 );
+			}
+		}
+
+		/**
+		 * This method takes a source line and appends it while identifying
+		 * template tags in the source string.
+		 *
+		 * A tag is recognized by some text between square brackets. A square
+		 * bracket in the text may be escaped using a backslash (\).
+		 *
+		 * @param source Source string (with tags).
+		 */
+		void appendTaggedString( @NotNull final String source )
+		{
+			final int length = source.length();
+
+			int pos = 0;
+			while ( pos < length )
+			{
+				final char c = source.charAt( pos++ );
+
+				/*
+				 * Handle normal and escaped (using backslash) characters.
+				 */
+				if ( c == '\\' && pos < length )
+				{
+					appendLiteral( source.charAt( pos++ ) );
+					continue;
+				}
+
+				if ( c != '[' )
+				{
+					appendLiteral( c );
+					continue;
+				}
+
+				/*
+				 * Handle '[' (possible start of tag)
+				 */
+				StringBuilder tag = null;
+				final int oldPos = pos;
+
+				while ( true )
+				{
+					final int end = source.indexOf( (int)']', pos );
+					if ( end >= pos )
+					{
+						if ( tag == null )
+						{
+							tag = new StringBuilder( end - pos );
+						}
+
+						if ( end > pos )
+						{
+							if ( source.charAt( end - 1 ) == '\\' )
+							{
+								tag.append( source, pos, end - 1 );
+								tag.append( ']' );
+								pos = end + 1;
+								continue;
+							}
+
+							tag.append( source, pos, end );
+							pos = end + 1;
+						}
+					}
+					break;
+				}
+
+				if ( tag != null )
+				{
+					appendTag( tag.toString().trim() );
+				}
+				else
+				{
+					pos = oldPos;
+					appendLiteral( c );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tag in a template.
+	 *
+	 * A tag comes in the format '{object name}[.{field name}]' (the field name
+	 * is optional). The object name is used to find a value object in the
+	 * collection of tag objects. If a field name is set, that field must be a
+	 * public field of the object. If the object is not found, the tag itself
+	 * is used.
+	 */
+	private static class Tag
+	{
+		/**
+		 * Tag text.
+		 */
+		@NotNull
+		private final String _tag;
+
+		/**
+		 * Name of the tag object.
+		 */
+		@NotNull
+		private final String _objectName;
+
+		/**
+		 * Name of the field of the tag object; {@code null} to use the object
+		 * itself.
+		 */
+		@Nullable
+		private final String _fieldName;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param tag Tag text.
+		 */
+		private Tag( @NotNull final String tag )
+		{
+			final int i = tag.indexOf( (int)'.' );
+			_tag = tag;
+			_objectName = ( i > 0 ) ? tag.substring( 0, i ) : tag;
+			_fieldName = ( i > 0 ) ? tag.substring( i + 1 ) : null;
+		}
+
+		/**
+		 * Appends the tag value.
+		 *
+		 * @param dest       Destination buffer for text with tags replaced.
+		 * @param tagObjects Tag objects to fill in tag values.
+		 */
+		void appendTo( @NotNull final StringBuilder dest, @NotNull final Map<String, Object> tagObjects )
+		{
+			/*
+			 * Find the named object and if a field name was specified, try to
+			 * get its value from the object.
+			 */
+			final Object target = tagObjects.get( _objectName );
+			Object value = null;
+
+			if ( target != null )
+			{
+				final String fieldName = _fieldName;
+				if ( fieldName != null )
+				{
+					try
+					{
+						final Field field = target.getClass().getField( fieldName );
+						value = field.get( target );
+						if ( value == null )
+						{
+							value = "null";
+						}
+					}
+					catch ( final Exception e )
+					{
+						/* ignore reflection errors, use target as value */
+					}
+				}
+				else
+				{
+					value = target;
+				}
+			}
+
+			/*
+			 * If a value was found, append it; if not, add the tag.
+			 */
+			if ( value != null )
+			{
+				dest.append( value );
+			}
+			else
+			{
+				dest.append( '[' );
+				dest.append( _tag );
+				dest.append( ']' );
+			}
+		}
+	}
+}
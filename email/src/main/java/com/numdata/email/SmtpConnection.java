@@ -0,0 +1,727 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.email;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import javax.net.ssl.*;
+
+import com.numdata.oss.log.*;
+import org.jetbrains.annotations.*;
+
+/**
+ * Persistent connection to an SMTP server, which can be used to send any
+ * number of messages. Unlike {@link SMTP}, this uses 'EHLO' to find out which
+ * extensions the server supports; if the server supports the 'PIPELINING'
+ * extension (RFC 2920), the envelope of each message is sent in a single
+ * round trip.
+ *
+ * Instances are not thread-safe.
+ *
+ * @see BulkMailer
+ */
+public final class SmtpConnection
+implements Closeable
+{
+	/**
+	 * Log used for messages related to this class.
+	 */
+	private static final ClassLogger LOG = ClassLogger.getFor( SmtpConnection.class );
+
+	/**
+	 * Maximum length of a reply line.
+	 */
+	private static final int MAXIMUM_LINE_LENGTH = 4096;
+
+	/**
+	 * Socket connected to the SMTP server.
+	 */
+	@NotNull
+	private final Socket _socket;
+
+	/**
+	 * Stream through which data is received from the SMTP server.
+	 */
+	@NotNull
+	private final InputStream _in;
+
+	/**
+	 * Stream through which data is sent to the SMTP server.
+	 */
+	@NotNull
+	private final OutputStream _out;
+
+	/**
+	 * Service extensions supported by the server, mapped to their parameters.
+	 * Keys are in upper case.
+	 */
+	@NotNull
+	private final Map<String, String> _extensions = new HashMap<String, String>();
+
+	/**
+	 * Number of messages sent using this connection.
+	 */
+	private int _messageCount = 0;
+
+	/**
+	 * Time when the connection was last used, in milliseconds.
+	 */
+	private long _lastUsed;
+
+	/**
+	 * Set if the connection can no longer be used.
+	 */
+	private boolean _broken = false;
+
+	/**
+	 * Opens a connection to an SMTP server.
+	 *
+	 * @param host     Host name of the SMTP server.
+	 * @param port     Port of the SMTP server.
+	 * @param ssl      Whether to use SSL/TLS ('smtps').
+	 * @param heloName Name of the local host, sent in 'EHLO'/'HELO'.
+	 * @param timeout  Connect and read timeout in milliseconds.
+	 *
+	 * @return Connection.
+	 *
+	 * @throws IOException if the connection could not be established.
+	 */
+	@NotNull
+	public static SmtpConnection open( @NotNull final String host, final int port, final boolean ssl, @NotNull final String heloName, final int timeout )
+	throws IOException
+	{
+		Socket socket = new Socket();
+		try
+		{
+			socket.connect( new InetSocketAddress( host, port ), timeout );
+			socket.setSoTimeout( timeout );
+			socket.setTcpNoDelay( true );
+
+			if ( ssl )
+			{
+				/* verify the server's host name, since credentials are sent over this connection */
+				final SSLSocket sslSocket = (SSLSocket)( (SSLSocketFactory)SSLSocketFactory.getDefault() ).createSocket( socket, host, port, true );
+				final SSLParameters parameters = sslSocket.getSSLParameters();
+				parameters.setEndpointIdentificationAlgorithm( "HTTPS" );
+				sslSocket.setSSLParameters( parameters );
+				socket = sslSocket;
+				sslSocket.startHandshake();
+			}
+
+			return new SmtpConnection( socket, heloName );
+		}
+		catch ( final IOException | RuntimeException e )
+		{
+			try
+			{
+				socket.close();
+			}
+			catch ( final IOException ignored )
+			{
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Constructs a new instance. This reads the greeting from the server and
+	 * sends 'EHLO' (or 'HELO' if 'EHLO' is not supported).
+	 *
+	 * @param socket   Socket connected to the SMTP server.
+	 * @param heloName Name of the local host, sent in 'EHLO'/'HELO'.
+	 *
+	 * @throws IOException if an I/O error occurs or the server rejects the
+	 * connection.
+	 */
+	public SmtpConnection( @NotNull final Socket socket, @NotNull final String heloName )
+	throws IOException
+	{
+		_socket = socket;
+		_in = new BufferedInputStream( socket.getInputStream() );
+		_out = new BufferedOutputStream( socket.getOutputStream() );
+		_lastUsed = System.currentTimeMillis();
+
+		final Reply greeting = readReply();
+		if ( greeting._code != SMTP.SMTP_ERR_READY )
+		{
+			throw new SmtpException( greeting._code, "Server did not accept connection: " + greeting );
+		}
+
+		Reply reply = command( "EHLO " + heloName );
+		if ( reply._code == SMTP.SMTP_ERR_COMPLETED )
+		{
+			final String[] lines = reply._lines;
+			for ( int i = 1; i < lines.length; i++ )
+			{
+				final String line = lines[ i ];
+				final int space = line.indexOf( ' ' );
+				_extensions.put( ( ( space < 0 ) ? line : line.substring( 0, space ) ).toUpperCase( Locale.ROOT ), ( space < 0 ) ? "" : line.substring( space + 1 ).trim() );
+			}
+		}
+		else
+		{
+			reply = command( "HELO " + heloName );
+			if ( reply._code != SMTP.SMTP_ERR_COMPLETED )
+			{
+				throw new SmtpException( reply._code, "Server did not accept 'HELO': " + reply );
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the server supports the given service extension.
+	 *
+	 * @param keyword Extension keyword, e.g. 'PIPELINING'.
+	 *
+	 * @return {@code true} if the extension is supported.
+	 */
+	public boolean hasExtension( @NotNull final String keyword )
+	{
+		return _extensions.containsKey( keyword.toUpperCase( Locale.ROOT ) );
+	}
+
+	/**
+	 * Returns whether commands are pipelined, i.e. whether the server supports
+	 * the 'PIPELINING' extension.
+	 *
+	 * @return {@code true} if commands are pipelined.
+	 */
+	public boolean isPipelining()
+	{
+		return hasExtension( "PIPELINING" );
+	}
+
+	/**
+	 * Authenticates using the 'PLAIN' or 'LOGIN' mechanism.
+	 *
+	 * @param user     User name.
+	 * @param password Password.
+	 *
+	 * @throws IOException if an I/O error occurs or authentication fails.
+	 */
+	public void authenticate( @NotNull final String user, @NotNull final String password )
+	throws IOException
+	{
+		final String mechanisms = _extensions.get( "AUTH" );
+		if ( mechanisms == null )
+		{
+			throw new SmtpException( SMTP.SMTP_ERR_IMPLEMENT_COMMAND, "Server does not support authentication" );
+		}
+
+		final Base64.Encoder encoder = Base64.getEncoder();
+		final List<String> supported = Arrays.asList( mechanisms.toUpperCase( Locale.ROOT ).split( "\\s+" ) );
+
+		final Reply reply;
+		if ( supported.contains( "PLAIN" ) )
+		{
+			reply = command( "AUTH PLAIN " + encoder.encodeToString( ( '\0' + user + '\0' + password ).getBytes( StandardCharsets.UTF_8 ) ) );
+		}
+		else if ( supported.contains( "LOGIN" ) )
+		{
+			Reply challenge = command( "AUTH LOGIN" );
+			if ( challenge._code == 334 )
+			{
+				challenge = command( encoder.encodeToString( user.getBytes( StandardCharsets.UTF_8 ) ) );
+			}
+			reply = ( challenge._code == 334 ) ? command( encoder.encodeToString( password.getBytes( StandardCharsets.UTF_8 ) ) ) : challenge;
+		}
+		else
+		{
+			throw new SmtpException( SMTP.SMTP_ERR_IMPLEMENT_COMMAND, "No supported authentication mechanism in: " + mechanisms );
+		}
+
+		if ( reply._code != 235 )
+		{
+			throw new SmtpException( reply._code, "Authentication failed: " + reply );
+		}
+	}
+
+	/**
+	 * Sends a message. If the message is rejected, the transaction is reset,
+	 * so the connection can be used for the next message.
+	 *
+	 * Messages are delivered to all accepted recipients; the message is only
+	 * rejected if none of the recipients are accepted.
+	 *
+	 * @param message Message to send.
+	 *
+	 * @return Recipients that were rejected by the server.
+	 *
+	 * @throws SmtpException if the server rejected the message.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	public List<String> send( @NotNull final SmtpMessage message )
+	throws IOException
+	{
+		final List<String> recipients = message.getRecipients();
+		final int recipientCount = recipients.size();
+		final boolean pipelining = isPipelining();
+
+		final String[] commands = new String[ recipientCount + 2 ];
+		commands[ 0 ] = "MAIL FROM:<" + message.getSender() + '>';
+		for ( int i = 0; i < recipientCount; i++ )
+		{
+			commands[ i + 1 ] = "RCPT TO:<" + recipients.get( i ) + '>';
+		}
+		commands[ recipientCount + 1 ] = "DATA";
+
+		final Reply[] replies = new Reply[ commands.length ];
+		final List<String> rejected = new ArrayList<String>();
+		Reply firstRejection = null;
+
+		try
+		{
+			if ( pipelining )
+			{
+				for ( final String command : commands )
+				{
+					write( command );
+				}
+				_out.flush();
+			}
+
+			for ( int i = 0; i < commands.length; i++ )
+			{
+				if ( !pipelining )
+				{
+					if ( ( i == recipientCount + 1 ) && ( rejected.size() == recipientCount ) )
+					{
+						break;
+					}
+
+					write( commands[ i ] );
+					_out.flush();
+				}
+
+				final Reply reply = readReply();
+				replies[ i ] = reply;
+
+				if ( ( i > 0 ) && ( i <= recipientCount ) && ( reply._code != SMTP.SMTP_ERR_COMPLETED ) && ( reply._code != SMTP.SMTP_ERR_FORWARD ) )
+				{
+					rejected.add( recipients.get( i - 1 ) );
+					if ( firstRejection == null )
+					{
+						firstRejection = reply;
+					}
+				}
+
+				if ( !pipelining && ( i == 0 ) && ( reply._code != SMTP.SMTP_ERR_COMPLETED ) )
+				{
+					break;
+				}
+			}
+
+			final Reply mailReply = replies[ 0 ];
+			final Reply dataReply = replies[ recipientCount + 1 ];
+			final boolean envelopeAccepted = ( mailReply._code == SMTP.SMTP_ERR_COMPLETED ) && ( rejected.size() < recipientCount );
+
+			if ( ( dataReply != null ) && ( dataReply._code == SMTP.SMTP_ERR_MAIL_START ) && !envelopeAccepted )
+			{
+				/* server should not have accepted 'DATA'; end it without content */
+				write( "." );
+				_out.flush();
+				readReply();
+			}
+
+			if ( mailReply._code != SMTP.SMTP_ERR_COMPLETED )
+			{
+				throw reset( mailReply, "Server did not accept 'MAIL FROM:<" + message.getSender() + ">'" );
+			}
+
+			if ( rejected.size() == recipientCount )
+			{
+				throw reset( firstRejection, "Server did not accept any recipients " + recipients );
+			}
+
+			if ( ( dataReply == null ) || ( dataReply._code != SMTP.SMTP_ERR_MAIL_START ) )
+			{
+				throw reset( dataReply, "Server does not accept 'DATA'" );
+			}
+
+			writeData( message.getData() );
+			_out.flush();
+
+			final Reply reply = readReply();
+			if ( reply._code != SMTP.SMTP_ERR_COMPLETED )
+			{
+				checkClosing( reply );
+				throw new SmtpException( reply._code, "Server did not accept content: " + reply );
+			}
+		}
+		catch ( final SmtpException e )
+		{
+			throw e;
+		}
+		catch ( final IOException e )
+		{
+			_broken = true;
+			throw e;
+		}
+		finally
+		{
+			_lastUsed = System.currentTimeMillis();
+		}
+
+		_messageCount++;
+
+		if ( !rejected.isEmpty() && LOG.isDebugEnabled() )
+		{
+			LOG.debug( "Recipients rejected by server: " + rejected );
+		}
+
+		return rejected;
+	}
+
+	/**
+	 * Resets the current mail transaction after the server rejected a command.
+	 *
+	 * @param reply   Reply that caused the reset; {@code null} if unknown.
+	 * @param message Detail message for the exception.
+	 *
+	 * @return Exception to throw.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	private SmtpException reset( @Nullable final Reply reply, @NotNull final String message )
+	throws IOException
+	{
+		final int code = ( reply != null ) ? reply._code : -1;
+		final SmtpException result = new SmtpException( code, message + ( ( reply != null ) ? ": " + reply : "" ) );
+
+		checkClosing( reply );
+		if ( !_broken )
+		{
+			final Reply resetReply = command( "RSET" );
+			if ( resetReply._code != SMTP.SMTP_ERR_COMPLETED )
+			{
+				_broken = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Marks the connection as broken if the server indicated that it is
+	 * closing the connection, or if there is no reply at all.
+	 *
+	 * @param reply Reply from the server.
+	 */
+	private void checkClosing( @Nullable final Reply reply )
+	{
+		if ( ( reply == null ) || ( reply._code == SMTP.SMTP_ERR_UNAVAILABLE ) )
+		{
+			_broken = true;
+		}
+	}
+
+	/**
+	 * Sends a 'NOOP' command to check that the connection is still alive.
+	 *
+	 * @return {@code true} if the server replied as expected.
+	 */
+	public boolean noop()
+	{
+		boolean result = false;
+		if ( isUsable() )
+		{
+			try
+			{
+				result = ( command( "NOOP" )._code == SMTP.SMTP_ERR_COMPLETED );
+			}
+			catch ( final IOException e )
+			{
+				LOG.debug( "'NOOP' failed", e );
+			}
+
+			if ( !result )
+			{
+				_broken = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the connection can be used to send messages.
+	 *
+	 * @return {@code true} if the connection is usable.
+	 */
+	public boolean isUsable()
+	{
+		return !_broken && !_socket.isClosed();
+	}
+
+	/**
+	 * Returns the number of messages sent using this connection.
+	 *
+	 * @return Number of messages sent.
+	 */
+	public int getMessageCount()
+	{
+		return _messageCount;
+	}
+
+	/**
+	 * Returns the time when the connection was last used.
+	 *
+	 * @return Time in milliseconds.
+	 */
+	public long getLastUsed()
+	{
+		return _lastUsed;
+	}
+
+	/**
+	 * Sends 'QUIT' (if the connection is usable) and closes the connection.
+	 */
+	@Override
+	public void close()
+	{
+		try
+		{
+			if ( isUsable() )
+			{
+				command( "QUIT" );
+			}
+		}
+		catch ( final IOException e )
+		{
+			LOG.debug( "'QUIT' failed", e );
+		}
+		finally
+		{
+			_broken = true;
+			try
+			{
+				_socket.close();
+			}
+			catch ( final IOException e )
+			{
+				LOG.debug( "Failed to close socket", e );
+			}
+		}
+	}
+
+	/**
+	 * Sends a command and reads the reply.
+	 *
+	 * @param command Command to send.
+	 *
+	 * @return Reply.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	private Reply command( @NotNull final String command )
+	throws IOException
+	{
+		write( command );
+		_out.flush();
+		return readReply();
+	}
+
+	/**
+	 * Writes a command line (without flushing). The line is encoded as UTF-8,
+	 * which equals ASCII for plain SMTP commands.
+	 *
+	 * @param line Command line without line terminator.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void write( @NotNull final String line )
+	throws IOException
+	{
+		final OutputStream out = _out;
+		out.write( line.getBytes( StandardCharsets.UTF_8 ) );
+		out.write( '\r' );
+		out.write( '\n' );
+	}
+
+	/**
+	 * Writes message data, followed by the end-of-data indicator. Line breaks
+	 * are converted to CRLF and lines starting with a period are escaped by
+	 * doubling the period ('dot-stuffing').
+	 *
+	 * @param data Message data.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void writeData( @NotNull final byte[] data )
+	throws IOException
+	{
+		final OutputStream out = _out;
+		boolean lineStart = true;
+
+		for ( int i = 0; i < data.length; i++ )
+		{
+			final byte b = data[ i ];
+			if ( ( b == '\r' ) || ( b == '\n' ) )
+			{
+				if ( ( b == '\r' ) && ( i + 1 < data.length ) && ( data[ i + 1 ] == '\n' ) )
+				{
+					i++;
+				}
+				out.write( '\r' );
+				out.write( '\n' );
+				lineStart = true;
+			}
+			else
+			{
+				if ( lineStart && ( b == '.' ) )
+				{
+					out.write( '.' );
+				}
+				out.write( b );
+				lineStart = false;
+			}
+		}
+
+		if ( !lineStart )
+		{
+			out.write( '\r' );
+			out.write( '\n' );
+		}
+
+		write( "." );
+	}
+
+	/**
+	 * Reads a (possibly multi-line) reply from the server.
+	 *
+	 * @return Reply.
+	 *
+	 * @throws IOException if an I/O error occurs or the reply is malformed.
+	 */
+	@NotNull
+	private Reply readReply()
+	throws IOException
+	{
+		final List<String> lines = new ArrayList<String>( 1 );
+		final StringBuilder line = new StringBuilder();
+		int code;
+		boolean last;
+
+		do
+		{
+			line.setLength( 0 );
+			readLine( line );
+
+			if ( ( line.length() < 3 ) || ( ( line.length() > 3 ) && ( line.charAt( 3 ) != ' ' ) && ( line.charAt( 3 ) != '-' ) ) )
+			{
+				throw new IOException( "Malformed reply from SMTP server: " + line );
+			}
+
+			try
+			{
+				code = Integer.parseInt( line.substring( 0, 3 ) );
+			}
+			catch ( final NumberFormatException e )
+			{
+				throw new IOException( "Malformed reply from SMTP server: " + line, e );
+			}
+
+			last = ( line.length() == 3 ) || ( line.charAt( 3 ) == ' ' );
+			lines.add( ( line.length() > 4 ) ? line.substring( 4 ) : "" );
+		}
+		while ( !last );
+
+		return new Reply( code, lines.toArray( new String[ lines.size() ] ) );
+	}
+
+	/**
+	 * Reads a line from the server.
+	 *
+	 * @param line Buffer to append the line to, without line terminator.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void readLine( @NotNull final StringBuilder line )
+	throws IOException
+	{
+		final InputStream in = _in;
+		while ( true )
+		{
+			final int b = in.read();
+			if ( b < 0 )
+			{
+				throw new EOFException( "Connection closed by SMTP server" );
+			}
+
+			if ( b == '\n' )
+			{
+				break;
+			}
+
+			if ( b != '\r' )
+			{
+				if ( line.length() >= MAXIMUM_LINE_LENGTH )
+				{
+					throw new IOException( "Reply line from SMTP server too long" );
+				}
+				line.append( (char)b );
+			}
+		}
+	}
+
+	/**
+	 * Reply from an SMTP server.
+	 */
+	private static class Reply
+	{
+		/**
+		 * Reply code.
+		 */
+		private final int _code;
+
+		/**
+		 * Text lines, without reply code.
+		 */
+		private final String[] _lines;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param code  Reply code.
+		 * @param lines Text lines, without reply code.
+		 */
+		private Reply( final int code, @NotNull final String[] lines )
+		{
+			_code = code;
+			_lines = lines;
+		}
+
+		@Override
+		public String toString()
+		{
+			return _code + " " + _lines[ _lines.length - 1 ];
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.email;
+
+import java.io.*;
+
+/**
+ * Signals that an SMTP server replied with an error.
+ *
+ * @see SmtpConnection
+ */
+public class SmtpException
+extends IOException
+{
+	/**
+	 * Serialized data version.
+	 */
+	private static final long serialVersionUID = -2203426317870271234L;
+
+	/**
+	 * Reply code from the SMTP server.
+	 */
+	private final int _replyCode;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param replyCode Reply code from the SMTP server.
+	 * @param message   Detail message.
+	 */
+	public SmtpException( final int replyCode, final String message )
+	{
+		super( message );
+		_replyCode = replyCode;
+	}
+
+	/**
+	 * Returns the reply code from the SMTP server.
+	 *
+	 * @return Reply code.
+	 */
+	public int getReplyCode()
+	{
+		return _replyCode;
+	}
+
+	/**
+	 * Returns whether the error is transient, i.e. the same command may
+	 * succeed when it is tried again later. This is the case for 4xx replies.
+	 *
+	 * @return {@code true} if the error is transient.
+	 */
+	public boolean isTransient()
+	{
+		return ( _replyCode >= 400 ) && ( _replyCode < 500 );
+	}
+}
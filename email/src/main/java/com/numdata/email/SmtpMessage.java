@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.email;
+
+import java.io.*;
+import java.util.*;
+import javax.mail.*;
+import javax.mail.internet.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Message to be sent by {@link SmtpConnection}, consisting of an envelope
+ * (sender and recipients) and the message data, including headers.
+ *
+ * @see BulkMailer
+ */
+public final class SmtpMessage
+{
+	/**
+	 * Headers that are not sent as part of a MIME message.
+	 */
+	private static final String[] IGNORED_MIME_HEADERS = { "Bcc", "Content-Length" };
+
+	/**
+	 * Envelope sender address.
+	 */
+	@NotNull
+	private final String _sender;
+
+	/**
+	 * Envelope recipient addresses.
+	 */
+	@NotNull
+	private final List<String> _recipients;
+
+	/**
+	 * Message data, including headers.
+	 */
+	@NotNull
+	private final byte[] _data;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param sender     Envelope sender address.
+	 * @param recipients Envelope recipient addresses.
+	 * @param data       Message data, including headers.
+	 *
+	 * @throws IllegalArgumentException if there are no recipients.
+	 */
+	public SmtpMessage( @NotNull final String sender, @NotNull final Collection<String> recipients, @NotNull final byte[] data )
+	{
+		if ( recipients.isEmpty() )
+		{
+			throw new IllegalArgumentException( "missing recipients" );
+		}
+
+		final List<String> addresses = new ArrayList<String>( recipients.size() );
+		for ( final String recipient : recipients )
+		{
+			addresses.add( getAddress( recipient ) );
+		}
+
+		_sender = getAddress( sender );
+		_recipients = Collections.unmodifiableList( addresses );
+		_data = data;
+	}
+
+	/**
+	 * Creates a message from an {@link EMail}. The message is sent to all
+	 * recipients and carbon copies.
+	 *
+	 * @param email E-mail message.
+	 *
+	 * @return Message to send.
+	 */
+	@NotNull
+	public static SmtpMessage create( @NotNull final EMail email )
+	{
+		final List<String> recipients = new ArrayList<String>();
+		for ( final Iterator<String> it = email.getRecipients(); it.hasNext(); )
+		{
+			recipients.add( it.next() );
+		}
+
+		for ( final Iterator<String> it = email.getCarbonCopies(); it.hasNext(); )
+		{
+			recipients.add( it.next() );
+		}
+
+		return new SmtpMessage( email.from, recipients, email.getContent().getBytes() );
+	}
+
+	/**
+	 * Creates a message from a MIME message, e.g. as created by {@link
+	 * EmailBuilder}. The message is sent to all recipients, including blind
+	 * carbon copies.
+	 *
+	 * @param message MIME message.
+	 *
+	 * @return Message to send.
+	 *
+	 * @throws MessagingException if the message is invalid.
+	 * @throws IOException if the message content can't be written.
+	 */
+	@NotNull
+	public static SmtpMessage create( @NotNull final MimeMessage message )
+	throws MessagingException, IOException
+	{
+		message.saveChanges();
+
+		final Address[] from = message.getFrom();
+		if ( ( from == null ) || ( from.length == 0 ) )
+		{
+			throw new MessagingException( "missing 'from'" );
+		}
+
+		final Address[] allRecipients = message.getAllRecipients();
+		if ( allRecipients == null )
+		{
+			throw new MessagingException( "missing recipients" );
+		}
+
+		final List<String> recipients = new ArrayList<String>( allRecipients.length );
+		for ( final Address recipient : allRecipients )
+		{
+			recipients.add( ( recipient instanceof InternetAddress ) ? ( (InternetAddress)recipient ).getAddress() : recipient.toString() );
+		}
+
+		final Address sender = from[ 0 ];
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		message.writeTo( out, IGNORED_MIME_HEADERS );
+
+		return new SmtpMessage( ( sender instanceof InternetAddress ) ? ( (InternetAddress)sender ).getAddress() : sender.toString(), recipients, out.toByteArray() );
+	}
+
+	/**
+	 * Returns the plain e-mail address from the given address. If the address
+	 * contains a '&lt;{email address}&gt;' part, then only that part is used.
+	 *
+	 * @param address E-mail address.
+	 *
+	 * @return Plain e-mail address.
+	 */
+	@NotNull
+	static String getAddress( @NotNull final String address )
+	{
+		String result = address;
+
+		int i = result.indexOf( '<' );
+		if ( i >= 0 )
+		{
+			result = result.substring( i + 1 );
+		}
+
+		i = result.indexOf( '>' );
+		if ( i >= 0 )
+		{
+			result = result.substring( 0, i );
+		}
+
+		return result.trim();
+	}
+
+	/**
+	 * Returns the envelope sender address.
+	 *
+	 * @return Envelope sender address.
+	 */
+	@NotNull
+	public String getSender()
+	{
+		return _sender;
+	}
+
+	/**
+	 * Returns the envelope recipient addresses.
+	 *
+	 * @return Envelope recipient addresses.
+	 */
+	@NotNull
+	public List<String> getRecipients()
+	{
+		return _recipients;
+	}
+
+	/**
+	 * Returns the message data, including headers.
+	 *
+	 * @return Message data.
+	 */
+	@NotNull
+	public byte[] getData()
+	{
+		return _data;
+	}
+
+	@Override
+	public String toString()
+	{
+		return super.toString() + "[sender=" + _sender + ", recipients=" + _recipients + ", length=" + _data.length + ']';
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.email;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Minimal SMTP server for testing. Recipients containing 'reject' are
+ * rejected permanently; the first {@link #setTransientFailures} messages are
+ * rejected with a transient error after 'DATA'.
+ */
+class StubSmtpServer
+implements Closeable
+{
+	/**
+	 * Server socket.
+	 */
+	private final ServerSocket _serverSocket;
+
+	/**
+	 * Whether 'PIPELINING' is advertised.
+	 */
+	private final boolean _pipelining;
+
+	/**
+	 * Handles connections.
+	 */
+	private final ExecutorService _executor = Executors.newCachedThreadPool();
+
+	/**
+	 * Messages received.
+	 */
+	private final Queue<String> _messages = new ConcurrentLinkedQueue<String>();
+
+	/**
+	 * Number of connections accepted.
+	 */
+	private final AtomicInteger _connectionCount = new AtomicInteger();
+
+	/**
+	 * Number of messages to reject with a transient error.
+	 */
+	private final AtomicInteger _transientFailures = new AtomicInteger();
+
+	/**
+	 * Constructs a new instance listening on a free port.
+	 *
+	 * @param pipelining Whether 'PIPELINING' is advertised.
+	 *
+	 * @throws IOException if the server socket can't be created.
+	 */
+	StubSmtpServer( final boolean pipelining )
+	throws IOException
+	{
+		_pipelining = pipelining;
+		_serverSocket = new ServerSocket( 0, 50, InetAddress.getLoopbackAddress() );
+		_executor.execute( this::acceptConnections );
+	}
+
+	int getPort()
+	{
+		return _serverSocket.getLocalPort();
+	}
+
+	Collection<String> getMessages()
+	{
+		return _messages;
+	}
+
+	int getConnectionCount()
+	{
+		return _connectionCount.get();
+	}
+
+	void setTransientFailures( final int count )
+	{
+		_transientFailures.set( count );
+	}
+
+	@Override
+	public void close()
+	throws IOException
+	{
+		_serverSocket.close();
+		_executor.shutdownNow();
+	}
+
+	/**
+	 * Accepts connections until the server socket is closed.
+	 */
+	private void acceptConnections()
+	{
+		try
+		{
+			while ( true )
+			{
+				final Socket socket = _serverSocket.accept();
+				_connectionCount.incrementAndGet();
+				_executor.execute( () -> handleConnection( socket ) );
+			}
+		}
+		catch ( final IOException e )
+		{
+			/* server closed */
+		}
+	}
+
+	/**
+	 * Handles a single connection.
+	 *
+	 * @param socket Socket connected to the client.
+	 */
+	private void handleConnection( @NotNull final Socket socket )
+	{
+		try ( final Socket ignored = socket;
+		      final BufferedReader in = new BufferedReader( new InputStreamReader( socket.getInputStream(), StandardCharsets.ISO_8859_1 ) );
+		      final Writer out = new OutputStreamWriter( socket.getOutputStream(), StandardCharsets.ISO_8859_1 ) )
+		{
+			reply( out, "220 stub ready" );
+
+			boolean mail = false;
+			int recipients = 0;
+
+			String line;
+			while ( ( line = in.readLine() ) != null )
+			{
+				final String command = line.toUpperCase( Locale.ROOT );
+				if ( command.startsWith( "EHLO" ) )
+				{
+					reply( out, _pipelining ? "250-stub\r\n250-8BITMIME\r\n250 PIPELINING" : "250-stub\r\n250 8BITMIME" );
+				}
+				else if ( command.startsWith( "MAIL FROM:" ) )
+				{
+					mail = true;
+					recipients = 0;
+					reply( out, "250 OK" );
+				}
+				else if ( command.startsWith( "RCPT TO:" ) )
+				{
+					if ( !mail )
+					{
+						reply( out, "503 Bad sequence" );
+					}
+					else if ( command.contains( "REJECT" ) )
+					{
+						reply( out, "550 No such user" );
+					}
+					else
+					{
+						recipients++;
+						reply( out, "250 OK" );
+					}
+				}
+				else if ( command.equals( "DATA" ) )
+				{
+					if ( !mail || ( recipients == 0 ) )
+					{
+						reply( out, "554 No valid recipients" );
+					}
+					else
+					{
+						reply( out, "354 Go ahead" );
+
+						final StringBuilder data = new StringBuilder();
+						while ( !( line = in.readLine() ).equals( "." ) )
+						{
+							data.append( line.startsWith( "." ) ? line.substring( 1 ) : line ).append( '\n' );
+						}
+
+						if ( _transientFailures.getAndDecrement() > 0 )
+						{
+							reply( out, "451 Try again later" );
+						}
+						else
+						{
+							_messages.add( data.toString() );
+							reply( out, "250 Queued" );
+						}
+					}
+					mail = false;
+				}
+				else if ( command.equals( "RSET" ) )
+				{
+					mail = false;
+					reply( out, "250 OK" );
+				}
+				else if ( command.equals( "NOOP" ) )
+				{
+					reply( out, "250 OK" );
+				}
+				else if ( command.equals( "QUIT" ) )
+				{
+					reply( out, "221 Bye" );
+					break;
+				}
+				else
+				{
+					reply( out, "500 Unrecognized command" );
+				}
+			}
+		}
+		catch ( final IOException e )
+		{
+			/* connection closed */
+		}
+	}
+
+	/**
+	 * Sends a reply.
+	 *
+	 * @param out   Output to client.
+	 * @param reply Reply text, without final line terminator.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void reply( @NotNull final Writer out, @NotNull final String reply )
+	throws IOException
+	{
+		out.write( reply );
+		out.write( "\r\n" );
+		out.flush();
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.email;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Unit test for {@link BulkMailer}, using {@link StubSmtpServer}.
+ */
+public class TestBulkMailer
+{
+	/**
+	 * Tests sending many messages over a limited number of connections, with
+	 * and without pipelining.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSendAll()
+	throws Exception
+	{
+		for ( final boolean pipelining : new boolean[] { true, false } )
+		{
+			try ( final StubSmtpServer server = new StubSmtpServer( pipelining ) )
+			{
+				final List<SmtpMessage> messages = new ArrayList<SmtpMessage>();
+				for ( int i = 0; i < 50; i++ )
+				{
+					final String data = "Subject: Message " + i + "\r\n\r\n.leading period\nline " + i;
+					messages.add( new SmtpMessage( "Sender <sender@example.com>", Arrays.asList( "to" + i + "@example.com", "cc@example.com" ), data.getBytes() ) );
+				}
+
+				final BulkMailer mailer = new BulkMailer( "localhost", server.getPort(), false, null, null, 4 );
+				final List<BulkMailer.Result> results;
+				try
+				{
+					mailer.setMaximumMessagesPerConnection( 20 );
+					results = mailer.sendAll( messages );
+				}
+				finally
+				{
+					mailer.close();
+				}
+
+				for ( final BulkMailer.Result result : results )
+				{
+					assertTrue( "Failed: " + result, result.isSuccessful() );
+					assertEquals( "Unexpected attempts.", 1, result.getAttempts() );
+				}
+
+				assertEquals( "Unexpected number of messages received.", 50, server.getMessages().size() );
+				assertTrue( "Dot-stuffing should be undone by server.", server.getMessages().contains( "Subject: Message 7\n\n.leading period\nline 7\n" ) );
+
+				final BulkMailStatistics statistics = mailer.getStatistics();
+				assertEquals( "Unexpected sent count.", 50, statistics.getSentCount() );
+				assertEquals( "Unexpected failed count.", 0, statistics.getFailedCount() );
+				assertTrue( "Connections should be reused: " + statistics, statistics.getConnectionCount() <= 8 );
+				assertEquals( "Unexpected connection count at server.", statistics.getConnectionCount(), server.getConnectionCount() );
+				assertTrue( "Unexpected throughput: " + statistics, statistics.getMessagesPerSecond() > 0.0 );
+			}
+		}
+	}
+
+	/**
+	 * Tests retries and rejected recipients.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testFailures()
+	throws Exception
+	{
+		try ( final StubSmtpServer server = new StubSmtpServer( true ) )
+		{
+			final BulkMailer mailer = new BulkMailer( "localhost", server.getPort(), false, null, null, 1 );
+			try
+			{
+				mailer.setRetryDelay( 1L, 10L );
+
+				server.setTransientFailures( 2 );
+				BulkMailer.Result result = mailer.send( new SmtpMessage( "sender@example.com", Collections.singletonList( "to@example.com" ), "Retried".getBytes() ) );
+				assertTrue( "Failed: " + result, result.isSuccessful() );
+				assertEquals( "Unexpected attempts.", 3, result.getAttempts() );
+
+				result = mailer.send( new SmtpMessage( "sender@example.com", Arrays.asList( "to@example.com", "reject@example.com" ), "Partial".getBytes() ) );
+				assertTrue( "Failed: " + result, result.isSuccessful() );
+				assertEquals( "Unexpected rejected recipients.", Collections.singletonList( "reject@example.com" ), result.getRejectedRecipients() );
+
+				result = mailer.send( new SmtpMessage( "sender@example.com", Collections.singletonList( "reject@example.com" ), "Rejected".getBytes() ) );
+				assertFalse( "Should have failed.", result.isSuccessful() );
+				assertEquals( "Permanent failure should not be retried.", 1, result.getAttempts() );
+				assertEquals( "Unexpected reply code.", 550, ( (SmtpException)result.getException() ).getReplyCode() );
+
+				final EMail email = new EMail();
+				email.from = "sender@example.com";
+				email.addRecipient( "to@example.com" );
+				email.subject = "EMail";
+				email.addPart( new EMailPart( "Body" ) );
+				result = mailer.send( email );
+				assertTrue( "Failed: " + result, result.isSuccessful() );
+
+				final BulkMailStatistics statistics = mailer.getStatistics();
+				assertEquals( "Unexpected sent count.", 3, statistics.getSentCount() );
+				assertEquals( "Unexpected failed count.", 1, statistics.getFailedCount() );
+				assertEquals( "Unexpected retry count.", 2, statistics.getRetryCount() );
+				assertEquals( "Unexpected rejected recipient count.", 1, statistics.getRejectedRecipientCount() );
+				assertEquals( "Connection should be reused after failures.", 1, statistics.getConnectionCount() );
+			}
+			finally
+			{
+				mailer.close();
+			}
+
+			assertEquals( "Unexpected number of messages received.", 3, server.getMessages().size() );
+		}
+	}
+}
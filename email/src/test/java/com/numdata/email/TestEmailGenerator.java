@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.email;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+/**
+ * Unit test for {@link EmailGenerator} class.
+ */
+public class TestEmailGenerator
+{
+	/**
+	 * Folder for template files.
+	 */
+	@Rule
+	public TemporaryFolder _folder = new TemporaryFolder();
+
+	/**
+	 * Test generating messages from a template, including reloading of
+	 * modified templates.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGenerate()
+	throws Exception
+	{
+		final File file = new File( _folder.getRoot(), "test.txt" );
+		writeTemplate( file, "ignored\n" +
+		                     "[HEADER]\n" +
+		                     "From: sender@example.com\n" +
+		                     "To: [user.address]\n" +
+		                     "Subject: Hello [user.name] \\[[code]\\]\n" +
+		                     "[CONTENT: text/plain]\n" +
+		                     "Dear [user.name],\n" +
+		                     "[unknown] [user] [] [user.missing] \\[escaped]\n" );
+
+		final EmailGenerator generator = new EmailGenerator( _folder.getRoot().toURI().toURL() );
+		generator.setCheckInterval( 0L );
+
+		final User user = new User();
+		user.name = "Alice";
+		user.address = "alice@example.com";
+
+		EMail email = generator.generate( "test.txt", Collections.<String, Object>singletonMap( "user", user ) );
+		assertNotNull( "Template not found.", email );
+		assertEquals( "Unexpected from.", "sender@example.com", email.from );
+		assertEquals( "Unexpected subject.", "Hello Alice [test.txt]", email.subject );
+		assertEquals( "Unexpected recipient.", "alice@example.com", email.getRecipients().next() );
+
+		String content = email.getContent();
+		assertTrue( "Unexpected content: " + content, content.contains( "Dear Alice," ) );
+		assertTrue( "Unexpected content: " + content, content.contains( "[unknown] User ] [user.missing] [escaped]" ) );
+		assertFalse( "Unexpected content: " + content, content.contains( "ignored" ) );
+
+		user.name = "Bob";
+		email = generator.generate( "test.txt", Collections.<String, Object>singletonMap( "user", user ) );
+		assertNotNull( "Template not found.", email );
+		assertEquals( "Unexpected subject.", "Hello Bob [test.txt]", email.subject );
+
+		writeTemplate( file, "[HEADER]\n" +
+		                     "From: other@example.com\n" +
+		                     "To: [user.address]\n" +
+		                     "Subject: Changed\n" +
+		                     "[CONTENT: text/html]\n" +
+		                     "<p>[user.name]</p>\n" );
+		assertTrue( "Failed to set modification time.", file.setLastModified( file.lastModified() + 2000L ) );
+
+		email = generator.generate( "test.txt", Collections.<String, Object>singletonMap( "user", user ) );
+		assertNotNull( "Template not found.", email );
+		assertEquals( "Modified template should be reloaded.", "Changed", email.subject );
+		content = email.getContent();
+		assertTrue( "Unexpected content: " + content, content.contains( "<p>Bob</p>" ) );
+		assertTrue( "Unexpected content: " + content, content.contains( "text/html" ) );
+
+		assertNull( "Unexpected message for missing template.", generator.generate( "missing.txt", null ) );
+	}
+
+	/**
+	 * Writes a template file.
+	 *
+	 * @param file     File to write.
+	 * @param template Template text.
+	 *
+	 * @throws IOException if the file can't be written.
+	 */
+	private static void writeTemplate( final File file, final String template )
+	throws IOException
+	{
+		Files.write( file.toPath(), template.getBytes( StandardCharsets.US_ASCII ) );
+	}
+
+	/**
+	 * Tag object used for testing.
+	 */
+	public static class User
+	{
+		/**
+		 * Name.
+		 */
+		public String name;
+
+		/**
+		 * E-mail address.
+		 */
+		public String address;
+
+		@Override
+		public String toString()
+		{
+			return "User";
+		}
+	}
+}
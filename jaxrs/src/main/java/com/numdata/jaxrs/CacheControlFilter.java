@@ -26,8 +26,6 @@
  */
 package com.numdata.jaxrs;
 
-import java.lang.annotation.*;
-import java.lang.reflect.*;
 import javax.annotation.*;
 import javax.ws.rs.*;
 import javax.ws.rs.container.*;
@@ -54,35 +52,7 @@ implements ContainerResponseFilter
 	@Override
 	public void filter( final ContainerRequestContext requestContext, final ContainerResponseContext responseContext )
 	{
-		CacheControl annotation = null;
-
-		for ( final Annotation candidate : responseContext.getEntityAnnotations() )
-		{
-			if ( candidate instanceof CacheControl )
-			{
-				annotation = (CacheControl)candidate;
-				break;
-			}
-		}
-
-		if ( ( annotation == null ) && ( _resourceInfo != null ) )
-		{
-			final Method resourceMethod = _resourceInfo.getResourceMethod();
-			if ( resourceMethod != null )
-			{
-				annotation = resourceMethod.getAnnotation( CacheControl.class );
-			}
-
-			if ( annotation == null )
-			{
-				final Class<?> resourceClass = _resourceInfo.getResourceClass();
-				if ( resourceClass != null )
-				{
-					annotation = resourceClass.getAnnotation( CacheControl.class );
-				}
-			}
-
-		}
+		final CacheControl annotation = ResourceAnnotations.find( CacheControl.class, responseContext.getEntityAnnotations(), _resourceInfo );
 
 		if ( annotation != null )
 		{
@@ -0,0 +1,772 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.jaxrs;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+import javax.annotation.*;
+import javax.ws.rs.*;
+import javax.ws.rs.container.*;
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.*;
+
+import com.numdata.oss.log.*;
+import org.jetbrains.annotations.*;
+
+/**
+ * Interceptor that handles {@link Compress} annotations.
+ *
+ * <p>Responses are compressed using the {@code gzip} or {@code deflate}
+ * content-coding, if permitted by the request's {@code Accept-Encoding}
+ * header. The response is buffered up to the {@link Compress#threshold()}, so
+ * smaller responses are sent uncompressed. {@link Deflater} instances are
+ * pooled and reused across requests.
+ *
+ * <p>An entity tag of a compressed response is suffixed with the content-coding
+ * (e.g. {@code "-gzip"}), so the compressed and uncompressed representations
+ * have different entity tags. {@code Accept-Encoding} is added to the
+ * {@code Vary} header of every response.
+ *
+ * <p>Request bodies with {@code Content-Encoding: gzip} or {@code deflate} are
+ * decompressed, up to {@link Compress#maxRequestSize()} bytes.
+ */
+@Provider
+@Compress
+@Priority( Priorities.ENTITY_CODER )
+public class CompressionInterceptor
+implements WriterInterceptor, ReaderInterceptor
+{
+	/**
+	 * Log used for messages related to this class.
+	 */
+	private static final ClassLogger LOG = ClassLogger.getFor( CompressionInterceptor.class );
+
+	/**
+	 * Name of the 'gzip' content-coding.
+	 */
+	public static final String GZIP = "gzip";
+
+	/**
+	 * Name of the 'deflate' content-coding.
+	 */
+	public static final String DEFLATE = "deflate";
+
+	/**
+	 * Default maximum size of a decompressed request body.
+	 */
+	public static final long DEFAULT_MAX_REQUEST_SIZE = 16L * 1024L * 1024L;
+
+	/**
+	 * Size of buffer used by deflater streams.
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Maximum number of idle deflaters retained per pool.
+	 */
+	private static final int MAX_POOLED_DEFLATERS = 32;
+
+	/**
+	 * Pooled deflaters for 'gzip' (raw deflate data), per compression level.
+	 */
+	private static final ConcurrentMap<Integer, Queue<Deflater>> GZIP_DEFLATERS = new ConcurrentHashMap<Integer, Queue<Deflater>>();
+
+	/**
+	 * Pooled deflaters for 'deflate' (zlib format), per compression level.
+	 */
+	private static final ConcurrentMap<Integer, Queue<Deflater>> ZLIB_DEFLATERS = new ConcurrentHashMap<Integer, Queue<Deflater>>();
+
+	/**
+	 * Header of a gzip member, as written by {@link GZIPOutputStream}.
+	 */
+	private static final byte[] GZIP_HEADER = { (byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+	/**
+	 * Resource class/method that matched the current request.
+	 */
+	@Context
+	ResourceInfo _resourceInfo;
+
+	/**
+	 * Headers of the current request.
+	 */
+	@Context
+	HttpHeaders _httpHeaders;
+
+	@Override
+	public void aroundWriteTo( final WriterInterceptorContext context )
+	throws IOException
+	{
+		final MultivaluedMap<String, Object> headers = context.getHeaders();
+		final HttpHeaders httpHeaders = _httpHeaders;
+		final String encoding = ( ( httpHeaders != null ) && !headers.containsKey( HttpHeaders.CONTENT_ENCODING ) ) ? selectEncoding( httpHeaders.getRequestHeader( HttpHeaders.ACCEPT_ENCODING ) ) : null;
+
+		addVaryAcceptEncoding( headers );
+
+		if ( encoding != null )
+		{
+			final Compress annotation = ResourceAnnotations.find( Compress.class, context.getAnnotations(), _resourceInfo );
+			final int threshold = ( annotation != null ) ? annotation.threshold() : 1024;
+			final int level = ( annotation != null ) ? annotation.level() : Deflater.DEFAULT_COMPRESSION;
+
+			final OutputStream entityStream = context.getOutputStream();
+			final CompressingOutputStream compressingStream = new CompressingOutputStream( entityStream, headers, encoding, threshold, level );
+			context.setOutputStream( compressingStream );
+			try
+			{
+				context.proceed();
+				compressingStream.finish();
+			}
+			finally
+			{
+				compressingStream.releaseDeflater();
+				context.setOutputStream( entityStream );
+			}
+		}
+		else
+		{
+			context.proceed();
+		}
+	}
+
+	@Override
+	public Object aroundReadFrom( final ReaderInterceptorContext context )
+	throws IOException
+	{
+		final MultivaluedMap<String, String> headers = context.getHeaders();
+		final String contentEncoding = headers.getFirst( HttpHeaders.CONTENT_ENCODING );
+		if ( contentEncoding != null )
+		{
+			final String encoding = contentEncoding.trim();
+			final boolean gzip = GZIP.equalsIgnoreCase( encoding ) || "x-gzip".equalsIgnoreCase( encoding );
+			if ( gzip || DEFLATE.equalsIgnoreCase( encoding ) )
+			{
+				final Compress annotation = ResourceAnnotations.find( Compress.class, context.getAnnotations(), _resourceInfo );
+				final long maxRequestSize = ( annotation != null ) ? annotation.maxRequestSize() : DEFAULT_MAX_REQUEST_SIZE;
+
+				headers.remove( HttpHeaders.CONTENT_ENCODING );
+				headers.remove( HttpHeaders.CONTENT_LENGTH );
+				final InputStream in = context.getInputStream();
+				final InputStream inflated = gzip ? new GZIPInputStream( in, BUFFER_SIZE ) : new InflaterInputStream( in, new Inflater(), BUFFER_SIZE );
+				context.setInputStream( new LimitedInputStream( inflated, maxRequestSize ) );
+			}
+		}
+		return context.proceed();
+	}
+
+	/**
+	 * Adds {@code Accept-Encoding} to the {@code Vary} response header,
+	 * unless it is already present or the header value is {@code *}.
+	 *
+	 * @param headers Response headers.
+	 */
+	static void addVaryAcceptEncoding( @NotNull final MultivaluedMap<String, Object> headers )
+	{
+		final List<Object> values = headers.get( HttpHeaders.VARY );
+		if ( ( values == null ) || values.isEmpty() )
+		{
+			headers.putSingle( HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING );
+		}
+		else
+		{
+			final StringBuilder vary = new StringBuilder();
+			boolean present = false;
+			for ( final Object value : values )
+			{
+				final String string = String.valueOf( value );
+				for ( final String field : string.split( "," ) )
+				{
+					final String name = field.trim();
+					present |= "*".equals( name ) || HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase( name );
+				}
+
+				if ( vary.length() > 0 )
+				{
+					vary.append( ", " );
+				}
+				vary.append( string );
+			}
+
+			if ( !present )
+			{
+				vary.append( ", " );
+				vary.append( HttpHeaders.ACCEPT_ENCODING );
+				headers.putSingle( HttpHeaders.VARY, vary.toString() );
+			}
+		}
+	}
+
+	/**
+	 * Returns the entity tag of a compressed representation.
+	 *
+	 * @param entityTag Entity tag of the uncompressed representation.
+	 * @param encoding  Content-coding.
+	 *
+	 * @return Entity tag of the compressed representation.
+	 */
+	@NotNull
+	static EntityTag getCompressedEntityTag( @NotNull final EntityTag entityTag, @NotNull final String encoding )
+	{
+		return new EntityTag( entityTag.getValue() + '-' + encoding, entityTag.isWeak() );
+	}
+
+	/**
+	 * Returns the opaque tag of the uncompressed representation for an
+	 * opaque tag that may belong to a compressed representation (see
+	 * {@link #getCompressedEntityTag}).
+	 *
+	 * @param opaqueTag Opaque tag, without weakness indicator and quotes.
+	 *
+	 * @return Opaque tag of the uncompressed representation.
+	 */
+	@NotNull
+	static String getUncompressedOpaqueTag( @NotNull final String opaqueTag )
+	{
+		String result = opaqueTag;
+		if ( opaqueTag.endsWith( '-' + GZIP ) )
+		{
+			result = opaqueTag.substring( 0, opaqueTag.length() - GZIP.length() - 1 );
+		}
+		else if ( opaqueTag.endsWith( '-' + DEFLATE ) )
+		{
+			result = opaqueTag.substring( 0, opaqueTag.length() - DEFLATE.length() - 1 );
+		}
+		return result;
+	}
+
+	/**
+	 * Selects the content-coding to use for a response based on the
+	 * {@code Accept-Encoding} request header. Prefers {@code gzip} over
+	 * {@code deflate} if both have the same quality value.
+	 *
+	 * @param acceptEncoding Values of {@code Accept-Encoding} header.
+	 *
+	 * @return Content-coding; {@code null} to send the response uncompressed.
+	 */
+	@Nullable
+	static String selectEncoding( @Nullable final List<String> acceptEncoding )
+	{
+		String result = null;
+
+		if ( acceptEncoding != null )
+		{
+			float gzipQuality = -1.0f;
+			float deflateQuality = -1.0f;
+			float wildcardQuality = -1.0f;
+
+			for ( final String value : acceptEncoding )
+			{
+				for ( final String element : value.split( "," ) )
+				{
+					final String[] parameters = element.split( ";" );
+					final String coding = parameters[ 0 ].trim();
+					float quality = 1.0f;
+					for ( int i = 1; i < parameters.length; i++ )
+					{
+						final String parameter = parameters[ i ].trim();
+						if ( parameter.startsWith( "q=" ) || parameter.startsWith( "Q=" ) )
+						{
+							try
+							{
+								quality = Float.parseFloat( parameter.substring( 2 ).trim() );
+							}
+							catch ( final NumberFormatException e )
+							{
+								quality = 0.0f;
+							}
+						}
+					}
+
+					if ( GZIP.equalsIgnoreCase( coding ) || "x-gzip".equalsIgnoreCase( coding ) )
+					{
+						gzipQuality = Math.max( gzipQuality, quality );
+					}
+					else if ( DEFLATE.equalsIgnoreCase( coding ) )
+					{
+						deflateQuality = Math.max( deflateQuality, quality );
+					}
+					else if ( "*".equals( coding ) )
+					{
+						wildcardQuality = Math.max( wildcardQuality, quality );
+					}
+				}
+			}
+
+			if ( gzipQuality < 0.0f )
+			{
+				gzipQuality = wildcardQuality;
+			}
+
+			if ( deflateQuality < 0.0f )
+			{
+				deflateQuality = wildcardQuality;
+			}
+
+			if ( ( gzipQuality > 0.0f ) && ( gzipQuality >= deflateQuality ) )
+			{
+				result = GZIP;
+			}
+			else if ( deflateQuality > 0.0f )
+			{
+				result = DEFLATE;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Takes a deflater from the pool, or creates a new one.
+	 *
+	 * @param nowrap {@code true} for raw deflate data (used by 'gzip');
+	 *               {@code false} for the zlib format (used by 'deflate').
+	 * @param level  Compression level.
+	 *
+	 * @return Deflater.
+	 */
+	@NotNull
+	static Deflater acquireDeflater( final boolean nowrap, final int level )
+	{
+		final Queue<Deflater> pool = getDeflaterPool( nowrap, level );
+		final Deflater pooled = pool.poll();
+		return ( pooled != null ) ? pooled : new Deflater( level, nowrap );
+	}
+
+	/**
+	 * Returns a deflater to the pool, or releases its resources if the pool is
+	 * full.
+	 *
+	 * @param deflater Deflater to return.
+	 * @param nowrap   {@code true} for raw deflate data (used by 'gzip');
+	 *                 {@code false} for the zlib format (used by 'deflate').
+	 * @param level    Compression level.
+	 */
+	static void releaseDeflater( @NotNull final Deflater deflater, final boolean nowrap, final int level )
+	{
+		final Queue<Deflater> pool = getDeflaterPool( nowrap, level );
+		if ( pool.size() < MAX_POOLED_DEFLATERS )
+		{
+			deflater.reset();
+			pool.offer( deflater );
+		}
+		else
+		{
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Returns the pool of deflaters with the given settings.
+	 *
+	 * @param nowrap Whether to use raw deflate data.
+	 * @param level  Compression level.
+	 *
+	 * @return Pool of deflaters.
+	 */
+	@NotNull
+	private static Queue<Deflater> getDeflaterPool( final boolean nowrap, final int level )
+	{
+		final ConcurrentMap<Integer, Queue<Deflater>> pools = nowrap ? GZIP_DEFLATERS : ZLIB_DEFLATERS;
+		Queue<Deflater> result = pools.get( level );
+		if ( result == null )
+		{
+			result = new ConcurrentLinkedQueue<Deflater>();
+			final Queue<Deflater> existing = pools.putIfAbsent( level, result );
+			if ( existing != null )
+			{
+				result = existing;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Output stream that buffers data up to a threshold, and compresses the
+	 * data once the threshold is exceeded. The response headers are updated
+	 * before any compressed data is written, i.e. before the response is
+	 * committed.
+	 */
+	static class CompressingOutputStream
+	extends OutputStream
+	{
+		/**
+		 * Underlying (entity) stream.
+		 */
+		@NotNull
+		private final OutputStream _out;
+
+		/**
+		 * Response headers.
+		 */
+		@NotNull
+		private final MultivaluedMap<String, Object> _headers;
+
+		/**
+		 * Content-coding to use.
+		 */
+		@NotNull
+		private final String _encoding;
+
+		/**
+		 * Whether the 'gzip' content-coding is used.
+		 */
+		private final boolean _gzip;
+
+		/**
+		 * Compression level.
+		 */
+		private final int _level;
+
+		/**
+		 * Data buffered until the threshold is exceeded.
+		 */
+		@NotNull
+		private final byte[] _buffer;
+
+		/**
+		 * Number of bytes in {@link #_buffer}.
+		 */
+		private int _count = 0;
+
+		/**
+		 * Checksum of uncompressed data, used for 'gzip' trailer.
+		 */
+		private final CRC32 _crc = new CRC32();
+
+		/**
+		 * Deflater in use; {@code null} if not compressing (yet).
+		 */
+		@Nullable
+		private Deflater _deflater = null;
+
+		/**
+		 * Compressing stream; {@code null} if not compressing (yet).
+		 */
+		@Nullable
+		private DeflaterOutputStream _deflaterStream = null;
+
+		/**
+		 * Whether the stream is finished.
+		 */
+		private boolean _finished = false;
+
+		/**
+		 * Construct stream.
+		 *
+		 * @param out       Underlying (entity) stream.
+		 * @param headers   Response headers.
+		 * @param encoding  Content-coding to use.
+		 * @param threshold Minimum number of bytes to compress.
+		 * @param level     Compression level.
+		 */
+		CompressingOutputStream( @NotNull final OutputStream out, @NotNull final MultivaluedMap<String, Object> headers, @NotNull final String encoding, final int threshold, final int level )
+		{
+			_out = out;
+			_headers = headers;
+			_encoding = encoding;
+			_gzip = GZIP.equals( encoding );
+			_level = level;
+			_buffer = new byte[ Math.max( 0, threshold ) ];
+		}
+
+		/**
+		 * Returns whether the data written so far is being compressed.
+		 *
+		 * @return {@code true} if the data is compressed.
+		 */
+		boolean isCompressing()
+		{
+			return ( _deflaterStream != null );
+		}
+
+		@Override
+		public void write( final int b )
+		throws IOException
+		{
+			write( new byte[] { (byte)b }, 0, 1 );
+		}
+
+		@Override
+		public void write( @NotNull final byte[] b, final int off, final int len )
+		throws IOException
+		{
+			if ( _finished )
+			{
+				throw new IOException( "Stream finished" );
+			}
+
+			DeflaterOutputStream deflaterStream = _deflaterStream;
+			if ( deflaterStream == null )
+			{
+				if ( _count + len <= _buffer.length )
+				{
+					System.arraycopy( b, off, _buffer, _count, len );
+					_count += len;
+				}
+				else
+				{
+					deflaterStream = startCompression();
+					_crc.update( b, off, len );
+					deflaterStream.write( b, off, len );
+				}
+			}
+			else
+			{
+				_crc.update( b, off, len );
+				deflaterStream.write( b, off, len );
+			}
+		}
+
+		/**
+		 * Starts compression by updating the response headers, writing the
+		 * 'gzip' header and any buffered data.
+		 *
+		 * @return Compressing stream.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		@NotNull
+		private DeflaterOutputStream startCompression()
+		throws IOException
+		{
+			if ( LOG.isDebugEnabled() )
+			{
+				LOG.debug( "Compressing response using '" + _encoding + "' content-coding" );
+			}
+
+			_headers.putSingle( HttpHeaders.CONTENT_ENCODING, _encoding );
+			_headers.remove( HttpHeaders.CONTENT_LENGTH );
+
+			final Object entityTag = _headers.getFirst( HttpHeaders.ETAG );
+			if ( entityTag instanceof EntityTag )
+			{
+				_headers.putSingle( HttpHeaders.ETAG, getCompressedEntityTag( (EntityTag)entityTag, _encoding ) );
+			}
+			else if ( entityTag != null )
+			{
+				/* entity tag as string, e.g. '"abc"' or 'W/"abc"' */
+				final String string = entityTag.toString();
+				final int end = string.endsWith( "\"" ) ? string.length() - 1 : string.length();
+				_headers.putSingle( HttpHeaders.ETAG, string.substring( 0, end ) + '-' + _encoding + string.substring( end ) );
+			}
+
+			if ( _gzip )
+			{
+				_out.write( GZIP_HEADER );
+			}
+
+			final Deflater deflater = acquireDeflater( _gzip, _level );
+			_deflater = deflater;
+			/* sync flush, so 'flush' sends streamed data to the client */
+			final DeflaterOutputStream result = new DeflaterOutputStream( _out, deflater, BUFFER_SIZE, true );
+			_deflaterStream = result;
+
+			if ( _count > 0 )
+			{
+				_crc.update( _buffer, 0, _count );
+				result.write( _buffer, 0, _count );
+				_count = 0;
+			}
+
+			return result;
+		}
+
+		/**
+		 * Finishes writing data to the underlying stream without closing it.
+		 * If the threshold was not exceeded, the buffered data is written
+		 * uncompressed.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		void finish()
+		throws IOException
+		{
+			if ( !_finished )
+			{
+				_finished = true;
+
+				final DeflaterOutputStream deflaterStream = _deflaterStream;
+				final Deflater deflater = _deflater;
+				if ( ( deflaterStream == null ) || ( deflater == null ) )
+				{
+					if ( _count > 0 )
+					{
+						_out.write( _buffer, 0, _count );
+						_count = 0;
+					}
+				}
+				else
+				{
+					deflaterStream.finish();
+					if ( _gzip )
+					{
+						writeIntLE( (int)_crc.getValue() );
+						writeIntLE( (int)deflater.getBytesRead() );
+					}
+				}
+
+				_out.flush();
+			}
+		}
+
+		/**
+		 * Returns the deflater (if any) to the pool. The stream can not be
+		 * used to compress data after this.
+		 */
+		void releaseDeflater()
+		{
+			final Deflater deflater = _deflater;
+			if ( deflater != null )
+			{
+				_deflater = null;
+				_finished = true;
+				CompressionInterceptor.releaseDeflater( deflater, _gzip, _level );
+			}
+		}
+
+		/**
+		 * Writes a 32-bit integer in little-endian byte order.
+		 *
+		 * @param value Value to write.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private void writeIntLE( final int value )
+		throws IOException
+		{
+			_out.write( new byte[] { (byte)value, (byte)( value >>> 8 ), (byte)( value >>> 16 ), (byte)( value >>> 24 ) } );
+		}
+
+		@Override
+		public void flush()
+		throws IOException
+		{
+			/* buffered data is retained until the threshold is exceeded */
+			final DeflaterOutputStream deflaterStream = _deflaterStream;
+			if ( deflaterStream != null )
+			{
+				deflaterStream.flush();
+			}
+		}
+
+		@Override
+		public void close()
+		throws IOException
+		{
+			try
+			{
+				finish();
+			}
+			finally
+			{
+				releaseDeflater();
+				_out.close();
+			}
+		}
+	}
+
+	/**
+	 * Input stream that fails with {@code 413 Payload Too Large} when more
+	 * than a maximum number of bytes is read.
+	 */
+	static class LimitedInputStream
+	extends FilterInputStream
+	{
+		/**
+		 * Number of bytes that may still be read.
+		 */
+		private long _remaining;
+
+		/**
+		 * Construct stream.
+		 *
+		 * @param in        Stream to read from.
+		 * @param maxLength Maximum number of bytes to read.
+		 */
+		LimitedInputStream( @NotNull final InputStream in, final long maxLength )
+		{
+			super( in );
+			_remaining = maxLength;
+		}
+
+		@Override
+		public int read()
+		throws IOException
+		{
+			final int result = super.read();
+			if ( result >= 0 )
+			{
+				consumed( 1 );
+			}
+			return result;
+		}
+
+		@Override
+		public int read( @NotNull final byte[] b, final int off, final int len )
+		throws IOException
+		{
+			final int result = super.read( b, off, len );
+			if ( result > 0 )
+			{
+				consumed( result );
+			}
+			return result;
+		}
+
+		@Override
+		public long skip( final long n )
+		throws IOException
+		{
+			final long result = super.skip( n );
+			consumed( result );
+			return result;
+		}
+
+		@Override
+		public boolean markSupported()
+		{
+			return false;
+		}
+
+		/**
+		 * Accounts for bytes that were read.
+		 *
+		 * @param count Number of bytes read.
+		 */
+		private void consumed( final long count )
+		{
+			_remaining -= count;
+			if ( _remaining < 0L )
+			{
+				LOG.warn( "Rejected compressed request body that exceeds maximum size" );
+				throw new WebApplicationException( Response.Status.REQUEST_ENTITY_TOO_LARGE );
+			}
+		}
+	}
+}
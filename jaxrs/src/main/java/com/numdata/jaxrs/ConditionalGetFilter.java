@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.jaxrs;
+
+import java.io.*;
+import java.security.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+import javax.annotation.*;
+import javax.ws.rs.*;
+import javax.ws.rs.container.*;
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.*;
+
+import com.numdata.oss.log.*;
+import org.jetbrains.annotations.*;
+
+/**
+ * Filter that handles {@link ConditionalGet} annotations.
+ *
+ * <p>If the response has an {@code ETag} and/or {@code Last-Modified} header,
+ * or its entity implements {@link CacheValidator}, these validators are
+ * compared with the request's {@code If-None-Match} and
+ * {@code If-Modified-Since} headers. Otherwise, the entity is serialized once,
+ * and an entity tag is computed from a hash of the serialized data, which
+ * then replaces the entity.
+ */
+@Provider
+@ConditionalGet
+@Priority( Priorities.HEADER_DECORATOR )
+public class ConditionalGetFilter
+implements ContainerResponseFilter
+{
+	/**
+	 * Log used for messages related to this class.
+	 */
+	private static final ClassLogger LOG = ClassLogger.getFor( ConditionalGetFilter.class );
+
+	/**
+	 * Message digest algorithm used to compute entity tags.
+	 */
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	/**
+	 * Number of digest bytes used in computed entity tags.
+	 */
+	private static final int DIGEST_LENGTH = 16;
+
+	/**
+	 * Resource class/method that matched the current request.
+	 */
+	@Context
+	private ResourceInfo _resourceInfo;
+
+	/**
+	 * Providers used to serialize entities.
+	 */
+	@Context
+	Providers _providers;
+
+	@Override
+	public void filter( final ContainerRequestContext requestContext, final ContainerResponseContext responseContext )
+	throws IOException
+	{
+		final String method = requestContext.getMethod();
+		if ( ( HttpMethod.GET.equals( method ) || HttpMethod.HEAD.equals( method ) ) && ( responseContext.getStatus() == Response.Status.OK.getStatusCode() ) && responseContext.hasEntity() )
+		{
+			final ConditionalGet annotation = ResourceAnnotations.find( ConditionalGet.class, responseContext.getEntityAnnotations(), _resourceInfo );
+			final MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+			final Object entity = responseContext.getEntity();
+
+			EntityTag entityTag = responseContext.getEntityTag();
+			Date lastModified = responseContext.getLastModified();
+
+			if ( entity instanceof CacheValidator )
+			{
+				final CacheValidator validator = (CacheValidator)entity;
+				if ( entityTag == null )
+				{
+					entityTag = validator.getEntityTag();
+					if ( entityTag != null )
+					{
+						headers.putSingle( HttpHeaders.ETAG, entityTag );
+					}
+				}
+
+				if ( lastModified == null )
+				{
+					lastModified = validator.getLastModified();
+					if ( lastModified != null )
+					{
+						headers.putSingle( HttpHeaders.LAST_MODIFIED, lastModified );
+					}
+				}
+			}
+
+			if ( ( entityTag == null ) && ( lastModified == null ) )
+			{
+				final byte[] serialized = serialize( responseContext );
+				if ( serialized != null )
+				{
+					entityTag = computeEntityTag( serialized, ( annotation != null ) && annotation.weak() );
+					headers.putSingle( HttpHeaders.ETAG, entityTag );
+					responseContext.setEntity( serialized, responseContext.getEntityAnnotations(), responseContext.getMediaType() );
+				}
+			}
+
+			if ( isNotModified( requestContext, entityTag, lastModified ) )
+			{
+				if ( LOG.isDebugEnabled() )
+				{
+					LOG.debug( "Not modified: " + requestContext.getUriInfo().getRequestUri() + " (ETag: " + entityTag + ", Last-Modified: " + lastModified + ')' );
+				}
+
+				responseContext.setStatus( Response.Status.NOT_MODIFIED.getStatusCode() );
+				responseContext.setEntity( null );
+				headers.remove( HttpHeaders.CONTENT_LENGTH );
+				headers.remove( HttpHeaders.CONTENT_TYPE );
+			}
+		}
+	}
+
+	/**
+	 * Serializes the response entity using the message body writer that
+	 * would otherwise be used to write it.
+	 *
+	 * @param responseContext Response context.
+	 *
+	 * @return Serialized entity; {@code null} if the entity can't be
+	 * serialized here.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Nullable
+	private byte[] serialize( @NotNull final ContainerResponseContext responseContext )
+	throws IOException
+	{
+		byte[] result = null;
+
+		final Object entity = responseContext.getEntity();
+		final MediaType mediaType = responseContext.getMediaType();
+		final Providers providers = _providers;
+
+		if ( entity instanceof byte[] )
+		{
+			result = (byte[])entity;
+		}
+		else if ( ( mediaType != null ) && ( providers != null ) )
+		{
+			//noinspection unchecked
+			final MessageBodyWriter<Object> writer = (MessageBodyWriter<Object>)providers.getMessageBodyWriter( responseContext.getEntityClass(), responseContext.getEntityType(), responseContext.getEntityAnnotations(), mediaType );
+			if ( writer != null )
+			{
+				final ByteArrayOutputStream out = new ByteArrayOutputStream();
+				writer.writeTo( entity, responseContext.getEntityClass(), responseContext.getEntityType(), responseContext.getEntityAnnotations(), mediaType, responseContext.getHeaders(), out );
+				result = out.toByteArray();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Computes an entity tag from a hash of the given data.
+	 *
+	 * @param data Serialized entity.
+	 * @param weak Whether the entity tag is weak.
+	 *
+	 * @return Entity tag.
+	 */
+	@NotNull
+	static EntityTag computeEntityTag( @NotNull final byte[] data, final boolean weak )
+	{
+		final MessageDigest digest;
+		try
+		{
+			digest = MessageDigest.getInstance( DIGEST_ALGORITHM );
+		}
+		catch ( final NoSuchAlgorithmException e )
+		{
+			throw new AssertionError( e );
+		}
+
+		final byte[] hash = Arrays.copyOf( digest.digest( data ), DIGEST_LENGTH );
+		return new EntityTag( Base64.getUrlEncoder().withoutPadding().encodeToString( hash ), weak );
+	}
+
+	/**
+	 * Evaluates the {@code If-None-Match} and {@code If-Modified-Since}
+	 * request headers, as specified by RFC 7232. If both are present,
+	 * {@code If-Modified-Since} is ignored.
+	 *
+	 * @param requestContext Request context.
+	 * @param entityTag      Entity tag of the current entity.
+	 * @param lastModified   Last modification date of the current entity.
+	 *
+	 * @return {@code true} if the entity was not modified.
+	 */
+	static boolean isNotModified( @NotNull final ContainerRequestContext requestContext, @Nullable final EntityTag entityTag, @Nullable final Date lastModified )
+	{
+		boolean result = false;
+
+		final String ifNoneMatch = requestContext.getHeaderString( HttpHeaders.IF_NONE_MATCH );
+		if ( ifNoneMatch != null )
+		{
+			if ( entityTag != null )
+			{
+				for ( final String candidate : ifNoneMatch.split( "," ) )
+				{
+					final String tag = candidate.trim();
+					final String opaqueTag = getOpaqueTag( tag );
+					/* also match the tag of a compressed representation of the entity */
+					if ( "*".equals( tag ) || entityTag.getValue().equals( opaqueTag ) || entityTag.getValue().equals( CompressionInterceptor.getUncompressedOpaqueTag( opaqueTag ) ) )
+					{
+						result = true;
+						break;
+					}
+				}
+			}
+		}
+		else if ( lastModified != null )
+		{
+			final String ifModifiedSince = requestContext.getHeaderString( HttpHeaders.IF_MODIFIED_SINCE );
+			if ( ifModifiedSince != null )
+			{
+				try
+				{
+					final long since = ZonedDateTime.parse( ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME ).toInstant().toEpochMilli();
+					/* HTTP dates have a resolution of one second */
+					result = ( lastModified.getTime() / 1000L <= since / 1000L );
+				}
+				catch ( final DateTimeParseException e )
+				{
+					LOG.debug( "Ignoring malformed If-Modified-Since header: " + ifModifiedSince );
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the opaque tag from an entity tag as found in an HTTP header,
+	 * i.e. without weakness indicator and quotes (weak comparison).
+	 *
+	 * @param tag Entity tag from HTTP header.
+	 *
+	 * @return Opaque tag.
+	 */
+	@NotNull
+	private static String getOpaqueTag( @NotNull final String tag )
+	{
+		int start = tag.startsWith( "W/" ) ? 2 : 0;
+		int end = tag.length();
+		if ( ( end - start >= 2 ) && ( tag.charAt( start ) == '"' ) && ( tag.charAt( end - 1 ) == '"' ) )
+		{
+			start++;
+			end--;
+		}
+		return tag.substring( start, end );
+	}
+}
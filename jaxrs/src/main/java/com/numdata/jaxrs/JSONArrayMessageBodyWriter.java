@@ -61,7 +61,7 @@ public class JSONArrayMessageBodyWriter
 		final String charset = ( mediaTypeCharset != null ) ? mediaTypeCharset : "UTF-8";
 		httpHeaders.putSingle( "Content-Type", mediaType.withCharset( charset ) );
 
-		final OutputStreamWriter writer = new OutputStreamWriter( entityStream, charset );
+		final Writer writer = new BufferedWriter( new OutputStreamWriter( entityStream, charset ) );
 		try
 		{
 			jsonArray.write( writer );
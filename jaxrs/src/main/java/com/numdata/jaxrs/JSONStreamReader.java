@@ -0,0 +1,671 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.jaxrs;
+
+import java.io.*;
+
+import org.jetbrains.annotations.*;
+import org.json.*;
+
+/**
+ * Event-based (pull) parser for JSON. Unlike {@link JSONTokener}, which always
+ * reads complete values, this allows large documents to be processed without
+ * holding the whole document in memory. For example, the elements of a large
+ * array can be read one at a time:
+ * <pre>
+ * if ( reader.next() != Event.START_ARRAY ) throw ...;
+ * for ( Event event = reader.next(); event != Event.END_ARRAY; event = reader.next() )
+ * {
+ *     final Object element = reader.readValue();
+ *     ...
+ * }
+ * </pre>
+ *
+ * @see JSONStreamReaderMessageBodyReader
+ */
+public class JSONStreamReader
+implements Closeable
+{
+	/**
+	 * Parser event.
+	 */
+	public enum Event
+	{
+		/**
+		 * Start of an object.
+		 */
+		START_OBJECT,
+
+		/**
+		 * End of an object.
+		 */
+		END_OBJECT,
+
+		/**
+		 * Start of an array.
+		 */
+		START_ARRAY,
+
+		/**
+		 * End of an array.
+		 */
+		END_ARRAY,
+
+		/**
+		 * Key of an object member; see {@link #getString()}.
+		 */
+		KEY,
+
+		/**
+		 * String, number, boolean or null value; see {@link #getValue()}.
+		 */
+		VALUE,
+
+		/**
+		 * End of the document.
+		 */
+		END_DOCUMENT
+	}
+
+	/**
+	 * Parser state: a value is expected.
+	 */
+	private static final int VALUE_EXPECTED = 0;
+
+	/**
+	 * Parser state: an object key is expected.
+	 */
+	private static final int KEY_EXPECTED = 1;
+
+	/**
+	 * Parser state: a separator (',') or end of object/array is expected.
+	 */
+	private static final int SEPARATOR_EXPECTED = 2;
+
+	/**
+	 * Parser state: the document was completely read.
+	 */
+	private static final int DONE = 3;
+
+	/**
+	 * Reader to read from.
+	 */
+	private final Reader _reader;
+
+	/**
+	 * Buffer with characters read from {@link #_reader}.
+	 */
+	private final char[] _buffer = new char[ 8192 ];
+
+	/**
+	 * Position of next character in {@link #_buffer}.
+	 */
+	private int _position = 0;
+
+	/**
+	 * Number of valid characters in {@link #_buffer}.
+	 */
+	private int _limit = 0;
+
+	/**
+	 * Number of characters read before the start of {@link #_buffer}.
+	 */
+	private long _offset = 0;
+
+	/**
+	 * Reused to build strings.
+	 */
+	private final StringBuilder _stringBuilder = new StringBuilder();
+
+	/**
+	 * Stack of open objects ('{') and arrays ('[').
+	 */
+	private char[] _stack = new char[ 16 ];
+
+	/**
+	 * Number of open objects and arrays.
+	 */
+	private int _depth = 0;
+
+	/**
+	 * Parser state.
+	 */
+	private int _state = VALUE_EXPECTED;
+
+	/**
+	 * Whether the current object or array was just opened.
+	 */
+	private boolean _empty = false;
+
+	/**
+	 * Last event.
+	 */
+	private Event _event = null;
+
+	/**
+	 * Key or string value of last event.
+	 */
+	private String _string = null;
+
+	/**
+	 * Value of last {@link Event#VALUE} event.
+	 */
+	private Object _value = null;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param reader Reader to read from.
+	 */
+	public JSONStreamReader( @NotNull final Reader reader )
+	{
+		_reader = reader;
+	}
+
+	/**
+	 * Reads the next event.
+	 *
+	 * @return Next event.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws JSONException if the JSON is malformed.
+	 */
+	@NotNull
+	public Event next()
+	throws IOException
+	{
+		_string = null;
+		_value = null;
+
+		final Event result;
+		int c = skipWhitespace();
+
+		if ( _state == DONE )
+		{
+			if ( c != -1 )
+			{
+				throw syntaxError( "Unexpected data after end of document" );
+			}
+			result = Event.END_DOCUMENT;
+		}
+		else if ( ( _state == SEPARATOR_EXPECTED ) && ( c != ',' ) )
+		{
+			if ( ( c != '}' ) && ( c != ']' ) )
+			{
+				throw syntaxError( "Expected ',' or end of " + ( ( _stack[ _depth - 1 ] == '{' ) ? "object" : "array" ) );
+			}
+			result = close( (char)c );
+		}
+		else
+		{
+			if ( _state == SEPARATOR_EXPECTED )
+			{
+				_state = ( _stack[ _depth - 1 ] == '{' ) ? KEY_EXPECTED : VALUE_EXPECTED;
+				_empty = false;
+				c = skipWhitespace();
+			}
+
+			if ( _state == KEY_EXPECTED )
+			{
+				if ( ( c == '}' ) && _empty )
+				{
+					result = close( '}' );
+				}
+				else if ( c == '"' )
+				{
+					_string = readString();
+					if ( skipWhitespace() != ':' )
+					{
+						throw syntaxError( "Expected ':' after key" );
+					}
+					_state = VALUE_EXPECTED;
+					result = Event.KEY;
+				}
+				else
+				{
+					throw syntaxError( "Expected key" );
+				}
+			}
+			else if ( ( c == ']' ) && _empty && ( _stack[ _depth - 1 ] == '[' ) )
+			{
+				result = close( ']' );
+			}
+			else if ( c == '{' )
+			{
+				push( '{' );
+				_state = KEY_EXPECTED;
+				result = Event.START_OBJECT;
+			}
+			else if ( c == '[' )
+			{
+				push( '[' );
+				_state = VALUE_EXPECTED;
+				result = Event.START_ARRAY;
+			}
+			else if ( c == '"' )
+			{
+				_string = readString();
+				_value = _string;
+				valueDone();
+				result = Event.VALUE;
+			}
+			else if ( c == -1 )
+			{
+				throw syntaxError( "Unexpected end of document" );
+			}
+			else
+			{
+				_value = readLiteral( (char)c );
+				valueDone();
+				result = Event.VALUE;
+			}
+		}
+
+		_event = result;
+		return result;
+	}
+
+	/**
+	 * Returns the last event read by {@link #next()}.
+	 *
+	 * @return Last event; {@code null} if no event was read yet.
+	 */
+	@Nullable
+	public Event getEvent()
+	{
+		return _event;
+	}
+
+	/**
+	 * Returns the key of the last {@link Event#KEY} event, or the value of the
+	 * last {@link Event#VALUE} event if it is a string.
+	 *
+	 * @return Key or string value; {@code null} for other events.
+	 */
+	@Nullable
+	public String getString()
+	{
+		return _string;
+	}
+
+	/**
+	 * Returns the value of the last {@link Event#VALUE} event. Values are
+	 * represented as by {@link JSONObject}, i.e. {@link String},
+	 * {@link Boolean}, {@link Number}, or {@link JSONObject#NULL}.
+	 *
+	 * @return Value; {@code null} for other events.
+	 */
+	@Nullable
+	public Object getValue()
+	{
+		return _value;
+	}
+
+	/**
+	 * Returns the number of currently open objects and arrays.
+	 *
+	 * @return Nesting depth.
+	 */
+	public int getDepth()
+	{
+		return _depth;
+	}
+
+	/**
+	 * Reads the value that started with the last event. For
+	 * {@link Event#START_OBJECT} and {@link Event#START_ARRAY}, the remainder
+	 * of the object or array is read into a {@link JSONObject} or
+	 * {@link JSONArray}, respectively.
+	 *
+	 * @return Value.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws JSONException if the JSON is malformed.
+	 * @throws IllegalStateException if the last event does not start a value.
+	 */
+	@NotNull
+	public Object readValue()
+	throws IOException
+	{
+		final Event event = _event;
+		if ( event == null )
+		{
+			throw new IllegalStateException( "No value started" );
+		}
+
+		final Object result;
+		switch ( event )
+		{
+			case START_OBJECT:
+				final JSONObject object = new JSONObject();
+				for ( Event next = next(); next != Event.END_OBJECT; next = next() )
+				{
+					final String key = _string;
+					next();
+					object.put( key, readValue() );
+				}
+				result = object;
+				break;
+
+			case START_ARRAY:
+				final JSONArray array = new JSONArray();
+				for ( Event next = next(); next != Event.END_ARRAY; next = next() )
+				{
+					array.put( readValue() );
+				}
+				result = array;
+				break;
+
+			case VALUE:
+				//noinspection ConstantConditions
+				result = _value;
+				break;
+
+			default:
+				throw new IllegalStateException( "No value started by " + event );
+		}
+		return result;
+	}
+
+	@Override
+	public void close()
+	throws IOException
+	{
+		_reader.close();
+	}
+
+	/**
+	 * Opens an object or array.
+	 *
+	 * @param c Opening character.
+	 */
+	private void push( final char c )
+	{
+		char[] stack = _stack;
+		if ( _depth == stack.length )
+		{
+			stack = new char[ stack.length * 2 ];
+			System.arraycopy( _stack, 0, stack, 0, _depth );
+			_stack = stack;
+		}
+		stack[ _depth++ ] = c;
+		_empty = true;
+	}
+
+	/**
+	 * Closes an object or array.
+	 *
+	 * @param c Closing character.
+	 *
+	 * @return End event.
+	 */
+	private Event close( final char c )
+	{
+		final char open = ( c == '}' ) ? '{' : '[';
+		if ( ( _depth == 0 ) || ( _stack[ _depth - 1 ] != open ) )
+		{
+			throw syntaxError( "Unexpected '" + c + '\'' );
+		}
+		_depth--;
+		valueDone();
+		return ( c == '}' ) ? Event.END_OBJECT : Event.END_ARRAY;
+	}
+
+	/**
+	 * Updates the parser state after a complete value was read.
+	 */
+	private void valueDone()
+	{
+		_empty = false;
+		_state = ( _depth == 0 ) ? DONE : SEPARATOR_EXPECTED;
+	}
+
+	/**
+	 * Ensures that the buffer contains at least one character.
+	 *
+	 * @return {@code true} if a character is available; {@code false} at end
+	 * of input.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private boolean fill()
+	throws IOException
+	{
+		boolean result = ( _position < _limit );
+		if ( !result )
+		{
+			_offset += _limit;
+			_position = 0;
+			_limit = 0;
+
+			final int read = _reader.read( _buffer );
+			if ( read > 0 )
+			{
+				_limit = read;
+				result = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the next character that is not whitespace.
+	 *
+	 * @return Character; {@code -1} at end of input.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private int skipWhitespace()
+	throws IOException
+	{
+		int result = -1;
+		while ( fill() )
+		{
+			final char c = _buffer[ _position++ ];
+			if ( ( c != ' ' ) && ( c != '\t' ) && ( c != '\n' ) && ( c != '\r' ) )
+			{
+				result = c;
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a string, after the opening quote.
+	 *
+	 * @return String.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	private String readString()
+	throws IOException
+	{
+		final StringBuilder sb = _stringBuilder;
+		sb.setLength( 0 );
+
+		while ( true )
+		{
+			if ( !fill() )
+			{
+				throw syntaxError( "Unterminated string" );
+			}
+
+			/* copy runs of plain characters in bulk */
+			final char[] buffer = _buffer;
+			final int start = _position;
+			int end = start;
+			while ( ( end < _limit ) && ( buffer[ end ] != '"' ) && ( buffer[ end ] != '\\' ) )
+			{
+				if ( buffer[ end ] < ' ' )
+				{
+					_position = end;
+					throw syntaxError( "Control character in string" );
+				}
+				end++;
+			}
+			sb.append( buffer, start, end - start );
+			_position = end;
+
+			if ( end < _limit )
+			{
+				_position++;
+				if ( buffer[ end ] == '"' )
+				{
+					break;
+				}
+				sb.append( readEscape() );
+			}
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Reads an escape sequence in a string, after the backslash.
+	 *
+	 * @return Escaped character.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private char readEscape()
+	throws IOException
+	{
+		final char result;
+		switch ( readChar() )
+		{
+			case '"':
+				result = '"';
+				break;
+			case '\\':
+				result = '\\';
+				break;
+			case '/':
+				result = '/';
+				break;
+			case 'b':
+				result = '\b';
+				break;
+			case 'f':
+				result = '\f';
+				break;
+			case 'n':
+				result = '\n';
+				break;
+			case 'r':
+				result = '\r';
+				break;
+			case 't':
+				result = '\t';
+				break;
+			case 'u':
+				int code = 0;
+				for ( int i = 0; i < 4; i++ )
+				{
+					final int digit = Character.digit( readChar(), 16 );
+					if ( digit < 0 )
+					{
+						throw syntaxError( "Illegal unicode escape" );
+					}
+					code = ( code << 4 ) | digit;
+				}
+				result = (char)code;
+				break;
+			default:
+				throw syntaxError( "Illegal escape" );
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a single character.
+	 *
+	 * @return Character.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private char readChar()
+	throws IOException
+	{
+		if ( !fill() )
+		{
+			throw syntaxError( "Unexpected end of document" );
+		}
+		return _buffer[ _position++ ];
+	}
+
+	/**
+	 * Reads a number, boolean, or null.
+	 *
+	 * @param first First character of the literal.
+	 *
+	 * @return Value.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	private Object readLiteral( final char first )
+	throws IOException
+	{
+		final StringBuilder sb = _stringBuilder;
+		sb.setLength( 0 );
+		sb.append( first );
+
+		while ( fill() )
+		{
+			final char c = _buffer[ _position ];
+			if ( ( c == ',' ) || ( c == '}' ) || ( c == ']' ) || ( c == ':' ) || ( c == '"' ) || ( c == ' ' ) || ( c == '\t' ) || ( c == '\n' ) || ( c == '\r' ) )
+			{
+				break;
+			}
+			sb.append( c );
+			_position++;
+		}
+
+		final String literal = sb.toString();
+		final Object result = JSONObject.stringToValue( literal );
+		if ( result instanceof String )
+		{
+			throw syntaxError( "Illegal value '" + literal + '\'' );
+		}
+		return result;
+	}
+
+	/**
+	 * Creates an exception for malformed JSON.
+	 *
+	 * @param message Detail message.
+	 *
+	 * @return Exception to throw.
+	 */
+	@NotNull
+	private JSONException syntaxError( @NotNull final String message )
+	{
+		return new JSONException( message + " at character " + ( _offset + _position ) );
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.jaxrs;
+
+import java.lang.annotation.*;
+import java.lang.reflect.*;
+import javax.ws.rs.container.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Provides lookup of name-binding annotations for filters and interceptors.
+ */
+final class ResourceAnnotations
+{
+	/**
+	 * Utility class is not supposed to be instantiated.
+	 */
+	private ResourceAnnotations()
+	{
+	}
+
+	/**
+	 * Finds an annotation on the entity, or else on the resource method or
+	 * resource class that matched the current request.
+	 *
+	 * @param annotationClass   Type of annotation.
+	 * @param entityAnnotations Entity annotations.
+	 * @param resourceInfo      Resource class/method that matched the request.
+	 * @param <A>               Type of annotation.
+	 *
+	 * @return Annotation; {@code null} if not found.
+	 */
+	@Nullable
+	static <A extends Annotation> A find( @NotNull final Class<A> annotationClass, @Nullable final Annotation[] entityAnnotations, @Nullable final ResourceInfo resourceInfo )
+	{
+		A result = null;
+
+		if ( entityAnnotations != null )
+		{
+			for ( final Annotation candidate : entityAnnotations )
+			{
+				if ( annotationClass.isInstance( candidate ) )
+				{
+					result = annotationClass.cast( candidate );
+					break;
+				}
+			}
+		}
+
+		if ( ( result == null ) && ( resourceInfo != null ) )
+		{
+			final Method resourceMethod = resourceInfo.getResourceMethod();
+			if ( resourceMethod != null )
+			{
+				result = resourceMethod.getAnnotation( annotationClass );
+			}
+
+			if ( result == null )
+			{
+				final Class<?> resourceClass = resourceInfo.getResourceClass();
+				if ( resourceClass != null )
+				{
+					result = resourceClass.getAnnotation( annotationClass );
+				}
+			}
+		}
+
+		return result;
+	}
+}
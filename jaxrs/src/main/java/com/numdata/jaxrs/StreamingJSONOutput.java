@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.jaxrs;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+import org.json.*;
+
+/**
+ * Resource method result that writes JSON incrementally, without building a
+ * complete {@link JSONObject} or {@link JSONArray} in memory first. This is
+ * the JSON equivalent of {@link javax.ws.rs.core.StreamingOutput}.
+ *
+ * @see StreamingJSONOutputMessageBodyWriter
+ */
+@FunctionalInterface
+public interface StreamingJSONOutput
+{
+	/**
+	 * Writes JSON to the given writer.
+	 *
+	 * @param writer Writer to write a single JSON value to.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws JSONException if the JSON is malformed.
+	 */
+	void write( @NotNull JSONWriter writer )
+	throws IOException;
+
+	/**
+	 * Creates output that writes the given elements as a JSON array. Elements
+	 * are retrieved from the iterable and written one at a time, so only one
+	 * element needs to be in memory at any time.
+	 *
+	 * @param elements Array elements, e.g. {@link JSONObject}s, strings or
+	 *                 numbers.
+	 *
+	 * @return Streaming JSON output.
+	 */
+	@NotNull
+	static StreamingJSONOutput array( @NotNull final Iterable<?> elements )
+	{
+		return writer -> {
+			writer.array();
+			for ( final Object element : elements )
+			{
+				writer.value( element );
+			}
+			writer.endArray();
+		};
+	}
+
+	/**
+	 * Creates output that writes the given elements as a JSON array. Elements
+	 * are retrieved from the iterator and written one at a time, so only one
+	 * element needs to be in memory at any time.
+	 *
+	 * @param elements Array elements, e.g. {@link JSONObject}s, strings or
+	 *                 numbers.
+	 *
+	 * @return Streaming JSON output.
+	 */
+	@NotNull
+	static StreamingJSONOutput array( @NotNull final Iterator<?> elements )
+	{
+		return writer -> {
+			writer.array();
+			while ( elements.hasNext() )
+			{
+				writer.value( elements.next() );
+			}
+			writer.endArray();
+		};
+	}
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.jaxrs;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+import javax.ws.rs.*;
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for {@link CompressionInterceptor}.
+ */
+public class TestCompressionInterceptor
+{
+	/**
+	 * Tests selection of content-coding based on {@code Accept-Encoding}.
+	 */
+	@Test
+	public void testSelectEncoding()
+	{
+		assertNull( "No header", CompressionInterceptor.selectEncoding( null ) );
+		assertNull( "Identity only", CompressionInterceptor.selectEncoding( Collections.singletonList( "identity" ) ) );
+		assertEquals( "gzip", CompressionInterceptor.selectEncoding( Collections.singletonList( "gzip, deflate, br" ) ) );
+		assertEquals( "deflate", CompressionInterceptor.selectEncoding( Collections.singletonList( "deflate" ) ) );
+		assertEquals( "deflate", CompressionInterceptor.selectEncoding( Collections.singletonList( "gzip;q=0.5, deflate" ) ) );
+		assertEquals( "deflate", CompressionInterceptor.selectEncoding( Arrays.asList( "gzip;q=0", "deflate;q=0.1" ) ) );
+		assertEquals( "gzip", CompressionInterceptor.selectEncoding( Collections.singletonList( "*" ) ) );
+		assertNull( "Wildcard refused", CompressionInterceptor.selectEncoding( Collections.singletonList( "*;q=0" ) ) );
+		assertNull( "Malformed quality", CompressionInterceptor.selectEncoding( Collections.singletonList( "gzip;q=high" ) ) );
+	}
+
+	/**
+	 * Tests compression of responses.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testWriteResponse()
+	throws Exception
+	{
+		final CompressionInterceptor interceptor = new CompressionInterceptor();
+		final byte[] large = createData( 100000 );
+		final byte[] small = createData( 100 );
+
+		// Large response, gzip accepted.
+		for ( int i = 0; i < 2; i++ )
+		{
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<String, Object>();
+			headers.putSingle( HttpHeaders.CONTENT_LENGTH, large.length );
+			interceptor._httpHeaders = createHttpHeaders( "gzip, deflate" );
+			interceptor.aroundWriteTo( createWriterContext( large, headers, out ) );
+			assertEquals( "Unexpected Content-Encoding", "gzip", headers.getFirst( HttpHeaders.CONTENT_ENCODING ) );
+			assertEquals( "Unexpected Vary", HttpHeaders.ACCEPT_ENCODING, headers.getFirst( HttpHeaders.VARY ) );
+			assertFalse( "Content-Length should be removed", headers.containsKey( HttpHeaders.CONTENT_LENGTH ) );
+			assertTrue( "Response should be compressed", out.size() < large.length / 2 );
+			assertArrayEquals( "Unexpected data", large, readFully( new GZIPInputStream( new ByteArrayInputStream( out.toByteArray() ) ) ) );
+		}
+
+		// Large response, deflate accepted.
+		{
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<String, Object>();
+			interceptor._httpHeaders = createHttpHeaders( "deflate" );
+			interceptor.aroundWriteTo( createWriterContext( large, headers, out ) );
+			assertEquals( "Unexpected Content-Encoding", "deflate", headers.getFirst( HttpHeaders.CONTENT_ENCODING ) );
+			assertArrayEquals( "Unexpected data", large, readFully( new InflaterInputStream( new ByteArrayInputStream( out.toByteArray() ) ) ) );
+		}
+
+		// Small response: below threshold.
+		{
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<String, Object>();
+			interceptor._httpHeaders = createHttpHeaders( "gzip" );
+			interceptor.aroundWriteTo( createWriterContext( small, headers, out ) );
+			assertNull( "Unexpected Content-Encoding", headers.getFirst( HttpHeaders.CONTENT_ENCODING ) );
+			assertArrayEquals( "Unexpected data", small, out.toByteArray() );
+		}
+
+		// Large response, compression not accepted.
+		{
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<String, Object>();
+			interceptor._httpHeaders = createHttpHeaders( null );
+			interceptor.aroundWriteTo( createWriterContext( large, headers, out ) );
+			assertNull( "Unexpected Content-Encoding", headers.getFirst( HttpHeaders.CONTENT_ENCODING ) );
+			assertEquals( "Unexpected Vary", HttpHeaders.ACCEPT_ENCODING, headers.getFirst( HttpHeaders.VARY ) );
+			assertArrayEquals( "Unexpected data", large, out.toByteArray() );
+		}
+	}
+
+	/**
+	 * Tests the {@code Vary} and {@code ETag} headers of compressed and
+	 * uncompressed responses.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testResponseHeaders()
+	throws Exception
+	{
+		final CompressionInterceptor interceptor = new CompressionInterceptor();
+		final byte[] large = createData( 100000 );
+
+		// Compressed: Vary is appended to, entity tag is suffixed.
+		{
+			final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<String, Object>();
+			headers.putSingle( HttpHeaders.VARY, "Accept-Language" );
+			headers.putSingle( HttpHeaders.ETAG, new EntityTag( "abc" ) );
+			interceptor._httpHeaders = createHttpHeaders( "gzip" );
+			interceptor.aroundWriteTo( createWriterContext( large, headers, new ByteArrayOutputStream() ) );
+			assertEquals( "Unexpected Vary", Collections.singletonList( "Accept-Language, " + HttpHeaders.ACCEPT_ENCODING ), headers.get( HttpHeaders.VARY ) );
+			assertEquals( "Unexpected ETag", new EntityTag( "abc-gzip" ), headers.getFirst( HttpHeaders.ETAG ) );
+		}
+
+		// Compressed: Vary already includes Accept-Encoding; entity tag as string.
+		{
+			final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<String, Object>();
+			headers.putSingle( HttpHeaders.VARY, "accept-encoding, Cookie" );
+			headers.putSingle( HttpHeaders.ETAG, "W/\"abc\"" );
+			interceptor._httpHeaders = createHttpHeaders( "deflate" );
+			interceptor.aroundWriteTo( createWriterContext( large, headers, new ByteArrayOutputStream() ) );
+			assertEquals( "Unexpected Vary", Collections.singletonList( "accept-encoding, Cookie" ), headers.get( HttpHeaders.VARY ) );
+			assertEquals( "Unexpected ETag", "W/\"abc-deflate\"", headers.getFirst( HttpHeaders.ETAG ) );
+		}
+
+		// Uncompressed: entity tag is unchanged.
+		{
+			final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<String, Object>();
+			headers.putSingle( HttpHeaders.ETAG, new EntityTag( "abc" ) );
+			interceptor._httpHeaders = createHttpHeaders( null );
+			interceptor.aroundWriteTo( createWriterContext( large, headers, new ByteArrayOutputStream() ) );
+			assertEquals( "Unexpected ETag", new EntityTag( "abc" ), headers.getFirst( HttpHeaders.ETAG ) );
+		}
+	}
+
+	/**
+	 * Tests that flushing a compressed response writes the data compressed
+	 * so far.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testFlush()
+	throws Exception
+	{
+		final byte[] data = createData( 10000 );
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final CompressionInterceptor.CompressingOutputStream stream = new CompressionInterceptor.CompressingOutputStream( out, new MultivaluedHashMap<String, Object>(), CompressionInterceptor.GZIP, 0, Deflater.DEFAULT_COMPRESSION );
+		try
+		{
+			stream.write( data, 0, data.length );
+			stream.flush();
+			final byte[] flushed = out.toByteArray();
+
+			final GZIPInputStream in = new GZIPInputStream( new ByteArrayInputStream( flushed ) );
+			final byte[] decompressed = new byte[ data.length ];
+			int count = 0;
+			while ( count < data.length )
+			{
+				final int read = in.read( decompressed, count, data.length - count );
+				assertTrue( "Flushed data should be complete", read > 0 );
+				count += read;
+			}
+			assertArrayEquals( "Unexpected data", data, decompressed );
+		}
+		finally
+		{
+			stream.releaseDeflater();
+		}
+	}
+
+	/**
+	 * Tests that decompressed request bodies are limited in size.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testReadRequestLimit()
+	throws Exception
+	{
+		final CompressionInterceptor interceptor = new CompressionInterceptor();
+		final int maxRequestSize = (int)CompressionInterceptor.DEFAULT_MAX_REQUEST_SIZE;
+
+		final MultivaluedMap<String, String> headers = new MultivaluedHashMap<String, String>();
+		headers.putSingle( HttpHeaders.CONTENT_ENCODING, "gzip" );
+		assertEquals( "Unexpected data length", maxRequestSize, ( (byte[])interceptor.aroundReadFrom( createReaderContext( gzip( new byte[ maxRequestSize ] ), headers ) ) ).length );
+
+		final MultivaluedMap<String, String> bombHeaders = new MultivaluedHashMap<String, String>();
+		bombHeaders.putSingle( HttpHeaders.CONTENT_ENCODING, "gzip" );
+		try
+		{
+			interceptor.aroundReadFrom( createReaderContext( gzip( new byte[ maxRequestSize + 1 ] ), bombHeaders ) );
+			fail( "Expected exception" );
+		}
+		catch ( final WebApplicationException e )
+		{
+			assertEquals( "Unexpected status", 413, e.getResponse().getStatus() );
+		}
+	}
+
+	/**
+	 * Tests decompression of request bodies.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testReadRequest()
+	throws Exception
+	{
+		final CompressionInterceptor interceptor = new CompressionInterceptor();
+		final byte[] data = createData( 10000 );
+
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try ( final GZIPOutputStream out = new GZIPOutputStream( compressed ) )
+		{
+			out.write( data );
+		}
+
+		final MultivaluedMap<String, String> headers = new MultivaluedHashMap<String, String>();
+		headers.putSingle( HttpHeaders.CONTENT_ENCODING, "gzip" );
+		assertArrayEquals( "Unexpected data", data, (byte[])interceptor.aroundReadFrom( createReaderContext( compressed.toByteArray(), headers ) ) );
+		assertFalse( "Content-Encoding should be removed", headers.containsKey( HttpHeaders.CONTENT_ENCODING ) );
+
+		final MultivaluedMap<String, String> identityHeaders = new MultivaluedHashMap<String, String>();
+		assertArrayEquals( "Unexpected data", data, (byte[])interceptor.aroundReadFrom( createReaderContext( data, identityHeaders ) ) );
+	}
+
+	/**
+	 * Compresses data using gzip.
+	 *
+	 * @param data Data to compress.
+	 *
+	 * @return Compressed data.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static byte[] gzip( final byte[] data )
+	throws IOException
+	{
+		final ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try ( final GZIPOutputStream out = new GZIPOutputStream( result ) )
+		{
+			out.write( data );
+		}
+		return result.toByteArray();
+	}
+
+	/**
+	 * Creates compressible test data.
+	 *
+	 * @param length Length of the data.
+	 *
+	 * @return Test data.
+	 */
+	private static byte[] createData( final int length )
+	{
+		final byte[] result = new byte[ length ];
+		final Random random = new Random( length );
+		for ( int i = 0; i < length; i++ )
+		{
+			result[ i ] = (byte)( 'a' + random.nextInt( 4 ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Creates mock request headers.
+	 *
+	 * @param acceptEncoding Value of {@code Accept-Encoding} header.
+	 *
+	 * @return Request headers.
+	 */
+	private static HttpHeaders createHttpHeaders( final String acceptEncoding )
+	{
+		final HttpHeaders result = mock( HttpHeaders.class );
+		when( result.getRequestHeader( HttpHeaders.ACCEPT_ENCODING ) ).thenReturn( ( acceptEncoding == null ) ? null : Collections.singletonList( acceptEncoding ) );
+		return result;
+	}
+
+	/**
+	 * Creates a mock writer interceptor context that writes the given data.
+	 *
+	 * @param data    Entity data.
+	 * @param headers Response headers.
+	 * @param out     Entity stream.
+	 *
+	 * @return Writer interceptor context.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static WriterInterceptorContext createWriterContext( final byte[] data, final MultivaluedMap<String, Object> headers, final OutputStream out )
+	throws IOException
+	{
+		final OutputStream[] stream = { out };
+		final WriterInterceptorContext result = mock( WriterInterceptorContext.class );
+		when( result.getHeaders() ).thenReturn( headers );
+		when( result.getAnnotations() ).thenReturn( new java.lang.annotation.Annotation[ 0 ] );
+		when( result.getOutputStream() ).thenAnswer( invocation -> stream[ 0 ] );
+		doAnswer( invocation -> stream[ 0 ] = invocation.getArgument( 0 ) ).when( result ).setOutputStream( any() );
+		doAnswer( invocation ->
+		          {
+			          /* write in chunks, like a message body writer would */
+			          for ( int offset = 0; offset < data.length; offset += 1000 )
+			          {
+				          stream[ 0 ].write( data, offset, Math.min( 1000, data.length - offset ) );
+			          }
+			          return null;
+		          } ).when( result ).proceed();
+		return result;
+	}
+
+	/**
+	 * Creates a mock reader interceptor context that reads all data.
+	 *
+	 * @param data    Entity data.
+	 * @param headers Request headers.
+	 *
+	 * @return Reader interceptor context.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static ReaderInterceptorContext createReaderContext( final byte[] data, final MultivaluedMap<String, String> headers )
+	throws IOException
+	{
+		final InputStream[] stream = { new ByteArrayInputStream( data ) };
+		final ReaderInterceptorContext result = mock( ReaderInterceptorContext.class );
+		when( result.getHeaders() ).thenReturn( headers );
+		when( result.getInputStream() ).thenAnswer( invocation -> stream[ 0 ] );
+		doAnswer( invocation -> stream[ 0 ] = invocation.getArgument( 0 ) ).when( result ).setInputStream( any() );
+		when( result.proceed() ).thenAnswer( invocation -> readFully( stream[ 0 ] ) );
+		return result;
+	}
+
+	/**
+	 * Reads all data from a stream.
+	 *
+	 * @param in Stream to read from.
+	 *
+	 * @return Data that was read.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static byte[] readFully( final InputStream in )
+	throws IOException
+	{
+		final ByteArrayOutputStream result = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[ 4096 ];
+		for ( int read = in.read( buffer ); read >= 0; read = in.read( buffer ) )
+		{
+			result.write( buffer, 0, read );
+		}
+		return result.toByteArray();
+	}
+}
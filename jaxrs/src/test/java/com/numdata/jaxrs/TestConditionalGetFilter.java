@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.jaxrs;
+
+import java.lang.annotation.*;
+import java.net.*;
+import java.util.*;
+import javax.ws.rs.container.*;
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.*;
+
+import org.json.*;
+import static org.junit.Assert.*;
+import org.junit.*;
+import static org.mockito.AdditionalMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for {@link ConditionalGetFilter}.
+ */
+public class TestConditionalGetFilter
+{
+	/**
+	 * Tests the filter with an entity tag computed from the serialized entity.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testComputedEntityTag()
+	throws Exception
+	{
+		final ConditionalGetFilter filter = new ConditionalGetFilter();
+		final Providers providers = mock( Providers.class );
+		when( providers.getMessageBodyWriter( any(), any(), any(), any() ) ).thenReturn( (MessageBodyWriter)new JSONObjectMessageBodyWriter() );
+		filter._providers = providers;
+
+		final JSONObject entity = new JSONObject().put( "answer", 42 );
+
+		// No If-None-Match: entity is serialized and tagged.
+		final ContainerResponseContext firstResponse = createResponseContext( entity, null, null );
+		filter.filter( createRequestContext( "GET", null, null ), firstResponse );
+		final EntityTag entityTag = (EntityTag)firstResponse.getHeaders().getFirst( HttpHeaders.ETAG );
+		assertNotNull( "Expected entity tag", entityTag );
+		assertFalse( "Computed entity tag should be strong", entityTag.isWeak() );
+		verify( firstResponse ).setEntity( aryEq( "{\"answer\":42}".getBytes( "UTF-8" ) ), any(), any() );
+		verify( firstResponse, never() ).setStatus( anyInt() );
+
+		// Matching If-None-Match: not modified.
+		final ContainerResponseContext secondResponse = createResponseContext( entity, null, null );
+		filter.filter( createRequestContext( "GET", "\"other\", " + entityTag, null ), secondResponse );
+		verify( secondResponse ).setStatus( 304 );
+		verify( secondResponse ).setEntity( null );
+		assertEquals( "Unexpected entity tag", entityTag, secondResponse.getHeaders().getFirst( HttpHeaders.ETAG ) );
+
+		// Different entity: modified.
+		final ContainerResponseContext thirdResponse = createResponseContext( new JSONObject().put( "answer", 43 ), null, null );
+		filter.filter( createRequestContext( "GET", entityTag.toString(), null ), thirdResponse );
+		verify( thirdResponse, never() ).setStatus( anyInt() );
+
+		// Not a GET request: ignored.
+		final ContainerResponseContext postResponse = createResponseContext( entity, null, null );
+		filter.filter( createRequestContext( "POST", entityTag.toString(), null ), postResponse );
+		verify( postResponse, never() ).setStatus( anyInt() );
+		assertNull( "Unexpected entity tag", postResponse.getHeaders().getFirst( HttpHeaders.ETAG ) );
+	}
+
+	/**
+	 * Tests the filter with validators supplied by the resource, which must
+	 * not cause the entity to be serialized.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSuppliedValidators()
+	throws Exception
+	{
+		final ConditionalGetFilter filter = new ConditionalGetFilter();
+		final Providers providers = mock( Providers.class );
+		filter._providers = providers;
+
+		final Date lastModified = new Date( 1500000000000L );
+		final String before = "Fri, 14 Jul 2017 02:39:59 GMT";
+		final String same = "Fri, 14 Jul 2017 02:40:00 GMT";
+
+		// Entity tag from response header.
+		final ContainerResponseContext headerResponse = createResponseContext( new JSONObject(), new EntityTag( "v1" ), null );
+		filter.filter( createRequestContext( "GET", "W/\"v1\"", null ), headerResponse );
+		verify( headerResponse ).setStatus( 304 );
+
+		// Last modified from response header.
+		final ContainerResponseContext modifiedResponse = createResponseContext( new JSONObject(), null, lastModified );
+		filter.filter( createRequestContext( "GET", null, before ), modifiedResponse );
+		verify( modifiedResponse, never() ).setStatus( anyInt() );
+
+		final ContainerResponseContext notModifiedResponse = createResponseContext( new JSONObject(), null, lastModified );
+		filter.filter( createRequestContext( "GET", null, same ), notModifiedResponse );
+		verify( notModifiedResponse ).setStatus( 304 );
+
+		// Validators from entity.
+		final CacheValidator validator = new CacheValidator()
+		{
+			@Override
+			public EntityTag getEntityTag()
+			{
+				return new EntityTag( "v2" );
+			}
+
+			@Override
+			public Date getLastModified()
+			{
+				return lastModified;
+			}
+		};
+
+		final ContainerResponseContext validatorResponse = createResponseContext( validator, null, null );
+		filter.filter( createRequestContext( "GET", "\"v2\"", before ), validatorResponse );
+		verify( validatorResponse ).setStatus( 304 );
+		assertEquals( "Unexpected entity tag", new EntityTag( "v2" ), validatorResponse.getHeaders().getFirst( HttpHeaders.ETAG ) );
+		assertEquals( "Unexpected last modified", lastModified, validatorResponse.getHeaders().getFirst( HttpHeaders.LAST_MODIFIED ) );
+
+		// Entity tag of compressed representation (see CompressionInterceptor).
+		final ContainerResponseContext compressedResponse = createResponseContext( validator, null, null );
+		filter.filter( createRequestContext( "GET", "\"v2-gzip\"", null ), compressedResponse );
+		verify( compressedResponse ).setStatus( 304 );
+
+				final ContainerResponseContext wildcardResponse = createResponseContext( validator, null, null );
+		filter.filter( createRequestContext( "HEAD", "*", null ), wildcardResponse );
+		verify( wildcardResponse ).setStatus( 304 );
+
+		verifyNoInteractions( providers );
+	}
+
+	/**
+	 * Creates a mock request context.
+	 *
+	 * @param method          HTTP method.
+	 * @param ifNoneMatch     Value of 'If-None-Match' header.
+	 * @param ifModifiedSince Value of 'If-Modified-Since' header.
+	 *
+	 * @return Request context.
+	 */
+	private static ContainerRequestContext createRequestContext( final String method, final String ifNoneMatch, final String ifModifiedSince )
+	{
+		final UriInfo uriInfo = mock( UriInfo.class );
+		when( uriInfo.getRequestUri() ).thenReturn( URI.create( "https://www.example.com/hello/world" ) );
+		final ContainerRequestContext result = mock( ContainerRequestContext.class );
+		when( result.getUriInfo() ).thenReturn( uriInfo );
+		when( result.getMethod() ).thenReturn( method );
+		when( result.getHeaderString( HttpHeaders.IF_NONE_MATCH ) ).thenReturn( ifNoneMatch );
+		when( result.getHeaderString( HttpHeaders.IF_MODIFIED_SINCE ) ).thenReturn( ifModifiedSince );
+		return result;
+	}
+
+	/**
+	 * Creates a mock response context.
+	 *
+	 * @param entity       Response entity.
+	 * @param entityTag    Entity tag set by resource.
+	 * @param lastModified Last modification date set by resource.
+	 *
+	 * @return Response context.
+	 */
+	private static ContainerResponseContext createResponseContext( final Object entity, final EntityTag entityTag, final Date lastModified )
+	{
+		final ContainerResponseContext result = mock( ContainerResponseContext.class );
+		when( result.getStatus() ).thenReturn( 200 );
+		when( result.hasEntity() ).thenReturn( true );
+		when( result.getEntity() ).thenReturn( entity );
+		when( result.getEntityClass() ).thenReturn( (Class)entity.getClass() );
+		when( result.getEntityType() ).thenReturn( entity.getClass() );
+		when( result.getEntityAnnotations() ).thenReturn( new Annotation[ 0 ] );
+		when( result.getMediaType() ).thenReturn( MediaType.APPLICATION_JSON_TYPE );
+		when( result.getHeaders() ).thenReturn( new MultivaluedHashMap<>() );
+		when( result.getEntityTag() ).thenReturn( entityTag );
+		when( result.getLastModified() ).thenReturn( lastModified );
+		return result;
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.jaxrs;
+
+import java.io.*;
+import java.util.*;
+
+import com.numdata.jaxrs.JSONStreamReader.*;
+import org.json.*;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Unit test for {@link JSONStreamReader}.
+ */
+public class TestJSONStreamReader
+{
+	@Test
+	public void testEvents()
+	throws IOException
+	{
+		final JSONStreamReader reader = new JSONStreamReader( new StringReader( " {\"a\" : [1, -2.5, true, null, \"x\\\"\\u00e9\\n\"], \"b\":{}, \"c\":[]}\n" ) );
+
+		final List<Object> actual = new ArrayList<>();
+		for ( Event event = reader.next(); event != Event.END_DOCUMENT; event = reader.next() )
+		{
+			actual.add( event );
+			if ( event == Event.KEY )
+			{
+				actual.add( reader.getString() );
+			}
+			else if ( event == Event.VALUE )
+			{
+				actual.add( reader.getValue() );
+			}
+		}
+
+		assertEquals( "Unexpected events", Arrays.asList(
+		Event.START_OBJECT,
+		Event.KEY, "a",
+		Event.START_ARRAY,
+		Event.VALUE, 1,
+		Event.VALUE, new java.math.BigDecimal( "-2.5" ),
+		Event.VALUE, true,
+		Event.VALUE, JSONObject.NULL,
+		Event.VALUE, "x\"\u00e9\n",
+		Event.END_ARRAY,
+		Event.KEY, "b",
+		Event.START_OBJECT,
+		Event.END_OBJECT,
+		Event.KEY, "c",
+		Event.START_ARRAY,
+		Event.END_ARRAY,
+		Event.END_OBJECT ), actual );
+
+		assertEquals( "Unexpected depth", 0, reader.getDepth() );
+	}
+
+	@Test
+	public void testReadValue()
+	throws IOException
+	{
+		final StringBuilder json = new StringBuilder( "[" );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			if ( i > 0 )
+			{
+				json.append( ',' );
+			}
+			json.append( new JSONObject().put( "index", i ).put( "name", "Element " + i ).put( "tags", new JSONArray().put( "a" ).put( "b" ) ) );
+		}
+		json.append( ']' );
+
+		final JSONStreamReader reader = new JSONStreamReader( new StringReader( json.toString() ) );
+		assertEquals( "Unexpected event", Event.START_ARRAY, reader.next() );
+
+		int count = 0;
+		for ( Event event = reader.next(); event != Event.END_ARRAY; event = reader.next() )
+		{
+			assertEquals( "Unexpected event", Event.START_OBJECT, event );
+			final JSONObject element = (JSONObject)reader.readValue();
+			assertEquals( "Unexpected index", count, element.getInt( "index" ) );
+			assertEquals( "Unexpected name", "Element " + count, element.getString( "name" ) );
+			assertEquals( "Unexpected tags", "[\"a\",\"b\"]", element.getJSONArray( "tags" ).toString() );
+			count++;
+		}
+
+		assertEquals( "Unexpected number of elements", 1000, count );
+		assertEquals( "Unexpected event", Event.END_DOCUMENT, reader.next() );
+	}
+
+	@Test
+	public void testMalformed()
+	throws IOException
+	{
+		final String[] malformed = { "", "[1,]", "[1 2]", "{\"a\" 1}", "{\"a\":1,}", "[1}", "\"abc", "[tru]", "{1:2}", "[1] [2]", "[\"\\x\"]" };
+		for ( final String json : malformed )
+		{
+			final JSONStreamReader reader = new JSONStreamReader( new StringReader( json ) );
+			try
+			{
+				//noinspection StatementWithEmptyBody
+				while ( reader.next() != Event.END_DOCUMENT )
+				{
+				}
+				fail( "Expected exception for " + json );
+			}
+			catch ( final JSONException e )
+			{
+				/* expected */
+			}
+		}
+	}
+}
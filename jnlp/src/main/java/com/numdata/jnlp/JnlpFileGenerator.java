@@ -27,9 +27,11 @@
 package com.numdata.jnlp;
 
 import java.io.*;
+import java.nio.charset.*;
 import java.util.*;
-import java.util.jar.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
+import java.util.zip.*;
 import javax.xml.parsers.*;
 import javax.xml.stream.*;
 
@@ -51,6 +53,13 @@ import org.xml.sax.*;
  * name followed by a colon character, this is useful for grouping several JAR
  * files into a single group or to use more descriptive names for JAR files.
  *
+ * The packages in each JAR file are determined from the names in its central
+ * directory, so no entries need to be inflated. Results are cached by JAR file
+ * path, size and modification time; the cache can be persisted using {@link
+ * #setPackageCacheFile}, such that unchanged JAR files are never scanned
+ * again. Use {@link #scanJars} to scan many JAR files in parallel before
+ * adding them.
+ *
  * @author Peter S. Heijnen
  */
 public class JnlpFileGenerator
@@ -65,6 +74,17 @@ public class JnlpFileGenerator
 	 */
 	private final JnlpFile _jnlpFile;
 
+	/**
+	 * Packages found in previously scanned JAR files, by absolute path.
+	 */
+	private final ConcurrentMap<String, ScannedJar> _scannedJars = new ConcurrentHashMap<>();
+
+	/**
+	 * File used to persist {@link #_scannedJars}; {@code null} if not
+	 * persisted.
+	 */
+	private @Nullable File _packageCacheFile = null;
+
 	/**
 	 * Run application.
 	 *
@@ -80,25 +100,28 @@ public class JnlpFileGenerator
 		final JnlpFile jnlpFile = jnlpFileGenerator.getJnlpFile();
 		final JnlpResources resources = jnlpFile.addResources();
 
+		final Map<File, String> groupNames = new LinkedHashMap<>();
+
 		final Pattern groupPrefix = Pattern.compile( "([^:]{2,}):(.*)" );
 		for ( final String arg : args )
 		{
-			final File jarFile;
-			final String groupName;
-
 			final Matcher groupMatcher = groupPrefix.matcher( arg );
 			if ( groupMatcher.matches() )
 			{
-				groupName = groupMatcher.group( 1 );
-				jarFile = new File( groupMatcher.group( 2 ) );
+				groupNames.put( new File( groupMatcher.group( 2 ) ), groupMatcher.group( 1 ) );
 			}
 			else
 			{
-				jarFile = new File( arg );
-				groupName = jarFile.getName();
+				final File jarFile = new File( arg );
+				groupNames.put( jarFile, jarFile.getName() );
 			}
+		}
 
-			jnlpFileGenerator.addJar( resources, groupName, jarFile, true, null );
+		jnlpFileGenerator.scanJars( groupNames.keySet() );
+
+		for ( final Map.Entry<File, String> entry : groupNames.entrySet() )
+		{
+			jnlpFileGenerator.addJar( resources, entry.getValue(), entry.getKey(), true, null );
 		}
 
 		jnlpFile.createComponent();
@@ -199,36 +222,194 @@ public class JnlpFileGenerator
 			jar.setVersion( version );
 		}
 
-		try ( final FileInputStream fis = new FileInputStream( jarFile ) )
+		for ( final String packagePath : getPackagePaths( jarFile ) )
 		{
-			try ( final JarInputStream jis = new JarInputStream( fis ) )
+			PackageInfo currentPackage = _root;
+
+			for ( final String name : TextTools.tokenize( packagePath, '/', false ) )
 			{
-				while ( true )
+				currentPackage = currentPackage.getOrAddChild( name );
+			}
+
+			currentPackage.addSource( source );
+		}
+
+		return jar;
+	}
+
+	/**
+	 * Scans the given JAR files in parallel, such that subsequent calls to
+	 * {@link #addJar} for these files don't need to scan them. JAR files that
+	 * were scanned before and did not change since are skipped.
+	 *
+	 * @param jarFiles JAR files to scan.
+	 *
+	 * @throws IOException if there was a problem reading a JAR file.
+	 */
+	public void scanJars( final @NotNull Collection<File> jarFiles )
+	throws IOException
+	{
+		try
+		{
+			jarFiles.parallelStream().forEach( jarFile ->
+			{
+				try
 				{
-					final JarEntry jarEntry = jis.getNextJarEntry();
-					if ( jarEntry == null )
-					{
-						break;
-					}
+					getPackagePaths( jarFile );
+				}
+				catch ( final IOException e )
+				{
+					throw new UncheckedIOException( e );
+				}
+			} );
+		}
+		catch ( final UncheckedIOException e )
+		{
+			throw e.getCause();
+		}
+	}
 
-					final String entryName = jarEntry.getName();
+	/**
+	 * Returns the paths of the packages that contain classes in the given JAR
+	 * file, e.g. {@code "com/numdata/jnlp"}. The root package is represented
+	 * by an empty string.
+	 *
+	 * The package paths are read from the central directory of the JAR file,
+	 * without inflating any entries. The result is cached as long as the size
+	 * and modification time of the JAR file don't change.
+	 *
+	 * @param jarFile JAR file.
+	 *
+	 * @return Package paths.
+	 *
+	 * @throws IOException if there was a problem reading the JAR file.
+	 */
+	public @NotNull Set<String> getPackagePaths( final @NotNull File jarFile )
+	throws IOException
+	{
+		final String path = jarFile.getAbsolutePath();
+		final long size = jarFile.length();
+		final long lastModified = jarFile.lastModified();
+
+		ScannedJar scannedJar = _scannedJars.get( path );
+		if ( ( scannedJar == null ) || ( scannedJar._size != size ) || ( scannedJar._lastModified != lastModified ) )
+		{
+			final Set<String> packagePaths = new TreeSet<>();
+
+			try ( final ZipFile zipFile = new ZipFile( jarFile ) )
+			{
+				final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+				while ( entries.hasMoreElements() )
+				{
+					final String entryName = entries.nextElement().getName();
 					if ( entryName.endsWith( ".class" ) )
 					{
-						PackageInfo currentPackage = _root;
+						final int slash = entryName.lastIndexOf( '/' );
+						packagePaths.add( ( slash < 0 ) ? "" : entryName.substring( 0, slash ) );
+					}
+				}
+			}
+
+			scannedJar = new ScannedJar( size, lastModified, Collections.unmodifiableSet( packagePaths ) );
+			_scannedJars.put( path, scannedJar );
+		}
+
+		return scannedJar._packagePaths;
+	}
 
-						final List<String> path = TextTools.tokenize( entryName, '/', false );
-						for ( int i = 0; i < path.size() - 1; i++ )
+	/**
+	 * Returns the file used to persist the packages found in JAR files.
+	 *
+	 * @return Package cache file; {@code null} if not persisted.
+	 */
+	public @Nullable File getPackageCacheFile()
+	{
+		return _packageCacheFile;
+	}
+
+	/**
+	 * Sets the file used to persist the packages found in JAR files. If the
+	 * file exists, previously scanned JAR files are read from it. Use {@link
+	 * #savePackageCache()} to update the file.
+	 *
+	 * A corrupt or outdated cache file is ignored, since it will simply be
+	 * replaced when the cache is saved.
+	 *
+	 * @param file Package cache file; {@code null} to not persist the cache.
+	 *
+	 * @throws IOException if there was a problem reading the file.
+	 */
+	public void setPackageCacheFile( final @Nullable File file )
+	throws IOException
+	{
+		_packageCacheFile = file;
+
+		if ( ( file != null ) && file.exists() )
+		{
+			try ( final BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), StandardCharsets.UTF_8 ) ) )
+			{
+				String line;
+				while ( ( line = reader.readLine() ) != null )
+				{
+					final List<String> fields = TextTools.tokenize( line, '\t', false );
+					if ( fields.size() >= 3 )
+					{
+						try
 						{
-							currentPackage = currentPackage.getOrAddChild( path.get( i ) );
+							final long size = Long.parseLong( fields.get( 1 ) );
+							final long lastModified = Long.parseLong( fields.get( 2 ) );
+							final Set<String> packagePaths = new TreeSet<>( fields.subList( 3, fields.size() ) );
+							_scannedJars.putIfAbsent( fields.get( 0 ), new ScannedJar( size, lastModified, Collections.unmodifiableSet( packagePaths ) ) );
+						}
+						catch ( final NumberFormatException ignored )
+						{
+							/* ignore corrupt line; jar will be rescanned */
 						}
-
-						currentPackage.addSource( source );
 					}
 				}
 			}
 		}
+	}
 
-		return jar;
+	/**
+	 * Writes the packages found in JAR files to the {@link
+	 * #getPackageCacheFile() package cache file}, if any. The file contains a
+	 * line for each JAR file with tab-separated path, size, modification time
+	 * and package paths.
+	 *
+	 * @throws IOException if there was a problem writing the file.
+	 */
+	public void savePackageCache()
+	throws IOException
+	{
+		final File file = _packageCacheFile;
+		if ( file != null )
+		{
+			final File directory = file.getAbsoluteFile().getParentFile();
+			if ( directory != null )
+			{
+				directory.mkdirs();
+			}
+
+			try ( final Writer writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( file ), StandardCharsets.UTF_8 ) ) )
+			{
+				for ( final Map.Entry<String, ScannedJar> entry : new TreeMap<>( _scannedJars ).entrySet() )
+				{
+					final ScannedJar scannedJar = entry.getValue();
+					writer.write( entry.getKey() );
+					writer.write( '\t' );
+					writer.write( String.valueOf( scannedJar._size ) );
+					writer.write( '\t' );
+					writer.write( String.valueOf( scannedJar._lastModified ) );
+					for ( final String packagePath : scannedJar._packagePaths )
+					{
+						writer.write( '\t' );
+						writer.write( packagePath );
+					}
+					writer.write( '\n' );
+				}
+			}
+		}
 	}
 
 	/**
@@ -323,6 +504,42 @@ public class JnlpFileGenerator
 		return _jnlpFile;
 	}
 
+	/**
+	 * Packages found in a JAR file, along with the size and modification time
+	 * of the JAR file at the time it was scanned.
+	 */
+	private static class ScannedJar
+	{
+		/**
+		 * Size of the JAR file.
+		 */
+		final long _size;
+
+		/**
+		 * Modification time of the JAR file.
+		 */
+		final long _lastModified;
+
+		/**
+		 * Paths of packages that contain classes.
+		 */
+		final @NotNull Set<String> _packagePaths;
+
+		/**
+		 * Create scanned JAR file.
+		 *
+		 * @param size         Size of the JAR file.
+		 * @param lastModified Modification time of the JAR file.
+		 * @param packagePaths Paths of packages that contain classes.
+		 */
+		ScannedJar( final long size, final long lastModified, final @NotNull Set<String> packagePaths )
+		{
+			_size = size;
+			_lastModified = lastModified;
+			_packagePaths = packagePaths;
+		}
+	}
+
 	/**
 	 * Container for some properties of a package.
 	 */
@@ -74,6 +74,12 @@ extends Task
 	 */
 	private String _versionFile = null;
 
+	/**
+	 * File used to cache the packages found in JAR files between builds;
+	 * {@code null} to scan all JAR files on every build.
+	 */
+	private File _packageCache = null;
+
 	/**
 	 * Whether JARs in this JNLP file should be downloaded lazily. This applies
 	 * to any (library) JAR files used in the JNLP.
@@ -185,6 +191,16 @@ extends Task
 		_versionFile = versionFile;
 	}
 
+	public File getPackageCache()
+	{
+		return _packageCache;
+	}
+
+	public void setPackageCache( final File packageCache )
+	{
+		_packageCache = packageCache;
+	}
+
 	public boolean isLazyDownload()
 	{
 		return _lazyDownload;
@@ -1213,6 +1229,34 @@ extends Task
 		final JnlpFileGenerator jnlpFileGenerator = new JnlpFileGenerator();
 		final JnlpFile jnlp = jnlpFileGenerator.getJnlpFile();
 
+		/*
+		 * Scan all JAR files up front, so they are scanned in parallel.
+		 */
+		final List<File> jarFiles = new ArrayList<>();
+		for ( final ResourcesElement resourcesElement : getResources() )
+		{
+			for ( final LibraryJarElement element : resourcesElement.getLibs() )
+			{
+				jarFiles.add( new File( libraryDir, element.getName() ) );
+			}
+
+			for ( final JarElement element : resourcesElement.getJars() )
+			{
+				jarFiles.add( new File( jarDir, element.getHref() ) );
+			}
+		}
+
+		try
+		{
+			jnlpFileGenerator.setPackageCacheFile( getPackageCache() );
+			jnlpFileGenerator.scanJars( jarFiles );
+			jnlpFileGenerator.savePackageCache();
+		}
+		catch ( final IOException e )
+		{
+			throw new BuildException( e );
+		}
+
 		for ( final ResourcesElement resourcesElement : getResources() )
 		{
 			final JnlpResources resources = jnlp.addResources();
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2011-2017, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.jnlp;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link JnlpFileGenerator}.
+ *
+ * @author Peter S. Heijnen
+ */
+public class TestJnlpFileGenerator
+{
+	/**
+	 * Tests that packages are read from JAR files and that the results are
+	 * persisted in the package cache.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testPackageCache()
+	throws Exception
+	{
+		final File directory = File.createTempFile( "TestJnlpFileGenerator", "" );
+		assertTrue( "Failed to delete temporary file", directory.delete() );
+		assertTrue( "Failed to create temporary directory", directory.mkdir() );
+		try
+		{
+			final File jarFile = new File( directory, "test.jar" );
+			try ( final ZipOutputStream out = new ZipOutputStream( new FileOutputStream( jarFile ) ) )
+			{
+				for ( final String name : Arrays.asList( "META-INF/MANIFEST.MF", "Root.class", "com/example/A.class", "com/example/B.class", "com/example/impl/C.class", "com/example/images/d.png" ) )
+				{
+					out.putNextEntry( new ZipEntry( name ) );
+					out.write( 0 );
+					out.closeEntry();
+				}
+			}
+
+			final Set<String> expected = new TreeSet<>( Arrays.asList( "", "com/example", "com/example/impl" ) );
+
+			final File cacheFile = new File( directory, "cache/packages.txt" );
+			final JnlpFileGenerator generator = new JnlpFileGenerator();
+			generator.setPackageCacheFile( cacheFile );
+			generator.scanJars( Collections.singletonList( jarFile ) );
+			assertEquals( "Unexpected packages", expected, generator.getPackagePaths( jarFile ) );
+			generator.savePackageCache();
+			assertTrue( "Package cache was not written", cacheFile.isFile() );
+
+			/*
+			 * Replace the JAR file with garbage without changing its size or
+			 * modification time; the cached result should still be used.
+			 */
+			final long lastModified = jarFile.lastModified();
+			final byte[] garbage = new byte[ (int)jarFile.length() ];
+			try ( final FileOutputStream out = new FileOutputStream( jarFile ) )
+			{
+				out.write( garbage );
+			}
+			assertTrue( "Failed to set modification time", jarFile.setLastModified( lastModified ) );
+
+			final JnlpFileGenerator cachedGenerator = new JnlpFileGenerator();
+			cachedGenerator.setPackageCacheFile( cacheFile );
+			assertEquals( "Unexpected cached packages", expected, cachedGenerator.getPackagePaths( jarFile ) );
+
+			/*
+			 * A modified JAR file must be scanned again.
+			 */
+			assertTrue( "Failed to set modification time", jarFile.setLastModified( lastModified - 10000L ) );
+			try
+			{
+				cachedGenerator.getPackagePaths( jarFile );
+				fail( "Expected modified (invalid) JAR file to be scanned again." );
+			}
+			catch ( final IOException ignored )
+			{
+				/* expected */
+			}
+		}
+		finally
+		{
+			for ( final File file : Arrays.asList( new File( directory, "cache/packages.txt" ), new File( directory, "cache" ), new File( directory, "test.jar" ), directory ) )
+			{
+				//noinspection ResultOfMethodCallIgnored
+				file.delete();
+			}
+		}
+	}
+}
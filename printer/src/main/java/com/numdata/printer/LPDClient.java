@@ -29,8 +29,11 @@ package com.numdata.printer;
 import java.awt.print.*;
 import java.io.*;
 import java.net.*;
+import java.util.concurrent.atomic.*;
 
 import com.numdata.oss.*;
+import com.numdata.oss.log.*;
+import org.jetbrains.annotations.*;
 
 /**
  * Client for the Line Printer Daemon Protocol.
@@ -46,6 +49,27 @@ public class LPDClient
 	 */
 	public static final int DEFAULT_PORT = 515;
 
+	/**
+	 * Log used for messages related to this class.
+	 */
+	private static final ClassLogger LOG = ClassLogger.getFor( LPDClient.class );
+
+	/**
+	 * Host name sent to the printer to identify the client.
+	 */
+	private static final String LOCAL_HOST_NAME = "localhost";
+
+	/**
+	 * Number of job numbers; job numbers cycle from 001 to 999.
+	 */
+	private static final int JOB_NUMBERS = 999;
+
+	/**
+	 * Counter used to cycle job numbers. This is shared by all clients, since
+	 * a new client may be created for each job to the same printer.
+	 */
+	private static final AtomicInteger JOB_COUNTER = new AtomicInteger();
+
 	/**
 	 * Host name of the printer.
 	 */
@@ -187,6 +211,36 @@ public class LPDClient
 		}
 	}
 
+	/**
+	 * Returns the host name of the printer.
+	 *
+	 * @return Host name or IP address of server.
+	 */
+	public String getHostname()
+	{
+		return _hostname;
+	}
+
+	/**
+	 * Returns the network port used by the LPD service.
+	 *
+	 * @return Port number.
+	 */
+	public int getNetworkPort()
+	{
+		return _networkPort;
+	}
+
+	/**
+	 * Returns the queue name to be used.
+	 *
+	 * @return Name of remote printer queue or port.
+	 */
+	public String getQueueName()
+	{
+		return _queueName;
+	}
+
 	/**
 	 * Print a document to a LPD print server on a network host.
 	 *
@@ -203,54 +257,235 @@ public class LPDClient
 	public void print( final String documentName, final byte[] documentData, final boolean printRaw )
 	throws PrinterException
 	{
-		System.out.println( "LPD.print( " + documentName + ", " + documentData.length + " bytes of data, " + printRaw + " )" );
+		print( new LPDJob( documentName, documentData, printRaw ) );
+	}
+
+	/**
+	 * Print a document to a LPD print server on a network host. The document
+	 * data is streamed to the printer.
+	 *
+	 * @param job Print job.
+	 *
+	 * @throws PrinterException if there was a problem sending the document to
+	 * the printer.
+	 *
+	 * @see LPDSpooler
+	 */
+	public void print( @NotNull final LPDJob job )
+	throws PrinterException
+	{
+		try ( final Session session = openSession() )
+		{
+			session.send( job );
+		}
+	}
+
+	/**
+	 * Opens a session to send print jobs to the printer queue, i.e. a
+	 * connection on which the 'receive a printer job' command was accepted.
+	 *
+	 * @return Session; must be closed when done.
+	 *
+	 * @throws PrinterException if the session could not be opened.
+	 */
+	@NotNull
+	public Session openSession()
+	throws PrinterException
+	{
 		try
 		{
-			final Socket socket = connect();
+			return new Session( connect() );
+		}
+		catch ( final IOException e )
+		{
+			throw new PrinterIOException( e );
+		}
+	}
+
+	/**
+	 * Returns the next job number. Job numbers cycle from 001 to 999, so
+	 * consecutive jobs don't replace each other in the printer queue.
+	 *
+	 * @return Job number.
+	 */
+	@NotNull
+	private String nextJobNumber()
+	{
+		final int jobNumber = Math.floorMod( JOB_COUNTER.getAndIncrement(), JOB_NUMBERS ) + 1;
+		return ( jobNumber < 10 ) ? "00" + jobNumber : ( jobNumber < 100 ) ? "0" + jobNumber : String.valueOf( jobNumber );
+	}
+
+	/**
+	 * Connects to the LPD print server. This method will retry a few times if
+	 * needed, because some printers occasionally refuse incoming connections.
+	 *
+	 * @return Connected socket.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private Socket connect()
+	throws IOException
+	{
+		Socket result = null;
+
+		int attempts = 3;
+		while ( attempts > 0 )
+		{
 			try
 			{
-				final String jobNumber = "001"; // 001 to 999 (should cycle?)
+				result = new Socket( _hostname, _networkPort );
+				break;
+			}
+			catch ( final ConnectException e )
+			{
+				if ( --attempts == 0 )
+				{
+					throw e;
+				}
+
+				try
+				{
+					Thread.sleep( 10L );
+				}
+				catch ( final InterruptedException ignored )
+				{
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+
+		if ( result == null )
+		{
+			throw new AssertionError();
+		}
+
+		return result;
+	}
 
+	/**
+	 * Connection to the printer on which one or more print jobs may be sent.
+	 * RFC 1179 allows any number of control and data files to be sent after a
+	 * single 'receive a printer job' command, although some printers only
+	 * accept a single job per connection.
+	 *
+	 * After a print job was refused, the state of the session is undefined and
+	 * it should be closed.
+	 */
+	public class Session
+	implements Closeable
+	{
+		/**
+		 * Connected socket.
+		 */
+		private final Socket _socket;
+
+		/**
+		 * Stream to receive acknowledgements from the server.
+		 */
+		private final InputStream _in;
+
+		/**
+		 * Stream to send document data to the server.
+		 */
+		private final OutputStream _out;
+
+		/**
+		 * Writer to send commands to the server.
+		 */
+		private final Writer _writer;
+
+		/**
+		 * Opens a session on the given socket.
+		 *
+		 * @param socket Connected socket.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 * @throws PrinterException if the server did not accept the command.
+		 */
+		private Session( @NotNull final Socket socket )
+		throws IOException, PrinterException
+		{
+			_socket = socket;
+
+			boolean success = false;
+			try
+			{
 				socket.setSoTimeout( 30000 );
-				final String localHostName = "localhost";
 
-				final InputStream in = socket.getInputStream();
-				final OutputStream out = socket.getOutputStream();
-				final Writer writer = new OutputStreamWriter( out, "US-ASCII" );
-				final String hostname = _hostname;
+				_in = socket.getInputStream();
+				_out = new BufferedOutputStream( socket.getOutputStream() );
+				_writer = new OutputStreamWriter( _out, "US-ASCII" );
 
 				// Open printer
 
-				writer.write( 0x02 );
-				writer.write( _queueName );
-				writer.write( (int)'\n' );
-				writer.flush();
+				_writer.write( 0x02 );
+				_writer.write( _queueName );
+				_writer.write( (int)'\n' );
+				_writer.flush();
 
-				if ( in.read() != 0 )
+				if ( _in.read() != 0 )
+				{
+					throw new FatalPrinterException( "LPD print server '" + _hostname + "' did not recognize printer queue name '" + _queueName + '\'' );
+				}
+
+				success = true;
+			}
+			finally
+			{
+				if ( !success )
 				{
-					throw new FatalPrinterException( "LPD print server '" + hostname + "' did not recognize printer queue name '" + _queueName + '\'' );
+					close();
 				}
+			}
+		}
 
+		/**
+		 * Sends a print job to the printer.
+		 *
+		 * @param job Print job.
+		 *
+		 * @throws PrinterException if there was a problem sending the document
+		 * to the printer.
+		 */
+		public void send( @NotNull final LPDJob job )
+		throws PrinterException
+		{
+			final String documentName = job.getDocumentName();
+			final String jobNumber = nextJobNumber();
+
+			if ( LOG.isDebugEnabled() )
+			{
+				LOG.debug( "print( " + documentName + ", " + job.getLength() + " bytes of data, " + job.isRaw() + " ) as job " + jobNumber + " on " + _hostname + ':' + _networkPort + '/' + _queueName );
+			}
+
+			final String hostname = _hostname;
+			final InputStream in = _in;
+			final OutputStream out = _out;
+			final Writer writer = _writer;
+
+			try
+			{
 				// Send control file
 
 				final StringBuilder controlFile = new StringBuilder( 80 );
 				controlFile.append( 'H' );
-				controlFile.append( localHostName );
+				controlFile.append( LOCAL_HOST_NAME );
 				controlFile.append( '\n' );
 
 				controlFile.append( 'P' );
 				controlFile.append( _userName );
 				controlFile.append( '\n' );
 
-				controlFile.append( printRaw ? "o" : "p" );
+				controlFile.append( job.isRaw() ? "o" : "p" );
 				controlFile.append( "dfA" );
 				controlFile.append( jobNumber );
-				controlFile.append( localHostName );
+				controlFile.append( LOCAL_HOST_NAME );
 				controlFile.append( '\n' );
 
 				controlFile.append( "UdfA" );
 				controlFile.append( jobNumber );
-				controlFile.append( localHostName );
+				controlFile.append( LOCAL_HOST_NAME );
 				controlFile.append( '\n' );
 				controlFile.append( 'N' );
 				controlFile.append( documentName );
@@ -260,7 +495,7 @@ public class LPDClient
 				writer.write( String.valueOf( controlFile.length() ) );
 				writer.write( " cfA" );
 				writer.write( jobNumber );
-				writer.write( localHostName );
+				writer.write( LOCAL_HOST_NAME );
 				writer.write( (int)'\n' );
 				writer.flush();
 
@@ -281,10 +516,10 @@ public class LPDClient
 				// Send print file
 
 				writer.write( 0x03 );
-				writer.write( String.valueOf( documentData.length ) );
+				writer.write( String.valueOf( job.getLength() ) );
 				writer.write( " dfA" );
 				writer.write( jobNumber );
-				writer.write( localHostName );
+				writer.write( LOCAL_HOST_NAME );
 				writer.write( (int)'\n' );
 				writer.flush();
 
@@ -293,7 +528,7 @@ public class LPDClient
 					throw new PrinterException( "LPD print server '" + hostname + "' refused print job '" + documentName + "' document header" );
 				}
 
-				out.write( documentData );
+				job.writeData( out );
 				out.write( 0 );
 				out.flush();
 
@@ -302,68 +537,22 @@ public class LPDClient
 					throw new PrinterException( "LPD print server '" + hostname + "' refused print job '" + documentName + "' document data" );
 				}
 			}
-			finally
+			catch ( final IOException e )
 			{
-				try
-				{
-					socket.close();
-				}
-				catch ( final IOException ignored )
-				{
-				}
+				throw new PrinterIOException( e );
 			}
 		}
-		catch ( final IOException e )
-		{
-			throw new PrinterIOException( e );
-		}
-	}
-
-	/**
-	 * Connects to the LPD print server. This method will retry a few times if
-	 * needed, because some printers occasionally refuse incoming connections.
-	 *
-	 * @return Connected socket.
-	 *
-	 * @throws IOException if an I/O error occurs.
-	 */
-	private Socket connect()
-	throws IOException
-	{
-		Socket result = null;
 
-		int attempts = 3;
-		while ( attempts > 0 )
+		@Override
+		public void close()
 		{
 			try
 			{
-				result = new Socket( _hostname, _networkPort );
-				break;
+				_socket.close();
 			}
-			catch ( final ConnectException e )
+			catch ( final IOException ignored )
 			{
-				if ( --attempts == 0 )
-				{
-					throw e;
-				}
-
-				try
-				{
-					Thread.sleep( 10L );
-				}
-				catch ( final InterruptedException ignored )
-				{
-					Thread.currentThread().interrupt();
-					break;
-				}
 			}
 		}
-
-		if ( result == null )
-		{
-			throw new AssertionError();
-		}
-
-		return result;
 	}
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2013-2017, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.printer;
+
+import java.io.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Print job for a Line Printer Daemon, i.e. a document with its name and
+ * data. Document data is streamed to the printer, so large documents don't
+ * need to be held in memory. The length of the data must be known in advance,
+ * because it is sent before the data itself.
+ *
+ * @author Gerrit Meinders
+ * @see LPDClient
+ * @see LPDSpooler
+ */
+public class LPDJob
+{
+	/**
+	 * Name of document to display in queue.
+	 */
+	@NotNull
+	private final String _documentName;
+
+	/**
+	 * Print raw vs. cooked data.
+	 */
+	private final boolean _raw;
+
+	/**
+	 * Length of the document data, in bytes.
+	 */
+	private final long _length;
+
+	/**
+	 * Document data; {@code null} if the data is read from a file or stream.
+	 */
+	@Nullable
+	private final byte[] _data;
+
+	/**
+	 * File containing the document data; {@code null} if not applicable.
+	 */
+	@Nullable
+	private final File _file;
+
+	/**
+	 * Stream to read the document data from; {@code null} if not
+	 * applicable.
+	 */
+	@Nullable
+	private final InputStream _stream;
+
+	/**
+	 * Creates a print job for the given document data.
+	 *
+	 * @param documentName Name of document to display in queue.
+	 * @param data         Document data to print.
+	 * @param raw          Print raw vs. cooked data.
+	 */
+	public LPDJob( @NotNull final String documentName, @NotNull final byte[] data, final boolean raw )
+	{
+		this( documentName, raw, data.length, data, null, null );
+	}
+
+	/**
+	 * Creates a print job for the document in the given file. The file is
+	 * read when the job is sent to the printer; it must not change in the
+	 * meantime.
+	 *
+	 * @param documentName Name of document to display in queue.
+	 * @param file         File containing the document data to print.
+	 * @param raw          Print raw vs. cooked data.
+	 */
+	public LPDJob( @NotNull final String documentName, @NotNull final File file, final boolean raw )
+	{
+		this( documentName, raw, file.length(), null, file, null );
+	}
+
+	/**
+	 * Creates a print job for the document read from the given stream. The
+	 * stream is read (but not closed) when the job is sent to the printer. A
+	 * job created from a stream can only be sent once.
+	 *
+	 * @param documentName Name of document to display in queue.
+	 * @param in           Stream to read the document data from.
+	 * @param length       Number of bytes to read from the stream.
+	 * @param raw          Print raw vs. cooked data.
+	 */
+	public LPDJob( @NotNull final String documentName, @NotNull final InputStream in, final long length, final boolean raw )
+	{
+		this( documentName, raw, length, null, null, in );
+	}
+
+	/**
+	 * Creates a print job.
+	 *
+	 * @param documentName Name of document to display in queue.
+	 * @param raw          Print raw vs. cooked data.
+	 * @param length       Length of the document data, in bytes.
+	 * @param data         Document data.
+	 * @param file         File containing the document data.
+	 * @param stream       Stream to read the document data from.
+	 */
+	private LPDJob( @NotNull final String documentName, final boolean raw, final long length, @Nullable final byte[] data, @Nullable final File file, @Nullable final InputStream stream )
+	{
+		if ( length < 0L )
+		{
+			throw new IllegalArgumentException( "length: " + length );
+		}
+
+		_documentName = documentName;
+		_raw = raw;
+		_length = length;
+		_data = data;
+		_file = file;
+		_stream = stream;
+	}
+
+	/**
+	 * Returns the name of the document to display in the queue.
+	 *
+	 * @return Document name.
+	 */
+	@NotNull
+	public String getDocumentName()
+	{
+		return _documentName;
+	}
+
+	/**
+	 * Returns whether the document data is raw vs. cooked (from the printer's
+	 * perspective).
+	 *
+	 * @return {@code true} for raw data; {@code false} for cooked data.
+	 */
+	public boolean isRaw()
+	{
+		return _raw;
+	}
+
+	/**
+	 * Returns the length of the document data.
+	 *
+	 * @return Length of the document data, in bytes.
+	 */
+	public long getLength()
+	{
+		return _length;
+	}
+
+	/**
+	 * Writes the document data to the given stream.
+	 *
+	 * @param out Stream to write to.
+	 *
+	 * @throws IOException if an I/O error occurs, or if the document data is
+	 * shorter than {@link #getLength()}.
+	 */
+	void writeData( @NotNull final OutputStream out )
+	throws IOException
+	{
+		final byte[] data = _data;
+		if ( data != null )
+		{
+			out.write( data );
+		}
+		else if ( _file != null )
+		{
+			try ( final InputStream in = new FileInputStream( _file ) )
+			{
+				copy( in, out );
+			}
+		}
+		else if ( _stream != null )
+		{
+			copy( _stream, out );
+		}
+	}
+
+	/**
+	 * Copies exactly {@link #getLength()} bytes from the given input stream to
+	 * the given output stream.
+	 *
+	 * @param in  Stream to read from.
+	 * @param out Stream to write to.
+	 *
+	 * @throws IOException if an I/O error occurs, or if the input stream ends
+	 * prematurely.
+	 */
+	private void copy( @NotNull final InputStream in, @NotNull final OutputStream out )
+	throws IOException
+	{
+		final byte[] buffer = new byte[ (int)Math.min( _length, 8192L ) ];
+
+		long remaining = _length;
+		while ( remaining > 0L )
+		{
+			final int read = in.read( buffer, 0, (int)Math.min( remaining, (long)buffer.length ) );
+			if ( read < 0 )
+			{
+				throw new EOFException( "Data of document '" + _documentName + "' ended " + remaining + " bytes before its specified length (" + _length + " bytes)" );
+			}
+			out.write( buffer, 0, read );
+			remaining -= (long)read;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "LPDJob[" + _documentName + ", " + _length + " bytes" + ( _raw ? ", raw" : "" ) + ']';
+	}
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 2013-2017, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.printer;
+
+import java.awt.print.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import com.numdata.oss.*;
+import com.numdata.oss.log.*;
+import org.jetbrains.annotations.*;
+
+/**
+ * Spooler that sends print jobs to a single LPD printer queue in the
+ * background. Jobs are queued by {@link #submit} and sent by a background
+ * thread in the order they were submitted, so callers don't have to wait for
+ * the LPD handshake.
+ *
+ * To reduce connection overhead, jobs that are queued at the same time are
+ * sent over a single connection, up to {@link #getMaximumJobsPerConnection()}
+ * jobs. Some printers only accept a single job per connection; set the
+ * maximum to {@code 1} for those.
+ *
+ * The queue depth and latency of sent jobs can be monitored to detect printer
+ * problems.
+ *
+ * @author Gerrit Meinders
+ * @see <a href="http://tools.ietf.org/html/rfc1179">RFC 1179: Line Printer
+ * Daemon Protocol</a>
+ */
+public class LPDSpooler
+implements Closeable
+{
+	/**
+	 * Log used for messages related to this class.
+	 */
+	private static final ClassLogger LOG = ClassLogger.getFor( LPDSpooler.class );
+
+	/**
+	 * Marks the end of the queue when the spooler is closed.
+	 */
+	private static final QueuedJob END_OF_QUEUE = new QueuedJob( new LPDJob( "", new byte[ 0 ], true ) );
+
+	/**
+	 * Client used to send print jobs.
+	 */
+	@NotNull
+	private final LPDClient _client;
+
+	/**
+	 * Jobs waiting to be sent.
+	 */
+	private final BlockingQueue<QueuedJob> _queue = new LinkedBlockingQueue<QueuedJob>();
+
+	/**
+	 * Maximum number of jobs sent over a single connection.
+	 */
+	private volatile int _maximumJobsPerConnection = 10;
+
+	/**
+	 * Thread that sends queued jobs; {@code null} if not started yet.
+	 */
+	private Thread _sender = null;
+
+	/**
+	 * Whether the spooler was closed.
+	 */
+	private boolean _closed = false;
+
+	/**
+	 * Number of jobs that were sent successfully.
+	 */
+	private final AtomicLong _sentCount = new AtomicLong();
+
+	/**
+	 * Number of jobs that could not be sent.
+	 */
+	private final AtomicLong _failedCount = new AtomicLong();
+
+	/**
+	 * Number of connections made to the printer.
+	 */
+	private final AtomicLong _connectionCount = new AtomicLong();
+
+	/**
+	 * Latency of sent jobs, i.e. the time from submission until the printer
+	 * acknowledged the job, in milliseconds.
+	 */
+	private final DoubleStats _latency = new DoubleStats();
+
+	/**
+	 * Constructs a new spooler for the given printer.
+	 *
+	 * @param printerSettings Printer settings to use.
+	 */
+	public LPDSpooler( @NotNull final PrinterSettings printerSettings )
+	{
+		this( new LPDClient( printerSettings ) );
+	}
+
+	/**
+	 * Constructs a new spooler that uses the given client.
+	 *
+	 * @param client Client used to send print jobs.
+	 */
+	public LPDSpooler( @NotNull final LPDClient client )
+	{
+		_client = client;
+	}
+
+	/**
+	 * Returns the maximum number of jobs sent over a single connection.
+	 *
+	 * @return Maximum number of jobs per connection.
+	 */
+	public int getMaximumJobsPerConnection()
+	{
+		return _maximumJobsPerConnection;
+	}
+
+	/**
+	 * Sets the maximum number of jobs sent over a single connection.
+	 *
+	 * @param maximumJobsPerConnection Maximum number of jobs per connection.
+	 */
+	public void setMaximumJobsPerConnection( final int maximumJobsPerConnection )
+	{
+		if ( maximumJobsPerConnection < 1 )
+		{
+			throw new IllegalArgumentException( "maximumJobsPerConnection: " + maximumJobsPerConnection );
+		}
+		_maximumJobsPerConnection = maximumJobsPerConnection;
+	}
+
+	/**
+	 * Adds a print job to the queue.
+	 *
+	 * @param job Print job.
+	 *
+	 * @return Future that completes when the printer acknowledged the job, or
+	 * completes exceptionally with a {@link PrinterException} if the job could
+	 * not be sent.
+	 *
+	 * @throws IllegalStateException if the spooler was closed.
+	 */
+	@NotNull
+	public CompletableFuture<Void> submit( @NotNull final LPDJob job )
+	{
+		final QueuedJob queuedJob = new QueuedJob( job );
+
+		synchronized ( _queue )
+		{
+			if ( _closed )
+			{
+				throw new IllegalStateException( "Spooler was closed" );
+			}
+
+			if ( _sender == null )
+			{
+				final Thread sender = new Thread( this::sendQueuedJobs, "LPDSpooler[" + _client.getHostname() + ':' + _client.getNetworkPort() + '/' + _client.getQueueName() + ']' );
+				sender.setDaemon( true );
+				sender.start();
+				_sender = sender;
+			}
+
+			_queue.add( queuedJob );
+		}
+
+		return queuedJob._future;
+	}
+
+	/**
+	 * Closes the spooler. Jobs that were already submitted are still sent;
+	 * this method waits until they are.
+	 *
+	 * @throws InterruptedIOException if the current thread was interrupted
+	 * while waiting.
+	 */
+	@Override
+	public void close()
+	throws InterruptedIOException
+	{
+		final Thread sender;
+		synchronized ( _queue )
+		{
+			sender = _sender;
+			if ( !_closed )
+			{
+				_closed = true;
+				_queue.add( END_OF_QUEUE );
+			}
+		}
+
+		if ( sender != null )
+		{
+			try
+			{
+				sender.join();
+			}
+			catch ( final InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException( "Interrupted while waiting for print jobs to be sent" );
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of jobs waiting to be sent.
+	 *
+	 * @return Queue depth.
+	 */
+	public int getQueueDepth()
+	{
+		int result = _queue.size();
+		if ( _queue.contains( END_OF_QUEUE ) )
+		{
+			result--;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of jobs that were sent successfully.
+	 *
+	 * @return Number of sent jobs.
+	 */
+	public long getSentCount()
+	{
+		return _sentCount.get();
+	}
+
+	/**
+	 * Returns the number of jobs that could not be sent.
+	 *
+	 * @return Number of failed jobs.
+	 */
+	public long getFailedCount()
+	{
+		return _failedCount.get();
+	}
+
+	/**
+	 * Returns the number of connections made to the printer.
+	 *
+	 * @return Number of connections.
+	 */
+	public long getConnectionCount()
+	{
+		return _connectionCount.get();
+	}
+
+	/**
+	 * Returns statistics about the latency of sent jobs, i.e. the time from
+	 * submission until the printer acknowledged the job, in milliseconds.
+	 *
+	 * @return Latency statistics.
+	 */
+	@NotNull
+	public DoubleStats getLatency()
+	{
+		final DoubleStats result = new DoubleStats();
+		synchronized ( _latency )
+		{
+			result.add( _latency );
+		}
+		return result;
+	}
+
+	/**
+	 * Sends queued jobs until the spooler is closed. This method is run by
+	 * the sender thread.
+	 */
+	private void sendQueuedJobs()
+	{
+		final List<QueuedJob> batch = new ArrayList<QueuedJob>();
+		boolean endOfQueue = false;
+
+		while ( !endOfQueue || !batch.isEmpty() )
+		{
+			if ( batch.isEmpty() )
+			{
+				try
+				{
+					batch.add( _queue.take() );
+				}
+				catch ( final InterruptedException e )
+				{
+					LOG.warn( "Interrupted; " + _queue.size() + " print jobs were not sent", e );
+					break;
+				}
+			}
+
+			if ( !endOfQueue )
+			{
+				_queue.drainTo( batch, _maximumJobsPerConnection - batch.size() );
+				endOfQueue = batch.remove( END_OF_QUEUE );
+			}
+
+			if ( !batch.isEmpty() )
+			{
+				sendBatch( batch );
+			}
+		}
+
+		_queue.drainTo( batch );
+		for ( final QueuedJob job : batch )
+		{
+			if ( job != END_OF_QUEUE )
+			{
+				jobFailed( job, new PrinterException( "Spooler was stopped before print job '" + job._job.getDocumentName() + "' was sent" ) );
+			}
+		}
+	}
+
+	/**
+	 * Sends jobs over a single connection. Sent jobs are removed from the
+	 * given list. If a job is refused, the connection is closed and the
+	 * remaining jobs are left in the list, to be sent over a new connection.
+	 * If no connection can be made, all jobs in the list fail.
+	 *
+	 * @param batch Jobs to send.
+	 */
+	private void sendBatch( @NotNull final List<QueuedJob> batch )
+	{
+		_connectionCount.incrementAndGet();
+
+		try ( final LPDClient.Session session = _client.openSession() )
+		{
+			while ( !batch.isEmpty() )
+			{
+				final QueuedJob job = batch.remove( 0 );
+				try
+				{
+					session.send( job._job );
+					jobSent( job );
+				}
+				catch ( final PrinterException e )
+				{
+					jobFailed( job, e );
+					break;
+				}
+				catch ( final RuntimeException e )
+				{
+					final PrinterException printerException = new PrinterException( "Failed to send print job '" + job._job.getDocumentName() + "': " + e );
+					printerException.initCause( e );
+					jobFailed( job, printerException );
+					break;
+				}
+			}
+		}
+		catch ( final PrinterException e )
+		{
+			for ( final QueuedJob job : batch )
+			{
+				jobFailed( job, e );
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Called when a job was sent successfully.
+	 *
+	 * @param job Job that was sent.
+	 */
+	private void jobSent( @NotNull final QueuedJob job )
+	{
+		final double latency = (double)( System.nanoTime() - job._submitted ) / 1.0e6;
+		synchronized ( _latency )
+		{
+			_latency.add( latency );
+		}
+		_sentCount.incrementAndGet();
+		job._future.complete( null );
+	}
+
+	/**
+	 * Called when a job could not be sent.
+	 *
+	 * @param job       Job that failed.
+	 * @param exception Reason why the job failed.
+	 */
+	private void jobFailed( @NotNull final QueuedJob job, @NotNull final PrinterException exception )
+	{
+		LOG.warn( "Failed to print '" + job._job.getDocumentName() + "' on " + _client.getHostname() + ": " + exception, exception );
+		_failedCount.incrementAndGet();
+		job._future.completeExceptionally( exception );
+	}
+
+	/**
+	 * Job in the queue of the spooler.
+	 */
+	private static class QueuedJob
+	{
+		/**
+		 * Print job.
+		 */
+		@NotNull
+		final LPDJob _job;
+
+		/**
+		 * Time at which the job was submitted, from {@link System#nanoTime()}.
+		 */
+		final long _submitted = System.nanoTime();
+
+		/**
+		 * Completes when the job was sent.
+		 */
+		final CompletableFuture<Void> _future = new CompletableFuture<Void>();
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param job Print job.
+		 */
+		QueuedJob( @NotNull final LPDJob job )
+		{
+			_job = job;
+		}
+	}
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright (c) 2007-2019, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.printer;
+
+import java.awt.print.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * This class tests the {@link LPDSpooler} class against a local stub LPD
+ * server.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestLPDSpooler
+{
+	/**
+	 * Tests that queued jobs are all received, with cycling job numbers and
+	 * multiple jobs per connection.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSpooler()
+	throws Exception
+	{
+		try ( final StubServer server = new StubServer( "labels" ) )
+		{
+			final File file = File.createTempFile( "TestLPDSpooler", ".txt" );
+			try
+			{
+				try ( final OutputStream out = new FileOutputStream( file ) )
+				{
+					out.write( "from file".getBytes( StandardCharsets.US_ASCII ) );
+				}
+
+				final LPDSpooler spooler = new LPDSpooler( new LPDClient( "localhost", server.getPort(), "labels" ) );
+				spooler.setMaximumJobsPerConnection( 5 );
+
+				final List<CompletableFuture<Void>> futures = new ArrayList<>();
+				for ( int i = 0; i < 20; i++ )
+				{
+					futures.add( spooler.submit( new LPDJob( "job" + i, ( "data" + i ).getBytes( StandardCharsets.US_ASCII ), true ) ) );
+				}
+				futures.add( spooler.submit( new LPDJob( "file", file, false ) ) );
+				final byte[] streamData = "from stream, but not this".getBytes( StandardCharsets.US_ASCII );
+				futures.add( spooler.submit( new LPDJob( "stream", new ByteArrayInputStream( streamData ), 11L, true ) ) );
+
+				spooler.close();
+
+				for ( final CompletableFuture<Void> future : futures )
+				{
+					assertTrue( "Job should be done", future.isDone() );
+					future.get();
+				}
+
+				try
+				{
+					spooler.submit( new LPDJob( "closed", new byte[ 0 ], true ) );
+					fail( "Expected 'IllegalStateException'" );
+				}
+				catch ( final IllegalStateException ignored )
+				{
+					/* expected */
+				}
+
+				assertEquals( "Unexpected sent count", 22L, spooler.getSentCount() );
+				assertEquals( "Unexpected failed count", 0L, spooler.getFailedCount() );
+				assertEquals( "Unexpected queue depth", 0, spooler.getQueueDepth() );
+				assertEquals( "Unexpected latency count", 22, spooler.getLatency().getCount() );
+				assertTrue( "Too few connections: " + spooler.getConnectionCount(), spooler.getConnectionCount() >= 5L );
+				assertEquals( "Unexpected number of connections", spooler.getConnectionCount(), (long)server.getConnectionCount() );
+
+				final List<String> received = server.getReceived();
+				assertEquals( "Unexpected number of jobs received", 22, received.size() );
+				for ( int i = 0; i < 20; i++ )
+				{
+					assertEquals( "Unexpected job #" + i, "job" + i + ":data" + i, received.get( i ) );
+				}
+				assertEquals( "Unexpected file job", "file:from file", received.get( 20 ) );
+				assertEquals( "Unexpected stream job", "stream:from stream", received.get( 21 ) );
+
+				final Set<String> jobNumbers = new HashSet<>( server.getJobNumbers() );
+				assertEquals( "Job numbers should be unique", 22, jobNumbers.size() );
+			}
+			finally
+			{
+				//noinspection ResultOfMethodCallIgnored
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Tests that jobs fail if the printer queue is unknown.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testUnknownQueue()
+	throws Exception
+	{
+		try ( final StubServer server = new StubServer( "labels" ) )
+		{
+			final LPDSpooler spooler = new LPDSpooler( new LPDClient( "localhost", server.getPort(), "unknown" ) );
+			final CompletableFuture<Void> future = spooler.submit( new LPDJob( "job", new byte[] { 1, 2, 3 }, true ) );
+			spooler.close();
+
+			try
+			{
+				future.get();
+				fail( "Expected 'ExecutionException'" );
+			}
+			catch ( final ExecutionException e )
+			{
+				assertTrue( "Unexpected cause: " + e.getCause(), e.getCause() instanceof FatalPrinterException );
+			}
+
+			assertEquals( "Unexpected sent count", 0L, spooler.getSentCount() );
+			assertEquals( "Unexpected failed count", 1L, spooler.getFailedCount() );
+		}
+	}
+
+	/**
+	 * Tests that jobs fail if their data can't be read, without affecting
+	 * other jobs.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testFailingJobData()
+	throws Exception
+	{
+		try ( final StubServer server = new StubServer( "labels" ) )
+		{
+			final InputStream failingStream = new InputStream()
+			{
+				@Override
+				public int read()
+				{
+					throw new IllegalStateException( "broken stream" );
+				}
+			};
+
+			final LPDSpooler spooler = new LPDSpooler( new LPDClient( "localhost", server.getPort(), "labels" ) );
+			final CompletableFuture<Void> failing = spooler.submit( new LPDJob( "failing", failingStream, 10L, true ) );
+			final CompletableFuture<Void> next = spooler.submit( new LPDJob( "next", "data".getBytes( StandardCharsets.US_ASCII ), true ) );
+			spooler.close();
+
+			assertTrue( "Failing job should be done", failing.isDone() );
+			try
+			{
+				failing.get();
+				fail( "Expected 'ExecutionException'" );
+			}
+			catch ( final ExecutionException e )
+			{
+				assertTrue( "Unexpected exception: " + e.getCause(), e.getCause() instanceof PrinterException );
+				assertTrue( "Unexpected cause: " + e.getCause().getCause(), e.getCause().getCause() instanceof IllegalStateException );
+			}
+
+			assertTrue( "Next job should be done", next.isDone() );
+			next.get();
+
+			assertEquals( "Unexpected sent count", 1L, spooler.getSentCount() );
+			assertEquals( "Unexpected failed count", 1L, spooler.getFailedCount() );
+			assertEquals( "Unexpected jobs received", Collections.singletonList( "next:data" ), server.getReceived() );
+		}
+	}
+
+	/**
+	 * Tests that job numbers cycle from 001 to 999.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testJobNumbers()
+	throws Exception
+	{
+		try ( final StubServer server = new StubServer( "labels" ) )
+		{
+			final LPDClient client = new LPDClient( "localhost", server.getPort(), "labels" );
+			try ( final LPDClient.Session session = client.openSession() )
+			{
+				for ( int i = 0; i < 1001; i++ )
+				{
+					session.send( new LPDJob( "job" + i, new byte[] { (byte)i }, true ) );
+				}
+			}
+
+			final List<String> jobNumbers = server.getJobNumbers();
+			assertEquals( "Unexpected number of jobs", 1001, jobNumbers.size() );
+			assertEquals( "Job numbers should be unique", 999, new HashSet<>( jobNumbers.subList( 0, 999 ) ).size() );
+			assertTrue( "Missing job number 001", jobNumbers.contains( "001" ) );
+			assertTrue( "Missing job number 999", jobNumbers.contains( "999" ) );
+			for ( int i = 1; i < jobNumbers.size(); i++ )
+			{
+				final int previous = Integer.parseInt( jobNumbers.get( i - 1 ) );
+				assertEquals( "Unexpected job number #" + i, ( previous < 999 ) ? previous + 1 : 1, Integer.parseInt( jobNumbers.get( i ) ) );
+			}
+		}
+	}
+
+	/**
+	 * Tests that clients don't reuse each other's job numbers, since a new
+	 * client may be created for each job.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testJobNumbersSharedByClients()
+	throws Exception
+	{
+		try ( final StubServer server = new StubServer( "labels" ) )
+		{
+			for ( int i = 0; i < 2; i++ )
+			{
+				final LPDClient client = new LPDClient( "localhost", server.getPort(), "labels" );
+				try ( final LPDClient.Session session = client.openSession() )
+				{
+					session.send( new LPDJob( "job" + i, new byte[] { (byte)i }, true ) );
+				}
+			}
+
+			final List<String> jobNumbers = server.getJobNumbers();
+			assertEquals( "Unexpected number of jobs", 2, jobNumbers.size() );
+			assertNotEquals( "Job numbers should differ", jobNumbers.get( 0 ), jobNumbers.get( 1 ) );
+		}
+	}
+
+	/**
+	 * Minimal LPD server that accepts 'receive a printer job' commands for a
+	 * single queue and records the received jobs.
+	 */
+	private static class StubServer
+	implements Closeable, Runnable
+	{
+		/**
+		 * Name of the printer queue.
+		 */
+		private final String _queueName;
+
+		/**
+		 * Server socket.
+		 */
+		private final ServerSocket _serverSocket;
+
+		/**
+		 * Thread that accepts connections.
+		 */
+		private final Thread _thread;
+
+		/**
+		 * Received jobs, as document name and data separated by a colon.
+		 */
+		private final List<String> _received = new ArrayList<>();
+
+		/**
+		 * Job numbers of the received jobs.
+		 */
+		private final List<String> _jobNumbers = new ArrayList<>();
+
+		/**
+		 * Number of accepted connections.
+		 */
+		private int _connectionCount = 0;
+
+		/**
+		 * Starts a server on a free local port.
+		 *
+		 * @param queueName Name of the printer queue.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		StubServer( final String queueName )
+		throws IOException
+		{
+			_queueName = queueName;
+			_serverSocket = new ServerSocket( 0, 50, InetAddress.getByName( "localhost" ) );
+			_thread = new Thread( this, "StubServer" );
+			_thread.setDaemon( true );
+			_thread.start();
+		}
+
+		public int getPort()
+		{
+			return _serverSocket.getLocalPort();
+		}
+
+		public synchronized List<String> getReceived()
+		{
+			return new ArrayList<>( _received );
+		}
+
+		public synchronized List<String> getJobNumbers()
+		{
+			return new ArrayList<>( _jobNumbers );
+		}
+
+		public synchronized int getConnectionCount()
+		{
+			return _connectionCount;
+		}
+
+		@Override
+		public void run()
+		{
+			while ( !_serverSocket.isClosed() )
+			{
+				try ( final Socket socket = _serverSocket.accept() )
+				{
+					synchronized ( this )
+					{
+						_connectionCount++;
+					}
+					handle( socket.getInputStream(), socket.getOutputStream() );
+				}
+				catch ( final IOException ignored )
+				{
+				}
+			}
+		}
+
+		/**
+		 * Handles a single connection.
+		 *
+		 * @param in  Stream to read from client.
+		 * @param out Stream to write to client.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private void handle( final InputStream in, final OutputStream out )
+		throws IOException
+		{
+			if ( in.read() != 0x02 )
+			{
+				throw new IOException( "Unsupported command" );
+			}
+
+			if ( !_queueName.equals( readLine( in ) ) )
+			{
+				out.write( 1 );
+				out.flush();
+				return;
+			}
+			out.write( 0 );
+			out.flush();
+
+			String controlFile = null;
+			for ( int subcommand = in.read(); subcommand >= 0; subcommand = in.read() )
+			{
+				final String line = readLine( in );
+				final int space = line.indexOf( ' ' );
+				final int count = Integer.parseInt( line.substring( 0, space ) );
+				out.write( 0 );
+				out.flush();
+
+				final byte[] data = new byte[ count ];
+				new DataInputStream( in ).readFully( data );
+				if ( in.read() != 0 )
+				{
+					throw new IOException( "Missing end of file" );
+				}
+				out.write( 0 );
+				out.flush();
+
+				final String content = new String( data, StandardCharsets.US_ASCII );
+				if ( subcommand == 0x02 )
+				{
+					controlFile = content;
+				}
+				else if ( ( subcommand == 0x03 ) && ( controlFile != null ) )
+				{
+					final int nameStart = controlFile.indexOf( "\nN" ) + 2;
+					final String name = controlFile.substring( nameStart, controlFile.indexOf( '\n', nameStart ) );
+					synchronized ( this )
+					{
+						_received.add( name + ':' + content );
+						_jobNumbers.add( line.substring( space + 4, space + 7 ) );
+					}
+					controlFile = null;
+				}
+			}
+		}
+
+		/**
+		 * Reads a line terminated by a line feed.
+		 *
+		 * @param in Stream to read from.
+		 *
+		 * @return Line without line feed.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private static String readLine( final InputStream in )
+		throws IOException
+		{
+			final StringBuilder result = new StringBuilder();
+			for ( int c = in.read(); c != '\n'; c = in.read() )
+			{
+				if ( c < 0 )
+				{
+					throw new EOFException();
+				}
+				result.append( (char)c );
+			}
+			return result.toString();
+		}
+
+		@Override
+		public void close()
+		throws IOException
+		{
+			_serverSocket.close();
+		}
+	}
+}
@@ -0,0 +1,1344 @@
+/*
+ * (C) Copyright Numdata BV 2026-2026 - All Rights Reserved
+ *
+ * This software may not be used, copied, modified, or distributed in any
+ * form without express permission from Numdata BV. Please contact Numdata BV
+ * for license information.
+ */
+package com.numdata.socket.tool;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import com.numdata.oss.log.*;
+import com.numdata.uri.*;
+import org.jetbrains.annotations.*;
+
+/**
+ * Forwards data received on any number of TCP ports to URIs, using a single
+ * selector-based event loop for all ports and connections.
+ *
+ * Unlike {@link SocketTool.Socket2URI}, data is not collected in memory before
+ * it is forwarded. Instead, it is read into a bounded pool of direct buffers
+ * and streamed to the target URI by a fixed pool of worker threads. Reading
+ * from a connection is suspended while its forwarded data is not written
+ * fast enough, and no new connections are accepted while the maximum number
+ * of concurrent connections is reached.
+ *
+ * Connections on the same port write to the target URI one at a time, so the
+ * data of each connection is appended as a contiguous block. Data received
+ * while another connection on the same port is writing is kept in memory
+ * until the target URI becomes available. Data is written to the target URI
+ * while it is being received, so a connection that is aborted while writing
+ * leaves partial data at the destination (a warning is logged in that case);
+ * a connection that is aborted before it started writing leaves no data.
+ */
+public class SocketForwarder
+implements Runnable, Closeable
+{
+	/**
+	 * Log used for messages related to this class.
+	 */
+	private static final ClassLogger LOG = ClassLogger.getFor( SocketForwarder.class );
+
+	/**
+	 * Default maximum number of concurrent client connections.
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS = 64;
+
+	/**
+	 * Default size of the buffers used to read data.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * Default time after which an idle client connection is closed.
+	 */
+	public static final long DEFAULT_IDLE_TIMEOUT = 10000L;
+
+	/**
+	 * Maximum number of buffers that may be waiting to be written for a
+	 * single connection before reading from that connection is suspended.
+	 */
+	private static final int MAX_PENDING_BUFFERS = 2;
+
+	/**
+	 * Maximum number of concurrent client connections.
+	 */
+	private final int _maxConnections;
+
+	/**
+	 * Size of the buffers used to read data.
+	 */
+	private final int _bufferSize;
+
+	/**
+	 * Time in milliseconds after which an idle client connection is closed.
+	 */
+	private final long _idleTimeout;
+
+	/**
+	 * Selector used by the event loop.
+	 */
+	private final Selector _selector;
+
+	/**
+	 * Ports that are being forwarded.
+	 */
+	private final List<Port> _ports = new CopyOnWriteArrayList<Port>();
+
+	/**
+	 * Currently open client connections. Only accessed by event loop thread.
+	 */
+	private final Set<Connection> _connections = new LinkedHashSet<Connection>();
+
+	/**
+	 * Connections from which reading is suspended until buffers become
+	 * available. Only accessed by event loop thread.
+	 */
+	private final Set<Connection> _suspended = new LinkedHashSet<Connection>();
+
+	/**
+	 * Whether resuming suspended connections is scheduled.
+	 */
+	private final AtomicBoolean _resumeScheduled = new AtomicBoolean();
+
+	/**
+	 * Tasks to run on the event loop thread.
+	 */
+	private final Queue<Runnable> _eventLoopTasks = new ConcurrentLinkedQueue<Runnable>();
+
+	/**
+	 * Buffers that are available for reading data.
+	 */
+	private final Queue<ByteBuffer> _freeBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+	/**
+	 * Number of buffers allocated so far.
+	 */
+	private final AtomicInteger _allocatedBuffers = new AtomicInteger();
+
+	/**
+	 * Maximum number of buffers to allocate.
+	 */
+	private final int _maxBuffers;
+
+	/**
+	 * Writes received data to target URIs.
+	 */
+	private final ExecutorService _writers;
+
+	/**
+	 * Whether new connections are currently being accepted.
+	 */
+	private boolean _accepting = true;
+
+	/**
+	 * Set when the forwarder is closed.
+	 */
+	private volatile boolean _closed = false;
+
+	/**
+	 * Set when the event loop is started.
+	 */
+	private volatile boolean _running = false;
+
+	/**
+	 * Construct forwarder using default settings.
+	 *
+	 * @throws IOException if the selector could not be opened.
+	 */
+	public SocketForwarder()
+	throws IOException
+	{
+		this( DEFAULT_MAX_CONNECTIONS, DEFAULT_BUFFER_SIZE, DEFAULT_IDLE_TIMEOUT );
+	}
+
+	/**
+	 * Construct forwarder.
+	 *
+	 * @param maxConnections Maximum number of concurrent client connections.
+	 * @param bufferSize     Size of the buffers used to read data.
+	 * @param idleTimeout    Time in milliseconds after which an idle client
+	 *                       connection is closed; {@code 0} to never close
+	 *                       idle connections.
+	 *
+	 * @throws IOException if the selector could not be opened.
+	 */
+	public SocketForwarder( final int maxConnections, final int bufferSize, final long idleTimeout )
+	throws IOException
+	{
+		if ( maxConnections < 1 )
+		{
+			throw new IllegalArgumentException( "maxConnections: " + maxConnections );
+		}
+
+		if ( bufferSize < 1 )
+		{
+			throw new IllegalArgumentException( "bufferSize: " + bufferSize );
+		}
+
+		_maxConnections = maxConnections;
+		_bufferSize = bufferSize;
+		_idleTimeout = idleTimeout;
+		_maxBuffers = maxConnections * MAX_PENDING_BUFFERS;
+		_selector = Selector.open();
+		_writers = Executors.newFixedThreadPool( maxConnections, new ThreadFactory()
+		{
+			/**
+			 * Number of writer threads created so far.
+			 */
+			private final AtomicInteger _threadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread( @NotNull final Runnable runnable )
+			{
+				final Thread result = new Thread( runnable, "SocketForwarder-writer-" + _threadCount.incrementAndGet() );
+				result.setDaemon( true );
+				return result;
+			}
+		} );
+	}
+
+	/**
+	 * Starts forwarding data received on the given TCP port to the given URI.
+	 * This may be called before or while the event loop is running.
+	 *
+	 * @param bindAddress Address to bind to; {@code null} for any address.
+	 * @param tcpPort     TCP port on which to receive data; {@code 0} for any
+	 *                    free port.
+	 * @param uri         URI to forward data to.
+	 *
+	 * @return Forwarded port.
+	 *
+	 * @throws IOException if the port could not be opened.
+	 */
+	@NotNull
+	public Port addPort( @Nullable final String bindAddress, final int tcpPort, @NotNull final URI uri )
+	throws IOException
+	{
+		final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+		try
+		{
+			serverChannel.configureBlocking( false );
+			serverChannel.socket().bind( new InetSocketAddress( ( bindAddress != null ) ? InetAddress.getByName( bindAddress ) : null, tcpPort ), 50 );
+		}
+		catch ( final IOException e )
+		{
+			serverChannel.close();
+			throw e;
+		}
+
+		final Port result = new Port( serverChannel, uri );
+		_ports.add( result );
+
+		runOnEventLoop( new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					result._key = serverChannel.register( _selector, _accepting ? SelectionKey.OP_ACCEPT : 0, result );
+				}
+				catch ( final ClosedChannelException e )
+				{
+					LOG.debug( "Port closed before it was registered: " + result );
+				}
+			}
+		} );
+
+		LOG.info( "Listen for incoming data from " + serverChannel.socket().getInetAddress() + ':' + serverChannel.socket().getLocalPort() + ", and forward to " + uri );
+		return result;
+	}
+
+	/**
+	 * Returns the ports that are being forwarded.
+	 *
+	 * @return Forwarded ports.
+	 */
+	@NotNull
+	public List<Port> getPorts()
+	{
+		return Collections.unmodifiableList( _ports );
+	}
+
+	/**
+	 * Runs the event loop until the forwarder is closed.
+	 */
+	@Override
+	public void run()
+	{
+		final Selector selector = _selector;
+		final long idleTimeout = _idleTimeout;
+		_running = true;
+
+		try
+		{
+			while ( !_closed )
+			{
+				selector.select( ( idleTimeout > 0 ) ? Math.max( 1L, idleTimeout / 2 ) : 0L );
+
+				for ( int i = _eventLoopTasks.size(); i > 0; i-- )
+				{
+					final Runnable task = _eventLoopTasks.poll();
+					if ( task != null )
+					{
+						task.run();
+					}
+				}
+
+				final Set<SelectionKey> selectedKeys = selector.selectedKeys();
+				for ( final SelectionKey key : selectedKeys )
+				{
+					if ( key.isValid() )
+					{
+						final Object attachment = key.attachment();
+						if ( attachment instanceof Port )
+						{
+							if ( key.isAcceptable() )
+							{
+								accept( (Port)attachment );
+							}
+						}
+						else if ( key.isReadable() )
+						{
+							read( (Connection)attachment );
+						}
+					}
+				}
+				selectedKeys.clear();
+
+				if ( idleTimeout > 0 )
+				{
+					closeIdleConnections( System.currentTimeMillis() - idleTimeout );
+				}
+			}
+		}
+		catch ( final IOException e )
+		{
+			LOG.error( "Event loop failed: " + e, e );
+		}
+		finally
+		{
+			for ( final Connection connection : new ArrayList<Connection>( _connections ) )
+			{
+				connection.drain( "Forwarder closed" );
+			}
+
+			for ( final Port port : _ports )
+			{
+				try
+				{
+					port._serverChannel.close();
+				}
+				catch ( final IOException e )
+				{
+					/* ignore socket closing problems */
+				}
+			}
+
+			_writers.shutdown();
+
+			try
+			{
+				selector.close();
+			}
+			catch ( final IOException e )
+			{
+				/* ignore selector closing problems */
+			}
+
+			LOG.debug( "Forwarder terminated" );
+		}
+	}
+
+	/**
+	 * Stops the event loop. Data that was already received is still written
+	 * to its target URI, but open client connections are closed; such
+	 * connections are counted as failed. The writer threads terminate once
+	 * all remaining data is written (see {@link #awaitTermination}).
+	 */
+	@Override
+	public void close()
+	{
+		_closed = true;
+		_selector.wakeup();
+
+		if ( !_running )
+		{
+			/* otherwise, the event loop shuts down the writers after draining */
+			_writers.shutdown();
+		}
+	}
+
+	/**
+	 * Wait for all data to be written after the forwarder was closed.
+	 *
+	 * @param timeout Maximum time to wait in milliseconds.
+	 *
+	 * @return {@code true} if all data was written; {@code false} if the
+	 * timeout elapsed.
+	 *
+	 * @throws InterruptedException if the current thread was interrupted.
+	 */
+	public boolean awaitTermination( final long timeout )
+	throws InterruptedException
+	{
+		return _writers.awaitTermination( timeout, TimeUnit.MILLISECONDS );
+	}
+
+	/**
+	 * Schedules a task to run on the event loop thread.
+	 *
+	 * @param task Task to run.
+	 */
+	private void runOnEventLoop( @NotNull final Runnable task )
+	{
+		_eventLoopTasks.add( task );
+		_selector.wakeup();
+	}
+
+	/**
+	 * Accept a client connection on the given port.
+	 *
+	 * @param port Port with pending connection.
+	 */
+	private void accept( @NotNull final Port port )
+	{
+		final SocketChannel channel;
+		try
+		{
+			channel = port._serverChannel.accept();
+		}
+		catch ( final IOException e )
+		{
+			LOG.warn( "Failed to accept connection on " + port + ": " + e, e );
+			return;
+		}
+
+		if ( channel != null )
+		{
+			try
+			{
+				channel.configureBlocking( false );
+				final Connection connection = new Connection( port, channel );
+				connection._key = channel.register( _selector, SelectionKey.OP_READ, connection );
+				_connections.add( connection );
+
+				port._acceptedConnections.incrementAndGet();
+				port._activeConnections.incrementAndGet();
+
+				if ( LOG.isDebugEnabled() )
+				{
+					LOG.debug( "Receiving data from " + channel.socket().getInetAddress() + " on " + port );
+				}
+
+				if ( _connections.size() >= _maxConnections )
+				{
+					setAccepting( false );
+				}
+			}
+			catch ( final IOException e )
+			{
+				LOG.warn( "Failed to register connection on " + port + ": " + e, e );
+				try
+				{
+					channel.close();
+				}
+				catch ( final IOException ignored )
+				{
+					/* ignore socket closing problems */
+				}
+			}
+		}
+	}
+
+	/**
+	 * Enables or disables accepting of new connections on all ports.
+	 *
+	 * @param accepting Whether to accept new connections.
+	 */
+	private void setAccepting( final boolean accepting )
+	{
+		if ( accepting != _accepting )
+		{
+			_accepting = accepting;
+			for ( final Port port : _ports )
+			{
+				final SelectionKey key = port._key;
+				if ( ( key != null ) && key.isValid() )
+				{
+					key.interestOps( accepting ? SelectionKey.OP_ACCEPT : 0 );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read available data from a client connection.
+	 *
+	 * @param connection Client connection.
+	 */
+	private void read( @NotNull final Connection connection )
+	{
+		final ByteBuffer buffer = acquireBuffer();
+		if ( buffer == null )
+		{
+			/* all buffers in use; resumed by 'releaseBuffer' */
+			connection.suspend();
+		}
+		else
+		{
+			int read;
+			try
+			{
+				read = connection._channel.read( buffer );
+			}
+			catch ( final IOException e )
+			{
+				releaseBuffer( buffer );
+				connection.abort( "Error receiving data: " + e );
+				return;
+			}
+
+			if ( read < 0 )
+			{
+				releaseBuffer( buffer );
+				connection.finish();
+			}
+			else if ( read == 0 )
+			{
+				releaseBuffer( buffer );
+			}
+			else
+			{
+				buffer.flip();
+				connection._lastActivity = System.currentTimeMillis();
+				connection._port._bytesReceived.addAndGet( read );
+				connection.enqueue( buffer );
+			}
+		}
+	}
+
+	/**
+	 * Closes connections that have been idle since the given time.
+	 *
+	 * @param idleSince Time of last activity that is considered idle.
+	 */
+	private void closeIdleConnections( final long idleSince )
+	{
+		List<Connection> idle = null;
+		for ( final Connection connection : _connections )
+		{
+			if ( connection._reading && ( connection._lastActivity < idleSince ) && !_suspended.contains( connection ) )
+			{
+				if ( idle == null )
+				{
+					idle = new ArrayList<Connection>();
+				}
+				idle.add( connection );
+			}
+		}
+
+		if ( idle != null )
+		{
+			for ( final Connection connection : idle )
+			{
+				connection.abort( "Timeout while receiving data" );
+			}
+		}
+	}
+
+	/**
+	 * Called on the event loop thread when a connection is no longer read
+	 * from.
+	 *
+	 * @param connection Connection that was closed.
+	 */
+	private void connectionClosed( @NotNull final Connection connection )
+	{
+		if ( _connections.remove( connection ) )
+		{
+			if ( _connections.size() < _maxConnections )
+			{
+				setAccepting( true );
+			}
+		}
+	}
+
+	/**
+	 * Returns a buffer to read data into.
+	 *
+	 * @return Empty buffer; {@code null} if no buffer is available.
+	 */
+	@Nullable
+	private ByteBuffer acquireBuffer()
+	{
+		ByteBuffer result = _freeBuffers.poll();
+		if ( result == null )
+		{
+			if ( _allocatedBuffers.incrementAndGet() <= _maxBuffers )
+			{
+				result = ByteBuffer.allocateDirect( _bufferSize );
+			}
+			else
+			{
+				_allocatedBuffers.decrementAndGet();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a buffer to the pool and resumes reading from connections that
+	 * were suspended.
+	 *
+	 * @param buffer Buffer to release.
+	 */
+	private void releaseBuffer( @NotNull final ByteBuffer buffer )
+	{
+		buffer.clear();
+		_freeBuffers.add( buffer );
+
+		if ( _resumeScheduled.compareAndSet( false, true ) )
+		{
+			runOnEventLoop( new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					_resumeScheduled.set( false );
+					resumeSuspended();
+				}
+			} );
+		}
+	}
+
+	/**
+	 * Resumes reading from suspended connections for which there is room for
+	 * more data. Must be called on the event loop thread.
+	 */
+	private void resumeSuspended()
+	{
+		for ( final Iterator<Connection> it = _suspended.iterator(); it.hasNext(); )
+		{
+			if ( it.next().resumeWhenPossible() )
+			{
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Forwarded TCP port, including statistics.
+	 */
+	public static class Port
+	{
+		/**
+		 * Channel to accept connections from.
+		 */
+		private final ServerSocketChannel _serverChannel;
+
+		/**
+		 * URI to forward data to.
+		 */
+		private final URI _uri;
+
+		/**
+		 * Selection key for the server channel. Only accessed by event loop
+		 * thread.
+		 */
+		private SelectionKey _key = null;
+
+		/**
+		 * Number of accepted connections.
+		 */
+		private final AtomicLong _acceptedConnections = new AtomicLong();
+
+		/**
+		 * Number of connections that are being received or forwarded.
+		 */
+		private final AtomicLong _activeConnections = new AtomicLong();
+
+		/**
+		 * Number of connections of which all data was forwarded.
+		 */
+		private final AtomicLong _completedConnections = new AtomicLong();
+
+		/**
+		 * Number of connections that failed to receive or forward data.
+		 */
+		private final AtomicLong _failedConnections = new AtomicLong();
+
+		/**
+		 * Number of bytes received.
+		 */
+		private final AtomicLong _bytesReceived = new AtomicLong();
+
+		/**
+		 * Number of bytes forwarded to the target URI.
+		 */
+		private final AtomicLong _bytesForwarded = new AtomicLong();
+
+		/**
+		 * Connection that is writing to the target URI; {@code null} if none.
+		 * Guarded by {@code this}.
+		 */
+		private Connection _writer = null;
+
+		/**
+		 * Connections waiting to write to the target URI, in order of arrival.
+		 * Guarded by {@code this}.
+		 */
+		private final Queue<Connection> _waitingWriters = new ArrayDeque<Connection>();
+
+		/**
+		 * Construct port.
+		 *
+		 * @param serverChannel Channel to accept connections from.
+		 * @param uri           URI to forward data to.
+		 */
+		Port( @NotNull final ServerSocketChannel serverChannel, @NotNull final URI uri )
+		{
+			_serverChannel = serverChannel;
+			_uri = uri;
+		}
+
+		/**
+		 * Returns the local TCP port number.
+		 *
+		 * @return TCP port number.
+		 */
+		public int getLocalPort()
+		{
+			return _serverChannel.socket().getLocalPort();
+		}
+
+		/**
+		 * Returns the URI that data is forwarded to.
+		 *
+		 * @return URI to forward data to.
+		 */
+		@NotNull
+		public URI getURI()
+		{
+			return _uri;
+		}
+
+		public long getAcceptedConnections()
+		{
+			return _acceptedConnections.get();
+		}
+
+		public long getActiveConnections()
+		{
+			return _activeConnections.get();
+		}
+
+		public long getCompletedConnections()
+		{
+			return _completedConnections.get();
+		}
+
+		public long getFailedConnections()
+		{
+			return _failedConnections.get();
+		}
+
+		public long getBytesReceived()
+		{
+			return _bytesReceived.get();
+		}
+
+		public long getBytesForwarded()
+		{
+			return _bytesForwarded.get();
+		}
+
+		/**
+		 * Acquires the target URI for writing by the given connection. If
+		 * another connection is writing, the connection is queued and will be
+		 * the writer when it is {@link #releaseWriter released}.
+		 *
+		 * @param connection Connection that wants to write.
+		 *
+		 * @return {@code true} if the connection is the writer.
+		 */
+		synchronized boolean acquireWriter( @NotNull final Connection connection )
+		{
+			if ( _writer == null )
+			{
+				_writer = connection;
+			}
+			else if ( ( _writer != connection ) && !_waitingWriters.contains( connection ) )
+			{
+				_waitingWriters.add( connection );
+			}
+			return ( _writer == connection );
+		}
+
+		/**
+		 * Returns whether the given connection is the writer.
+		 *
+		 * @param connection Connection to check.
+		 *
+		 * @return {@code true} if the connection is the writer.
+		 */
+		synchronized boolean isWriter( @NotNull final Connection connection )
+		{
+			return ( _writer == connection );
+		}
+
+		/**
+		 * Releases the target URI after the given connection is done, or
+		 * removes the connection from the queue of waiting connections.
+		 *
+		 * @param connection Connection that is done.
+		 *
+		 * @return Connection that is the writer now; {@code null} if none or
+		 * if the writer did not change.
+		 */
+		@Nullable
+		synchronized Connection releaseWriter( @NotNull final Connection connection )
+		{
+			Connection result = null;
+			if ( _writer == connection )
+			{
+				result = _waitingWriters.poll();
+				_writer = result;
+			}
+			else
+			{
+				_waitingWriters.remove( connection );
+			}
+			return result;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "port " + getLocalPort() + " => " + _uri + " (accepted=" + getAcceptedConnections() + ", active=" + getActiveConnections() + ", completed=" + getCompletedConnections() + ", failed=" + getFailedConnections() + ", received=" + getBytesReceived() + ", forwarded=" + getBytesForwarded() + ')';
+		}
+	}
+
+	/**
+	 * Client connection of which the data is being forwarded.
+	 */
+	private class Connection
+	implements Runnable
+	{
+		/**
+		 * Port on which the connection was accepted.
+		 */
+		private final Port _port;
+
+		/**
+		 * Client channel.
+		 */
+		private final SocketChannel _channel;
+
+		/**
+		 * Selection key for the client channel.
+		 */
+		private SelectionKey _key = null;
+
+		/**
+		 * Whether data is still being read. Only accessed by event loop
+		 * thread.
+		 */
+		private boolean _reading = true;
+
+		/**
+		 * Time of last received data, or of resuming reading after the
+		 * connection was suspended. Only accessed by event loop thread.
+		 */
+		private long _lastActivity = System.currentTimeMillis();
+
+		/**
+		 * Buffers with data to be written. Guarded by {@code this}.
+		 */
+		private final Deque<ByteBuffer> _pending = new ArrayDeque<ByteBuffer>( MAX_PENDING_BUFFERS );
+
+		/**
+		 * Whether all data has been received. Guarded by {@code this}.
+		 */
+		private boolean _complete = false;
+
+		/**
+		 * Whether the connection was aborted. Guarded by {@code this}.
+		 */
+		private boolean _aborted = false;
+
+		/**
+		 * Whether the connection was closed before all data was received,
+		 * while data that was received is still written. Guarded by
+		 * {@code this}.
+		 */
+		private boolean _drained = false;
+
+		/**
+		 * Whether forwarding of data for this connection is done. Guarded by
+		 * {@code this}.
+		 */
+		private boolean _done = false;
+
+		/**
+		 * Whether a writer is currently scheduled for this connection.
+		 * Guarded by {@code this}.
+		 */
+		private boolean _writing = false;
+
+		/**
+		 * Stream to target URI. Only accessed by writer.
+		 */
+		private OutputStream _out = null;
+
+		/**
+		 * Scratch buffer used to copy data from direct buffers. Only accessed
+		 * by writer.
+		 */
+		private byte[] _scratch = null;
+
+		/**
+		 * Data received while another connection on the same port is writing;
+		 * {@code null} if none. Only accessed by writer.
+		 */
+		private ByteArrayOutputStream _backlog = null;
+
+		/**
+		 * Number of bytes written to the target URI. Only accessed by writer.
+		 */
+		private long _written = 0L;
+
+		/**
+		 * Construct connection.
+		 *
+		 * @param port    Port on which the connection was accepted.
+		 * @param channel Client channel.
+		 */
+		Connection( @NotNull final Port port, @NotNull final SocketChannel channel )
+		{
+			_port = port;
+			_channel = channel;
+		}
+
+		/**
+		 * Stops reading from the client, until the writer catches up or a
+		 * buffer becomes available. Must be called on the event loop thread.
+		 */
+		void suspend()
+		{
+			if ( _reading && _key.isValid() )
+			{
+				_key.interestOps( 0 );
+				_suspended.add( this );
+			}
+		}
+
+		/**
+		 * Resumes reading if there is room for more data. Must be called on
+		 * the event loop thread.
+		 *
+		 * @return {@code true} if the connection is no longer suspended.
+		 */
+		boolean resumeWhenPossible()
+		{
+			boolean result = true;
+
+			if ( _reading && _key.isValid() )
+			{
+				final boolean room;
+				synchronized ( this )
+				{
+					room = ( _pending.size() < MAX_PENDING_BUFFERS ) && ( !_freeBuffers.isEmpty() || ( _allocatedBuffers.get() < _maxBuffers ) );
+				}
+
+				if ( room )
+				{
+					/* time spent suspended does not count as idle time */
+					_lastActivity = System.currentTimeMillis();
+					_key.interestOps( SelectionKey.OP_READ );
+				}
+				else
+				{
+					result = false;
+				}
+			}
+
+			return result;
+		}
+
+		/**
+		 * Adds received data to be written to the target URI. Must be called
+		 * on the event loop thread.
+		 *
+		 * @param buffer Buffer with data.
+		 */
+		void enqueue( @NotNull final ByteBuffer buffer )
+		{
+			final boolean full;
+			synchronized ( this )
+			{
+				_pending.add( buffer );
+				full = ( _pending.size() >= MAX_PENDING_BUFFERS );
+				scheduleWriter();
+			}
+
+			if ( full )
+			{
+				suspend();
+			}
+		}
+
+		/**
+		 * Called when the client closed the connection after sending all
+		 * data. Must be called on the event loop thread.
+		 */
+		void finish()
+		{
+			stopReading();
+			synchronized ( this )
+			{
+				_complete = true;
+				scheduleWriter();
+			}
+		}
+
+		/**
+		 * Abort the connection, discarding any data that was not written.
+		 * Must be called on the event loop thread.
+		 *
+		 * @param reason Reason why the connection is aborted.
+		 */
+		void abort( @NotNull final String reason )
+		{
+			LOG.warn( reason + " (" + _port + ')' );
+			stopReading();
+			synchronized ( this )
+			{
+				_aborted = true;
+				scheduleWriter();
+			}
+		}
+
+		/**
+		 * Close the connection before all data was received, but still write
+		 * the data that was received. Must be called on the event loop thread.
+		 *
+		 * @param reason Reason why the connection is closed.
+		 */
+		void drain( @NotNull final String reason )
+		{
+			LOG.warn( reason + " (" + _port + ')' );
+			stopReading();
+			synchronized ( this )
+			{
+				_drained = true;
+				scheduleWriter();
+			}
+		}
+
+		/**
+		 * Stops reading from the client and closes the client channel.
+		 */
+		private void stopReading()
+		{
+			if ( _reading )
+			{
+				_reading = false;
+				_suspended.remove( this );
+				_key.cancel();
+				try
+				{
+					_channel.close();
+				}
+				catch ( final IOException e )
+				{
+					LOG.warn( "Failed to close client socket: " + e, e );
+				}
+				connectionClosed( this );
+			}
+		}
+
+		/**
+		 * Called when this connection became the writer for its port.
+		 */
+		void writerAcquired()
+		{
+			synchronized ( this )
+			{
+				scheduleWriter();
+			}
+		}
+
+		/**
+		 * Submits this connection to the writers, unless it already is.
+		 */
+		private void scheduleWriter()
+		{
+			if ( !_writing )
+			{
+				_writing = true;
+				try
+				{
+					_writers.execute( this );
+				}
+				catch ( final RejectedExecutionException e )
+				{
+					_writing = false;
+					LOG.warn( "Forwarder closed; discarding data for " + _port );
+				}
+			}
+		}
+
+		/**
+		 * Writes pending data to the target URI.
+		 */
+		@Override
+		public void run()
+		{
+			while ( true )
+			{
+				final ByteBuffer buffer;
+				final boolean complete;
+				final boolean aborted;
+				final boolean drained;
+				synchronized ( this )
+				{
+					buffer = _pending.poll();
+					complete = _complete;
+					aborted = _aborted;
+					drained = _drained;
+					if ( buffer == null )
+					{
+						if ( _done || ( !complete && !aborted && !drained ) )
+						{
+							_writing = false;
+							break;
+						}
+						_done = true;
+					}
+				}
+
+				if ( buffer != null )
+				{
+					try
+					{
+						if ( !aborted )
+						{
+							write( buffer );
+						}
+					}
+					catch ( final IOException e )
+					{
+						LOG.warn( "Failed to send data to " + _port._uri + ": " + e, e );
+						runOnEventLoop( new Runnable()
+						{
+							@Override
+							public void run()
+							{
+								stopReading();
+							}
+						} );
+						synchronized ( this )
+						{
+							_aborted = true;
+						}
+					}
+					finally
+					{
+						releaseBuffer( buffer );
+					}
+				}
+				else
+				{
+					if ( !aborted && ( _backlog != null ) )
+					{
+						boolean writer = false;
+						try
+						{
+							writer = startWriting();
+						}
+						catch ( final IOException e )
+						{
+							LOG.warn( "Failed to send data to " + _port._uri + ": " + e, e );
+							synchronized ( this )
+							{
+								_aborted = true;
+								_done = false;
+							}
+							continue;
+						}
+
+						if ( !writer )
+						{
+							/* wait until the port is released by the current writer (see 'writerAcquired') */
+							synchronized ( this )
+							{
+								_done = false;
+								if ( !_port.isWriter( this ) )
+								{
+									_writing = false;
+									break;
+								}
+							}
+							continue;
+						}
+					}
+
+					/* all data has been received and written, or aborted */
+					done( aborted || ( drained && !complete ) );
+					synchronized ( this )
+					{
+						_writing = false;
+					}
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Writes data to the target URI, opening the stream if needed. If
+		 * another connection on the same port is writing, the data is added
+		 * to the backlog of this connection instead.
+		 *
+		 * @param buffer Data to write.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private void write( @NotNull final ByteBuffer buffer )
+		throws IOException
+		{
+			byte[] scratch = _scratch;
+			if ( scratch == null )
+			{
+				scratch = new byte[ Math.min( buffer.capacity(), DEFAULT_BUFFER_SIZE ) ];
+				_scratch = scratch;
+			}
+
+			final OutputStream out;
+			if ( startWriting() )
+			{
+				out = _out;
+			}
+			else
+			{
+				if ( _backlog == null )
+				{
+					_backlog = new ByteArrayOutputStream();
+				}
+				out = _backlog;
+			}
+
+			final int length = buffer.remaining();
+			while ( buffer.hasRemaining() )
+			{
+				final int chunk = Math.min( buffer.remaining(), scratch.length );
+				buffer.get( scratch, 0, chunk );
+				out.write( scratch, 0, chunk );
+			}
+
+			if ( out == _out )
+			{
+				_written += (long)length;
+				_port._bytesForwarded.addAndGet( length );
+			}
+		}
+
+		/**
+		 * Opens the stream to the target URI, if this connection is (or can
+		 * become) the writer for its port, and writes the backlog.
+		 *
+		 * @return {@code true} if the stream is open; {@code false} if another
+		 * connection on the same port is writing.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private boolean startWriting()
+		throws IOException
+		{
+			boolean result = true;
+
+			if ( _out == null )
+			{
+				if ( _port.acquireWriter( this ) )
+				{
+					if ( LOG.isDebugEnabled() )
+					{
+						LOG.debug( "Sending data from " + _channel.socket().getInetAddress() + " to " + _port._uri );
+					}
+					final OutputStream out = URITools.openOutputStream( _port._uri, true );
+					_out = out;
+
+					final ByteArrayOutputStream backlog = _backlog;
+					if ( backlog != null )
+					{
+						_backlog = null;
+						backlog.writeTo( out );
+						_written += (long)backlog.size();
+						_port._bytesForwarded.addAndGet( backlog.size() );
+					}
+				}
+				else
+				{
+					result = false;
+				}
+			}
+
+			return result;
+		}
+
+		/**
+		 * Completes forwarding of data for this connection.
+		 *
+		 * @param aborted Whether the connection was aborted.
+		 */
+		private void done( final boolean aborted )
+		{
+			boolean success = !aborted;
+
+			final OutputStream out = _out;
+			if ( out != null )
+			{
+				_out = null;
+				try
+				{
+					out.close();
+				}
+				catch ( final IOException e )
+				{
+					LOG.warn( "Failed to send data to " + _port._uri + ": " + e, e );
+					success = false;
+				}
+			}
+			_backlog = null;
+
+			if ( !success && ( _written > 0L ) )
+			{
+				LOG.warn( "Connection failed after " + _written + " bytes were sent; partial data was left at " + _port._uri );
+			}
+
+			final Connection next = _port.releaseWriter( this );
+			if ( next != null )
+			{
+				next.writerAcquired();
+			}
+
+			_port._activeConnections.decrementAndGet();
+			if ( success )
+			{
+				_port._completedConnections.incrementAndGet();
+			}
+			else
+			{
+				_port._failedConnections.incrementAndGet();
+			}
+		}
+	}
+}
@@ -45,6 +45,7 @@ public class SocketTool
 			System.out.println( "  send <host> <port> [<text>] - Send text or data from stdin to the specified host/port using TCP." );
 			System.out.println( "  echo <host> <port> [<text>] - Send text or data from stdin to the specified host/port using TCP and wait for response." );
 			System.out.println( "  proxy [<bind address>:]<tcp port> <uri> <...> - Receive data from the specified TCP port and forward to the given URI." );
+			System.out.println( "  forward [<bind address>:]<tcp port> <uri> <...> - Like 'proxy', but using a single non-blocking event loop that streams data to the URI." );
 		}
 		else
 		{
@@ -66,6 +67,10 @@ public class SocketTool
 			{
 				doProxy( args );
 			}
+			else if ( "forward".equals( command ) )
+			{
+				doForward( args );
+			}
 			else
 			{
 				throw new IllegalArgumentException( "Illegal command: " + command );
@@ -192,6 +197,51 @@ public class SocketTool
 		}
 	}
 
+	/**
+	 * Forward data from TCP ports to URIs using a {@link SocketForwarder}.
+	 * The maximum number of concurrent connections can be set using the
+	 * '{@code socket.tool.maxConnections}' system property.
+	 *
+	 * @param args Command-line arguments.
+	 *
+	 * @throws IOException if a port could not be opened.
+	 */
+	public static void doForward( final String[] args )
+	throws IOException
+	{
+		if ( ( args.length < 2 ) || ( args.length % 2 != 1 ) )
+		{
+			System.err.println( "Required arguments: " + args[ 0 ] + " [<bind address>:]<tcp port> <uri> <...>" );
+		}
+		else
+		{
+			final int maxConnections = Integer.getInteger( "socket.tool.maxConnections", SocketForwarder.DEFAULT_MAX_CONNECTIONS );
+			final SocketForwarder forwarder = new SocketForwarder( maxConnections, SocketForwarder.DEFAULT_BUFFER_SIZE, SocketForwarder.DEFAULT_IDLE_TIMEOUT );
+
+			for ( int i = 1; i < args.length; i += 2 )
+			{
+				final String socket = args[ i ];
+				final int socketColon = socket.lastIndexOf( ':' );
+				final String serverBindAddress = ( socketColon < 0 ) ? null : socket.substring( 0, socketColon );
+				final int serverTcpPort = Integer.parseInt( ( socketColon < 0 ) ? socket : socket.substring( socketColon + 1 ) );
+
+				forwarder.addPort( serverBindAddress, serverTcpPort, URI.create( args[ i + 1 ] ) );
+			}
+
+			forwarder.run();
+
+			/* writer threads are daemons, so wait for them to write remaining data */
+			try
+			{
+				forwarder.awaitTermination( Long.MAX_VALUE );
+			}
+			catch ( final InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
 	/**
 	 * Executes various tasks asynchronously.
 	 */
@@ -0,0 +1,359 @@
+/*
+ * (C) Copyright Numdata BV 2026-2026 - All Rights Reserved
+ *
+ * This software may not be used, copied, modified, or distributed in any
+ * form without express permission from Numdata BV. Please contact Numdata BV
+ * for license information.
+ */
+package com.numdata.socket.tool;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+import com.numdata.uri.*;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Unit test for {@link SocketForwarder}.
+ */
+public class TestSocketForwarder
+{
+	/**
+	 * Tests forwarding of data from multiple ports and connections, including
+	 * data that exceeds the buffer size and the maximum number of concurrent
+	 * connections.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testForward()
+	throws Exception
+	{
+		final SocketForwarder forwarder = new SocketForwarder( 2, 64, 0L );
+		final URI uri1 = URI.create( "memory:TestSocketForwarder/port1" );
+		final URI uri2 = URI.create( "memory:TestSocketForwarder/port2" );
+		final SocketForwarder.Port port1 = forwarder.addPort( "localhost", 0, uri1 );
+		final SocketForwarder.Port port2 = forwarder.addPort( "localhost", 0, uri2 );
+
+		final Thread eventLoop = new Thread( forwarder, "SocketForwarder" );
+		eventLoop.start();
+		try
+		{
+			final byte[] large = new byte[ 100000 ];
+			new Random( 1234L ).nextBytes( large );
+
+			/* wait for each connection, so data is not interleaved */
+			final int connections = 5;
+			for ( int i = 0; i < connections; i++ )
+			{
+				send( port1.getLocalPort(), large );
+				waitForCompletion( port1, i + 1 );
+			}
+			send( port2.getLocalPort(), "Hello".getBytes( "US-ASCII" ) );
+			waitForCompletion( port2, 1 );
+
+			assertEquals( "Port 1 accepted connections", connections, port1.getAcceptedConnections() );
+			assertEquals( "Port 1 completed connections", connections, port1.getCompletedConnections() );
+			assertEquals( "Port 1 failed connections", 0L, port1.getFailedConnections() );
+			assertEquals( "Port 1 active connections", 0L, port1.getActiveConnections() );
+			assertEquals( "Port 1 bytes received", (long)( connections * large.length ), port1.getBytesReceived() );
+			assertEquals( "Port 1 bytes forwarded", (long)( connections * large.length ), port1.getBytesForwarded() );
+
+			final byte[] forwarded = MemoryScheme.getData( uri1 );
+			assertEquals( "Forwarded data length", connections * large.length, forwarded.length );
+			for ( int i = 0; i < connections; i++ )
+			{
+				assertArrayEquals( "Forwarded data #" + i, large, Arrays.copyOfRange( forwarded, i * large.length, ( i + 1 ) * large.length ) );
+			}
+
+			assertEquals( "Port 2 completed connections", 1L, port2.getCompletedConnections() );
+			assertEquals( "Port 2 data", "Hello", new String( MemoryScheme.getData( uri2 ), "US-ASCII" ) );
+		}
+		finally
+		{
+			forwarder.close();
+			eventLoop.join( 10000L );
+		}
+
+		assertTrue( "Writers should terminate", forwarder.awaitTermination( 10000L ) );
+	}
+
+	/**
+	 * Tests that a connection is not closed as idle while reading from it is
+	 * suspended, because its data is consumed slower than it is received.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSlowConsumer()
+	throws Exception
+	{
+		final ServerSocket consumer = new ServerSocket();
+		consumer.setReceiveBufferSize( 4096 );
+		consumer.bind( new InetSocketAddress( "localhost", 0 ) );
+
+		final byte[] data = new byte[ 16 * 1024 * 1024 ];
+		new Random( 1234L ).nextBytes( data );
+
+		final ByteArrayOutputStream consumed = new ByteArrayOutputStream( data.length );
+		final Thread consumerThread = new Thread( "slow consumer" )
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					final Socket socket = consumer.accept();
+					try
+					{
+						/* stall well beyond the idle timeout, so reading is suspended */
+						Thread.sleep( 1500L );
+
+						final InputStream in = socket.getInputStream();
+						final byte[] buffer = new byte[ 8192 ];
+						for ( int read = in.read( buffer ); read >= 0; read = in.read( buffer ) )
+						{
+							consumed.write( buffer, 0, read );
+						}
+					}
+					finally
+					{
+						socket.close();
+					}
+				}
+				catch ( final Exception e )
+				{
+					e.printStackTrace();
+				}
+			}
+		};
+		consumerThread.start();
+
+		final SocketForwarder forwarder = new SocketForwarder( 1, 8192, 300L );
+		final SocketForwarder.Port port = forwarder.addPort( "localhost", 0, URI.create( "socket://localhost:" + consumer.getLocalPort() ) );
+
+		final Thread eventLoop = new Thread( forwarder, "SocketForwarder" );
+		eventLoop.start();
+		try
+		{
+			send( port.getLocalPort(), data );
+			waitForCompletion( port, 1L );
+			consumerThread.join( 10000L );
+
+			assertEquals( "Failed connections", 0L, port.getFailedConnections() );
+			assertEquals( "Completed connections", 1L, port.getCompletedConnections() );
+			assertEquals( "Bytes forwarded", (long)data.length, port.getBytesForwarded() );
+			assertArrayEquals( "Consumed data", data, consumed.toByteArray() );
+		}
+		finally
+		{
+			forwarder.close();
+			eventLoop.join( 10000L );
+			consumer.close();
+		}
+
+		assertTrue( "Writers should terminate", forwarder.awaitTermination( 10000L ) );
+	}
+
+	/**
+	 * Tests that concurrent connections on the same port do not interleave
+	 * their data at the target URI.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testConcurrentConnections()
+	throws Exception
+	{
+		final SocketForwarder forwarder = new SocketForwarder( 2, 64, 0L );
+		final URI uri = URI.create( "memory:TestSocketForwarder/concurrent" );
+		final SocketForwarder.Port port = forwarder.addPort( "localhost", 0, uri );
+
+		final Thread eventLoop = new Thread( forwarder, "SocketForwarder" );
+		eventLoop.start();
+		try
+		{
+			final Random random = new Random( 1234L );
+			final byte[] first = new byte[ 1000 ];
+			random.nextBytes( first );
+			final byte[] second = new byte[ 5000 ];
+			random.nextBytes( second );
+
+			final Socket socket = new Socket( "localhost", port.getLocalPort() );
+			try
+			{
+				final OutputStream out = socket.getOutputStream();
+				out.write( first, 0, 500 );
+				out.flush();
+				waitForBytesForwarded( port, 500L );
+
+				send( port.getLocalPort(), second );
+				waitForBytesReceived( port, 500L + (long)second.length );
+				assertEquals( "Data should not be forwarded while another connection is writing", 500L, port.getBytesForwarded() );
+
+				out.write( first, 500, 500 );
+				out.flush();
+			}
+			finally
+			{
+				socket.close();
+			}
+
+			waitForCompletion( port, 2L );
+			assertEquals( "Completed connections", 2L, port.getCompletedConnections() );
+			assertEquals( "Bytes forwarded", (long)( first.length + second.length ), port.getBytesForwarded() );
+
+			final byte[] forwarded = MemoryScheme.getData( uri );
+			assertEquals( "Forwarded data length", first.length + second.length, forwarded.length );
+			assertArrayEquals( "Forwarded data of first connection", first, Arrays.copyOfRange( forwarded, 0, first.length ) );
+			assertArrayEquals( "Forwarded data of second connection", second, Arrays.copyOfRange( forwarded, first.length, forwarded.length ) );
+		}
+		finally
+		{
+			forwarder.close();
+			eventLoop.join( 10000L );
+		}
+
+		assertTrue( "Writers should terminate", forwarder.awaitTermination( 10000L ) );
+	}
+
+	/**
+	 * Tests that a connection that is aborted while it is writing leaves its
+	 * partial data, while a connection that is aborted while waiting for
+	 * another connection leaves no data at all.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testAbortedConnections()
+	throws Exception
+	{
+		final SocketForwarder forwarder = new SocketForwarder( 3, 64, 300L );
+		final URI uri = URI.create( "memory:TestSocketForwarder/aborted" );
+		final SocketForwarder.Port port = forwarder.addPort( "localhost", 0, uri );
+
+		final Thread eventLoop = new Thread( forwarder, "SocketForwarder" );
+		eventLoop.start();
+		try
+		{
+			final byte[] partial = "partial".getBytes( "US-ASCII" );
+			final byte[] waiting = "waiting".getBytes( "US-ASCII" );
+			final byte[] complete = "complete".getBytes( "US-ASCII" );
+
+			/* connections that are kept open until they time out */
+			final Socket writing = new Socket( "localhost", port.getLocalPort() );
+			final Socket queued = new Socket( "localhost", port.getLocalPort() );
+			try
+			{
+				writing.getOutputStream().write( partial );
+				writing.getOutputStream().flush();
+				waitForBytesForwarded( port, (long)partial.length );
+
+				queued.getOutputStream().write( waiting );
+				queued.getOutputStream().flush();
+				waitForBytesReceived( port, (long)( partial.length + waiting.length ) );
+
+				send( port.getLocalPort(), complete );
+				waitForCompletion( port, 3L );
+			}
+			finally
+			{
+				writing.close();
+				queued.close();
+			}
+
+			assertEquals( "Completed connections", 1L, port.getCompletedConnections() );
+			assertEquals( "Failed connections", 2L, port.getFailedConnections() );
+			assertEquals( "Forwarded data", "partialcomplete", new String( MemoryScheme.getData( uri ), "US-ASCII" ) );
+		}
+		finally
+		{
+			forwarder.close();
+			eventLoop.join( 10000L );
+		}
+
+		assertTrue( "Writers should terminate", forwarder.awaitTermination( 10000L ) );
+	}
+
+	/**
+	 * Wait until the given number of bytes was forwarded from a port.
+	 *
+	 * @param port  Forwarded port.
+	 * @param bytes Number of forwarded bytes to wait for.
+	 *
+	 * @throws InterruptedException if the thread was interrupted.
+	 */
+	private static void waitForBytesForwarded( final SocketForwarder.Port port, final long bytes )
+	throws InterruptedException
+	{
+		final long timeout = System.currentTimeMillis() + 10000L;
+		while ( ( port.getBytesForwarded() < bytes ) && ( System.currentTimeMillis() < timeout ) )
+		{
+			Thread.sleep( 10L );
+		}
+	}
+
+	/**
+	 * Wait until the given number of bytes was received on a port.
+	 *
+	 * @param port  Forwarded port.
+	 * @param bytes Number of received bytes to wait for.
+	 *
+	 * @throws InterruptedException if the thread was interrupted.
+	 */
+	private static void waitForBytesReceived( final SocketForwarder.Port port, final long bytes )
+	throws InterruptedException
+	{
+		final long timeout = System.currentTimeMillis() + 10000L;
+		while ( ( port.getBytesReceived() < bytes ) && ( System.currentTimeMillis() < timeout ) )
+		{
+			Thread.sleep( 10L );
+		}
+		/* allow the data to reach the writer */
+		Thread.sleep( 100L );
+	}
+
+	/**
+	 * Wait until the given number of connections was completed on a port.
+	 *
+	 * @param port        Forwarded port.
+	 * @param connections Number of completed connections to wait for.
+	 *
+	 * @throws InterruptedException if the thread was interrupted.
+	 */
+	private static void waitForCompletion( final SocketForwarder.Port port, final long connections )
+	throws InterruptedException
+	{
+		final long timeout = System.currentTimeMillis() + 10000L;
+		while ( ( port.getCompletedConnections() + port.getFailedConnections() < connections ) && ( System.currentTimeMillis() < timeout ) )
+		{
+			Thread.sleep( 10L );
+		}
+	}
+
+	/**
+	 * Send data to local TCP port.
+	 *
+	 * @param port TCP port.
+	 * @param data Data to send.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void send( final int port, final byte[] data )
+	throws IOException
+	{
+		final Socket socket = new Socket( "localhost", port );
+		try
+		{
+			final OutputStream out = socket.getOutputStream();
+			out.write( data );
+			out.flush();
+		}
+		finally
+		{
+			socket.close();
+		}
+	}
+}
@@ -78,21 +78,14 @@ implements Icon
 	 */
 	public AsyncIcon( @NotNull final String path, final int width, final int height, final Component... componentsToUpdate )
 	{
-		this( new Callable<Image>()
+		this( ImageTools.getImageAsync( path ).thenApply( image ->
 		{
-			@Override
-			@Nullable
-			public Image call()
-			throws Exception
+			if ( ( image != null ) && ( ( ( width != 0 ) && ( image.getWidth() != width ) ) || ( ( height != 0 ) && ( image.getHeight() != height ) ) ) )
 			{
-				final BufferedImage image = ImageTools.getImage( path );
-				if ( ( image != null ) && ( ( ( width != 0 ) && ( image.getWidth() != width ) ) || ( ( height != 0 ) && ( image.getHeight() != height ) ) ) )
-				{
-					System.err.println( "note: Icon '" + path + "' initialized at " + width + 'x' + height + ", but image is " + image.getWidth() + 'x' + image.getHeight() + " pixels" );
-				}
-				return image;
+				System.err.println( "note: Icon '" + path + "' initialized at " + width + 'x' + height + ", but image is " + image.getWidth() + 'x' + image.getHeight() + " pixels" );
 			}
-		}, width, height, componentsToUpdate );
+			return image;
+		} ), width, height, componentsToUpdate );
 	}
 
 	/**
@@ -251,22 +244,20 @@ implements Icon
 	 */
 	public AsyncIcon( @NotNull final Class<?> referenceClass, @NotNull final String resourcePath, final int width, final int height, final Component... componentsToUpdate )
 	{
-		this( new Callable<Image>()
+		this( ImageTools.getImageAsync( referenceClass, resourcePath ).thenCompose( image ->
 		{
-			@Override
-			@Nullable
-			public Image call()
-			throws Exception
+			final CompletableFuture<BufferedImage> result;
+			if ( ( image != null ) && ( ( ( width != 0 ) && ( image.getWidth() != width ) ) || ( ( height != 0 ) && ( image.getHeight() != height ) ) ) )
 			{
-				BufferedImage image = ImageTools.getImage( referenceClass, resourcePath );
-				if ( ( image != null ) && ( ( ( width != 0 ) && ( image.getWidth() != width ) ) || ( ( height != 0 ) && ( image.getHeight() != height ) ) ) )
-				{
-					System.err.println( "note: Icon '" + resourcePath + "' initialized at " + width + 'x' + height + ", but image is " + image.getWidth() + 'x' + image.getHeight() + " pixels; it will be scaled down" );
-					image = ImageTools.createScaledInstance( image, width, height, ImageTools.ScaleMode.CONTAIN, null );
-				}
-				return image;
+				System.err.println( "note: Icon '" + resourcePath + "' initialized at " + width + 'x' + height + ", but image is " + image.getWidth() + 'x' + image.getHeight() + " pixels; it will be scaled down" );
+				result = ImageTools.createScaledInstanceAsync( image, width, height, ImageTools.ScaleMode.CONTAIN, null );
 			}
-		}, width, height, componentsToUpdate );
+			else
+			{
+				result = CompletableFuture.completedFuture( image );
+			}
+			return result;
+		} ), width, height, componentsToUpdate );
 	}
 
 	/**
@@ -281,11 +272,74 @@ implements Icon
 	 */
 	public AsyncIcon( @NotNull final Callable<Image> imageLoader, final int width, final int height, final Component... componentsToUpdate )
 	{
+		this( submit( imageLoader ), width, height, componentsToUpdate );
+	}
+
+	/**
+	 * Create icon from an image that is loaded asynchronously, e.g. using
+	 * {@link ImageTools#getImageAsync}.
+	 *
+	 * @param image              Future image.
+	 * @param width              Initial icon width.
+	 * @param height             Initial icon height.
+	 * @param componentsToUpdate Components to update after image is loaded.
+	 */
+	public AsyncIcon( @NotNull final CompletableFuture<? extends Image> image, final int width, final int height, final Component... componentsToUpdate )
+	{
+		if ( ImageTools.serverSideWarningsEnabled )
+		{
+			new Throwable( "WARNING: Server-side creation of AsyncIcon should be avoided." ).printStackTrace();
+		}
+
 		_width = width;
 		_height = height;
 		_componentsToUpdate.addAll( Arrays.asList( componentsToUpdate ) );
 
-		new Worker( imageLoader ).execute();
+		image.whenComplete( ( result, exception ) -> SwingUtilities.invokeLater( () ->
+		{
+			if ( exception != null )
+			{
+				failedToLoad( exception );
+			}
+			else if ( result != null )
+			{
+				imageLoaded( result );
+			}
+		} ) );
+	}
+
+	/**
+	 * Loads an image using the executor for asynchronous image operations.
+	 *
+	 * @param imageLoader Callable that loads the image.
+	 *
+	 * @return Future image.
+	 *
+	 * @see ImageTools#getExecutor()
+	 */
+	@NotNull
+	private static CompletableFuture<Image> submit( @NotNull final Callable<Image> imageLoader )
+	{
+		final CompletableFuture<Image> result = new CompletableFuture<Image>();
+		try
+		{
+			ImageTools.getExecutor().execute( () ->
+			{
+				try
+				{
+					result.complete( imageLoader.call() );
+				}
+				catch ( final Throwable e )
+				{
+					result.completeExceptionally( e );
+				}
+			} );
+		}
+		catch ( final RejectedExecutionException e )
+		{
+			result.completeExceptionally( e );
+		}
+		return result;
 	}
 
 	@Override
@@ -373,7 +427,7 @@ implements Icon
 	 *
 	 * @param exception Exception that occurred while loading the image.
 	 */
-	private void failedToLoad( final Exception exception )
+	private void failedToLoad( final Throwable exception )
 	{
 		// print error
 		System.err.println( "ERROR: Failed to load icon (" + ( ( exception.getCause() != null ) ? exception.getCause() : exception ) + ')' );
@@ -382,54 +436,4 @@ implements Icon
 		// no more need to collection components to paint
 		_componentsToUpdate = null;
 	}
-
-	/**
-	 * A worker used to load an image.
-	 */
-	private class Worker
-	extends SwingWorker<Image, Void>
-	{
-		/**
-		 * Callable that loads the image.
-		 */
-		private final Callable<Image> _imageLoader;
-
-		/**
-		 * Create worker for the given job.
-		 *
-		 * @param imageLoader Callable that loads the image.
-		 */
-		private Worker( @NotNull final Callable<Image> imageLoader )
-		{
-			if ( ImageTools.serverSideWarningsEnabled )
-			{
-				new Throwable( "WARNING: Server-side creation of AsyncIcon.Worker should be avoided." ).printStackTrace();
-			}
-			_imageLoader = imageLoader;
-		}
-
-		@Override
-		protected Image doInBackground()
-		throws Exception
-		{
-			return _imageLoader.call();
-		}
-
-		@Override
-		protected void done()
-		{
-			try
-			{
-				final Image image = get();
-				if ( image != null )
-				{
-					imageLoaded( image );
-				}
-			}
-			catch ( final Exception e )
-			{
-				failedToLoad( e );
-			}
-		}
-	}
 }
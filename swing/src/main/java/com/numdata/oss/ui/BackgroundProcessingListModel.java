@@ -49,6 +49,11 @@ import org.jetbrains.annotations.*;
  * model is used for a {@link JList}, in which case visible items
  * are processed first.
  *
+ * Elements are processed by a pool of {@link QueueWorker}s, one by default
+ * (see {@link #setWorkerCount}). Each element is processed at most once while
+ * it remains in the model. Removing an element from the model cancels its
+ * processing; see {@link #isCancelled(Object)}.
+ *
  * @param <T> type of elements in this model.
  *
  * @author Peter S. Heijnen
@@ -58,15 +63,54 @@ public abstract class BackgroundProcessingListModel<T>
 extends ArrayListModel<T>
 {
 	/**
-	 * Queue of elements to fetch.
+	 * Queue of elements to fetch. The head of the queue is processed first.
+	 *
+	 * This is also used as lock for all processing state.
 	 */
-	private final transient Queue<QueueElement<T>> _queue = new LinkedHashList<QueueElement<T>>();
+	private final transient LinkedHashList<QueueElement<T>> _queue = new LinkedHashList<QueueElement<T>>();
 
 	/**
-	 * Worker that processes the queue in the background.
+	 * Elements in this model that have been processed.
 	 */
-	@Nullable
-	private transient QueueWorker _worker;
+	private final transient Set<T> _processed = new HashSet<T>();
+
+	/**
+	 * Elements that are currently being processed.
+	 */
+	private final transient Map<T, QueueElement<T>> _active = new HashMap<T, QueueElement<T>>();
+
+	/**
+	 * Workers that process the queue in the background.
+	 */
+	private final transient List<QueueWorker> _workers = new ArrayList<QueueWorker>();
+
+	/**
+	 * Maximum number of workers.
+	 */
+	private int _workerCount;
+
+	/**
+	 * Number of workers that were started, but not yet done. Unlike {@link
+	 * #_workers}, this includes workers that stopped taking elements from the
+	 * queue, but whose {@link QueueWorker#done()} has not been called yet.
+	 */
+	private transient int _runningWorkers = 0;
+
+	/**
+	 * Processed elements that are waiting to be passed to {@link #processed}.
+	 */
+	private final transient List<T> _published = new ArrayList<T>();
+
+	/**
+	 * Elements processed by workers that finished since the last call to
+	 * {@link #done}.
+	 */
+	private final transient List<T> _finished = new ArrayList<T>();
+
+	/**
+	 * Whether a worker was cancelled since the last call to {@link #done}.
+	 */
+	private transient boolean _finishedCancelled = false;
 
 	/**
 	 * Serialized data version.
@@ -74,11 +118,58 @@ extends ArrayListModel<T>
 	private static final long serialVersionUID = 306770265034722112L;
 
 	/**
-	 * Construct model.
+	 * Construct model with a single worker.
 	 */
 	protected BackgroundProcessingListModel()
 	{
-		_worker = null;
+		this( 1 );
+	}
+
+	/**
+	 * Construct model.
+	 *
+	 * @param workerCount Maximum number of workers.
+	 */
+	protected BackgroundProcessingListModel( final int workerCount )
+	{
+		if ( workerCount < 1 )
+		{
+			throw new IllegalArgumentException( "workerCount: " + workerCount );
+		}
+
+		_workerCount = workerCount;
+	}
+
+	/**
+	 * Returns the maximum number of workers that process elements
+	 * concurrently.
+	 *
+	 * @return Maximum number of workers.
+	 */
+	public int getWorkerCount()
+	{
+		return _workerCount;
+	}
+
+	/**
+	 * Sets the maximum number of workers that process elements concurrently.
+	 * Note that workers run on the {@link SwingWorker} thread pool, which
+	 * limits the actual number of concurrent workers.
+	 *
+	 * @param workerCount Maximum number of workers.
+	 */
+	public void setWorkerCount( final int workerCount )
+	{
+		if ( workerCount < 1 )
+		{
+			throw new IllegalArgumentException( "workerCount: " + workerCount );
+		}
+
+		synchronized ( _queue )
+		{
+			_workerCount = workerCount;
+			startWorkers();
+		}
 	}
 
 	/**
@@ -88,6 +179,23 @@ extends ArrayListModel<T>
 	 */
 	protected abstract void process( T element );
 
+	/**
+	 * Returns whether processing of the given element was cancelled, e.g.
+	 * because it was removed from the model. May be called from {@link
+	 * #process} to stop processing an element early.
+	 *
+	 * @param element Element being processed.
+	 *
+	 * @return {@code true} if processing of the element was cancelled.
+	 */
+	protected boolean isCancelled( final T element )
+	{
+		synchronized ( _queue )
+		{
+			return !_active.containsKey( element );
+		}
+	}
+
 	/**
 	 * Executed on the <i>Event Dispatch Thread</i> for elements that were
 	 * previously processed by the {@link #process} method. <p> The argument is
@@ -137,29 +245,19 @@ extends ArrayListModel<T>
 
 	/**
 	 * Executed on the <i>Event Dispatch Thread</i> after all elements in the
-	 * queue have been processed.
+	 * queue have been processed, i.e. once the last worker has finished.
 	 *
-	 * @param elements  Elements that were processed.
-	 * @param cancelled Whether the background process was cancelled or not.
+	 * @param elements  Elements that were processed by all workers.
+	 * @param cancelled Whether any of the workers was cancelled.
 	 *
 	 * @see SwingWorker#done
 	 */
 	@SuppressWarnings( "unused" )
 	protected void done( @NotNull final List<T> elements, final boolean cancelled )
 	{
-		_worker = null;
-
-		final boolean empty;
 		synchronized ( _queue )
 		{
-			empty = _queue.isEmpty();
-		}
-
-		if ( !empty )
-		{
-			final QueueWorker worker = new QueueWorker();
-			_worker = worker;
-			worker.execute();
+			startWorkers();
 		}
 	}
 
@@ -179,7 +277,7 @@ extends ArrayListModel<T>
 				final QueueElement<T> queueElement = new QueueElement<T>( result );
 				if ( _queue.remove( queueElement ) ) /* only requeue if it's queued */
 				{
-					addToQueue( queueElement );
+					_queue.addFirst( queueElement );
 				}
 			}
 
@@ -244,6 +342,15 @@ extends ArrayListModel<T>
 		synchronized ( _queue )
 		{
 			_queue.clear();
+			_processed.clear();
+
+			for ( final QueueElement<T> queueElement : _active.values() )
+			{
+				queueElement._cancelled = true;
+			}
+			_active.clear();
+			_finished.clear();
+
 			super.clear();
 		}
 	}
@@ -257,7 +364,7 @@ extends ArrayListModel<T>
 			final T result = super.remove( index );
 			if ( ( result != null ) && !contains( result ) )
 			{
-				_queue.remove( new QueueElement<T>( result ) );
+				cancel( result );
 			}
 			return result;
 		}
@@ -280,7 +387,7 @@ extends ArrayListModel<T>
 			{
 				if ( ( element != null ) && !contains( element ) )
 				{
-					_queue.remove( new QueueElement<T>( (T)element ) );
+					cancel( (T)element );
 				}
 			}
 		}
@@ -297,7 +404,7 @@ extends ArrayListModel<T>
 			{
 				if ( ( result != null ) && !contains( result ) )
 				{
-					_queue.remove( new QueueElement<T>( result ) );
+					cancel( result );
 				}
 
 				if ( element != null )
@@ -315,12 +422,16 @@ extends ArrayListModel<T>
 	protected void finalize()
 	throws Throwable
 	{
-		_queue.clear();
+		final List<QueueWorker> workers;
+		synchronized ( _queue )
+		{
+			_queue.clear();
+			workers = new ArrayList<QueueWorker>( _workers );
+			_workers.clear();
+		}
 
-		final QueueWorker worker = _worker;
-		if ( worker != null )
+		for ( final QueueWorker worker : workers )
 		{
-			_worker = null;
 			worker.cancel( true );
 		}
 
@@ -350,7 +461,8 @@ extends ArrayListModel<T>
 
 	/**
 	 * This method is called internally to add new elements to the queue. It
-	 * will automatically start a {@link QueueWorker} to process the queue.
+	 * will automatically start {@link QueueWorker}s to process the queue.
+	 * Elements that have already been processed are not queued again.
 	 *
 	 * @param queueElement Element to add to queue.
 	 */
@@ -358,15 +470,152 @@ extends ArrayListModel<T>
 	{
 		synchronized ( _queue )
 		{
-			_queue.add( queueElement );
+			if ( !_processed.contains( queueElement._element ) )
+			{
+				_queue.add( queueElement );
+				startWorkers();
+			}
+		}
+	}
+
+	/**
+	 * Cancels processing of an element that was removed from the model. The
+	 * element is removed from the queue and any result of processing it is
+	 * discarded.
+	 *
+	 * @param element Element that was removed.
+	 */
+	private void cancel( final T element )
+	{
+		synchronized ( _queue )
+		{
+			_queue.remove( new QueueElement<T>( element ) );
+			_processed.remove( element );
+
+			final QueueElement<T> active = _active.remove( element );
+			if ( active != null )
+			{
+				active._cancelled = true;
+			}
+		}
+	}
+
+	/**
+	 * Starts workers until there is one for each queued element, up to the
+	 * maximum number of workers.
+	 */
+	private void startWorkers()
+	{
+		synchronized ( _queue )
+		{
+			final int count = Math.min( _workerCount, _queue.size() );
+			while ( _workers.size() < count )
+			{
+				final QueueWorker worker = new QueueWorker();
+				_workers.add( worker );
+				_runningWorkers++;
+				worker.execute();
+			}
+		}
+	}
+
+	/**
+	 * Returns the next element to process, and marks it as being processed.
+	 * Elements that are already processed, or being processed by another
+	 * worker, are skipped.
+	 *
+	 * @param worker Worker that requests the element.
+	 *
+	 * @return Next element to process; {@code null} if the queue is empty, in
+	 * which case the worker is removed from the pool.
+	 */
+	@Nullable
+	private QueueElement<T> nextElement( final QueueWorker worker )
+	{
+		synchronized ( _queue )
+		{
+			QueueElement<T> result;
+			do
+			{
+				result = _queue.poll();
+			}
+			while ( ( result != null ) && ( _processed.contains( result._element ) || _active.containsKey( result._element ) ) );
+
+			if ( result != null )
+			{
+				_active.put( result._element, result );
+			}
+			else
+			{
+				_workers.remove( worker );
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * Marks an element as processed and schedules a call to {@link #processed}
+	 * on the <i>Event Dispatch Thread</i>. Elements processed in the mean time
+	 * are passed along in the same call.
+	 *
+	 * @param queueElement Element that was processed.
+	 *
+	 * @return {@code true} if the element was processed; {@code false} if
+	 * processing was cancelled.
+	 */
+	private boolean elementProcessed( final QueueElement<T> queueElement )
+	{
+		final boolean result;
+		final boolean schedule;
+
+		synchronized ( _queue )
+		{
+			final T element = queueElement._element;
+
+			if ( _active.get( element ) == queueElement )
+			{
+				_active.remove( element );
+			}
+
+			result = !queueElement._cancelled;
+			if ( result )
+			{
+				_processed.add( element );
+			}
+
+			schedule = result && _published.isEmpty();
+			if ( result )
+			{
+				_published.add( element );
+			}
 		}
 
-		if ( _worker == null )
+		if ( schedule )
 		{
-			final QueueWorker worker = new QueueWorker();
-			_worker = worker;
-			worker.execute();
+			SwingUtilities.invokeLater( new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					final List<T> elements;
+					final int progress;
+
+					synchronized ( _queue )
+					{
+						elements = new ArrayList<T>( _published );
+						_published.clear();
+
+						final int processedCount = _processed.size();
+						progress = ( 100 * processedCount ) / Math.max( 1, processedCount + _active.size() + _queue.size() );
+					}
+
+					processed( elements, progress );
+				}
+			} );
 		}
+
+		return result;
 	}
 
 	/**
@@ -383,70 +632,73 @@ extends ArrayListModel<T>
 			setProgress( 0 );
 
 			QueueElement<T> queueElement;
-			while ( !isCancelled() )
+			while ( !isCancelled() && ( ( queueElement = nextElement( this ) ) != null ) )
 			{
-				synchronized ( _queue )
-				{
-					queueElement = _queue.poll();
-				}
-
-				if ( queueElement == null )
-				{
-					break;
-				}
-
 				final T element = queueElement._element;
-				if ( !result.contains( element ) )
+				if ( !queueElement._cancelled )
 				{
 					BackgroundProcessingListModel.this.process( element );
+				}
 
-					for ( final Iterator<T> i = result.iterator(); i.hasNext(); )
-					{
-						if ( !contains( i.next() ) )
-						{
-							i.remove();
-						}
-					}
-
-					if ( contains( element ) )
-					{
-						result.add( element );
-
-						final int progress;
-						synchronized ( _queue )
-						{
-							progress = ( 100 * result.size() ) / ( result.size() + _queue.size() );
-						}
-						setProgress( progress );
-
-						publish( element );
-					}
+				if ( elementProcessed( queueElement ) )
+				{
+					result.add( element );
 				}
 			}
 
 			return result;
 		}
 
-		@Override
-		protected void process( final List<T> elements )
-		{
-			processed( elements, getProgress() );
-		}
-
 		@Override
 		protected void done()
 		{
-			try
+			List<T> elements = Collections.emptyList();
+			if ( !isCancelled() )
 			{
-				BackgroundProcessingListModel.this.done( get(), isCancelled() );
+				try
+				{
+					elements = get();
+				}
+				catch ( InterruptedException e )
+				{
+					e.printStackTrace();
+				}
+				catch ( ExecutionException e )
+				{
+					e.printStackTrace();
+				}
 			}
-			catch ( InterruptedException e )
+
+			final List<T> finished;
+			final boolean cancelled;
+
+			synchronized ( _queue )
 			{
-				e.printStackTrace();
+				_workers.remove( this );
+				_runningWorkers--;
+				_finished.addAll( elements );
+				_finishedCancelled |= isCancelled();
+
+				/* elements may have been queued while this worker was stopping */
+				startWorkers();
+
+				if ( _runningWorkers == 0 )
+				{
+					finished = new ArrayList<T>( _finished );
+					cancelled = _finishedCancelled;
+					_finished.clear();
+					_finishedCancelled = false;
+				}
+				else
+				{
+					finished = null;
+					cancelled = false;
+				}
 			}
-			catch ( ExecutionException e )
+
+			if ( finished != null )
 			{
-				e.printStackTrace();
+				BackgroundProcessingListModel.this.done( finished, cancelled );
 			}
 		}
 	}
@@ -469,6 +721,11 @@ extends ArrayListModel<T>
 		 */
 		long _time;
 
+		/**
+		 * Whether processing of the element was cancelled.
+		 */
+		volatile boolean _cancelled;
+
 		/**
 		 * Construct new queue element.
 		 *
@@ -29,13 +29,16 @@ package com.numdata.oss.ui;
 import java.awt.*;
 import java.awt.image.*;
 import java.io.*;
+import java.lang.ref.*;
 import java.net.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
 import javax.imageio.*;
 import javax.imageio.stream.*;
 import javax.swing.*;
 
+import com.numdata.oss.*;
 import com.numdata.oss.io.*;
 import com.numdata.oss.log.*;
 import org.jetbrains.annotations.*;
@@ -139,19 +142,85 @@ public class ImageTools
 	private static ClassLoader _classLoader = ImageTools.class.getClassLoader();
 
 	/**
-	 * Cache for previously loaded images.
+	 * Default maximum size of {@link #_imageCache}, in bytes.
+	 */
+	private static final long DEFAULT_IMAGE_CACHE_LIMIT = 64L * 1024L * 1024L;
+
+	/**
+	 * Default maximum size of {@link #_scaledImageCache}, in bytes.
+	 */
+	private static final long DEFAULT_SCALED_IMAGE_CACHE_LIMIT = 32L * 1024L * 1024L;
+
+	/**
+	 * Determines the weight of a cached image, i.e. the (approximate) number
+	 * of bytes used by its pixel data.
+	 */
+	private static final Cache.Weigher<Object, BufferedImage> IMAGE_WEIGHER = new Cache.Weigher<Object, BufferedImage>()
+	{
+		@Override
+		public int weigh( final Object key, @Nullable final BufferedImage image )
+		{
+			final int result;
+			if ( image == null )
+			{
+				result = 0;
+			}
+			else
+			{
+				final int bytesPerPixel = ( image.getColorModel().getPixelSize() + 7 ) / 8;
+				result = (int)Math.min( (long)image.getWidth() * (long)image.getHeight() * (long)bytesPerPixel, (long)Integer.MAX_VALUE );
+			}
+			return result;
+		}
+	};
+
+	/**
+	 * Marks a resource that was not found in {@link #_classResourceCache}.
+	 */
+	private static final Object MISSING_RESOURCE = new Object();
+
+	/**
+	 * Cache for previously loaded images. The cache is bounded by the total
+	 * size of the images; values are soft-referenced as needed, so images may
+	 * also be reclaimed when memory runs low.
 	 *
 	 * @see #getImage
+	 * @see #setImageCacheLimit
+	 */
+	private static final ConcurrentCache<String, BufferedImage> _imageCache = new ConcurrentCache<String, BufferedImage>( 4 );
+
+	/**
+	 * Cache for scaled images created by {@link #createScaledInstanceAsync}.
+	 *
+	 * @see #setScaledImageCacheLimit
+	 */
+	private static final ConcurrentCache<ScaledImageKey, BufferedImage> _scaledImageCache = new ConcurrentCache<ScaledImageKey, BufferedImage>( 4 );
+
+	/**
+	 * Asynchronous image operations in progress, by key.
+	 */
+	private static final ConcurrentMap<Object, CompletableFuture<BufferedImage>> _pendingImages = new ConcurrentHashMap<Object, CompletableFuture<BufferedImage>>();
+
+	/**
+	 * Executor for asynchronous image operations. (created as needed)
 	 */
-	private static final Map<String, BufferedImage> _imageCache = new HashMap<String, BufferedImage>();
+	private static ExecutorService _executor = null;
 
 	/**
-	 * Cache for resources relative to classes.
+	 * Cache for resources relative to classes. Resources that were not found
+	 * are mapped to {@link #MISSING_RESOURCE}.
 	 *
 	 * @see #getClassResource(Class, String)
 	 * @see #getImageIcon(Class, String)
 	 */
-	private static final Map<Class<?>, Map<String, URL>> _classResourceCache = new HashMap<Class<?>, Map<String, URL>>();
+	private static final ClassValue<ConcurrentMap<String, Object>> _classResourceCache = new ClassValue<ConcurrentMap<String, Object>>()
+	{
+		@Override
+		protected ConcurrentMap<String, Object> computeValue( final Class<?> type )
+		{
+			return new ConcurrentHashMap<String, Object>();
+		}
+	};
 
 	static
 	{
@@ -159,6 +228,8 @@ public class ImageTools
 		edtWarningsEnabled = getSystemSetting( "edtWarnings", true );
 		presetIconSizeWarningsEnabled = getSystemSetting( "presetIconSizeWarnings", true );
 
+		_imageCache.setMaximumWeight( DEFAULT_IMAGE_CACHE_LIMIT, IMAGE_WEIGHER );
+		_scaledImageCache.setMaximumWeight( DEFAULT_SCALED_IMAGE_CACHE_LIMIT, IMAGE_WEIGHER );
 	}
 
 	/**
@@ -295,6 +366,63 @@ public class ImageTools
 		_classLoader = classLoader;
 	}
 
+	/**
+	 * Sets the maximum total size of images cached by {@link #getImage}. When
+	 * the limit is exceeded, the least recently used images are evicted.
+	 *
+	 * @param limit Maximum size of cached images, in bytes.
+	 */
+	public static void setImageCacheLimit( final long limit )
+	{
+		_imageCache.setMaximumWeight( limit, IMAGE_WEIGHER );
+	}
+
+	/**
+	 * Sets the maximum total size of images cached by {@link
+	 * #createScaledInstanceAsync}. When the limit is exceeded, the least
+	 * recently used images are evicted.
+	 *
+	 * @param limit Maximum size of cached images, in bytes.
+	 */
+	public static void setScaledImageCacheLimit( final long limit )
+	{
+		_scaledImageCache.setMaximumWeight( limit, IMAGE_WEIGHER );
+	}
+
+	/**
+	 * Returns the executor used for asynchronous image operations. Unless set
+	 * using {@link #setExecutor}, a pool of daemon threads is created when
+	 * first needed.
+	 *
+	 * @return Executor for asynchronous image operations.
+	 */
+	@NotNull
+	public static synchronized ExecutorService getExecutor()
+	{
+		ExecutorService result = _executor;
+		if ( result == null )
+		{
+			final DefaultThreadFactory threadFactory = new DefaultThreadFactory();
+			threadFactory.setNamePrefix( ImageTools.class.getName() );
+			threadFactory.setDaemon( true );
+			threadFactory.setPriority( Thread.NORM_PRIORITY - 1 );
+
+			result = Executors.newFixedThreadPool( Runtime.getRuntime().availableProcessors(), threadFactory );
+			_executor = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the executor to use for asynchronous image operations.
+	 *
+	 * @param executor Executor for asynchronous image operations.
+	 */
+	public static synchronized void setExecutor( @NotNull final ExecutorService executor )
+	{
+		_executor = executor;
+	}
+
 
 	/**
 	 * Get {@link ImageIcon} for the given path. Resources are loaded against
@@ -374,39 +502,24 @@ public class ImageTools
 	@Nullable
 	static URL getClassResource( @NotNull final Class<?> referenceClass, @NotNull final String path )
 	{
-		URL result;
+		final ConcurrentMap<String, Object> resources = _classResourceCache.get( referenceClass );
 
-		final Map<Class<?>, Map<String, URL>> cache = _classResourceCache;
-		synchronized ( cache )
+		Object resource = resources.get( path );
+		if ( resource == null )
 		{
-			final Map<Class<?>, Map<String, URL>> classResourceCache = cache;
-
-			Map<String, URL> resources = classResourceCache.get( referenceClass );
-			if ( resources == null )
-			{
-				resources = new HashMap<String, URL>();
-				classResourceCache.put( referenceClass, resources );
-				result = referenceClass.getResource( path );
-				resources.put( path, result );
-			}
-			else
-			{
-				result = resources.get( path );
-				if ( ( result == null ) && !resources.containsKey( path ) )
-				{
-					result = referenceClass.getResource( path );
-					resources.put( path, result );
-				}
-			}
+			final URL url = referenceClass.getResource( path );
+			resource = ( url != null ) ? url : MISSING_RESOURCE;
+			resources.putIfAbsent( path, resource );
 		}
 
-		return result;
+		return ( resource != MISSING_RESOURCE ) ? (URL)resource : null;
 	}
 
 	/**
 	 * Get image for the specified URL.
 	 *
-	 * This method stores all returned images in a permanent cache! Please do
+	 * This method stores returned images in a cache that is bounded by the
+	 * total size of its images (see {@link #setImageCacheLimit}). Please do
 	 * not use this method for loading images that are rarely used.
 	 *
 	 * @param url URL to image file.
@@ -416,7 +529,7 @@ public class ImageTools
 	@Nullable
 	public static BufferedImage getImage( @Nullable final URL url )
 	{
-		BufferedImage result;
+		final BufferedImage result;
 
 		if ( url == null )
 		{
@@ -424,51 +537,48 @@ public class ImageTools
 		}
 		else
 		{
-			final String key = url.toExternalForm();
-			final Map<String, BufferedImage> cache = _imageCache;
+			result = _imageCache.getOrLoad( url.toExternalForm(), key -> loadForCache( url ) );
+		}
 
-			final boolean needToLoad;
+		return result;
+	}
 
-			synchronized ( cache )
-			{
-				result = cache.get( key );
-				needToLoad = ( result == null ) && !cache.containsKey( key );
-			}
+	/**
+	 * Loads an image to be stored in {@link #_imageCache}.
+	 *
+	 * @param url URL to image file.
+	 *
+	 * @return Image object; {@code null} if the image could not be loaded.
+	 */
+	@Nullable
+	private static BufferedImage loadForCache( @NotNull final URL url )
+	{
+		if ( serverSideWarningsEnabled )
+		{
+			new Throwable( "[ImageTools.getImage] Unsafe use of 'getImage'; '" + url + "' will be cached." ).printStackTrace();
+		}
 
-			if ( needToLoad )
+		BufferedImage result;
+		try
+		{
+			result = load( url );
+		}
+		catch ( final IOException e )
+		{
+			if ( missingImageWarningsEnabled )
 			{
-				if ( serverSideWarningsEnabled )
-				{
-					new Throwable( "[ImageTools.getImage] Unsafe use of 'getImage'; '" + url + "' will be cached permanently." ).printStackTrace();
-				}
-
-				try
-				{
-					result = load( url );
-				}
-				catch ( final IOException e )
-				{
-					if ( missingImageWarningsEnabled )
-					{
-						new Throwable( "[Image not found: " + url + "] (" + e + ')' ).printStackTrace();
-					}
-					result = null;
-				}
-
-				synchronized ( cache )
-				{
-					cache.put( key, result );
-				}
+				new Throwable( "[Image not found: " + url + "] (" + e + ')' ).printStackTrace();
 			}
+			result = null;
 		}
-
 		return result;
 	}
 
 	/**
 	 * Get image for the specified path.
 	 *
-	 * This method stores all returned images in a permanent cache! Please do
+	 * This method stores returned images in a cache that is bounded by the
+	 * total size of its images (see {@link #setImageCacheLimit}). Please do
 	 * not use this method for loading images that are rarely used (use the
 	 * {@link #load(String)} method for that purpose).
 	 *
@@ -479,7 +589,7 @@ public class ImageTools
 	@Nullable
 	public static BufferedImage getImage( @Nullable final String path )
 	{
-		BufferedImage result;
+		final BufferedImage result;
 
 		if ( ( path == null ) || path.isEmpty() )
 		{
@@ -487,27 +597,149 @@ public class ImageTools
 		}
 		else
 		{
-			final Map<String, BufferedImage> cache = _imageCache;
-
-			final boolean needToLoad;
-			synchronized ( cache )
-			{
-				result = cache.get( path );
-				needToLoad = ( result == null ) && !cache.containsKey( path );
-			}
-
-			if ( needToLoad )
+			result = _imageCache.getOrLoad( path, key ->
 			{
 				if ( serverSideWarningsEnabled )
 				{
-					new Throwable( "[ImageTools.getImage] Unsafe use of 'getImage'; '" + path + "' will be cached permanently." ).printStackTrace();
+					new Throwable( "[ImageTools.getImage] Unsafe use of 'getImage'; '" + path + "' will be cached." ).printStackTrace();
 				}
+				return load( path );
+			} );
+		}
+		return result;
+	}
 
-				result = load( path );
+	/**
+	 * Get image for the specified path asynchronously. The image is loaded
+	 * and cached as with {@link #getImage(String)}, using the {@link
+	 * #getExecutor executor} for asynchronous image operations.
+	 *
+	 * @param path Path to image file.
+	 *
+	 * @return Future image; completes with {@code null} if the image was not
+	 * found.
+	 */
+	@NotNull
+	public static CompletableFuture<BufferedImage> getImageAsync( @Nullable final String path )
+	{
+		final CompletableFuture<BufferedImage> result;
+		if ( ( path == null ) || path.isEmpty() )
+		{
+			result = CompletableFuture.completedFuture( null );
+		}
+		else
+		{
+			result = submit( _imageCache, path, () -> getImage( path ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Get image for the specified URL asynchronously. The image is loaded and
+	 * cached as with {@link #getImage(URL)}, using the {@link #getExecutor
+	 * executor} for asynchronous image operations.
+	 *
+	 * @param url URL to image file.
+	 *
+	 * @return Future image; completes with {@code null} if the image was not
+	 * found.
+	 */
+	@NotNull
+	public static CompletableFuture<BufferedImage> getImageAsync( @Nullable final URL url )
+	{
+		final CompletableFuture<BufferedImage> result;
+		if ( url == null )
+		{
+			result = CompletableFuture.completedFuture( null );
+		}
+		else
+		{
+			result = submit( _imageCache, url.toExternalForm(), () -> getImage( url ) );
+		}
+		return result;
+	}
 
-				synchronized ( cache )
+	/**
+	 * Get image for the given path asynchronously. Resources are loaded
+	 * against the specified {@code referenceClass}, as with {@link
+	 * #getImage(Class, String)}.
+	 *
+	 * @param referenceClass Class to resolve path against to and whose class
+	 *                       loader to use.
+	 * @param path           Image path.
+	 *
+	 * @return Future image; completes with {@code null} if the image was not
+	 * found.
+	 */
+	@NotNull
+	public static CompletableFuture<BufferedImage> getImageAsync( @NotNull final Class<?> referenceClass, @Nullable final String path )
+	{
+		final CompletableFuture<BufferedImage> result;
+		if ( path == null )
+		{
+			result = CompletableFuture.completedFuture( null );
+		}
+		else
+		{
+			result = submit( null, Arrays.asList( referenceClass, path ), () -> getImage( referenceClass, path ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Performs an asynchronous image operation using the {@link #getExecutor
+	 * executor} for asynchronous image operations. If the result is already
+	 * cached, a completed future is returned immediately. If the same
+	 * operation is already in progress, the future for that operation is
+	 * returned.
+	 *
+	 * @param cache     Cache that contains the result of the operation, if it
+	 *                  was performed before; {@code null} if not applicable.
+	 * @param key       Key that identifies the operation.
+	 * @param operation Operation to perform.
+	 * @param <K>       Key type.
+	 *
+	 * @return Future result of the operation.
+	 */
+	@NotNull
+	private static <K> CompletableFuture<BufferedImage> submit( @Nullable final Map<K, BufferedImage> cache, @NotNull final K key, @NotNull final Callable<BufferedImage> operation )
+	{
+		final BufferedImage cached = ( cache != null ) ? cache.get( key ) : null;
+
+		CompletableFuture<BufferedImage> result;
+		if ( cached != null )
+		{
+			result = CompletableFuture.completedFuture( cached );
+		}
+		else
+		{
+			final CompletableFuture<BufferedImage> future = new CompletableFuture<BufferedImage>();
+			result = _pendingImages.putIfAbsent( key, future );
+			if ( result == null )
+			{
+				result = future;
+				try
 				{
-					cache.put( path, result );
+					getExecutor().execute( () ->
+					{
+						// no longer pending once completed, so later requests see changes to the cache
+						try
+						{
+							final BufferedImage image = operation.call();
+							_pendingImages.remove( key, future );
+							future.complete( image );
+						}
+						catch ( final Throwable e )
+						{
+							_pendingImages.remove( key, future );
+							future.completeExceptionally( e );
+						}
+					} );
+				}
+				catch ( final RejectedExecutionException e )
+				{
+					_pendingImages.remove( key, future );
+					future.completeExceptionally( e );
 				}
 			}
 		}
@@ -950,6 +1182,34 @@ public class ImageTools
 		return result;
 	}
 
+	/**
+	 * Asynchronously creates a scaled instance of the given image, as with
+	 * {@link #createScaledInstance}, using the {@link #getExecutor executor}
+	 * for asynchronous image operations.
+	 *
+	 * Scaled images are cached per source image, target size, scale mode and
+	 * background (see {@link #setScaledImageCacheLimit}), so repeated requests
+	 * for the same variant, e.g. when repainting, return a completed future.
+	 * The cache does not prevent source images from being garbage collected.
+	 *
+	 * @param source       Image to be scaled.
+	 * @param targetWidth  Width of the result, in pixels.
+	 * @param targetHeight Height of the result, in pixels.
+	 * @param scaleMode    Scale mode to use.
+	 * @param background   Fill paint to use for background if keeping the
+	 *                     aspect ratio requires 'empty' area; {@code null} will
+	 *                     result in a smaller result image (empty areas are
+	 *                     removed).
+	 *
+	 * @return Future scaled version of the given image.
+	 */
+	@NotNull
+	public static CompletableFuture<BufferedImage> createScaledInstanceAsync( @NotNull final BufferedImage source, final int targetWidth, final int targetHeight, @NotNull final ScaleMode scaleMode, @Nullable final Paint background )
+	{
+		final ScaledImageKey key = new ScaledImageKey( source, targetWidth, targetHeight, scaleMode, background );
+		return submit( _scaledImageCache, key, () -> _scaledImageCache.getOrLoad( key, k -> createScaledInstance( source, targetWidth, targetHeight, scaleMode, background ) ) );
+	}
+
 	/**
 	 * Creates a grayscaled image from the given source. If no background color
 	 * is specified, transparent areas of the source image will appear black in
@@ -1191,4 +1451,90 @@ public class ImageTools
 			fileOut.close();
 		}
 	}
+
+	/**
+	 * Identifies a scaled variant of an image in {@link #_scaledImageCache}.
+	 * The source image is weakly referenced and compared by identity.
+	 */
+	private static class ScaledImageKey
+	{
+		/**
+		 * Source image.
+		 */
+		private final WeakReference<BufferedImage> _source;
+
+		/**
+		 * Width of the result, in pixels.
+		 */
+		private final int _targetWidth;
+
+		/**
+		 * Height of the result, in pixels.
+		 */
+		private final int _targetHeight;
+
+		/**
+		 * Scale mode.
+		 */
+		private final ScaleMode _scaleMode;
+
+		/**
+		 * Fill paint for the background; may be {@code null}.
+		 */
+		private final Paint _background;
+
+		/**
+		 * Pre-computed hash code.
+		 */
+		private final int _hashCode;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param source       Source image.
+		 * @param targetWidth  Width of the result, in pixels.
+		 * @param targetHeight Height of the result, in pixels.
+		 * @param scaleMode    Scale mode.
+		 * @param background   Fill paint for the background.
+		 */
+		private ScaledImageKey( @NotNull final BufferedImage source, final int targetWidth, final int targetHeight, @NotNull final ScaleMode scaleMode, @Nullable final Paint background )
+		{
+			_source = new WeakReference<BufferedImage>( source );
+			_targetWidth = targetWidth;
+			_targetHeight = targetHeight;
+			_scaleMode = scaleMode;
+			_background = background;
+			_hashCode = ( ( System.identityHashCode( source ) * 31 + targetWidth ) * 31 + targetHeight ) * 31 + scaleMode.hashCode();
+		}
+
+		@Override
+		public boolean equals( final Object object )
+		{
+			boolean result = ( object == this );
+			if ( !result && ( object instanceof ScaledImageKey ) )
+			{
+				final ScaledImageKey other = (ScaledImageKey)object;
+				final BufferedImage source = _source.get();
+				result = ( source != null ) &&
+				         ( source == other._source.get() ) &&
+				         ( _targetWidth == other._targetWidth ) &&
+				         ( _targetHeight == other._targetHeight ) &&
+				         ( _scaleMode == other._scaleMode ) &&
+				         ( ( _background == null ) ? ( other._background == null ) : _background.equals( other._background ) );
+			}
+			return result;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return _hashCode;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "ScaledImageKey[" + _source.get() + ", " + _targetWidth + 'x' + _targetHeight + ", " + _scaleMode + ']';
+		}
+	}
 }
@@ -32,6 +32,7 @@ import java.awt.geom.*;
 import java.awt.image.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import javax.swing.*;
 
 import com.numdata.oss.*;
@@ -73,6 +74,12 @@ public final class ThumbnailItem
 	 */
 	private BufferedImage _thumbnailImage;
 
+	/**
+	 * Scaled images being created, for which a repaint has already been
+	 * scheduled. Only accessed on the EDT.
+	 */
+	private final Set<CompletableFuture<BufferedImage>> _pendingScaledImages = Collections.newSetFromMap( new IdentityHashMap<CompletableFuture<BufferedImage>, Boolean>() );
+
 	/**
 	 * Create thumbnail item.
 	 *
@@ -264,8 +271,27 @@ public final class ThumbnailItem
 
 			final JList list = (JList)SwingUtilities.getAncestorOfClass( JList.class, this );
 
-			final BufferedImage scaledImage = ImageTools.createScaledInstance( thumbnailImage, thumbnailWidth, thumbnailHeight, ImageTools.ScaleMode.CONTAIN, null );
-			g2d.drawImage( scaledImage, thumbnailX + ( thumbnailWidth - scaledImage.getWidth() ) / 2, thumbnailY + ( thumbnailHeight - scaledImage.getHeight() ) / 2, list );
+			/*
+			 * Scaling is done in the background; the list is repainted when
+			 * the scaled image becomes available.
+			 */
+			final CompletableFuture<BufferedImage> scaledImageFuture = ImageTools.createScaledInstanceAsync( thumbnailImage, thumbnailWidth, thumbnailHeight, ImageTools.ScaleMode.CONTAIN, null );
+			final BufferedImage scaledImage = scaledImageFuture.getNow( null );
+			if ( scaledImage != null )
+			{
+				g2d.drawImage( scaledImage, thumbnailX + ( thumbnailWidth - scaledImage.getWidth() ) / 2, thumbnailY + ( thumbnailHeight - scaledImage.getHeight() ) / 2, list );
+			}
+			else if ( ( list != null ) && _pendingScaledImages.add( scaledImageFuture ) )
+			{
+				scaledImageFuture.whenComplete( ( result, exception ) -> SwingUtilities.invokeLater( () ->
+				{
+					_pendingScaledImages.remove( scaledImageFuture );
+					if ( exception == null )
+					{
+						list.repaint();
+					}
+				} ) );
+			}
 		}
 
 		g2d.translate( -insets.left, -insets.top );
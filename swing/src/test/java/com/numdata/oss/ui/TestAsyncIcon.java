@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.ui;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.concurrent.*;
+import javax.swing.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Unit test for {@link AsyncIcon}.
+ */
+public class TestAsyncIcon
+{
+	/**
+	 * Name of this class.
+	 */
+	private static final String CLASS_NAME = TestAsyncIcon.class.getName();
+
+	/**
+	 * Maximum time to wait for asynchronous operations, in seconds.
+	 */
+	private static final long TIMEOUT = 10L;
+
+	/**
+	 * Tests that components that painted the icon while it was loading are
+	 * repainted once the image is loaded.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testRepaintWhenLoaded()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testRepaintWhenLoaded" );
+
+		final CompletableFuture<BufferedImage> future = new CompletableFuture<BufferedImage>();
+		final RepaintCounter component = new RepaintCounter();
+		final AsyncIcon icon = new AsyncIcon( future, 16, 16 );
+
+		final BufferedImage canvas = new BufferedImage( 32, 32, BufferedImage.TYPE_INT_ARGB );
+		final Graphics2D g = canvas.createGraphics();
+		try
+		{
+			icon.paintIcon( component, g, 0, 0 );
+			icon.paintIcon( component, g, 0, 0 );
+			SwingUtilities.invokeAndWait( () -> { } );
+			assertEquals( "Unexpected repaints while loading", 0, component.getRepaintCount() );
+
+			future.complete( new BufferedImage( 24, 12, BufferedImage.TYPE_INT_ARGB ) );
+			SwingUtilities.invokeAndWait( () -> { } );
+			assertEquals( "Unexpected repaints after loading", 1, component.getRepaintCount() );
+			assertEquals( "Unexpected icon width", 24, icon.getIconWidth() );
+			assertEquals( "Unexpected icon height", 12, icon.getIconHeight() );
+
+			icon.paintIcon( component, g, 0, 0 );
+			SwingUtilities.invokeAndWait( () -> { } );
+			assertEquals( "Unexpected repaints after painting loaded icon", 1, component.getRepaintCount() );
+		}
+		finally
+		{
+			g.dispose();
+		}
+	}
+
+	/**
+	 * Tests that images are loaded using the executor for asynchronous image
+	 * operations.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testImageLoader()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testImageLoader" );
+
+		final CountDownLatch loaded = new CountDownLatch( 1 );
+		final RepaintCounter component = new RepaintCounter()
+		{
+			@Override
+			public void repaint()
+			{
+				super.repaint();
+				loaded.countDown();
+			}
+		};
+
+		final AsyncIcon icon = new AsyncIcon( () -> new BufferedImage( 24, 12, BufferedImage.TYPE_INT_ARGB ), 16, 16, component );
+		assertTrue( "Image was not loaded", loaded.await( TIMEOUT, TimeUnit.SECONDS ) );
+		assertEquals( "Unexpected repaints after loading", 1, component.getRepaintCount() );
+		assertEquals( "Unexpected icon width", 24, icon.getIconWidth() );
+	}
+
+	/**
+	 * Component that counts calls to {@link #repaint()}.
+	 */
+	@SuppressWarnings( "serial" )
+	private static class RepaintCounter
+		extends JComponent
+	{
+		/**
+		 * Number of repaints.
+		 */
+		private volatile int _repaintCount = 0;
+
+		@Override
+		public void repaint()
+		{
+			_repaintCount++;
+		}
+
+		/**
+		 * Returns the number of repaints.
+		 *
+		 * @return Number of repaints.
+		 */
+		public int getRepaintCount()
+		{
+			return _repaintCount;
+		}
+	}
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.ui;
+
+import java.util.*;
+import java.util.concurrent.*;
+import javax.swing.*;
+
+import org.jetbrains.annotations.*;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Unit test for {@link BackgroundProcessingListModel}.
+ */
+public class TestBackgroundProcessingListModel
+{
+	/**
+	 * Name of this class.
+	 */
+	private static final String CLASS_NAME = TestBackgroundProcessingListModel.class.getName();
+
+	/**
+	 * Maximum time to wait for background processing, in seconds.
+	 */
+	private static final long TIMEOUT = 10L;
+
+	/**
+	 * Tests that recently retrieved elements are processed first.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testOrdering()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testOrdering" );
+
+		final RecordingModel model = new RecordingModel( 1 );
+		model.block( "a" );
+
+		model.add( "a" );
+		model.awaitStarted( "a" );
+		model.addAll( Arrays.asList( "b", "c", "d" ) );
+		assertEquals( "Unexpected element", "d", model.get( 3 ) );
+		model.release( "a" );
+
+		model.awaitDone();
+		assertEquals( "Unexpected processing order", Arrays.asList( "a", "d", "b", "c" ), model.getProcessOrder() );
+	}
+
+	/**
+	 * Tests that each element is processed only once while it remains in the
+	 * model.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testDeduplication()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testDeduplication" );
+
+		final RecordingModel model = new RecordingModel( 2 );
+		model.block( "x" );
+
+		model.addAll( Arrays.asList( "x", "x", "y" ) );
+		model.awaitStarted( "x" );
+		model.add( "x" );
+		model.add( 0, "y" );
+		model.release( "x" );
+
+		model.awaitDone();
+		final List<String> processOrder = model.getProcessOrder();
+		assertEquals( "Unexpected number of processed elements: " + processOrder, 2, processOrder.size() );
+		assertEquals( "Unexpected processed elements", new HashSet<String>( Arrays.asList( "x", "y" ) ), new HashSet<String>( processOrder ) );
+
+		model.add( "x" );
+		model.set( 1, "y" );
+		flushEventQueue();
+		assertEquals( "Processed elements should not be processed again", processOrder, model.getProcessOrder() );
+		assertEquals( "Unexpected number of 'done' calls", 1, model.getDoneCount() );
+	}
+
+	/**
+	 * Tests that removing an element cancels its processing.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testCancel()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testCancel" );
+
+		final RecordingModel model = new RecordingModel( 1 );
+		model.block( "a" );
+
+		model.add( "a" );
+		model.awaitStarted( "a" );
+		model.addAll( Arrays.asList( "b", "c" ) );
+		assertEquals( "Unexpected removed element", "b", model.remove( 1 ) );
+		assertEquals( "Unexpected removed element", "a", model.remove( 0 ) );
+		model.release( "a" );
+
+		final List<String> done = model.awaitDone();
+		assertEquals( "Unexpected processing order", Arrays.asList( "a", "c" ), model.getProcessOrder() );
+		assertTrue( "Processing of removed element should be cancelled", model.isCancelledWhenProcessed( "a" ) );
+		assertFalse( "Processing of remaining element should not be cancelled", model.isCancelledWhenProcessed( "c" ) );
+		assertEquals( "Unexpected processed elements", Collections.singletonList( "c" ), model.getProcessed() );
+		assertEquals( "Unexpected done elements", Collections.singletonList( "c" ), done );
+	}
+
+	/**
+	 * Tests that elements processed while the <i>Event Dispatch Thread</i> is
+	 * busy are passed to {@link BackgroundProcessingListModel#processed} in a
+	 * single call.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testBatching()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testBatching" );
+
+		final CountDownLatch releaseEventQueue = new CountDownLatch( 1 );
+		SwingUtilities.invokeLater( new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					releaseEventQueue.await( TIMEOUT, TimeUnit.SECONDS );
+				}
+				catch ( final InterruptedException e )
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		} );
+
+		final RecordingModel model = new RecordingModel( 1 );
+		model.block( "6" );
+		model.addAll( Arrays.asList( "1", "2", "3", "4", "5", "6" ) );
+
+		/* elements 1 to 5 are published before element 6 is started */
+		model.awaitStarted( "6" );
+		releaseEventQueue.countDown();
+		flushEventQueue();
+		model.release( "6" );
+
+		model.awaitDone();
+		final List<List<String>> batches = model.getProcessedBatches();
+		assertEquals( "Unexpected batches", Arrays.asList( Arrays.asList( "1", "2", "3", "4", "5" ), Collections.singletonList( "6" ) ), batches );
+	}
+
+	/**
+	 * Tests that {@link BackgroundProcessingListModel#done} is called once
+	 * after all workers have finished.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testDone()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testDone" );
+
+		final RecordingModel model = new RecordingModel( 3 );
+		final List<String> elements = new ArrayList<String>();
+		for ( int i = 0; i < 20; i++ )
+		{
+			elements.add( String.valueOf( i ) );
+		}
+		model.addAll( elements );
+
+		final List<String> done = model.awaitDone();
+		flushEventQueue();
+		assertEquals( "Unexpected number of 'done' calls", 1, model.getDoneCount() );
+		assertEquals( "Unexpected done elements", new HashSet<String>( elements ), new HashSet<String>( done ) );
+		assertEquals( "Unexpected number of done elements", elements.size(), done.size() );
+	}
+
+	/**
+	 * Waits until all events currently on the event queue are handled.
+	 *
+	 * @throws Exception if the event queue can't be flushed.
+	 */
+	private static void flushEventQueue()
+	throws Exception
+	{
+		SwingUtilities.invokeAndWait( new Runnable()
+		{
+			@Override
+			public void run()
+			{
+			}
+		} );
+	}
+
+	/**
+	 * Model that records how its elements are processed.
+	 */
+	private static class RecordingModel
+	extends BackgroundProcessingListModel<String>
+	{
+		/**
+		 * Serialized data version.
+		 */
+		private static final long serialVersionUID = -4906473621958740571L;
+
+		/**
+		 * Elements in the order they were processed.
+		 */
+		private final List<String> _processOrder = Collections.synchronizedList( new ArrayList<String>() );
+
+		/**
+		 * Processed elements for which processing was cancelled.
+		 */
+		private final Set<String> _cancelled = Collections.synchronizedSet( new HashSet<String>() );
+
+		/**
+		 * Latches signalled when processing of an element starts.
+		 */
+		private final Map<String, CountDownLatch> _started = new ConcurrentHashMap<String, CountDownLatch>();
+
+		/**
+		 * Latches that block processing of an element until released.
+		 */
+		private final Map<String, CountDownLatch> _blocked = new ConcurrentHashMap<String, CountDownLatch>();
+
+		/**
+		 * Elements passed to each call to {@link #processed}.
+		 */
+		private final List<List<String>> _processedBatches = new ArrayList<List<String>>();
+
+		/**
+		 * Elements passed to {@link #done}, one entry per call.
+		 */
+		private final BlockingQueue<List<String>> _done = new LinkedBlockingQueue<List<String>>();
+
+		/**
+		 * Number of calls to {@link #done}.
+		 */
+		private int _doneCount = 0;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param workerCount Maximum number of workers.
+		 */
+		RecordingModel( final int workerCount )
+		{
+			super( workerCount );
+		}
+
+		/**
+		 * Blocks processing of the given element until it is released.
+		 *
+		 * @param element Element to block.
+		 */
+		void block( @NotNull final String element )
+		{
+			_started.put( element, new CountDownLatch( 1 ) );
+			_blocked.put( element, new CountDownLatch( 1 ) );
+		}
+
+		/**
+		 * Waits until processing of a blocked element has started.
+		 *
+		 * @param element Blocked element.
+		 *
+		 * @throws Exception if the element was not started in time.
+		 */
+		void awaitStarted( @NotNull final String element )
+		throws Exception
+		{
+			assertTrue( "Processing of '" + element + "' did not start", _started.get( element ).await( TIMEOUT, TimeUnit.SECONDS ) );
+		}
+
+		/**
+		 * Releases a blocked element.
+		 *
+		 * @param element Blocked element.
+		 */
+		void release( @NotNull final String element )
+		{
+			_blocked.get( element ).countDown();
+		}
+
+		/**
+		 * Waits for the next call to {@link #done}.
+		 *
+		 * @return Elements passed to {@link #done}.
+		 *
+		 * @throws Exception if {@link #done} was not called in time.
+		 */
+		@NotNull
+		List<String> awaitDone()
+		throws Exception
+		{
+			final List<String> result = _done.poll( TIMEOUT, TimeUnit.SECONDS );
+			assertNotNull( "'done' was not called", result );
+			return result;
+		}
+
+		/**
+		 * Returns the elements in the order they were processed.
+		 *
+		 * @return Processed elements.
+		 */
+		@NotNull
+		List<String> getProcessOrder()
+		{
+			synchronized ( _processOrder )
+			{
+				return new ArrayList<String>( _processOrder );
+			}
+		}
+
+		/**
+		 * Returns whether processing of the given element was cancelled when
+		 * {@link #process} finished.
+		 *
+		 * @param element Processed element.
+		 *
+		 * @return {@code true} if processing was cancelled.
+		 */
+		boolean isCancelledWhenProcessed( @NotNull final String element )
+		{
+			return _cancelled.contains( element );
+		}
+
+		/**
+		 * Returns the elements passed to each call to {@link #processed}.
+		 *
+		 * @return Batches of processed elements.
+		 *
+		 * @throws Exception if the event queue can't be flushed.
+		 */
+		@NotNull
+		List<List<String>> getProcessedBatches()
+		throws Exception
+		{
+			flushEventQueue();
+			return new ArrayList<List<String>>( _processedBatches );
+		}
+
+		/**
+		 * Returns all elements passed to {@link #processed}.
+		 *
+		 * @return Processed elements.
+		 *
+		 * @throws Exception if the event queue can't be flushed.
+		 */
+		@NotNull
+		List<String> getProcessed()
+		throws Exception
+		{
+			final List<String> result = new ArrayList<String>();
+			for ( final List<String> batch : getProcessedBatches() )
+			{
+				result.addAll( batch );
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the number of calls to {@link #done}.
+		 *
+		 * @return Number of calls.
+		 *
+		 * @throws Exception if the event queue can't be flushed.
+		 */
+		int getDoneCount()
+		throws Exception
+		{
+			flushEventQueue();
+			return _doneCount;
+		}
+
+		@Override
+		protected void process( final String element )
+		{
+			_processOrder.add( element );
+
+			final CountDownLatch started = _started.get( element );
+			if ( started != null )
+			{
+				started.countDown();
+				try
+				{
+					_blocked.get( element ).await( TIMEOUT, TimeUnit.SECONDS );
+				}
+				catch ( final InterruptedException e )
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			if ( isCancelled( element ) )
+			{
+				_cancelled.add( element );
+			}
+		}
+
+		@Override
+		protected void processed( final List<String> elements, final int progress )
+		{
+			_processedBatches.add( new ArrayList<String>( elements ) );
+			super.processed( elements, progress );
+		}
+
+		@Override
+		protected void done( @NotNull final List<String> elements, final boolean cancelled )
+		{
+			_doneCount++;
+			_done.add( new ArrayList<String>( elements ) );
+			super.done( elements, cancelled );
+		}
+	}
+}
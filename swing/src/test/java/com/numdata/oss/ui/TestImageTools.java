@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.ui;
+
+import java.awt.image.*;
+import java.io.*;
+import java.net.*;
+import java.util.concurrent.*;
+import javax.imageio.*;
+
+import org.junit.*;
+import org.junit.rules.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for the image cache and asynchronous image operations of {@link
+ * ImageTools}.
+ */
+public class TestImageTools
+{
+	/**
+	 * Name of this class.
+	 */
+	private static final String CLASS_NAME = TestImageTools.class.getName();
+
+	/**
+	 * Maximum time to wait for asynchronous operations, in seconds.
+	 */
+	private static final long TIMEOUT = 10L;
+
+	/**
+	 * Size of the test images used, in bytes.
+	 */
+	private static final int IMAGE_WEIGHT = 10 * 10 * 4;
+
+	/**
+	 * Folder for test images.
+	 */
+	@Rule
+	public TemporaryFolder _folder = new TemporaryFolder();
+
+	/**
+	 * Executor that was used before the test.
+	 */
+	private ExecutorService _originalExecutor = null;
+
+	/**
+	 * Executor used by the test.
+	 */
+	private ExecutorService _executor = null;
+
+	/**
+	 * Set up executor for the test.
+	 */
+	@Before
+	public void setUp()
+	{
+		_originalExecutor = ImageTools.getExecutor();
+		_executor = Executors.newSingleThreadExecutor();
+		ImageTools.setExecutor( _executor );
+	}
+
+	/**
+	 * Restores executor and cache limits.
+	 */
+	@After
+	public void tearDown()
+	{
+		ImageTools.setExecutor( _originalExecutor );
+		_executor.shutdownNow();
+
+		ImageTools.setImageCacheLimit( 64L * 1024L * 1024L );
+		ImageTools.setScaledImageCacheLimit( 32L * 1024L * 1024L );
+	}
+
+	/**
+	 * Tests that {@link ImageTools#getImage(URL)} caches images within the
+	 * configured limit.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testImageCache()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testImageCache" );
+
+		ImageTools.setImageCacheLimit( 1024L * 1024L );
+
+		final URL url = createImageFile( "cached.png" );
+		final BufferedImage image = ImageTools.getImage( url );
+		assertNotNull( "Expected image", image );
+		assertEquals( "Unexpected width", 10, image.getWidth() );
+		assertSame( "Expected cached image", image, ImageTools.getImage( url ) );
+
+		ImageTools.setImageCacheLimit( 0L );
+		final BufferedImage reloaded = ImageTools.getImage( url );
+		assertNotNull( "Expected image", reloaded );
+		assertNotSame( "Image should have been evicted", image, reloaded );
+		assertNotSame( "Image should not be cached", reloaded, ImageTools.getImage( url ) );
+	}
+
+	/**
+	 * Tests that the least recently used images are evicted when the image
+	 * cache exceeds its limit.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testImageCacheEviction()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testImageCacheEviction" );
+
+		// limit is divided over 4 segments; each fits a single image
+		ImageTools.setImageCacheLimit( 4L * (long)IMAGE_WEIGHT );
+
+		final int count = 16;
+		final URL[] urls = new URL[ count ];
+		final BufferedImage[] images = new BufferedImage[ count ];
+		for ( int i = 0; i < count; i++ )
+		{
+			urls[ i ] = createImageFile( "image" + i + ".png" );
+			images[ i ] = ImageTools.getImage( urls[ i ] );
+			assertNotNull( "Expected image", images[ i ] );
+		}
+
+		assertSame( "Most recently loaded image should be cached", images[ count - 1 ], ImageTools.getImage( urls[ count - 1 ] ) );
+
+		int cached = 0;
+		for ( int i = count; --i >= 0; )
+		{
+			if ( ImageTools.getImage( urls[ i ] ) == images[ i ] )
+			{
+				cached++;
+			}
+		}
+		assertTrue( "Too many images cached: " + cached, cached <= 4 );
+	}
+
+	/**
+	 * Tests {@link ImageTools#createScaledInstanceAsync}.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testCreateScaledInstanceAsync()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testCreateScaledInstanceAsync" );
+
+		final BufferedImage source = new BufferedImage( 40, 20, BufferedImage.TYPE_INT_ARGB );
+
+		final CountDownLatch blocked = new CountDownLatch( 1 );
+		_executor.execute( () ->
+		{
+			try
+			{
+				blocked.await();
+			}
+			catch ( final InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+			}
+		} );
+
+		final CompletableFuture<BufferedImage> future = ImageTools.createScaledInstanceAsync( source, 10, 10, ImageTools.ScaleMode.CONTAIN, null );
+		assertFalse( "Scaling should be pending", future.isDone() );
+		assertSame( "Pending operation should be shared", future, ImageTools.createScaledInstanceAsync( source, 10, 10, ImageTools.ScaleMode.CONTAIN, null ) );
+		assertNotSame( "Different size is a different operation", future, ImageTools.createScaledInstanceAsync( source, 8, 8, ImageTools.ScaleMode.CONTAIN, null ) );
+		blocked.countDown();
+
+		final BufferedImage scaled = future.get( TIMEOUT, TimeUnit.SECONDS );
+		assertEquals( "Unexpected width", 10, scaled.getWidth() );
+		assertEquals( "Unexpected height", 5, scaled.getHeight() );
+
+		final CompletableFuture<BufferedImage> cached = ImageTools.createScaledInstanceAsync( source, 10, 10, ImageTools.ScaleMode.CONTAIN, null );
+		assertTrue( "Expected completed future", cached.isDone() );
+		assertSame( "Expected cached image", scaled, cached.get() );
+
+		ImageTools.setScaledImageCacheLimit( 0L );
+		final BufferedImage rescaled = ImageTools.createScaledInstanceAsync( source, 10, 10, ImageTools.ScaleMode.CONTAIN, null ).get( TIMEOUT, TimeUnit.SECONDS );
+		assertNotSame( "Image should have been evicted", scaled, rescaled );
+		assertEquals( "Unexpected width", 10, rescaled.getWidth() );
+		assertEquals( "Unexpected height", 5, rescaled.getHeight() );
+	}
+
+	/**
+	 * Tests that {@link ImageTools#createScaledInstanceAsync} completes the
+	 * future exceptionally if the executor rejects the operation.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testCreateScaledInstanceAsyncRejected()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testCreateScaledInstanceAsyncRejected" );
+
+		_executor.shutdown();
+
+		final BufferedImage source = new BufferedImage( 40, 20, BufferedImage.TYPE_INT_ARGB );
+		final CompletableFuture<BufferedImage> future = ImageTools.createScaledInstanceAsync( source, 10, 10, ImageTools.ScaleMode.CONTAIN, null );
+		assertTrue( "Expected failed future", future.isCompletedExceptionally() );
+
+		_executor = Executors.newSingleThreadExecutor();
+		ImageTools.setExecutor( _executor );
+		assertNotSame( "Failed operation should not be pending", future, ImageTools.createScaledInstanceAsync( source, 10, 10, ImageTools.ScaleMode.CONTAIN, null ) );
+	}
+
+	/**
+	 * Writes a 10x10 test image to a file.
+	 *
+	 * @param name Name of the file.
+	 *
+	 * @return URL of the file.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private URL createImageFile( final String name )
+	throws IOException
+	{
+		final File file = _folder.newFile( name );
+		ImageIO.write( new BufferedImage( 10, 10, BufferedImage.TYPE_INT_ARGB ), "png", file );
+		return file.toURI().toURL();
+	}
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.template;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Immutable, compiled form of a {@link Template}. Adjacent character content
+ * is merged into single segments and variables are resolved to slots, so the
+ * template can be rendered efficiently. Variable values are supplied by a
+ * separate {@link TemplateBinding}, which allows a single compiled template to
+ * be cached and rendered by multiple threads concurrently.
+ *
+ * @see Template#compile()
+ */
+public final class CompiledTemplate
+{
+	/**
+	 * Instruction that sets the cursor position. Non-negative instructions
+	 * append a character segment; instructions below this value append the
+	 * value of a variable (see {@link #getSlot(int)}).
+	 */
+	private static final int CURSOR = -1;
+
+	/**
+	 * Number of characters reserved for each variable when estimating the
+	 * size of the output of an unbound template.
+	 */
+	private static final int ESTIMATED_VARIABLE_LENGTH = 16;
+
+	/**
+	 * Instructions to generate output.
+	 */
+	@NotNull
+	private final int[] _instructions;
+
+	/**
+	 * Character segments.
+	 */
+	@NotNull
+	private final String[] _segments;
+
+	/**
+	 * Names of variables, indexed by slot.
+	 */
+	@NotNull
+	private final String[] _variables;
+
+	/**
+	 * Maps variable names to slots.
+	 */
+	@NotNull
+	private final Map<String, Integer> _slots;
+
+	/**
+	 * Defines user input needed to fill in the template.
+	 */
+	@NotNull
+	private final List<TemplateInput> _inputs;
+
+	/**
+	 * Total number of characters in {@link #_segments}.
+	 */
+	private final int _segmentLength;
+
+	/**
+	 * Number of variable references in {@link #_instructions}.
+	 */
+	private final int _variableReferences;
+
+	/**
+	 * Compiles the given template. Later changes to the template do not
+	 * affect the result.
+	 *
+	 * @param template Template to compile.
+	 *
+	 * @throws IllegalArgumentException if the template contains an unsupported
+	 * type of content.
+	 */
+	CompiledTemplate( @NotNull final Template template )
+	{
+		final List<TemplateContent> content = template.getContent();
+
+		final int[] instructions = new int[ content.size() ];
+		int instructionCount = 0;
+
+		final List<String> segments = new ArrayList<String>();
+		final Map<String, Integer> slots = new LinkedHashMap<String, Integer>();
+		final StringBuilder segment = new StringBuilder();
+		int segmentLength = 0;
+		int variableReferences = 0;
+
+		for ( final TemplateContent part : content )
+		{
+			if ( part instanceof CharacterContent )
+			{
+				segment.append( ( (CharacterContent)part ).getContent() );
+			}
+			else
+			{
+				if ( segment.length() > 0 )
+				{
+					instructions[ instructionCount++ ] = segments.size();
+					segments.add( segment.toString() );
+					segmentLength += segment.length();
+					segment.setLength( 0 );
+				}
+
+				if ( part instanceof VariableContent )
+				{
+					final String variable = ( (VariableContent)part ).getVariable();
+					Integer slot = slots.get( variable );
+					if ( slot == null )
+					{
+						slot = slots.size();
+						slots.put( variable, slot );
+					}
+					instructions[ instructionCount++ ] = getInstruction( slot );
+					variableReferences++;
+				}
+				else if ( part instanceof CursorPosition )
+				{
+					instructions[ instructionCount++ ] = CURSOR;
+				}
+				else
+				{
+					throw new IllegalArgumentException( "Unsupported content: " + part );
+				}
+			}
+		}
+
+		if ( segment.length() > 0 )
+		{
+			instructions[ instructionCount++ ] = segments.size();
+			segments.add( segment.toString() );
+			segmentLength += segment.length();
+		}
+
+		_instructions = Arrays.copyOf( instructions, instructionCount );
+		_segments = segments.toArray( new String[ segments.size() ] );
+		_variables = slots.keySet().toArray( new String[ slots.size() ] );
+		_slots = Collections.unmodifiableMap( new HashMap<String, Integer>( slots ) );
+		_inputs = Collections.unmodifiableList( new ArrayList<TemplateInput>( template.getInputs() ) );
+		_segmentLength = segmentLength;
+		_variableReferences = variableReferences;
+	}
+
+	/**
+	 * Returns the instruction that appends the value in the given slot.
+	 *
+	 * @param slot Variable slot.
+	 *
+	 * @return Instruction.
+	 */
+	private static int getInstruction( final int slot )
+	{
+		return CURSOR - 1 - slot;
+	}
+
+	/**
+	 * Returns the variable slot appended by the given instruction.
+	 *
+	 * @param instruction Instruction.
+	 *
+	 * @return Variable slot.
+	 */
+	private static int getSlot( final int instruction )
+	{
+		return CURSOR - 1 - instruction;
+	}
+
+	/**
+	 * Returns the number of character segments, i.e. character content after
+	 * merging adjacent character content.
+	 *
+	 * @return Number of character segments.
+	 */
+	public int getSegmentCount()
+	{
+		return _segments.length;
+	}
+
+	/**
+	 * Returns the number of distinct variables used by the template.
+	 *
+	 * @return Number of variables.
+	 */
+	public int getVariableCount()
+	{
+		return _variables.length;
+	}
+
+	/**
+	 * Returns the name of the variable in the given slot.
+	 *
+	 * @param slot Variable slot.
+	 *
+	 * @return Name of the variable.
+	 *
+	 * @throws IndexOutOfBoundsException if there is no such slot.
+	 */
+	@NotNull
+	public String getVariable( final int slot )
+	{
+		return _variables[ slot ];
+	}
+
+	/**
+	 * Returns the slot of the given variable.
+	 *
+	 * @param variable Name of the variable.
+	 *
+	 * @return Variable slot; {@code -1} if the variable is not used by the
+	 * template.
+	 */
+	public int getSlot( @NotNull final String variable )
+	{
+		final Integer slot = _slots.get( variable );
+		return ( slot != null ) ? slot : -1;
+	}
+
+	/**
+	 * Returns the template's inputs.
+	 *
+	 * @return Template inputs.
+	 */
+	@NotNull
+	public List<TemplateInput> getInputs()
+	{
+		return _inputs;
+	}
+
+	/**
+	 * Returns an estimate of the length of the output, for use when no values
+	 * are known yet.
+	 *
+	 * @return Estimated output length.
+	 */
+	public int getEstimatedLength()
+	{
+		return _segmentLength + _variableReferences * ESTIMATED_VARIABLE_LENGTH;
+	}
+
+	/**
+	 * Returns the length of the output for the given binding.
+	 *
+	 * @param binding Variable values.
+	 *
+	 * @return Output length.
+	 */
+	public int getLength( @NotNull final TemplateBinding binding )
+	{
+		checkBinding( binding );
+
+		int result = _segmentLength;
+		for ( final int instruction : _instructions )
+		{
+			if ( instruction < CURSOR )
+			{
+				final String value = binding.get( getSlot( instruction ) );
+				if ( value != null )
+				{
+					result += value.length();
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a binding to supply variable values for this template. The
+	 * binding is not thread-safe, but is cheap to create.
+	 *
+	 * @return Template binding.
+	 */
+	@NotNull
+	public TemplateBinding createBinding()
+	{
+		return new TemplateBinding( this );
+	}
+
+	/**
+	 * Generates output for the template.
+	 *
+	 * @param binding Variable values.
+	 * @param out     Receives template output.
+	 *
+	 * @return Cursor position, relative to the start of the output.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public int generate( @NotNull final TemplateBinding binding, @NotNull final Appendable out )
+	throws IOException
+	{
+		checkBinding( binding );
+
+		int position = 0;
+		int cursorPosition = 0;
+
+		for ( final int instruction : _instructions )
+		{
+			if ( instruction >= 0 )
+			{
+				final String segment = _segments[ instruction ];
+				out.append( segment );
+				position += segment.length();
+			}
+			else if ( instruction == CURSOR )
+			{
+				cursorPosition = position;
+			}
+			else
+			{
+				final String value = binding.get( getSlot( instruction ) );
+				if ( value != null )
+				{
+					out.append( value );
+					position += value.length();
+				}
+			}
+		}
+
+		return cursorPosition;
+	}
+
+	/**
+	 * Generates output for the template as a string.
+	 *
+	 * @param binding Variable values.
+	 *
+	 * @return Template output.
+	 */
+	@NotNull
+	public String generate( @NotNull final TemplateBinding binding )
+	{
+		final StringBuilder result = new StringBuilder( getLength( binding ) );
+		try
+		{
+			generate( binding, result );
+		}
+		catch ( final IOException e )
+		{
+			/* not thrown by 'StringBuilder' */
+			throw new AssertionError( e );
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Checks that the given binding belongs to this template.
+	 *
+	 * @param binding Binding to check.
+	 *
+	 * @throws IllegalArgumentException if the binding belongs to another
+	 * template.
+	 */
+	private void checkBinding( @NotNull final TemplateBinding binding )
+	{
+		if ( binding.getTemplate() != this )
+		{
+			throw new IllegalArgumentException( "Given binding must be created by this template." );
+		}
+	}
+}
@@ -107,6 +107,22 @@ public class Template
 		}
 	}
 
+	/**
+	 * Compiles the template into an immutable form that can be rendered
+	 * concurrently. Variables set on this template are not included; use a
+	 * {@link TemplateBinding} to supply them.
+	 *
+	 * @return  Compiled template.
+	 *
+	 * @throws  IllegalArgumentException if the template contains an
+	 *          unsupported type of content.
+	 */
+	@NotNull
+	public CompiledTemplate compile()
+	{
+		return new CompiledTemplate( this );
+	}
+
 	/**
 	 * Adds an input definition to the template.
 	 *
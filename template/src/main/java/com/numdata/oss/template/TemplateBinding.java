@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.template;
+
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Supplies variable values for rendering a {@link CompiledTemplate}. Unlike
+ * the compiled template, a binding is not thread-safe; each thread should use
+ * its own binding.
+ *
+ * @see CompiledTemplate#createBinding()
+ */
+public class TemplateBinding
+{
+	/**
+	 * Template that the binding belongs to.
+	 */
+	@NotNull
+	private final CompiledTemplate _template;
+
+	/**
+	 * Variable values, indexed by slot.
+	 */
+	@NotNull
+	private final String[] _values;
+
+	/**
+	 * Constructs a new binding without any values.
+	 *
+	 * @param template Template that the binding belongs to.
+	 */
+	TemplateBinding( @NotNull final CompiledTemplate template )
+	{
+		_template = template;
+		_values = new String[ template.getVariableCount() ];
+	}
+
+	/**
+	 * Returns the template that the binding belongs to.
+	 *
+	 * @return Compiled template.
+	 */
+	@NotNull
+	public CompiledTemplate getTemplate()
+	{
+		return _template;
+	}
+
+	/**
+	 * Sets the value of a variable. Variables that are not used by the
+	 * template are ignored.
+	 *
+	 * @param variable Name of the variable.
+	 * @param value    Value to be set.
+	 */
+	public void setVariable( @NotNull final String variable, @Nullable final String value )
+	{
+		final int slot = _template.getSlot( variable );
+		if ( slot >= 0 )
+		{
+			_values[ slot ] = value;
+		}
+	}
+
+	/**
+	 * Sets the values of multiple variables.
+	 *
+	 * @param variables Maps variable names to values.
+	 *
+	 * @see #setVariable(String, String)
+	 */
+	public void setVariables( @NotNull final Map<String, String> variables )
+	{
+		for ( final Map.Entry<String, String> entry : variables.entrySet() )
+		{
+			setVariable( entry.getKey(), entry.getValue() );
+		}
+	}
+
+	/**
+	 * Returns the value of a variable.
+	 *
+	 * @param variable Name of the variable.
+	 *
+	 * @return Variable value; {@code null} if not set or not used by the
+	 * template.
+	 */
+	@Nullable
+	public String getVariable( @NotNull final String variable )
+	{
+		final int slot = _template.getSlot( variable );
+		return ( slot >= 0 ) ? _values[ slot ] : null;
+	}
+
+	/**
+	 * Sets the value in the given slot.
+	 *
+	 * @param slot  Variable slot.
+	 * @param value Value to be set.
+	 *
+	 * @throws IndexOutOfBoundsException if there is no such slot.
+	 * @see CompiledTemplate#getSlot(String)
+	 */
+	public void set( final int slot, @Nullable final String value )
+	{
+		_values[ slot ] = value;
+	}
+
+	/**
+	 * Returns the value in the given slot.
+	 *
+	 * @param slot Variable slot.
+	 *
+	 * @return Variable value; {@code null} if not set.
+	 *
+	 * @throws IndexOutOfBoundsException if there is no such slot.
+	 */
+	@Nullable
+	public String get( final int slot )
+	{
+		return _values[ slot ];
+	}
+
+	/**
+	 * Clears all values, so the binding can be reused.
+	 */
+	public void clear()
+	{
+		Arrays.fill( _values, null );
+	}
+}
@@ -92,6 +92,23 @@ public class TemplateIO
 		return result;
 	}
 
+	/**
+	 * Reads a template from the given stream and compiles it. The result
+	 * may be cached and rendered concurrently, to avoid parsing the template
+	 * for each use.
+	 *
+	 * @param in Stream to be read.
+	 *
+	 * @return Compiled template.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static CompiledTemplate readCompiled( final InputStream in )
+	throws IOException
+	{
+		return read( in ).compile();
+	}
+
 	/**
 	 * Reads a {@code content} element.
 	 *
@@ -30,6 +30,7 @@ import java.io.*;
 import java.util.*;
 
 import com.numdata.oss.*;
+import org.jetbrains.annotations.*;
 import static org.junit.Assert.*;
 import org.junit.*;
 
@@ -115,4 +116,131 @@ public class TestTemplate
 		assertEquals( "Unexpected output.", "Hello Unit Test World\nSuccess!", builder.toString() );
 		assertEquals( "Unexpected cursor position.", 22, output.getCursorPosition() );
 	}
+
+	/**
+	 * Tests that {@code test1.xml} generates the correct output when compiled
+	 * using {@link TemplateIO#readCompiled(InputStream)}.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testCompiledTemplate()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testCompiledTemplate()" );
+
+		final Class<? extends TestTemplate> clazz = getClass();
+		final CompiledTemplate template = TemplateIO.readCompiled( clazz.getResourceAsStream( "test1.xml" ) );
+		assertEquals( "Unexpected segment count.", 2, template.getSegmentCount() );
+		assertEquals( "Unexpected variable count.", 2, template.getVariableCount() );
+		assertEquals( "Unexpected variable.", "b", template.getVariable( 0 ) );
+		assertEquals( "Unexpected slot.", 1, template.getSlot( "a" ) );
+		assertEquals( "Unexpected slot.", -1, template.getSlot( "c" ) );
+		assertEquals( "Unexpected inputs.", 1, template.getInputs().size() );
+		assertEquals( "Unexpected estimated length.", 13 + 2 * 16, template.getEstimatedLength() );
+
+		final TemplateBinding binding = template.createBinding();
+		assertSame( "Unexpected template.", template, binding.getTemplate() );
+		binding.setVariable( "a", "Success!" );
+		binding.setVariable( "b", "Unit Test" );
+		binding.setVariable( "c", "ignored" );
+		assertEquals( "Unexpected value.", "Success!", binding.getVariable( "a" ) );
+		assertNull( "Unexpected value.", binding.getVariable( "c" ) );
+		assertEquals( "Unexpected length.", 30, template.getLength( binding ) );
+
+		final StringBuilder builder = new StringBuilder();
+		assertEquals( "Unexpected cursor position.", 22, template.generate( binding, builder ) );
+		assertEquals( "Unexpected output.", "Hello Unit Test World\nSuccess!", builder.toString() );
+
+		binding.clear();
+		assertNull( "Unexpected value.", binding.get( 0 ) );
+		binding.set( template.getSlot( "a" ), "A" );
+		assertEquals( "Unexpected output.", "Hello  World\nA", template.generate( binding ) );
+
+		final Map<String, String> variables = new HashMap<String, String>();
+		variables.put( "b", "B" );
+		binding.setVariables( variables );
+		assertEquals( "Unexpected output.", "Hello B World\nA", template.generate( binding ) );
+
+		try
+		{
+			template.generate( TemplateIO.readCompiled( clazz.getResourceAsStream( "test1.xml" ) ).createBinding() );
+			fail( "Expected 'IllegalArgumentException' for binding of other template." );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			/* expected */
+		}
+	}
+
+	/**
+	 * Tests that {@link Template#compile()} merges adjacent character content
+	 * and that the result can be rendered concurrently.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testCompile()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testCompile()" );
+
+		final Template template = new Template();
+		template.addContent( new CharacterContent( "<" ) );
+		template.addContent( new CharacterContent( "a" ) );
+		template.addContent( new CharacterContent( ">" ) );
+		template.addContent( new VariableContent( "x" ) );
+		template.addContent( new CharacterContent( "</a>" ) );
+		template.addContent( new VariableContent( "x" ) );
+
+		final CompiledTemplate compiled = template.compile();
+		template.addContent( new CharacterContent( "ignored" ) );
+		assertEquals( "Unexpected segment count.", 2, compiled.getSegmentCount() );
+		assertEquals( "Unexpected variable count.", 1, compiled.getVariableCount() );
+
+		final int threadCount = 4;
+		final Thread[] threads = new Thread[ threadCount ];
+		final String[] results = new String[ threadCount ];
+		for ( int i = 0; i < threadCount; i++ )
+		{
+			final int index = i;
+			threads[ i ] = new Thread( () ->
+			                           {
+				                           final TemplateBinding binding = compiled.createBinding();
+				                           String result = null;
+				                           for ( int j = 0; j < 1000; j++ )
+				                           {
+					                           binding.setVariable( "x", String.valueOf( index ) );
+					                           result = compiled.generate( binding );
+				                           }
+				                           results[ index ] = result;
+			                           } );
+			threads[ i ].start();
+		}
+
+		for ( int i = 0; i < threadCount; i++ )
+		{
+			threads[ i ].join();
+			assertEquals( "Unexpected output.", "<a>" + i + "</a>" + i, results[ i ] );
+		}
+
+		final Template unsupported = new Template();
+		unsupported.addContent( new TemplateContent()
+		{
+			@Override
+			public void write( @NotNull final TemplateOutput out )
+			{
+			}
+		} );
+
+		try
+		{
+			unsupported.compile();
+			fail( "Expected 'IllegalArgumentException' for unsupported content." );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			/* expected */
+		}
+	}
 }
@@ -698,6 +698,120 @@ public class URITools
 		}
 	}
 
+	/**
+	 * Open a stream to write data to a destination identified by an
+	 * {@link URI}. For the '{@code file}', '{@code memory}', and
+	 * '{@code socket}' schemes and for schemes handled by the default URL
+	 * protocol handlers, data is streamed directly to the destination. For all
+	 * other schemes, data is collected in memory and written using
+	 * {@link #writeData} when the stream is closed.
+	 *
+	 * @param uri    URI for data destination.
+	 * @param append Append to existing data vs. create new data.
+	 *
+	 * @return Stream to write data to; must be closed to complete the write.
+	 *
+	 * @throws IOException if the destination could not be opened.
+	 */
+	@NotNull
+	public static OutputStream openOutputStream( @NotNull final URI uri, final boolean append )
+	throws IOException
+	{
+		if ( LOG.isDebugEnabled() )
+		{
+			LOG.debug( "openOutputStream( " + TextTools.quote( uri ) + ", append=" + append + " )" );
+		}
+
+		final String scheme = uri.getScheme();
+		if ( scheme == null )
+		{
+			throw new IllegalArgumentException( "URI '" + uri + "' is invalid" );
+		}
+
+		final OutputStream result;
+
+		try
+		{
+			if ( "file".equals( scheme ) )
+			{
+				final File file = new File( uri );
+				final File parent = file.getParentFile();
+				if ( parent != null )
+				{
+					parent.mkdirs();
+				}
+
+				result = new FileOutputStream( file, append );
+			}
+			else if ( "memory".equals( scheme ) )
+			{
+				result = MemoryScheme.getOutputStream( uri, append );
+			}
+			else if ( "socket".equals( scheme ) )
+			{
+				final Socket socket = new Socket();
+				try
+				{
+					socket.connect( new InetSocketAddress( uri.getHost(), uri.getPort() ), 10000 );
+					result = new FilterOutputStream( socket.getOutputStream() )
+					{
+						@Override
+						public void write( @NotNull final byte[] b, final int off, final int len )
+						throws IOException
+						{
+							out.write( b, off, len );
+						}
+
+						@Override
+						public void close()
+						throws IOException
+						{
+							try
+							{
+								super.close();
+							}
+							finally
+							{
+								socket.close();
+							}
+						}
+					};
+				}
+				catch ( final IOException e )
+				{
+					socket.close();
+					throw e;
+				}
+			}
+			else if ( "ftp".equals( scheme ) || "serial".equals( scheme ) || "keyboard".equals( scheme ) || "smb".equals( scheme ) )
+			{
+				result = new ByteArrayOutputStream()
+				{
+					@Override
+					public void close()
+					throws IOException
+					{
+						writeData( uri, toByteArray(), append );
+					}
+				};
+			}
+			else
+			{
+				final URL url = uri.toURL();
+				final URLConnection connection = url.openConnection();
+				connection.setDoInput( false );
+				connection.setDoOutput( true );
+				result = connection.getOutputStream();
+			}
+		}
+		catch ( final SecurityException e )
+		{
+			throw new IOException( String.valueOf( e ) );
+		}
+
+		return result;
+	}
+
 	/**
 	 * Send data to keyboard.
 	 *
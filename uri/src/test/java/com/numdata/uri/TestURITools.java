@@ -26,6 +26,7 @@
  */
 package com.numdata.uri;
 
+import java.io.*;
 import java.net.*;
 import java.util.*;
 
@@ -193,4 +194,71 @@ public class TestURITools
 			assertEquals( "Rendered wrong result", expected, actual );
 		}
 	}
+
+	/**
+	 * Test {@link URITools#openOutputStream} method.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testOpenOutputStream()
+	throws Exception
+	{
+		System.out.println( CLASS_NAME + ".testOpenOutputStream" );
+
+		final File file = File.createTempFile( "TestURITools", ".txt" );
+		try
+		{
+			final URI fileURI = file.toURI();
+			OutputStream out = URITools.openOutputStream( fileURI, false );
+			out.write( "Hello".getBytes( "US-ASCII" ) );
+			out.close();
+
+			out = URITools.openOutputStream( fileURI, true );
+			out.write( " world".getBytes( "US-ASCII" ) );
+			out.close();
+
+			assertEquals( "Unexpected file content", "Hello world", new String( URITools.readData( fileURI ), "US-ASCII" ) );
+		}
+		finally
+		{
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+
+		final URI memoryURI = URI.create( "memory:TestURITools/testOpenOutputStream" );
+		final OutputStream out = URITools.openOutputStream( memoryURI, false );
+		out.write( "Hello".getBytes( "US-ASCII" ) );
+		out.close();
+		assertEquals( "Unexpected memory content", "Hello", new String( URITools.readData( memoryURI ), "US-ASCII" ) );
+
+		final ServerSocket serverSocket = new ServerSocket( 0, 1, InetAddress.getByName( "localhost" ) );
+		try
+		{
+			final URI socketURI = URI.create( "socket://localhost:" + serverSocket.getLocalPort() );
+			final OutputStream socketOut = URITools.openOutputStream( socketURI, true );
+			final Socket socket = serverSocket.accept();
+			try
+			{
+				socketOut.write( "Hello".getBytes( "US-ASCII" ) );
+				socketOut.close();
+
+				final ByteArrayOutputStream received = new ByteArrayOutputStream();
+				final InputStream in = socket.getInputStream();
+				for ( int b = in.read(); b >= 0; b = in.read() )
+				{
+					received.write( b );
+				}
+				assertEquals( "Unexpected socket content", "Hello", received.toString( "US-ASCII" ) );
+			}
+			finally
+			{
+				socket.close();
+			}
+		}
+		finally
+		{
+			serverSocket.close();
+		}
+	}
 }
@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.velocity;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.numdata.oss.*;
+import org.jetbrains.annotations.*;
+
+/**
+ * Provides the bean properties of a class for use in Velocity contexts. The
+ * properties are determined only once per class and are shared by all
+ * contexts and threads. Property values are accessed through method handles.
+ */
+final class BeanMetadata
+{
+	/**
+	 * Type of getter method handles.
+	 */
+	private static final MethodType GETTER_TYPE = MethodType.methodType( Object.class, Object.class );
+
+	/**
+	 * Type of setter method handles.
+	 */
+	private static final MethodType SETTER_TYPE = MethodType.methodType( void.class, Object.class, Object.class );
+
+	/**
+	 * Metadata per bean class.
+	 */
+	private static final ClassValue<BeanMetadata> METADATA = new ClassValue<BeanMetadata>()
+	{
+		@Override
+		protected BeanMetadata computeValue( final Class<?> type )
+		{
+			return new BeanMetadata( type );
+		}
+	};
+
+	/**
+	 * Placeholder for properties that were not found by {@link
+	 * #getBeanProperty}.
+	 */
+	private static final Property NO_PROPERTY = new Property( "", null, null );
+
+	/**
+	 * Bean class.
+	 */
+	@NotNull
+	private final Class<?> _beanClass;
+
+	/**
+	 * Properties by name, as used by {@link VelocityBeanContext}.
+	 */
+	@NotNull
+	private final Map<String, Property> _properties;
+
+	/**
+	 * Properties resolved by {@link #getBeanProperty}, by name.
+	 */
+	@NotNull
+	private final ConcurrentMap<String, Property> _beanProperties = new ConcurrentHashMap<String, Property>();
+
+	/**
+	 * Returns metadata for the given bean class.
+	 *
+	 * @param beanClass Bean class.
+	 *
+	 * @return Metadata for the bean class.
+	 */
+	@NotNull
+	static BeanMetadata getFor( @NotNull final Class<?> beanClass )
+	{
+		return METADATA.get( beanClass );
+	}
+
+	/**
+	 * Inspects the given bean class.
+	 *
+	 * Properties consist of getters ('getXxx()' or 'isXxx()' methods with
+	 * matching 'setXxx(value)' setters if available) and public instance
+	 * fields that are not hidden by a getter.
+	 *
+	 * @param beanClass Bean class.
+	 */
+	private BeanMetadata( @NotNull final Class<?> beanClass )
+	{
+		_beanClass = beanClass;
+
+		final Map<String, Method> getters = new HashMap<String, Method>();
+		final Map<String, Method> setters = new HashMap<String, Method>();
+
+		for ( final Method method : beanClass.getMethods() )
+		{
+			final int modifiers = method.getModifiers();
+			final String name = method.getName();
+			final int parameterCount = method.getParameterTypes().length;
+
+			if ( !Modifier.isStatic( modifiers ) && ( name.length() > 2 ) )
+			{
+				if ( parameterCount == 0 )
+				{
+					if ( ( name.length() > 3 ) && name.startsWith( "get" ) )
+					{
+						getters.put( TextTools.decapitalize( name.substring( 3 ) ), method );
+					}
+					else if ( name.startsWith( "is" ) )
+					{
+						getters.put( TextTools.decapitalize( name.substring( 2 ) ), method );
+					}
+				}
+				else if ( parameterCount == 1 )
+				{
+					if ( ( name.length() > 3 ) && name.startsWith( "set" ) )
+					{
+						setters.put( TextTools.decapitalize( name.substring( 3 ) ), method );
+					}
+				}
+			}
+		}
+
+		final Map<String, Property> properties = new HashMap<String, Property>();
+
+		for ( final Map.Entry<String, Method> entry : getters.entrySet() )
+		{
+			final String name = entry.getKey();
+			final Method setter = setters.get( name );
+			properties.put( name, new Property( name, unreflectGetter( entry.getValue() ), ( setter != null ) ? unreflectSetter( setter ) : null ) );
+		}
+
+		for ( final Field field : beanClass.getFields() )
+		{
+			final int modifiers = field.getModifiers();
+			if ( !Modifier.isStatic( modifiers ) )
+			{
+				final String name = field.getName();
+				if ( !properties.containsKey( name ) )
+				{
+					properties.put( name, createProperty( field ) );
+				}
+			}
+		}
+
+		_properties = Collections.unmodifiableMap( properties );
+	}
+
+	/**
+	 * Returns the bean class.
+	 *
+	 * @return Bean class.
+	 */
+	@NotNull
+	Class<?> getBeanClass()
+	{
+		return _beanClass;
+	}
+
+	/**
+	 * Returns the names of all properties.
+	 *
+	 * @return Property names.
+	 */
+	@NotNull
+	Set<String> getPropertyNames()
+	{
+		return _properties.keySet();
+	}
+
+	/**
+	 * Returns the property with the given name.
+	 *
+	 * @param name Name of the property.
+	 *
+	 * @return Property; {@code null} if the property doesn't exist.
+	 */
+	@Nullable
+	Property getProperty( @Nullable final String name )
+	{
+		return _properties.get( name );
+	}
+
+	/**
+	 * Returns the property with the given name, using a getter as defined by
+	 * {@link BeanTools#getGetter} or else a public instance field. The result
+	 * is cached.
+	 *
+	 * @param name Name of the property.
+	 *
+	 * @return Read-only property; {@code null} if the property doesn't exist.
+	 */
+	@Nullable
+	Property getBeanProperty( @NotNull final String name )
+	{
+		Property result = _beanProperties.get( name );
+		if ( result == null )
+		{
+			result = NO_PROPERTY;
+
+			final Method getter = BeanTools.getGetter( _beanClass, name );
+			if ( getter != null )
+			{
+				result = new Property( name, unreflectGetter( getter ), null );
+			}
+			else
+			{
+				final Field field = BeanTools.getField( _beanClass, name );
+				if ( field != null )
+				{
+					result = createProperty( field );
+				}
+			}
+
+			final Property existing = _beanProperties.putIfAbsent( name, result );
+			if ( existing != null )
+			{
+				result = existing;
+			}
+		}
+
+		return ( result != NO_PROPERTY ) ? result : null;
+	}
+
+	/**
+	 * Creates a property for the given field.
+	 *
+	 * @param field Field.
+	 *
+	 * @return Property.
+	 */
+	@NotNull
+	private static Property createProperty( @NotNull final Field field )
+	{
+		MethodHandle getter;
+		try
+		{
+			getter = MethodHandles.publicLookup().unreflectGetter( field ).asType( GETTER_TYPE );
+		}
+		catch ( final IllegalAccessException e )
+		{
+			getter = createFailure( e, GETTER_TYPE );
+		}
+
+		MethodHandle setter;
+		try
+		{
+			setter = MethodHandles.publicLookup().unreflectSetter( field ).asType( SETTER_TYPE );
+		}
+		catch ( final IllegalAccessException e )
+		{
+			setter = createFailure( e, SETTER_TYPE );
+		}
+
+		return new Property( field.getName(), getter, setter );
+	}
+
+	/**
+	 * Returns a method handle for the given getter method.
+	 *
+	 * @param method Getter method.
+	 *
+	 * @return Method handle of type {@link #GETTER_TYPE}.
+	 */
+	@NotNull
+	private static MethodHandle unreflectGetter( @NotNull final Method method )
+	{
+		MethodHandle result;
+		try
+		{
+			result = MethodHandles.publicLookup().unreflect( method ).asType( GETTER_TYPE );
+		}
+		catch ( final IllegalAccessException e )
+		{
+			result = createFailure( e, GETTER_TYPE );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a method handle for the given setter method.
+	 *
+	 * @param method Setter method.
+	 *
+	 * @return Method handle of type {@link #SETTER_TYPE}.
+	 */
+	@NotNull
+	private static MethodHandle unreflectSetter( @NotNull final Method method )
+	{
+		MethodHandle result;
+		try
+		{
+			result = MethodHandles.publicLookup().unreflect( method ).asType( SETTER_TYPE );
+		}
+		catch ( final IllegalAccessException e )
+		{
+			result = createFailure( e, SETTER_TYPE );
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a method handle that throws the given exception. This is used
+	 * for members that are not accessible, so the error is reported when the
+	 * property is accessed, not when the class is inspected.
+	 *
+	 * @param exception Exception to throw.
+	 * @param type      Type of the method handle.
+	 *
+	 * @return Method handle.
+	 */
+	@NotNull
+	private static MethodHandle createFailure( @NotNull final IllegalAccessException exception, @NotNull final MethodType type )
+	{
+		final MethodHandle thrower = MethodHandles.insertArguments( MethodHandles.throwException( type.returnType(), IllegalAccessException.class ), 0, exception );
+		return MethodHandles.dropArguments( thrower, 0, type.parameterList() );
+	}
+
+	/**
+	 * Bean property.
+	 */
+	static final class Property
+	{
+		/**
+		 * Name of the property.
+		 */
+		@NotNull
+		private final String _name;
+
+		/**
+		 * Getter of type {@link #GETTER_TYPE}.
+		 */
+		private final MethodHandle _getter;
+
+		/**
+		 * Setter of type {@link #SETTER_TYPE}; {@code null} if the property is
+		 * read-only.
+		 */
+		@Nullable
+		private final MethodHandle _setter;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param name   Name of the property.
+		 * @param getter Getter.
+		 * @param setter Setter; {@code null} if the property is read-only.
+		 */
+		private Property( @NotNull final String name, final MethodHandle getter, @Nullable final MethodHandle setter )
+		{
+			_name = name;
+			_getter = getter;
+			_setter = setter;
+		}
+
+		/**
+		 * Gets the value of the property.
+		 *
+		 * @param bean Bean to get the value from.
+		 *
+		 * @return Property value.
+		 *
+		 * @throws IllegalArgumentException if the value can't be retrieved.
+		 */
+		@Nullable
+		Object get( @NotNull final Object bean )
+		{
+			try
+			{
+				return (Object)_getter.invokeExact( bean );
+			}
+			catch ( final IllegalAccessException e )
+			{
+				throw new IllegalArgumentException( '\'' + _name + "' not accessible", e );
+			}
+			catch ( final Throwable e )
+			{
+				throw new IllegalArgumentException( "Getting '" + _name + "' caused an internal error", e );
+			}
+		}
+
+		/**
+		 * Sets the value of the property.
+		 *
+		 * @param bean  Bean to set the value of.
+		 * @param value Value to set.
+		 *
+		 * @throws IllegalArgumentException if the value can't be set.
+		 */
+		void set( @NotNull final Object bean, @Nullable final Object value )
+		{
+			final MethodHandle setter = _setter;
+			if ( setter == null )
+			{
+				throw new IllegalArgumentException( "Trying to set read-only property '" + _name + "' in " + bean + " to " + value );
+			}
+
+			try
+			{
+				setter.invokeExact( bean, value );
+			}
+			catch ( final IllegalAccessException e )
+			{
+				throw new IllegalArgumentException( '\'' + _name + "' not accessible", e );
+			}
+			catch ( final Throwable e )
+			{
+				throw new IllegalArgumentException( "Setting '" + _name + "' caused an internal error", e );
+			}
+		}
+	}
+}
@@ -26,10 +26,8 @@
  */
 package com.numdata.oss.velocity;
 
-import java.lang.reflect.*;
 import java.util.*;
 
-import com.numdata.oss.*;
 import org.apache.velocity.context.*;
 import org.jetbrains.annotations.*;
 
@@ -50,30 +48,11 @@ implements Context
 	private Object _bean = null;
 
 	/**
-	 * Bean we're caching data for. If a bean of another class is set, this
-	 * will get updated and the cached reflection objects will be cleared.
+	 * Metadata for the class of the current bean. If a bean of another class
+	 * is set, this will get updated.
 	 */
-	private Class<?> _beanClass = null;
-
-	/**
-	 * Cached property getters for the current bean class.
-	 */
-	private final Map<String, Method> _getters = new HashMap<>();
-
-	/**
-	 * Cached property setters for the current bean class.
-	 */
-	private final Map<String, Method> _setters = new HashMap<>();
-
-	/**
-	 * Cached fields for the current bean class.
-	 */
-	private final Map<String, Field> _fields = new HashMap<>();
-
-	/**
-	 * Cached bean property names.
-	 */
-	private final Set<String> _beanPropertyNames = new HashSet<>();
+	@Nullable
+	private BeanMetadata _metadata = null;
 
 	/**
 	 * Variables that are automatically created by the velocity template.
@@ -109,76 +88,40 @@ implements Context
 
 	/**
 	 * Internal method to inspect the current bean properties.
+	 *
+	 * @return Metadata for the current bean; {@code null} if no bean is set.
 	 */
-	private void inspectBean()
+	@Nullable
+	private BeanMetadata inspectBean()
 	{
 		final Object bean = _bean;
+		BeanMetadata result = _metadata;
 
-		final Class<?> beanClass = ( bean != null ) ? bean.getClass() : null;
-		if ( beanClass != _beanClass )
+		if ( bean == null )
 		{
-			final Map<String, Method> getters = _getters;
-			final Map<String, Method> setters = _setters;
-			final Map<String, Field> fields = _fields;
-			final Set<String> beanPropertyNames = _beanPropertyNames;
-
-			getters.clear();
-			setters.clear();
-			fields.clear();
-
-			if ( beanClass != null )
-			{
-				_beanClass = beanClass;
-
-				for ( final Method method : beanClass.getMethods() )
-				{
-					final int modifiers = method.getModifiers();
-					final String name = method.getName();
-					final Class<?>[] parameterTypes = method.getParameterTypes();
-
-					if ( !Modifier.isStatic( modifiers ) && ( name.length() > 2 ) )
-					{
-						if ( parameterTypes.length == 0 )
-						{
-							if ( ( name.length() > 3 ) && name.startsWith( "get" ) )
-							{
-								getters.put( TextTools.decapitalize( name.substring( 3 ) ), method );
-							}
-							else if ( name.startsWith( "is" ) )
-							{
-								getters.put( TextTools.decapitalize( name.substring( 2 ) ), method );
-							}
-						}
-						else if ( parameterTypes.length == 1 )
-						{
-							if ( ( name.length() > 3 ) && name.startsWith( "set" ) )
-							{
-								setters.put( TextTools.decapitalize( name.substring( 3 ) ), method );
-							}
-						}
-					}
-				}
-
-				final Set<String> setterNames = setters.keySet();
-				setterNames.retainAll( getters.keySet() );
+			result = null;
+		}
+		else if ( ( result == null ) || ( result.getBeanClass() != bean.getClass() ) )
+		{
+			result = BeanMetadata.getFor( bean.getClass() );
+			_metadata = result;
+		}
 
-				beanPropertyNames.clear();
-				beanPropertyNames.addAll( getters.keySet() );
+		return result;
+	}
 
-				for ( final Field field : beanClass.getFields() )
-				{
-					final int modifiers = field.getModifiers();
-					if ( !Modifier.isStatic( modifiers ) )
-					{
-						final String name = field.getName();
-						if ( beanPropertyNames.add( name ) )
-						{
-							fields.put( name, field );
-						}
-					}
-				}
-			}
-		}
+	/**
+	 * Returns the bean property with the given name.
+	 *
+	 * @param key Name of the property.
+	 *
+	 * @return Bean property; {@code null} if the bean has no such property.
+	 */
+	@Nullable
+	private BeanMetadata.Property getBeanProperty( final String key )
+	{
+		final BeanMetadata metadata = inspectBean();
+		return ( metadata != null ) ? metadata.getProperty( key ) : null;
 	}
 
 	@Nullable
@@ -193,45 +136,8 @@ implements Context
 		}
 		else
 		{
-			inspectBean();
-
-			if ( _beanPropertyNames.contains( key ) )
-			{
-				final Object bean = _bean;
-
-				try
-				{
-					final Method getter = _getters.get( key );
-					if ( getter != null )
-					{
-						result = getter.invoke( bean );
-					}
-					else
-					{
-						final Field field = _fields.get( key );
-						if ( field != null )
-						{
-							result = field.get( bean );
-						}
-						else
-						{
-							throw new AssertionError( "No getter or field for known property '" + key + "' in " + bean );
-						}
-					}
-				}
-				catch ( final IllegalAccessException e )
-				{
-					throw new IllegalArgumentException( '\'' + key + "' not accessible", e );
-				}
-				catch ( final InvocationTargetException e )
-				{
-					throw new IllegalArgumentException( "Getting '" + key + "' caused an internal error", e );
-				}
-			}
-			else
-			{
-				result = _variables.get( key );
-			}
+			final BeanMetadata.Property property = getBeanProperty( key );
+			result = ( property != null ) ? property.get( _bean ) : _variables.get( key );
 		}
 
 		return result;
@@ -244,8 +150,7 @@ implements Context
 
 		if ( !result && ( key != null ) )
 		{
-			inspectBean();
-			result = _beanPropertyNames.contains( key );
+			result = ( getBeanProperty( key ) != null );
 		}
 
 		return result;
@@ -256,47 +161,12 @@ implements Context
 	{
 		final Object result;
 
-		inspectBean();
-		if ( _beanPropertyNames.contains( key ) )
+		final BeanMetadata.Property property = getBeanProperty( key );
+		if ( property != null )
 		{
 			final Object bean = _bean;
-
-			try
-			{
-				final Method getter = _getters.get( key );
-				if ( getter != null )
-				{
-					final Method setter = _setters.get( key );
-					if ( setter == null )
-					{
-						throw new IllegalArgumentException( "Trying to set read-only property '" + key + "' in " + bean + " to " + value );
-					}
-
-					result = getter.invoke( bean );
-					setter.invoke( bean, value );
-				}
-				else
-				{
-					final Field field = _fields.get( key );
-					if ( field != null )
-					{
-						result = field.get( bean );
-						field.set( bean, value );
-					}
-					else
-					{
-						throw new AssertionError( "No getter or field for known property '" + key + "' in " + bean );
-					}
-				}
-			}
-			catch ( final IllegalAccessException e )
-			{
-				throw new IllegalArgumentException( '\'' + key + "' not accessible", e );
-			}
-			catch ( final InvocationTargetException e )
-			{
-				throw new IllegalArgumentException( "Getting '" + key + "' caused an internal error", e );
-			}
+			result = property.get( bean );
+			property.set( bean, value );
 		}
 		else
 		{
@@ -309,10 +179,13 @@ implements Context
 	@Override
 	public String[] getKeys()
 	{
-		inspectBean();
+		final BeanMetadata metadata = inspectBean();
 
 		final HashSet<String> result = new HashSet<>();
-		result.addAll( _beanPropertyNames );
+		if ( metadata != null )
+		{
+			result.addAll( metadata.getPropertyNames() );
+		}
 		result.addAll( _variables.keySet() );
 		return result.toArray( new String[ 0 ] );
 	}
@@ -327,7 +200,7 @@ implements Context
 		{
 			result = _variables.remove( key );
 		}
-		else if ( _beanPropertyNames.contains( key ) )
+		else if ( getBeanProperty( key ) != null )
 		{
 			throw new IllegalArgumentException( "Can't remove bean property '" + key + '\'' );
 		}
@@ -26,9 +26,6 @@
  */
 package com.numdata.oss.velocity;
 
-import java.lang.reflect.*;
-
-import com.numdata.oss.*;
 import org.jetbrains.annotations.*;
 
 /**
@@ -71,20 +68,10 @@ public class VelocityFieldAccessor
 		final Object object = _object;
 		if ( ( object != null ) && ( name != null ) )
 		{
-			final Class<?> clazz = object.getClass();
-
-			final Method getter = BeanTools.getGetter( clazz, name );
-			if ( getter != null )
-			{
-				result = BeanTools.getValue( getter, object );
-			}
-			else
+			final BeanMetadata.Property property = BeanMetadata.getFor( object.getClass() ).getBeanProperty( name );
+			if ( property != null )
 			{
-				final Field field = BeanTools.getField( clazz, name );
-				if ( field != null )
-				{
-					result = BeanTools.getValue( field, object );
-				}
+				result = property.get( object );
 			}
 		}
 
@@ -32,9 +32,11 @@ import java.util.regex.*;
 
 import com.numdata.oss.*;
 import com.numdata.oss.log.*;
+import org.apache.velocity.*;
 import org.apache.velocity.context.*;
 import org.apache.velocity.exception.*;
 import org.apache.velocity.runtime.*;
+import org.apache.velocity.runtime.parser.*;
 import org.apache.velocity.tools.*;
 import org.apache.velocity.tools.generic.*;
 import org.jetbrains.annotations.*;
@@ -61,6 +63,18 @@ public class VelocityTools
 	 */
 	private static final Pattern END_OF_LINE = Pattern.compile( "\r\n|\r|\n" );
 
+	/**
+	 * Maximum total length of the template texts in a template cache.
+	 */
+	private static final long TEMPLATE_CACHE_MAXIMUM_LENGTH = 1000000L;
+
+	/**
+	 * Application attribute of a Velocity runtime that holds the cache of
+	 * parsed templates used by {@link #evaluate}. The cache is stored on the
+	 * runtime, so it doesn't keep the runtime (and its class loader) alive.
+	 */
+	private static final String TEMPLATE_CACHE_ATTRIBUTE = VelocityTools.class.getName() + ".templateCache";
+
 	/**
 	 * Shared engine instance. Created on-demand by {@link
 	 * #getSharedRuntime()}.
@@ -163,9 +177,72 @@ public class VelocityTools
 		return evaluate( input, getSharedRuntime(), context, logTag );
 	}
 
+	/**
+	 * Returns the cache of parsed templates used by {@link #evaluate} for the
+	 * given runtime, creating it if needed.
+	 *
+	 * @param runtime Velocity runtime.
+	 *
+	 * @return Template cache.
+	 */
+	@NotNull
+	private static ConcurrentCache<TemplateKey, CachedTemplate> getTemplateCache( @NotNull final RuntimeServices runtime )
+	{
+		synchronized ( runtime )
+		{
+			@SuppressWarnings( "unchecked" )
+			ConcurrentCache<TemplateKey, CachedTemplate> result = (ConcurrentCache<TemplateKey, CachedTemplate>)runtime.getApplicationAttribute( TEMPLATE_CACHE_ATTRIBUTE );
+			if ( result == null )
+			{
+				result = new ConcurrentCache<TemplateKey, CachedTemplate>();
+				result.setMaximumWeight( TEMPLATE_CACHE_MAXIMUM_LENGTH, new Cache.Weigher<TemplateKey, CachedTemplate>()
+				{
+					@Override
+					public int weigh( final TemplateKey key, final CachedTemplate value )
+					{
+						return key._input.length();
+					}
+				} );
+				runtime.setApplicationAttribute( TEMPLATE_CACHE_ATTRIBUTE, result );
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Returns statistics about the cache of parsed templates used by {@link
+	 * #evaluate} for the given runtime.
+	 *
+	 * @param runtime Velocity runtime.
+	 *
+	 * @return Template cache statistics.
+	 */
+	@NotNull
+	public static CacheStatistics getTemplateCacheStatistics( @NotNull final RuntimeServices runtime )
+	{
+		return getTemplateCache( runtime ).getStatistics();
+	}
+
+	/**
+	 * Removes all parsed templates from the cache used by {@link #evaluate}
+	 * for the given runtime.
+	 *
+	 * @param runtime Velocity runtime.
+	 */
+	public static void clearTemplateCache( @NotNull final RuntimeServices runtime )
+	{
+		getTemplateCache( runtime ).clear();
+	}
+
 	/**
 	 * Evaluate the input string using the given context using Velocity.
 	 *
+	 * The parsed template is cached on the runtime, keyed by the log tag and
+	 * input string, so evaluating the same input again only renders the
+	 * template. If the runtime provides an {@code $evaluate} or {@code
+	 * $template} scope, the input is evaluated without caching, so it keeps
+	 * its {@code $evaluate} scope.
+	 *
 	 * @param input   Input string containing the VTL to be rendered.
 	 * @param runtime Velocity runtime to use.
 	 * @param context Context to use in rendering input string.
@@ -181,10 +258,23 @@ public class VelocityTools
 
 		if ( ( result != null ) && !result.isEmpty() )
 		{
-			final StringWriter writer = new StringWriter();
+			final CachedTemplate template;
+			final StringWriter writer;
 			try
 			{
-				runtime.evaluate( context, writer, logTag, input );
+				if ( runtime.isScopeControlEnabled( "evaluate" ) || runtime.isScopeControlEnabled( "template" ) )
+				{
+					template = null;
+					writer = new StringWriter();
+					runtime.evaluate( context, writer, logTag, input );
+				}
+				else
+				{
+					template = getTemplateCache( runtime ).getOrLoad( new TemplateKey( logTag, input ), key -> parse( runtime, logTag, input ) );
+					//noinspection ConstantConditions
+					writer = new StringWriter( template._outputLength );
+					template._template.merge( ( context != null ) ? context : new VelocityContext(), writer );
+				}
 			}
 			catch ( final VelocityException e )
 			{
@@ -218,11 +308,131 @@ public class VelocityTools
 				throw e;
 			}
 			result = writer.toString();
+			if ( template != null )
+			{
+				template._outputLength = Math.max( 16, result.length() );
+			}
 		}
 
 		return result;
 	}
 
+	/**
+	 * Parses a template for {@link #evaluate}.
+	 *
+	 * @param runtime Velocity runtime to use.
+	 * @param logTag  Tag (template name) for log messages.
+	 * @param input   Input string containing the VTL to be parsed.
+	 *
+	 * @return Parsed template.
+	 *
+	 * @throws ParseErrorException if the template can't be parsed.
+	 */
+	@NotNull
+	private static CachedTemplate parse( @NotNull final RuntimeServices runtime, @NotNull final String logTag, @NotNull final String input )
+	{
+		final Template template = new Template();
+		template.setRuntimeServices( runtime );
+		template.setName( logTag );
+		try
+		{
+			template.setData( runtime.parse( new StringReader( input ), template ) );
+		}
+		catch ( final ParseException e )
+		{
+			throw new ParseErrorException( e, logTag );
+		}
+		template.initDocument();
+		return new CachedTemplate( template, input.length() );
+	}
+
+	/**
+	 * Key of a parsed template in a runtime's template cache.
+	 */
+	private static class TemplateKey
+	{
+		/**
+		 * Tag (template name) for log messages.
+		 */
+		@NotNull
+		private final String _logTag;
+
+		/**
+		 * Input string containing the VTL.
+		 */
+		@NotNull
+		private final String _input;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param logTag Tag (template name) for log messages.
+		 * @param input  Input string containing the VTL.
+		 */
+		private TemplateKey( @NotNull final String logTag, @NotNull final String input )
+		{
+			_logTag = logTag;
+			_input = input;
+		}
+
+		@Override
+		public boolean equals( final Object obj )
+		{
+			final boolean result;
+			if ( obj == this )
+			{
+				result = true;
+			}
+			else if ( obj instanceof TemplateKey )
+			{
+				final TemplateKey other = (TemplateKey)obj;
+				result = _logTag.equals( other._logTag ) && _input.equals( other._input );
+			}
+			else
+			{
+				result = false;
+			}
+			return result;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return _input.hashCode() * 31 + _logTag.hashCode();
+		}
+	}
+
+	/**
+	 * Parsed template in a runtime's template cache. The template may be rendered
+	 * by multiple threads concurrently.
+	 */
+	private static class CachedTemplate
+	{
+		/**
+		 * Parsed template.
+		 */
+		@NotNull
+		private final Template _template;
+
+		/**
+		 * Length of the last output of the template, used to presize the
+		 * output buffer.
+		 */
+		private volatile int _outputLength;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param template     Parsed template.
+		 * @param outputLength Estimated output length.
+		 */
+		private CachedTemplate( @NotNull final Template template, final int outputLength )
+		{
+			_template = template;
+			_outputLength = outputLength;
+		}
+	}
+
 	/**
 	 * Evaluates a boolean expression using the given context using Velocity. If
 	 * the boolean expression is {@code null} or empty it evaluates to {@code
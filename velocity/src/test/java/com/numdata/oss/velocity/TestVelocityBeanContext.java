@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2026, Numdata BV, The Netherlands.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Numdata nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NUMDATA BV BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.numdata.oss.velocity;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+/**
+ * Unit test for {@link VelocityBeanContext} and {@link VelocityFieldAccessor}.
+ */
+public class TestVelocityBeanContext
+{
+	/**
+	 * Tests {@link VelocityBeanContext}.
+	 */
+	@Test
+	public void testBeanContext()
+	{
+		final String where = getClass().getName() + ".testBeanContext()";
+		System.out.println( where );
+
+		final Bean bean = new Bean();
+		final VelocityBeanContext context = new VelocityBeanContext( bean );
+
+		assertEquals( "Unexpected keys.", new HashSet<String>( Arrays.asList( "name", "active", "count", "readOnly", "failure", "class" ) ), new HashSet<String>( Arrays.asList( context.getKeys() ) ) );
+		assertTrue( "Missing bean property.", context.containsKey( "name" ) );
+		assertFalse( "Unexpected key.", context.containsKey( "unknown" ) );
+
+		assertEquals( "Unexpected old value.", "initial", context.put( "name", "changed" ) );
+		assertEquals( "Setter not used.", "changed", bean.getName() );
+		assertEquals( "Unexpected value.", "changed", context.get( "name" ) );
+		assertEquals( "Unexpected value.", Boolean.TRUE, context.get( "active" ) );
+
+		assertEquals( "Unexpected old value.", 1, context.put( "count", 2 ) );
+		assertEquals( "Field not set.", 2, bean.count );
+
+		try
+		{
+			context.put( "readOnly", "x" );
+			fail( "Expected exception for read-only property." );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			/* expected */
+		}
+
+		try
+		{
+			context.remove( "name" );
+			fail( "Expected exception for removing bean property." );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			/* expected */
+		}
+
+		assertNull( "Unexpected old value.", context.put( "variable", "value" ) );
+		assertEquals( "Unexpected value.", "value", context.get( "variable" ) );
+		assertEquals( "Unexpected removed value.", "value", context.remove( "variable" ) );
+		assertNull( "Literal should not be resolved.", context.get( ".literal.$name" ) );
+
+		context.setBean( "text" );
+		assertFalse( "Property of previous bean.", context.containsKey( "name" ) );
+		assertTrue( "Missing bean property.", context.containsKey( "bytes" ) );
+
+		context.setBean( null );
+		assertFalse( "Property of previous bean.", context.containsKey( "bytes" ) );
+		assertEquals( "Unexpected keys.", 0, context.getKeys().length );
+
+		final VelocityBeanContext other = new VelocityBeanContext( new Bean() );
+		assertEquals( "Unexpected value.", "initial", other.get( "name" ) );
+		assertSame( "Metadata should be shared.", BeanMetadata.getFor( Bean.class ), BeanMetadata.getFor( Bean.class ) );
+	}
+
+	/**
+	 * Tests {@link VelocityFieldAccessor}.
+	 */
+	@Test
+	public void testFieldAccessor()
+	{
+		final String where = getClass().getName() + ".testFieldAccessor()";
+		System.out.println( where );
+
+		final VelocityFieldAccessor accessor = new VelocityFieldAccessor( new Bean() );
+		assertEquals( "Unexpected getter value.", "initial", accessor.get( "name" ) );
+		assertEquals( "Unexpected field value.", 1, accessor.get( "count" ) );
+		assertNull( "Unexpected value.", accessor.get( "unknown" ) );
+		assertNull( "Unexpected value.", accessor.get( "unknown" ) );
+		assertNull( "Unexpected value.", accessor.get( null ) );
+		assertNull( "Unexpected value.", new VelocityFieldAccessor( null ).get( "name" ) );
+
+		try
+		{
+			new VelocityFieldAccessor( new Bean() ).get( "failure" );
+			fail( "Expected exception from getter." );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			assertTrue( "Unexpected cause: " + e.getCause(), e.getCause() instanceof UnsupportedOperationException );
+		}
+	}
+
+	/**
+	 * Bean used for testing.
+	 */
+	public static class Bean
+	{
+		/**
+		 * Public field.
+		 */
+		public int count = 1;
+
+		/**
+		 * Name.
+		 */
+		private String _name = "initial";
+
+		public String getName()
+		{
+			return _name;
+		}
+
+		public void setName( final String name )
+		{
+			_name = name;
+		}
+
+		public boolean isActive()
+		{
+			return true;
+		}
+
+		public String getReadOnly()
+		{
+			return "read-only";
+		}
+
+		public String getFailure()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -30,8 +30,11 @@ package com.numdata.oss.velocity;
 import java.util.*;
 import java.util.regex.*;
 
+import com.numdata.oss.*;
 import static java.util.Collections.*;
 import org.apache.velocity.*;
+import org.apache.velocity.exception.*;
+import org.apache.velocity.runtime.*;
 import org.jetbrains.annotations.*;
 import static org.junit.Assert.*;
 import org.junit.*;
@@ -49,6 +52,74 @@ public class TestVelocityTools
 	 */
 	private static final String ESCAPED_VALUE = "ignoreEscapedValue";
 
+	/**
+	 * Tests {@link VelocityTools#evaluate}, including reuse of parsed
+	 * templates.
+	 */
+	@Test
+	public void evaluate()
+	{
+		final String where = getClass().getName() + ".evaluate()";
+		System.out.println( where );
+
+		final String template = "Hello ${name}!#if( $count > 1 ) x$count#end";
+
+		final VelocityContext context = new VelocityContext();
+		context.put( "name", "world" );
+		context.put( "count", 1 );
+
+		final CacheStatistics before = VelocityTools.getTemplateCacheStatistics( VelocityTools.getSharedRuntime() );
+		assertEquals( "Unexpected output.", "Hello world!", VelocityTools.evaluate( template, context, where ) );
+
+		context.put( "name", "again" );
+		context.put( "count", 3 );
+		assertEquals( "Unexpected output.", "Hello again! x3", VelocityTools.evaluate( template, context, where ) );
+
+		final CacheStatistics after = VelocityTools.getTemplateCacheStatistics( VelocityTools.getSharedRuntime() );
+		assertEquals( "Unexpected number of misses.", 1, after.getMissCount() - before.getMissCount() );
+		assertEquals( "Unexpected number of hits.", 1, after.getHitCount() - before.getHitCount() );
+
+		assertNull( "Null input should give null output.", VelocityTools.evaluate( null, context, where ) );
+		assertEquals( "Empty input should give empty output.", "", VelocityTools.evaluate( "", context, where ) );
+		assertEquals( "Context should be optional.", "plain", VelocityTools.evaluate( "plain", null, where ) );
+
+		try
+		{
+			VelocityTools.evaluate( "line 1\nline 2 #if(\nline 3", context, where );
+			fail( "Expected exception for syntax error." );
+		}
+		catch ( final VelocityException e )
+		{
+			assertTrue( "Message should include context lines, but was: " + e.getMessage(), e.getMessage().contains( "2: line 2 #if(" ) );
+		}
+
+		VelocityTools.clearTemplateCache( VelocityTools.getSharedRuntime() );
+		assertEquals( "Unexpected output after clear.", "Hello again! x3", VelocityTools.evaluate( template, context, where ) );
+	}
+
+	/**
+	 * Tests that {@link VelocityTools#evaluate} still provides the {@code
+	 * $evaluate} scope if the runtime is configured to do so.
+	 */
+	@Test
+	public void evaluateScope()
+	{
+		final String where = getClass().getName() + ".evaluateScope()";
+		System.out.println( where );
+
+		final RuntimeInstance runtime = new RuntimeInstance();
+		runtime.setProperty( "context.scope_control.evaluate", "true" );
+		runtime.init();
+
+		final CacheStatistics before = VelocityTools.getTemplateCacheStatistics( runtime );
+		assertEquals( "Unexpected output.", "a", VelocityTools.evaluate( "a$evaluate.stop()b", runtime, new VelocityContext(), where ) );
+		assertEquals( "Unexpected output.", "a", VelocityTools.evaluate( "a$evaluate.stop()b", runtime, new VelocityContext(), where ) );
+		final CacheStatistics after = VelocityTools.getTemplateCacheStatistics( runtime );
+		assertEquals( "Template should not be cached.", before.getRequestCount(), after.getRequestCount() );
+
+		assertEquals( "Unexpected output without scope.", "a$evaluate.stop()b", VelocityTools.evaluate( "a$evaluate.stop()b", new VelocityContext(), where ) );
+	}
+
 	/**
 	 * Tests {@link VelocityTools#createPattern}.
 	 */